@@ -47,11 +47,17 @@ public class ClientGame {
 	}
 	
 	/**
-	 * Starts Polling
+	 * Starts Polling. When connected to a server the model is streamed instead, or
+	 * long-polled if the catan.client.poll system property is set.
 	 */
 	static public void startPolling()
 	{
-		poller.beginPolling();
+		if (proxy == null)
+			poller.beginPolling();
+		else if (Boolean.getBoolean("catan.client.poll"))
+			poller.beginLongPolling(proxy);
+		else
+			poller.beginStreaming(proxy);
 	}
 	
 	/**
@@ -1165,6 +1165,17 @@ public class ClientGameManager extends GameManager implements ModelSubject
 		this.refreshCount++;
 	}
 	
+	/**
+	 * Refreshes the game from a model pushed by the server's model stream
+	 * @param model the new model
+	 * @throws ModelException
+	 */
+	public void RefreshFromModel(GameModel model) throws ModelException
+	{
+		this.reloadGame(model);
+		this.refreshCount++;
+	}
+	
 	public void ForceRefreshFromServer() throws ModelException
 	{
 
@@ -16,6 +16,8 @@ import java.util.List;
 import java.util.Scanner;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import com.google.gson.reflect.TypeToken;
 
 import shared.data.GameInfo;
@@ -25,6 +27,7 @@ import shared.definitions.ResourceType;
 import shared.model.GameModel;
 import shared.model.Player;
 import shared.model.map.Coordinate;
+import shared.networking.ModelPatch;
 import shared.networking.SerializationUtils;
 import shared.networking.cookie.NetworkCookie;
 import shared.networking.cookie.UserCookie;
@@ -40,6 +43,7 @@ import shared.networking.parameter.PGetModel;
 import shared.networking.parameter.PJoinGame;
 import shared.networking.parameter.PMaritimeTrade;
 import shared.networking.parameter.PMonopolyCard;
+import shared.networking.parameter.PMonumentCard;
 import shared.networking.parameter.POfferTrade;
 import shared.networking.parameter.PRoadBuildingCard;
 import shared.networking.parameter.PRobPlayer;
@@ -64,6 +68,9 @@ public class GSONServerProxy implements ServerProxy
 	private final String HTTP_POST = "POST";
 	private int userIndex;
 	private String userName;
+	private JsonObject lastModel;
+	private int lastVersion;
+	private volatile HttpURLConnection streamConnection;
 	
 	/**
 	 * Default constructor. Sets up connection with the server with default
@@ -78,6 +85,8 @@ public class GSONServerProxy implements ServerProxy
 		gameID = -1;
 		userIndex = -1;
 		userName = null;
+		lastModel = null;
+		lastVersion = -1;
 	}
 	
 	/**
@@ -238,6 +247,19 @@ public class GSONServerProxy implements ServerProxy
 	 */
 	@Override
 	public GameModel getGameModel(int version) throws ServerProxyException
+	{
+		return getGameModel(version, 0);
+	}
+	
+	/**
+	 * Retrieves the game model from the server, letting the server hold the request until
+	 * there is a newer version
+	 * @param version the current version of the model in the client
+	 * @param wait how long the server may wait for a newer version, in milliseconds
+	 * @return the new model, or null if there still isn't one
+	 * @throws ServerProxyException if something goes wrong
+	 */
+	public GameModel getGameModel(int version, int wait) throws ServerProxyException
 	{
 		if(userCookie == null)
 		{
@@ -250,9 +272,9 @@ public class GSONServerProxy implements ServerProxy
 					+ "Details: Game ID not valid");
 		}
 		
-		//send the request to the server		
+		//send the request to the server, asking for a patch if we still have that version
 		String urlPath = "/game/model";
-		PGetModel obj = new PGetModel(version);
+		PGetModel obj = new PGetModel(version, wait, canPatch(version));
 		String data = SerializationUtils.serialize(obj);
 		String result = doJSONPost(urlPath, data, false, false);
 		
@@ -261,8 +283,130 @@ public class GSONServerProxy implements ServerProxy
 			return null;
 		}
 		
+		GameModel gameModel = readGameModel(result);
+		if (gameModel == null)
+		{
+			//Couldn't apply the patch, so start over with a full model
+			return getGameModel(version, 0);
+		}
+		
+		return gameModel;
+	}
+	
+	/**
+	 * Subscribes to the server's model stream. Every model the server pushes is handed to
+	 * the listener until the stream is closed. This blocks the calling thread.
+	 * @param version the version the client already has
+	 * @param listener receives each new model
+	 * @throws ServerProxyException if the stream can't be opened or drops
+	 */
+	public void streamGameModel(int version, ModelListener listener) throws ServerProxyException
+	{
+		if(userCookie == null || gameID < 0)
+		{
+			throw new ServerProxyException("You must be a part of a game before streaming the game model!");
+		}
+		
+		HttpURLConnection connection = null;
+		try
+		{
+			URL url = new URL(URL_PREFIX + "/game/stream");
+			connection = (HttpURLConnection) url.openConnection();
+			connection.setRequestMethod(HTTP_POST);
+			connection.setRequestProperty("Cookie", userCookie.getCookieText());
+			connection.setRequestProperty("Accept", "text/event-stream");
+			connection.setDoOutput(true);
+			connection.setReadTimeout(0);
+			streamConnection = connection;
+			connection.connect();
+			
+			OutputStreamWriter osw = new OutputStreamWriter(connection.getOutputStream(), "UTF-8");
+			osw.write(SerializationUtils.serialize(new PGetModel(version, 0, canPatch(version))));
+			osw.close();
+			
+			if(connection.getResponseCode() != HttpURLConnection.HTTP_OK)
+			{
+				throw new ServerProxyException("Unable to stream: " + connection.getResponseCode());
+			}
+			
+			BufferedReader br = new BufferedReader(new InputStreamReader(connection.getInputStream(), "utf-8"));
+			String line = null;
+			StringBuilder data = new StringBuilder();
+			while ((line = br.readLine()) != null)
+			{
+				if (line.startsWith("data:"))
+				{
+					data.append(line.substring(5).trim());
+				}
+				else if (line.isEmpty() && data.length() > 0)
+				{
+					//End of an event
+					GameModel gameModel = readGameModel(data.toString());
+					if (gameModel == null)
+						throw new ServerProxyException("Received a patch for a model we don't have");
+					
+					listener.ModelReceived(gameModel);
+					data.setLength(0);
+				}
+			}
+			br.close();
+		}
+		catch (IOException e)
+		{
+			if (streamConnection != null)
+				throw new ServerProxyException("Model stream dropped", e);
+		}
+		finally
+		{
+			streamConnection = null;
+			if (connection != null)
+				connection.disconnect();
+		}
+	}
+	
+	/**
+	 * Closes the model stream, if one is open.
+	 */
+	public void closeGameStream()
+	{
+		HttpURLConnection connection = streamConnection;
+		streamConnection = null;
+		
+		if (connection != null)
+			connection.disconnect();
+	}
+	
+	private synchronized boolean canPatch(int version)
+	{
+		return lastModel != null && lastVersion == version;
+	}
+	
+	/**
+	 * Reads a model or patch sent by the server. Patches are applied to the last model
+	 * received.
+	 * @param result the server's response
+	 * @return the game model, or null if the patch doesn't apply to the last model
+	 * @throws ServerProxyException if the user isn't in the model
+	 */
+	private synchronized GameModel readGameModel(String result) throws ServerProxyException
+	{
+		JsonObject json = new JsonParser().parse(result).getAsJsonObject();
+		if (ModelPatch.IsPatch(json))
+		{
+			if (lastModel == null || ModelPatch.GetBase(json) != lastVersion)
+			{
+				lastModel = null;
+				return null;
+			}
+			
+			ModelPatch.Apply(lastModel, json);
+			json = lastModel;
+		}
+		lastModel = json;
+		lastVersion = json.get("version").getAsInt();
+		
 		//parse the result into a GameModel
-		GameModel gameModel = SerializationUtils.deserialize(result, GameModel.class);
+		GameModel gameModel = SerializationUtils.deserialize(json, GameModel.class);
 			
 		
 		//get user number
@@ -589,7 +733,7 @@ public class GSONServerProxy implements ServerProxy
 		}
 		
 		String urlPath = "/moves/Monument";
-		String postData = "";
+		String postData = SerializationUtils.serialize(new PMonumentCard());
 		String result = doJSONPost(urlPath, postData, false, false);
 
 		GameModel ret = SerializationUtils.deserialize(result, GameModel.class);
@@ -853,6 +997,7 @@ public class GSONServerProxy implements ServerProxy
 					NetworkCookie temp = SerializationUtils.deserialize(gCookie, NetworkCookie.class);
 					gameID = temp.getGameID();
 					userCookie.setCookie(gCookie);
+					lastModel = null;
 				}
 				connection.disconnect();
 			}
@@ -971,6 +1116,7 @@ public class GSONServerProxy implements ServerProxy
 	public void clearCookies(){
 		userCookie = null;
 		gameID = -1;
+		lastModel = null;
 	}
 
 }
@@ -0,0 +1,15 @@
+package client.networking;
+
+import shared.model.GameModel;
+
+/**
+ * Receives the models pushed by the server's model stream.
+ */
+public interface ModelListener
+{
+	/**
+	 * Called each time the server pushes a new model.
+	 * @param model The new game model.
+	 */
+	public void ModelReceived(GameModel model);
+}
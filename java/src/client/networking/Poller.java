@@ -2,10 +2,13 @@ package client.networking;
 
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.logging.Logger;
 
+import javax.swing.SwingUtilities;
 import javax.swing.Timer;
 
 import client.model.ClientGame;
+import shared.model.GameModel;
 import shared.model.ModelException;
 
 /**
@@ -13,11 +16,17 @@ import shared.model.ModelException;
  * @author matthewcarlson
  *
  */
-public class Poller implements ActionListener 
+public class Poller implements ActionListener, ModelListener
 {
 	//Refresh every second and half
 	private final static int delay = 1700;
+	//How long the server may hold a long poll
+	private final static int wait = 20000;
+	private final static Logger log = Logger.getLogger(Poller.class.getName());
 	private Timer timer;
+	private GSONServerProxy streamProxy;
+	private volatile boolean streaming;
+	private volatile boolean longPolling;
 	
 	/**
 	 * Initializes the poller with a certain poll interval and uses the ServerProxy
@@ -51,6 +60,176 @@ public class Poller implements ActionListener
 	public void stopPolling()
 	{
 		timer.stop();
+		longPolling = false;
+		stopStreaming();
+	}
+	
+	/**
+	 * Long-polls the server instead of polling it on a timer. Each request asks the server
+	 * to hold it until there is a newer model, so changes arrive as they happen without a
+	 * request every interval. If the server can't be reached the poller falls back to
+	 * polling on the timer.
+	 * @param proxy The proxy to poll through.
+	 */
+	public void beginLongPolling(final GSONServerProxy proxy)
+	{
+		if (longPolling)
+			return;
+		
+		longPolling = true;
+		
+		Thread thread = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				LongPoll(proxy);
+			}
+		}, "model-poll");
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	/**
+	 * Subscribes to the server's model stream instead of polling. The server pushes each
+	 * new model as it happens. If the stream can't be opened the poller falls back to
+	 * polling; if an open stream drops it is reopened.
+	 * @param proxy The proxy to stream through.
+	 */
+	public void beginStreaming(final GSONServerProxy proxy)
+	{
+		if (streaming)
+			return;
+		
+		streaming = true;
+		streamProxy = proxy;
+		
+		Thread thread = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				Stream(proxy);
+			}
+		}, "model-stream");
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	/**
+	 * Closes the model stream, if one is open.
+	 */
+	public void stopStreaming()
+	{
+		streaming = false;
+		
+		if (streamProxy != null)
+			streamProxy.closeGameStream();
+	}
+	
+	private void Stream(GSONServerProxy proxy)
+	{
+		int failures = 0;
+		
+		while (streaming)
+		{
+			try
+			{
+				proxy.streamGameModel(ClientGame.getGame().GetVersion(), this);
+				failures = 0;
+			}
+			catch (ServerProxyException e)
+			{
+				failures++;
+				log.warning("Model stream dropped: " + e.getMessage());
+			}
+			
+			if (failures >= 3)
+			{
+				//The server isn't streaming, so go back to polling
+				streaming = false;
+				beginLongPolling(proxy);
+				return;
+			}
+			
+			try
+			{
+				Thread.sleep(delay);
+			}
+			catch (InterruptedException e)
+			{
+				return;
+			}
+		}
+	}
+	
+	private void LongPoll(GSONServerProxy proxy)
+	{
+		int failures = 0;
+		
+		while (longPolling)
+		{
+			long start = System.currentTimeMillis();
+			try
+			{
+				GameModel model = proxy.getGameModel(ClientGame.getGame().GetVersion(), wait);
+				failures = 0;
+				
+				if (model != null)
+				{
+					ModelReceived(model);
+					continue;
+				}
+			}
+			catch (ServerProxyException e)
+			{
+				failures++;
+				log.warning("Model poll failed: " + e.getMessage());
+			}
+			
+			if (failures >= 3)
+			{
+				//The server can't be reached this way, so go back to polling on the timer
+				longPolling = false;
+				timer.start();
+				return;
+			}
+			
+			//A server that doesn't hold requests is polled no faster than the timer would
+			long left = delay - (System.currentTimeMillis() - start);
+			if (left > 0)
+			{
+				try
+				{
+					Thread.sleep(left);
+				}
+				catch (InterruptedException e)
+				{
+					return;
+				}
+			}
+		}
+	}
+	
+	@Override
+	public void ModelReceived(final GameModel model)
+	{
+		//The game is only touched from the Swing thread
+		SwingUtilities.invokeLater(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					ClientGame.getGame().RefreshFromModel(model);
+				}
+				catch (ModelException e)
+				{
+					log.warning("Unable to apply streamed model");
+				}
+			}
+		});
 	}
 	
 
@@ -63,7 +242,7 @@ public class Poller implements ActionListener
 		} 
 		catch (ModelException e)
 		{
-			System.err.println("Unable to poll server");
+			log.warning("Unable to poll server");
 		}
 	}
 }
@@ -2,18 +2,22 @@ package server;
 
 import java.io.*;
 import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
 
+import com.google.gson.stream.JsonWriter;
 import com.sun.net.httpserver.*;
 
 import server.commands.CommandFactory;
 import server.commands.ICommand;
+import server.commands.IModelCommand;
+import server.commands.IStreamingCommand;
+import server.commands.IWaitingCommand;
 import server.commands.InvalidFactoryParameterException;
-import server.commands.game.GameAddAICommand;
-import server.commands.games.GamesCreateCommand;
 import server.commands.games.GamesJoinCommand;
 import server.commands.moves.MovesCommand;
-import server.commands.moves.MovesRobPlayerCommand;
-import server.commands.user.UserRegisterCommand;
+import server.engine.RequestEngine;
+import server.engine.VersionWaiters;
+import server.model.CachedModel;
 import server.model.GameArcade;
 import server.model.GameException;
 import server.model.ServerGameManager;
@@ -70,37 +74,32 @@ public class HTTPHandler implements HttpHandler
 			catch (Exception e)
 			{
 				SendResponse(exchange, HttpURLConnection.HTTP_NOT_ACCEPTABLE, "Invalid cookie. Try resetting cookie in browser.");
+				return;
 			}
 		}
 		
+		int gameID = cookie == null ? RequestEngine.NO_GAME : cookie.getGameID();
+		RequestEngine.GetEngine().Submit(gameID, new ExchangeTask(exchange, uri, cookie, object.toString()));
+	}
+	
+	private void Execute(HttpExchange exchange, StringBuilder uri, NetworkCookie cookie, String object) throws IOException
+	{
 		try 
 		{
-			ICommand command = CommandFactory.GetCommandFactory().GetCommand(uri, cookie, object.toString());
+			ICommand command = CommandFactory.GetCommandFactory().GetCommand(uri, cookie, object);
+			boolean executed = command instanceof MovesCommand ? ((MovesCommand)command).ExecuteOnGame() : command.Execute();
 			
-			if (command.Execute())
+			if (executed)
 			{
 				HandlePersistence(command);
 				
-				String response = command.GetResponse();
-				String cookieHeader = command.GetHeader();
-				
-				if (response == null)
-					response = "";
-				
-				//Content-Type is need for Swagger. It gets mad otherwise.
-				Headers responseHeaders = exchange.getResponseHeaders();
-				if (response.startsWith("{"))
-					responseHeaders.set("Content-Type", "application/json");
-				else
-					responseHeaders.set("Content-Type", "text/html");
-				
-				if (cookieHeader != null)
+				if (command instanceof IWaitingCommand && ((IWaitingCommand)command).ShouldWait())
 				{
-					cookieHeader = cookieHeader + ";Path=/;";
-					responseHeaders.set("Set-cookie", cookieHeader);
+					Wait(exchange, (IWaitingCommand)command);
+					return;
 				}
 				
-				SendResponse(exchange, HttpURLConnection.HTTP_OK, response);
+				Respond(exchange, command);
 			}
 			else
 			{
@@ -116,68 +115,182 @@ public class HTTPHandler implements HttpHandler
 			SendResponse(exchange, HttpURLConnection.HTTP_BAD_METHOD, "Invalid key");
 		} 
 	}
+	
+	/**
+	 * Parks a long poll request until its game changes or it times out. No thread is held
+	 * while waiting.
+	 */
+	private void Wait(final HttpExchange exchange, final IWaitingCommand command) throws IOException
+	{
+		try
+		{
+			ServerGameManager sgm = GameArcade.games().GetGame(command.GetWaitGameID());
+			
+			VersionWaiters.GetWaiters().Await(sgm, command.GetWaitVersion(), command.GetWaitTimeout(), new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					try
+					{
+						//Re-execute to pick up the latest model (or "No new model" on timeout)
+						command.Execute();
+						Respond(exchange, command);
+					}
+					catch (IOException | RuntimeException e)
+					{
+						Log.GetLog().throwing("HTTPHandler", "Wait", e);
+						exchange.close();
+					}
+				}
+			});
+		}
+		catch (GameException e)
+		{
+			Respond(exchange, command);
+		}
+	}
+	
+	private void Respond(HttpExchange exchange, ICommand command) throws IOException
+	{
+		CachedModel model = null;
+		if (command instanceof IModelCommand)
+			model = ((IModelCommand)command).GetModel();
+		
+		String cookieHeader = command.GetHeader();
+		Headers responseHeaders = exchange.getResponseHeaders();
+		
+		if (cookieHeader != null)
+		{
+			cookieHeader = cookieHeader + ";Path=/;";
+			responseHeaders.set("Set-cookie", cookieHeader);
+		}
+		
+		//Streamed responses are never built as a string
+		if (model == null && command instanceof IStreamingCommand)
+		{
+			responseHeaders.set("Content-Type", "application/json");
+			StreamResponse(exchange, (IStreamingCommand)command);
+			return;
+		}
+		
+		String response = model == null ? command.GetResponse() : model.GetJson();
+		
+		if (response == null)
+			response = "";
+		
+		//Content-Type is need for Swagger. It gets mad otherwise.
+		if (response.startsWith("{"))
+			responseHeaders.set("Content-Type", "application/json");
+		else
+			responseHeaders.set("Content-Type", "text/html");
+		
+		if (model != null)
+			SendModel(exchange, model);
+		else
+			SendResponse(exchange, HttpURLConnection.HTTP_OK, response);
+	}
+	
+	/**
+	 * Writes a command's response straight to the response body as it is serialized. The
+	 * length isn't known up front, so the response is chunked.
+	 */
+	private void StreamResponse(HttpExchange exchange, IStreamingCommand command) throws IOException
+	{
+		exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, 0);
+		
+		JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8)));
+		try
+		{
+			command.WriteResponse(writer);
+		}
+		finally
+		{
+			writer.close();
+		}
+	}
+	
+	/**
+	 * Sends a cached model. The bytes are already built, so the length is known up front,
+	 * and clients that accept gzip get the pre-compressed copy.
+	 */
+	private void SendModel(HttpExchange exchange, CachedModel model) throws IOException
+	{
+		byte[] body;
+		if (AcceptsGzip(exchange))
+		{
+			exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+			body = model.GetGzip();
+		}
+		else
+		{
+			body = model.GetBytes();
+		}
+		
+		exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, body.length);
+		OutputStream oStream = exchange.getResponseBody();
+		oStream.write(body);
+		oStream.close();
+	}
+	
+	private boolean AcceptsGzip(HttpExchange exchange)
+	{
+		String encodings = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+		return encodings != null && encodings.toLowerCase().contains("gzip");
+	}
 
 	private void SendResponse(HttpExchange exchange, int responseCode, String responseMessage) throws IOException
 	{
-		exchange.sendResponseHeaders(responseCode, 0);
+		//The whole body is already built, so its length is sent instead of chunking it
+		byte[] body = responseMessage.getBytes(StandardCharsets.UTF_8);
+		exchange.sendResponseHeaders(responseCode, body.length == 0 ? -1 : body.length);
 		OutputStream oStream = exchange.getResponseBody();
-		oStream.write(responseMessage.getBytes());
+		oStream.write(body);
 		oStream.close();
 	}
 	
 	private void HandlePersistence(ICommand command)
 	{
-		PersistenceFacade facade = PersistenceFacade.GetPersistence();
-		
 		try
 		{
-			if (command.getClass() == UserRegisterCommand.class)
-			{
-				UserRegisterCommand user = (UserRegisterCommand)command;
-				Log.GetLog().finest("Adding User :"+user.GetPlayer());
-				facade.AddUser(user.GetPlayer());
-			}
-			else if (command.getClass() == GamesCreateCommand.class)
-			{
-				GamesCreateCommand game = (GamesCreateCommand)command;
-				Log.GetLog().finest("Adding Game :"+game.GetGame().GetGameTitle());
-				facade.AddGame(game.GetGame());
-			}
-			else if (command.getClass() == GameAddAICommand.class)
-			{
-				GameAddAICommand game = (GameAddAICommand)command;
-				int gameID = game.GetGameID();
-				ServerGameManager sgm = GameArcade.games().GetGame(gameID);
-				Log.GetLog().finest("Updating Game: "+sgm.GetGameID());
-				facade.UpdateGame(sgm);
-			}
-			else if (command.getClass() == MovesRobPlayerCommand.class)
+			PersistenceFacade.GetPersistence().SaveExecuted(command);
+		}
+		catch (PersistenceException e)
+		{
+			Log.GetLog().throwing("HTTPHandler", "HandlePersistence", e);
+		}
+	}
+	
+	/**
+	 * Runs a request on the request engine, making sure the exchange is always closed.
+	 */
+	private class ExchangeTask implements Runnable
+	{
+		private HttpExchange exchange;
+		private StringBuilder uri;
+		private NetworkCookie cookie;
+		private String object;
+		
+		public ExchangeTask(HttpExchange exchange, StringBuilder uri, NetworkCookie cookie, String object)
+		{
+			this.exchange = exchange;
+			this.uri = uri;
+			this.cookie = cookie;
+			this.object = object;
+		}
+		
+		@Override
+		public void run()
+		{
+			try
 			{
-				MovesCommand move = (MovesCommand)command;
-				int gameID = move.GetGameID();
-				ServerGameManager sgm = GameArcade.games().GetGame(gameID);
-				Log.GetLog().finest("Updating Game: "+sgm.GetGameID());
-				facade.UpdateGame(sgm);
+				Execute(exchange, uri, cookie, object);
 			}
-			else if (MovesCommand.class.isAssignableFrom(command.getClass()))
+			catch (IOException | RuntimeException e)
 			{
-				MovesCommand move = (MovesCommand)command;
-				int gameID = move.GetGameID();
-				
-				//Log.GetLog().finest("Adding Command :"+move.getClass().getName());
-				
-				if (!facade.AddCommand(gameID, command))
-				{
-					ServerGameManager sgm = GameArcade.games().GetGame(gameID);
-					Log.GetLog().finest("Updating Game: "+sgm.GetGameID());
-					facade.UpdateGame(sgm);
-				}
-				
+				Log.GetLog().throwing("HTTPHandler", "ExchangeTask", e);
+				exchange.close();
 			}
 		}
-		catch (PersistenceException | GameException e)
-		{
-			Log.GetLog().throwing("HTTPHandler", "HandlePersistence", e);
-		}
 	}
 }
@@ -11,13 +11,16 @@ import java.util.logging.Level;
 import com.sun.net.httpserver.HttpServer;
 
 import server.ai.AIHandler;
-import server.commands.ICommand;
+import server.engine.EngineMode;
+import server.engine.RequestEngine;
 import server.model.GameArcade;
 import server.model.GameException;
+import server.model.GameHibernator;
 import server.model.ServerGameManager;
 import server.model.ServerPlayer;
 import server.persistence.PersistenceException;
 import server.persistence.PersistenceFacade;
+import server.persistence.RecoveryReport;
 import server.swagger.SwaggerHandlers;
 
 /**
@@ -39,6 +42,7 @@ public class Server
 	 * <br/>[plug-in][command limit][port];
 	 * <br/>[plug-in][command limit][swagger path (path to swagger documentation)];
 	 * <br/>[plug-in][command limit][port][swagger path]
+	 * <br/>Tuning options are read from system properties (see {@link ServerConfig}).
 	 */
 	public static void main(final String[] args) 
 	{
@@ -103,7 +107,12 @@ public class Server
 			Level defaultLevel = Level.FINE;
 			
 			Log.GetLog().log(defaultLevel, "Starting server");
-			HttpServer server = HttpServer.create(new InetSocketAddress(port), MAX_WAITING);
+			int backlog = ServerConfig.GetInt(ServerConfig.BACKLOG, MAX_WAITING);
+			HttpServer server = HttpServer.create(new InetSocketAddress(port), backlog);
+			
+			EngineMode mode = EngineMode.fromString(ServerConfig.GetString(ServerConfig.ENGINE_MODE, "dispatcher"));
+			RequestEngine.Initialize(mode, ServerConfig.GetInt(ServerConfig.ENGINE_THREADS, 0));
+			server.setExecutor(RequestEngine.GetEngine().GetServerExecutor());
 			
 			try 
 			{
@@ -118,6 +127,7 @@ public class Server
 			AIHandler.GetHandler().EnableAIHandling(true);
 			
 			server.createContext("/", new HTTPHandler());
+			server.createContext("/game/stream", new StreamHandler());
 			server.createContext("/docs/api/data", new SwaggerHandlers.JSONAppender());
 			server.createContext("/docs/api/view", new SwaggerHandlers.BasicFile());
 			SwaggerHandlers.SetRootPath(SwaggerPath);
@@ -151,6 +161,7 @@ public class Server
 	private void TryInitializingData() throws PersistenceException, GameException
 	{
 		PersistenceFacade facade = PersistenceFacade.GetPersistence();
+		GameArcade.games().SetStore(facade);
 		
 		List<ServerPlayer> players = facade.GetAllUsers();
 		for (ServerPlayer player : players)
@@ -172,7 +183,7 @@ public class Server
 			try
 			{
 				Log.GetLog().finest("Reloading game:" +game.GetGameTitle());
-				GameArcade.games().CreateGame(game, false);
+				GameArcade.games().RestoreGame(game);
 			}
 			catch (Exception e)
 			{
@@ -181,8 +192,10 @@ public class Server
 		}
 			
 		
-		List<ICommand> commands = facade.GetAllCommands();
-		for (ICommand command : commands)
-			command.Execute();
+		RecoveryReport recovery = facade.RecoverGames();
+		Log.GetLog().info("Recovered saved games: " + recovery);
+		
+		//Games nobody is playing are dropped from memory until they're used
+		GameHibernator.Start(ServerConfig.GetLong(ServerConfig.GAME_IDLE, 30 * 60 * 1000));
 	}
 }
@@ -0,0 +1,118 @@
+package server;
+
+/**
+ * Tunable server settings. Every setting has a sensible default and can be overridden
+ * with a system property when starting the server, e.g. <code>-Dcatan.engine=pooled</code>.
+ */
+public class ServerConfig
+{
+	/** How requests are executed: dispatcher, pooled or virtual. */
+	public static final String ENGINE_MODE = "catan.engine";
+	/** Number of worker threads used by the pooled engine. */
+	public static final String ENGINE_THREADS = "catan.engine.threads";
+	/** Maximum number of queued TCP connections on the HTTP server. */
+	public static final String BACKLOG = "catan.backlog";
+	/** Longest time a /game/model request may wait for a new version, in milliseconds. */
+	public static final String LONG_POLL_MAX_WAIT = "catan.longpoll.max";
+	/** Number of versions per game kept for sending model patches. */
+	public static final String MODEL_HISTORY = "catan.model.history";
+	/** How often an idle /game/stream is sent a keep-alive comment, in milliseconds. */
+	public static final String STREAM_KEEP_ALIVE = "catan.stream.keepalive";
+	/** Most events a /game/stream may have waiting to be written before it is dropped as too slow. */
+	public static final String STREAM_BUFFER = "catan.stream.buffer";
+	/** When a save counts as done: sync (written before responding) or enqueue (written in the background). */
+	public static final String PERSISTENCE_DURABILITY = "catan.persistence.durability";
+	/** Most saves a single game may have waiting for the persistence writer before requests block. */
+	public static final String PERSISTENCE_QUEUE = "catan.persistence.queue";
+	/** Most saves the persistence writer commits together in one transaction. */
+	public static final String PERSISTENCE_BATCH = "catan.persistence.batch";
+	/** How long the persistence writer waits for more saves to join a commit, in milliseconds. */
+	public static final String PERSISTENCE_WINDOW = "catan.persistence.window";
+	/** Most providers (for SQL, connections) the persistence plugin keeps open. */
+	public static final String PERSISTENCE_POOL = "catan.persistence.pool";
+	/** How saves are encoded: binary (the default), java or legacy. Saves in any of them can be read. */
+	public static final String PERSISTENCE_CODEC = "catan.persistence.codec";
+	/** Most saved games replayed at once when the server starts. Defaults to the number of processors. */
+	public static final String RECOVERY_THREADS = "catan.recovery.threads";
+	/** How long a game goes unused before it is saved and dropped from memory, in milliseconds. 0 keeps every game loaded. */
+	public static final String GAME_IDLE = "catan.games.idle";
+	/** How many bytes of commands a game saves before it is saved whole in the background. */
+	public static final String COMPACTION_BYTES = "catan.compaction.bytes";
+	/** How long a game's oldest saved command is kept before the game is saved whole, in milliseconds. 0 for no limit. */
+	public static final String COMPACTION_AGE = "catan.compaction.age";
+	/** Number of threads the AI players share. */
+	public static final String AI_THREADS = "catan.ai.threads";
+	/** How long an AI player waits before acting, in milliseconds, so people can follow its moves. */
+	public static final String AI_DELAY = "catan.ai.delay";
+	/** Number of threads the expert AI players share for searching their moves. Defaults to the number of processors. Self-play searches on its own threads instead. */
+	public static final String AI_SEARCH_THREADS = "catan.ai.search.threads";
+	/** How long an expert AI player searches for each move, in milliseconds. */
+	public static final String AI_SEARCH_TIME = "catan.ai.search.time";
+
+	/**
+	 * Gets a string setting.
+	 * @param key The setting key.
+	 * @param defaultValue The value used when the setting isn't specified.
+	 * @return The setting value.
+	 */
+	public static String GetString(String key, String defaultValue)
+	{
+		String value = System.getProperty(key);
+
+		if (value == null || value.trim().isEmpty())
+			return defaultValue;
+
+		return value.trim();
+	}
+
+	/**
+	 * Gets an integer setting.
+	 * @param key The setting key.
+	 * @param defaultValue The value used when the setting isn't specified or is invalid.
+	 * @return The setting value.
+	 */
+	public static int GetInt(String key, int defaultValue)
+	{
+		return (int)GetLong(key, defaultValue);
+	}
+
+	/**
+	 * Gets a long setting.
+	 * @param key The setting key.
+	 * @param defaultValue The value used when the setting isn't specified or is invalid.
+	 * @return The setting value.
+	 */
+	public static long GetLong(String key, long defaultValue)
+	{
+		String value = GetString(key, null);
+
+		if (value == null)
+			return defaultValue;
+
+		try
+		{
+			return Long.parseLong(value);
+		}
+		catch (NumberFormatException e)
+		{
+			Log.GetLog().warning("Invalid value for " + key + ": " + value);
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Gets a boolean setting.
+	 * @param key The setting key.
+	 * @param defaultValue The value used when the setting isn't specified.
+	 * @return The setting value.
+	 */
+	public static boolean GetBoolean(String key, boolean defaultValue)
+	{
+		String value = GetString(key, null);
+
+		if (value == null)
+			return defaultValue;
+
+		return Boolean.parseBoolean(value);
+	}
+}
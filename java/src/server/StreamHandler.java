@@ -0,0 +1,287 @@
+package server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import server.engine.RequestEngine;
+import server.engine.VersionWaiters;
+import server.model.CachedModel;
+import server.model.GameArcade;
+import server.model.GameException;
+import server.model.ServerGameManager;
+import shared.networking.SerializationUtils;
+import shared.networking.cookie.NetworkCookie;
+import shared.networking.parameter.PGetModel;
+
+/**
+ * Handles /game/stream. The response is kept open as a Server-Sent Events stream and a
+ * "model" (or "patch") event is pushed each time the game's version changes. Between
+ * changes a stream doesn't hold a thread, only a waiter on the game.
+ * <br/>Events are made on the game's queue but written to the socket by the stream writers,
+ * so a client that stops reading never holds up the game. Each stream buffers a few events;
+ * one that falls further behind than that is dropped.
+ */
+public class StreamHandler implements HttpHandler
+{
+	/** How often an idle stream is sent a comment so proxies don't drop it, in milliseconds. */
+	private static final long KEEP_ALIVE = ServerConfig.GetLong(ServerConfig.STREAM_KEEP_ALIVE, 15000);
+	/** Most events a stream may have waiting to be written. */
+	private static final int BUFFER = ServerConfig.GetInt(ServerConfig.STREAM_BUFFER, 8);
+	/** Version used when the client doesn't have a model yet. */
+	private static final int NO_VERSION = Integer.MIN_VALUE;
+
+	/** Writes events to the streams. A stream only uses a thread while it has events to write. */
+	private static final ExecutorService writers = Executors.newCachedThreadPool(new ThreadFactory()
+	{
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable task)
+		{
+			Thread thread = new Thread(task, "catan-stream-writer-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	@Override
+	public void handle(HttpExchange exchange) throws IOException
+	{
+		//Read in data from request body
+		BufferedReader reader = new BufferedReader(new InputStreamReader(exchange.getRequestBody(), "utf-8"));
+
+		String line = null;
+		StringBuilder object = new StringBuilder();
+		while ((line = reader.readLine()) != null)
+			object.append(line + "\n");
+
+		NetworkCookie cookie = null;
+		PGetModel request = null;
+		try
+		{
+			String jsonCookie = exchange.getRequestHeaders().getFirst("Cookie");
+			if (jsonCookie != null)
+				cookie = SerializationUtils.deserialize(jsonCookie, NetworkCookie.class);
+
+			if (object.toString().trim().length() > 0)
+				request = SerializationUtils.deserialize(object.toString(), PGetModel.class);
+		}
+		catch (Exception e)
+		{
+			SendError(exchange, HttpURLConnection.HTTP_NOT_ACCEPTABLE, "Invalid cookie or request");
+			return;
+		}
+
+		if (cookie == null)
+		{
+			SendError(exchange, HttpURLConnection.HTTP_BAD_REQUEST, "Must join a game to stream it");
+			return;
+		}
+
+		ServerGameManager sgm;
+		try
+		{
+			sgm = GameArcade.games().GetGame(cookie.getGameID());
+		}
+		catch (GameException e)
+		{
+			SendError(exchange, HttpURLConnection.HTTP_BAD_REQUEST, "Game not found");
+			return;
+		}
+
+		int version = request == null ? NO_VERSION : request.getVersion();
+		boolean patch = request != null && request.getPatch();
+
+		Headers headers = exchange.getResponseHeaders();
+		headers.set("Content-Type", "text/event-stream; charset=utf-8");
+		headers.set("Cache-Control", "no-cache");
+		exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, 0);
+
+		Log.GetLog().finest("Streaming game " + sgm.GetGameID());
+		RequestEngine.GetEngine().Submit(sgm.GetGameID(), new Subscriber(exchange, sgm, version, patch));
+	}
+
+	private void SendError(HttpExchange exchange, int responseCode, String message) throws IOException
+	{
+		byte[] body = message.getBytes(StandardCharsets.UTF_8);
+		exchange.sendResponseHeaders(responseCode, body.length);
+		OutputStream oStream = exchange.getResponseBody();
+		oStream.write(body);
+		oStream.close();
+	}
+
+	/**
+	 * One open stream. Runs on the game's queue each time the game changes (or the keep
+	 * alive expires), queues an event for the writers and then waits for the next version.
+	 * The game is looked up each time, since it may have been replaced (e.g. reloaded after hibernating).
+	 * Looking it up doesn't count as using it, so a stream nobody reads doesn't keep a game loaded;
+	 * while the game is hibernated nothing can change it, so the stream keeps the game it had.
+	 */
+	private static class Subscriber implements Runnable
+	{
+		private final HttpExchange exchange;
+		private final int gameID;
+		private final boolean patch;
+		private ServerGameManager game;
+		private int version;
+		/** Events waiting to be written. Guarded by the subscriber. */
+		private final Queue<byte[]> pending;
+		/** Whether a writer is draining the events. Guarded by the subscriber. */
+		private boolean writing;
+		/** Whether the stream is done with. Guarded by the subscriber. */
+		private boolean closed;
+
+		public Subscriber(HttpExchange exchange, ServerGameManager game, int version, boolean patch)
+		{
+			this.exchange = exchange;
+			this.game = game;
+			this.gameID = game.GetGameID();
+			this.version = version;
+			this.patch = patch;
+			this.pending = new ArrayDeque<byte[]>();
+		}
+
+		@Override
+		public void run()
+		{
+			ServerGameManager sgm;
+			try
+			{
+				ServerGameManager loaded = GameArcade.games().PeekGame(gameID);
+				if (loaded != null)
+					game = loaded;
+				sgm = game;
+
+				String event = sgm.GetVersion() != version ? ModelEvent(sgm) : ": keep-alive\n\n";
+				if (!Offer(event.getBytes(StandardCharsets.UTF_8)))
+				{
+					Log.GetLog().finest("Stream for game " + gameID + " fell behind or closed");
+					return;
+				}
+			}
+			catch (GameException | RuntimeException e)
+			{
+				Log.GetLog().finest("Stream closed for game " + gameID);
+				Close();
+				return;
+			}
+
+			VersionWaiters.GetWaiters().Await(sgm, version, KEEP_ALIVE, this);
+		}
+
+		private String ModelEvent(ServerGameManager sgm)
+		{
+			CachedModel model = null;
+			String event = "patch";
+
+			if (patch)
+				model = sgm.ServerGetModelPatch(version);
+
+			if (model == null)
+			{
+				model = sgm.ServerGetCachedModel();
+				event = "model";
+			}
+
+			version = model.GetVersion();
+			return "id: " + model.GetVersion() + "\nevent: " + event + "\ndata: " + model.GetJson() + "\n\n";
+		}
+
+		/**
+		 * Queues an event to be written.
+		 * @return False if the stream is closed, or has fallen too far behind and is closed now.
+		 */
+		private synchronized boolean Offer(byte[] event)
+		{
+			if (closed)
+				return false;
+
+			if (pending.size() >= BUFFER)
+			{
+				Close();
+				return false;
+			}
+
+			pending.add(event);
+			StartWriting();
+			return true;
+		}
+
+		/**
+		 * Stops the stream. The exchange is closed by a writer, after any write in progress.
+		 */
+		private synchronized void Close()
+		{
+			closed = true;
+			pending.clear();
+			StartWriting();
+		}
+
+		private synchronized void StartWriting()
+		{
+			if (writing)
+				return;
+
+			writing = true;
+			writers.execute(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					Drain();
+				}
+			});
+		}
+
+		private void Drain()
+		{
+			OutputStream oStream = exchange.getResponseBody();
+			while (true)
+			{
+				byte[] event;
+				synchronized (this)
+				{
+					if (closed)
+						break;
+
+					event = pending.poll();
+					if (event == null)
+					{
+						writing = false;
+						return;
+					}
+				}
+
+				try
+				{
+					oStream.write(event);
+					oStream.flush();
+				}
+				catch (IOException e)
+				{
+					synchronized (this)
+					{
+						closed = true;
+						pending.clear();
+					}
+				}
+			}
+
+			exchange.close();
+		}
+	}
+}
@@ -0,0 +1,156 @@
+package server.ai;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import server.ai.characters.AI;
+import server.ai.characters.B_Groot;
+import server.ai.characters.B_Hobo;
+import server.ai.characters.B_JarJar;
+import server.ai.characters.B_Steve;
+import server.ai.characters.B_Trogdor;
+import server.ai.characters.E_Hal;
+import shared.definitions.AIType;
+
+/**
+ * Makes AI players. Every seat an AI takes gets an AI of its own, so AIs never share state
+ * between games and as many can play as there are games.
+ */
+public class AIFactory
+{
+	private final Map<String, Character> byName;
+	private final Map<AIType, List<String>> byType;
+
+	/**
+	 * Creates a factory that knows every character.
+	 */
+	public AIFactory()
+	{
+		byName = new LinkedHashMap<String, Character>();
+		byType = new HashMap<AIType, List<String>>();
+
+		Add(new Character()
+		{
+			@Override
+			AI Create()
+			{
+				return new B_Groot();
+			}
+		});
+		Add(new Character()
+		{
+			@Override
+			AI Create()
+			{
+				return new B_JarJar();
+			}
+		});
+		Add(new Character()
+		{
+			@Override
+			AI Create()
+			{
+				return new B_Trogdor();
+			}
+		});
+		Add(new Character()
+		{
+			@Override
+			AI Create()
+			{
+				return new B_Steve();
+			}
+		});
+		Add(new Character()
+		{
+			@Override
+			AI Create()
+			{
+				return new B_Hobo();
+			}
+		});
+		Add(new Character()
+		{
+			@Override
+			AI Create()
+			{
+				return new E_Hal();
+			}
+		});
+	}
+
+	/**
+	 * Gets the names of every character.
+	 * @return The names.
+	 */
+	public Set<String> GetNames()
+	{
+		return Collections.unmodifiableSet(byName.keySet());
+	}
+
+	/**
+	 * Makes an AI of a type, picking at random a character that isn't already in the game.
+	 * @param type The type of AI. Random picks from every type but expert, whose searches take
+	 * a lot of CPU, so experts only play when they are asked for by type or name.
+	 * @param taken The names of the players already in the game.
+	 * @return The new AI, without an ID yet, or null if every character of the type is taken.
+	 */
+	public AI Create(AIType type, Set<String> taken)
+	{
+		List<String> names = new ArrayList<String>();
+		if (type == AIType.RANDOM)
+		{
+			names.addAll(byName.keySet());
+			if (byType.containsKey(AIType.EXPERT))
+				names.removeAll(byType.get(AIType.EXPERT));
+		}
+		else if (byType.containsKey(type))
+			names.addAll(byType.get(type));
+
+		names.removeAll(taken);
+		if (names.isEmpty())
+			return null;
+
+		String name = names.get(new Random().nextInt(names.size()));
+		return Create(name);
+	}
+
+	/**
+	 * Makes an AI of a character, e.g. for a seat in a game loaded from storage.
+	 * @param name The character's name.
+	 * @return The new AI, without an ID yet, or null if there is no such character.
+	 */
+	public AI Create(String name)
+	{
+		Character character = byName.get(name);
+		if (character == null)
+			return null;
+
+		return character.Create();
+	}
+
+	private void Add(Character character)
+	{
+		AI sample = character.Create();
+
+		byName.put(sample.GetName(), character);
+
+		if (!byType.containsKey(sample.GetType()))
+			byType.put(sample.GetType(), new ArrayList<String>());
+		byType.get(sample.GetType()).add(sample.GetName());
+	}
+
+	/**
+	 * Makes new AIs of one character.
+	 */
+	private static abstract class Character
+	{
+		abstract AI Create();
+	}
+}
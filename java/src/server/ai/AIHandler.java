@@ -1,27 +1,33 @@
 package server.ai;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
 
 import server.Log;
+import server.ServerConfig;
 import server.ai.characters.AI;
-import server.ai.characters.B_Groot;
-import server.ai.characters.B_Hobo;
-import server.ai.characters.B_JarJar;
-import server.ai.characters.B_Steve;
-import server.ai.characters.B_Trogdor;
+import server.model.GameArcade;
+import server.model.GameException;
+import server.model.IGameReader;
+import server.model.ServerGameManager;
+import shared.data.PlayerInfo;
 import shared.definitions.AIType;
-import shared.definitions.CatanColor;
 import shared.model.OfferedTrade;
 
 /**
  * Class used for interacting with AI objects.
+ * <br/>Every AI seat in a game has an AI of its own, kept by game and player ID. AIs act on a
+ * small shared pool of threads. Each action is scheduled to start after the AI's think time,
+ * rather than given a thread of its own that sleeps through it.
  * @author Jonathan Sadler
  *
  */
@@ -29,7 +35,7 @@ public class AIHandler
 {
 	private static AIHandler handler = null;
 	
-	public static AIHandler GetHandler()
+	public static synchronized AIHandler GetHandler()
 	{
 		if (handler == null)
 			handler = new AIHandler();
@@ -37,11 +43,12 @@ public class AIHandler
 		return handler;
 	}
 	
-	private boolean enabled = false;
+	private volatile boolean enabled = false;
 	private List<String> types;
-	private Map<AIType, Set<AI>> AIbyType;
-	private Map<String, AI> AIbyName;
-	private Map<Integer, AI> AIbyID;
+	private AIFactory factory;
+	private ConcurrentMap<Integer, ConcurrentMap<Integer, AI>> AIbyGame;
+	private ScheduledExecutorService scheduler;
+	private long delay;
 	
 	/**
 	 * Creates an AI Handler
@@ -49,15 +56,21 @@ public class AIHandler
 	private AIHandler()
 	{
 		CompileTypes();
-		AIbyType = new HashMap<AIType, Set<AI>>();
-		AIbyName = new HashMap<String, AI>();
-		AIbyID = new HashMap<Integer, AI>();
+		factory = new AIFactory();
+		AIbyGame = new ConcurrentHashMap<Integer, ConcurrentMap<Integer, AI>>();
 		
-		AddAI(new B_Groot());
-		AddAI(new B_JarJar());
-		AddAI(new B_Trogdor());
-		AddAI(new B_Steve());
-		AddAI(new B_Hobo());
+		final AtomicInteger count = new AtomicInteger();
+		scheduler = Executors.newScheduledThreadPool(ServerConfig.GetInt(ServerConfig.AI_THREADS, 4), new ThreadFactory()
+		{
+			@Override
+			public Thread newThread(Runnable task)
+			{
+				Thread thread = new Thread(task, "catan-ai-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		delay = ServerConfig.GetLong(ServerConfig.AI_DELAY, 1000);
 	}
 	
 	/**
@@ -69,18 +82,6 @@ public class AIHandler
 		enabled = enable;
 	}
 	
-	/**
-	 * Sets the player ID of the AI player.
-	 * @param name The AI's name.
-	 * @param playerID The player ID to set.
-	 */
-	public void RegisterAI(String name, int playerID)
-	{
-		AI ai = AIbyName.get(name);
-		ai.SetID(playerID);
-		AIbyID.put(playerID, ai);
-	}
-	
 	/**
 	 * Gets the available types of AIs.
 	 * @return A list of AI types.
@@ -96,79 +97,72 @@ public class AIHandler
 	 */
 	public Set<String> GetNames()
 	{
-		return java.util.Collections.unmodifiableSet(AIbyName.keySet());
+		return factory.GetNames();
 	}
 	
 	/**
-	 * Gets the name of the AI based on ID.
-	 * @param id The ID of the AI.
-	 * @return The name of the AI.
+	 * Makes a new AI for a seat in a game. It isn't used until it is given an ID and seated.
+	 * @param type The type of AI.
+	 * @param taken The names of the players already in the game.
+	 * @return The AI, or null if every AI of the type is already in the game.
 	 */
-	public String GetName(int id)
+	public AI CreateAI(AIType type, Set<String> taken)
 	{
-		return AIbyID.get(id).GetName();
+		return factory.Create(type, taken);
 	}
 	
 	/**
-	 * Gets a random AI associated with the desired type.
-	 * @param type The AI.
-	 * @return An AI associated with the type. If the type is random, then it returns
-	 * an AI with a random type.
+	 * Seats an AI in a game, so it is told about the game from now on.
+	 * @param gameID The ID of the game.
+	 * @param ai The AI, with its player ID set.
 	 */
-	public int GetAI(AIType type, List<Integer> inGame)
+	public void SeatAI(int gameID, AI ai)
 	{
-		Set<AI> ais = new HashSet<AI>();
-		Set<Integer> aiIndexs = new HashSet<>();
-		if (type == AIType.RANDOM)
-		{
-			ais.addAll(AIbyType.get(AIType.BEGINNER));
-//			ais.addAll(AIbyType.get(AIType.MODERATE));
-//			ais.addAll(AIbyType.get(AIType.EXPERT));
-		}
-		else
-		{
-			ais = AIbyType.get(type);
-		}
-		
-		Iterator<AI> iter = ais.iterator();
-		while(iter.hasNext())
-		{
-			aiIndexs.add(iter.next().GetID());
-		}
-		//Log.GetLog().fine(aiIndexs.toString());
-		//remove the AI's in use for this game
-		for (int gamer : inGame)
-		{
-			//Log.GetLog().fine("Removing AI" + gamer);
-			aiIndexs.remove(gamer);
-		}
-		//Log.GetLog().fine(aiIndexs.toString());
-		
-			
-		Random random = new Random();
-		if (aiIndexs.size() == 0) 
-		{
-			Log.GetLog().severe("NO AIS TO ADD");
-			
-		}
-		int aiIndex = random.nextInt(aiIndexs.size());
-		//Log.GetLog().finest("Adding AI id: "+aiIndex);
-		Object[] aiList = aiIndexs.toArray();
-		//Log.GetLog().finest(aiList.toString());
+		GetSeats(gameID).put(ai.GetID(), ai);
+	}
+	
+	/**
+	 * Gets the AI in a seat. Games loaded from storage have no AIs yet, so one is made for the
+	 * seat the first time it is needed.
+	 * @param aiID The player ID of the AI.
+	 * @param gameID The ID of the game.
+	 * @return The AI, or null if the seat isn't an AI the handler knows.
+	 */
+	public AI GetAI(int aiID, int gameID)
+	{
+		ConcurrentMap<Integer, AI> seats = AIbyGame.get(gameID);
+		AI ai = seats != null ? seats.get(aiID) : null;
+		if (ai != null)
+			return ai;
 		
+		ai = factory.Create(GetPlayerName(aiID, gameID));
+		if (ai == null)
+			return null;
 		
-		return (int) aiList[aiIndex];
+		ai.SetID(aiID);
+		AI seated = GetSeats(gameID).putIfAbsent(aiID, ai);
+		return seated != null ? seated : ai;
+	}
+	
+	/**
+	 * Drops the AIs seated in a game once the game has been dropped, e.g. hibernated or removed.
+	 * If the game is loaded again, its AIs are made again the first time they are needed.
+	 * @param gameID The ID of the game.
+	 */
+	public void Release(int gameID)
+	{
+		AIbyGame.remove(gameID);
 	}
 	
 	/**
-	 * Asks the AI to pick a color.
-	 * @param id The ID of the AI.
-	 * @param notAvailable The colors already selected.
-	 * @return The selected color.
+	 * Gets the number of AIs the handler holds for a game.
+	 * @param gameID The ID of the game.
+	 * @return The number of AIs.
 	 */
-	public CatanColor PickColor(int id, Set<CatanColor> notAvailable)
+	public int GetSeated(int gameID)
 	{
-		return AIbyID.get(id).PickColor(notAvailable);
+		ConcurrentMap<Integer, AI> seats = AIbyGame.get(gameID);
+		return seats == null ? 0 : seats.size();
 	}
 	
 	/**
@@ -178,7 +172,7 @@ public class AIHandler
 	 */
 	public void RunAI(int aiID, int gameID)
 	{
-		new AITakeTurn(aiID, gameID).start();
+		Schedule(new AITakeTurn(aiID, gameID));
 	}
 	
 	/**
@@ -188,7 +182,7 @@ public class AIHandler
 	 */
 	public void Discard(int aiID, int gameID)
 	{
-		new AIDiscard(aiID, gameID).start();
+		Schedule(new AIDiscard(aiID, gameID));
 	}
 	
 	/**
@@ -199,13 +193,41 @@ public class AIHandler
 	 */
 	public void Chat(int aiID, int gameID, String message)
 	{
-		new AIChat(aiID, gameID, message).start();
+		Schedule(new AIChat(aiID, gameID, message));
 	}
 	
 	public void Trade(int aiID, int gameID, OfferedTrade trade)
 	{
 		Log.GetLog().fine("AI is considering Offer");
-		new AITrade(aiID, gameID, trade).start();
+		Schedule(new AITrade(aiID, gameID, trade));
+	}
+	
+	/**
+	 * Runs an AI's action once its think time is up.
+	 */
+	private void Schedule(final Runnable action)
+	{
+		if (!enabled)
+			return;
+		
+		scheduler.schedule(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				if (!enabled)
+					return;
+				
+				try
+				{
+					action.run();
+				}
+				catch (RuntimeException e)
+				{
+					Log.GetLog().log(Level.SEVERE, "AI action failed", e);
+				}
+			}
+		}, delay, TimeUnit.MILLISECONDS);
 	}
 	
 	private void CompileTypes()
@@ -215,25 +237,45 @@ public class AIHandler
 			types.add(AIType.toString(type));
 	}
 	
-	private void AddAI(AI ai)
+	private ConcurrentMap<Integer, AI> GetSeats(int gameID)
 	{
-		AIType type = ai.GetType();
+		ConcurrentMap<Integer, AI> seats = AIbyGame.get(gameID);
+		if (seats == null)
+		{
+			AIbyGame.putIfAbsent(gameID, new ConcurrentHashMap<Integer, AI>());
+			seats = AIbyGame.get(gameID);
+		}
 		
-		if (AIbyType.containsKey(type))
+		return seats;
+	}
+	
+	private String GetPlayerName(final int playerID, int gameID)
+	{
+		try
 		{
-			AIbyType.get(type).add(ai);
+			return GameArcade.games().GetGame(gameID).Read(new IGameReader<String>()
+			{
+				@Override
+				public String Read(ServerGameManager game)
+				{
+					for (PlayerInfo player : game.allCurrentPlayers())
+					{
+						if (player != null && player.getId() == playerID)
+							return player.getName();
+					}
+					
+					return null;
+				}
+			});
 		}
-		else
+		catch (GameException e)
 		{
-			Set<AI> aiSet = new HashSet<AI>();
-			aiSet.add(ai);
-			AIbyType.put(type, aiSet);
+			Log.GetLog().log(Level.WARNING, "Unable to find game " + gameID, e);
+			return null;
 		}
-		
-		AIbyName.put(ai.GetName(), ai);
 	}
 	
-	private class AITakeTurn extends Thread
+	private class AITakeTurn implements Runnable
 	{
 		private int aiID;
 		private int gameID;
@@ -247,23 +289,15 @@ public class AIHandler
 		@Override
 		public void run()
 		{
-			if (!enabled)
-				return;
-			
-			try 
-			{
-				Thread.sleep(1000);
-				AIbyID.get(aiID).TakeTurn(gameID);
-			}
-			catch (InterruptedException e) 
-			{
-				Log.GetLog().throwing("AIThread", "run", e);
-				e.printStackTrace();
-			}
+			AI ai = GetAI(aiID, gameID);
+			if (ai != null)
+				ai.TakeTurn(gameID);
+			else
+				Log.GetLog().warning("No AI for player " + aiID + " in game " + gameID);
 		}
 	}
 	
-	private class AIDiscard extends Thread
+	private class AIDiscard implements Runnable
 	{
 		private int aiID;
 		private int gameID;
@@ -277,23 +311,15 @@ public class AIHandler
 		@Override
 		public void run()
 		{
-			if (!enabled)
-				return;
-			
-			try 
-			{
-				Thread.sleep(1000);
-				AIbyID.get(aiID).Discard(gameID);
-			}
-			catch (InterruptedException e) 
-			{
-				Log.GetLog().throwing("AIThread", "run", e);
-				e.printStackTrace();
-			}
+			AI ai = GetAI(aiID, gameID);
+			if (ai != null)
+				ai.Discard(gameID);
+			else
+				Log.GetLog().warning("No AI for player " + aiID + " in game " + gameID);
 		}
 	}
 	
-	private class AIChat extends Thread
+	private class AIChat implements Runnable
 	{
 		private int aiID;
 		private int gameID;
@@ -309,22 +335,14 @@ public class AIHandler
 		@Override
 		public void run()
 		{
-			if (!enabled)
-				return;
-			
-			try 
-			{
-				Thread.sleep(1000);
-				AIbyID.get(aiID).Chat(gameID, message);
-			}
-			catch (InterruptedException e) 
-			{
-				Log.GetLog().throwing("AIThread", "run", e);
-				e.printStackTrace();
-			}
+			AI ai = GetAI(aiID, gameID);
+			if (ai != null)
+				ai.Chat(gameID, message);
+			else
+				Log.GetLog().warning("No AI for player " + aiID + " in game " + gameID);
 		}
 	}	
-	private class AITrade extends Thread
+	private class AITrade implements Runnable
 	{
 		private int aiID;
 		private int gameID;
@@ -340,19 +358,11 @@ public class AIHandler
 		@Override
 		public void run()
 		{
-			if (!enabled)
-				return;
-			
-			try 
-			{
-				Thread.sleep(1000);
-				AIbyID.get(aiID).ReceivedOffer(gameID, trade);
-			}
-			catch (InterruptedException e) 
-			{
-				Log.GetLog().throwing("AIThread", "run", e);
-				e.printStackTrace();
-			}
+			AI ai = GetAI(aiID, gameID);
+			if (ai != null)
+				ai.ReceivedOffer(gameID, trade);
+			else
+				Log.GetLog().warning("No AI for player " + aiID + " in game " + gameID);
 		}
 	}
 }
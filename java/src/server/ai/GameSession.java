@@ -0,0 +1,160 @@
+package server.ai;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+
+import server.Log;
+import server.commands.moves.MovesAcceptTradeCommand;
+import server.commands.moves.MovesBuildCityCommand;
+import server.commands.moves.MovesBuildRoadCommand;
+import server.commands.moves.MovesBuildSettlementCommand;
+import server.commands.moves.MovesBuyDevCardCommand;
+import server.commands.moves.MovesCommand;
+import server.commands.moves.MovesDiscardCardsCommand;
+import server.commands.moves.MovesFinishTurnCommand;
+import server.commands.moves.MovesRobPlayerCommand;
+import server.commands.moves.MovesRollNumberCommand;
+import server.commands.moves.MovesSendChatCommand;
+import server.engine.RequestEngine;
+import server.model.GameArcade;
+import server.model.GameException;
+import server.persistence.PersistenceException;
+import server.persistence.PersistenceFacade;
+import shared.model.map.Coordinate;
+import shared.networking.cookie.NetworkCookie;
+
+/**
+ * Lets an AI play a game from inside the server.
+ * <br/>Each move builds the same command an HTTP request would, runs it on the game's queue and
+ * saves it the same way, so it is checked and persisted exactly like a player's move. There is
+ * no route to look up and no JSON: a move returns the player's {@link GameView} of the game if
+ * it was made, or null if it wasn't allowed.
+ */
+public class GameSession
+{
+	private final int gameID;
+	private final int playerIndex;
+	private final NetworkCookie cookie;
+	private final GameView view;
+
+	/**
+	 * Starts a session for a player in a game.
+	 * @param gameID The game.
+	 * @param playerID The player's ID.
+	 * @param username The player's username.
+	 * @throws GameException Thrown if the game can't be found or the player isn't in it.
+	 */
+	public GameSession(int gameID, int playerID, String username) throws GameException
+	{
+		this.gameID = gameID;
+		this.playerIndex = GameArcade.games().GetPlayerIndex(playerID, gameID);
+
+		this.cookie = new NetworkCookie(username, null, playerID);
+		this.cookie.setGameID(gameID);
+
+		this.view = new GameView(gameID, playerID);
+	}
+
+	public int GetGameID()
+	{
+		return gameID;
+	}
+
+	public int GetPlayerIndex()
+	{
+		return playerIndex;
+	}
+
+	/**
+	 * Gets the player's view of the game.
+	 * @return The view.
+	 */
+	public GameView GetView()
+	{
+		return view;
+	}
+
+	public GameView RollNumber(int roll)
+	{
+		return Execute(new MovesRollNumberCommand(cookie, playerIndex, roll));
+	}
+
+	public GameView RobPlayer(int victimIndex, Coordinate hex)
+	{
+		return Execute(new MovesRobPlayerCommand(cookie, playerIndex, victimIndex, hex));
+	}
+
+	public GameView BuildCity(Coordinate point)
+	{
+		return Execute(new MovesBuildCityCommand(cookie, playerIndex, point));
+	}
+
+	public GameView BuildRoad(Coordinate start, Coordinate end, boolean free)
+	{
+		return Execute(new MovesBuildRoadCommand(cookie, playerIndex, start, end, free));
+	}
+
+	public GameView BuildSettlement(Coordinate point, boolean free)
+	{
+		return Execute(new MovesBuildSettlementCommand(cookie, playerIndex, point, free));
+	}
+
+	public GameView BuyDevCard()
+	{
+		return Execute(new MovesBuyDevCardCommand(cookie, playerIndex));
+	}
+
+	public GameView SendChat(String message)
+	{
+		return Execute(new MovesSendChatCommand(cookie, playerIndex, message));
+	}
+
+	public GameView DiscardCards(List<Integer> resources)
+	{
+		return Execute(new MovesDiscardCardsCommand(cookie, playerIndex, resources));
+	}
+
+	public GameView AcceptTrade(boolean willAccept)
+	{
+		return Execute(new MovesAcceptTradeCommand(cookie, playerIndex, willAccept));
+	}
+
+	public GameView FinishTurn()
+	{
+		return Execute(new MovesFinishTurnCommand(cookie, playerIndex));
+	}
+
+	/**
+	 * Executes a move on the game's queue, so the AI never races the HTTP requests for the game,
+	 * and saves it if it was made.
+	 */
+	private GameView Execute(final MovesCommand command)
+	{
+		try
+		{
+			boolean executed = RequestEngine.GetEngine().Call(gameID, new Callable<Boolean>()
+			{
+				@Override
+				public Boolean call() throws PersistenceException
+				{
+					if (!command.ExecuteOnGame())
+						return false;
+
+					PersistenceFacade facade = PersistenceFacade.GetPersistence();
+					if (facade != null)
+						facade.SaveExecuted(command);
+					return true;
+				}
+			});
+
+			return executed ? view : null;
+		}
+		catch (ExecutionException e)
+		{
+			Log.GetLog().log(Level.SEVERE, "Unable to run " + command.getClass().getSimpleName() + " for game " + gameID, e.getCause());
+			return null;
+		}
+	}
+}
@@ -0,0 +1,554 @@
+package server.ai;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import server.ai.search.SearchBoard;
+import server.ai.search.SearchState;
+import server.model.CachedModel;
+import server.model.GameArcade;
+import server.model.GameException;
+import server.model.ServerGameManager;
+import shared.definitions.CatanColor;
+import shared.definitions.GameRound;
+import shared.definitions.HexType;
+import shared.definitions.PieceType;
+import shared.definitions.ResourceType;
+import shared.model.GameModel;
+import shared.model.Player;
+import shared.model.map.Coordinate;
+import shared.model.map.MapException;
+import shared.model.map.objects.Edge;
+import shared.model.map.objects.Hex;
+import shared.model.map.objects.Vertex;
+
+/**
+ * A read-only view of a game, as one of its AI players sees it.
+ * <br/>Each call reads the game's published model, so it never sees a move half made and never
+ * waits on the game's lock. The published model is decoded once per version and kept by the
+ * view. Calls return things the AI can keep (coordinates, counts and copies). The game can
+ * change between calls when other players move, so a move picked from the view is still checked
+ * when it is made.
+ */
+public class GameView
+{
+	private final int gameID;
+	private final int playerID;
+	/** The last published model the view decoded. */
+	private volatile Decoded decoded;
+
+	/**
+	 * Creates a view of a game.
+	 * @param gameID The game.
+	 * @param playerID The player the game is seen by.
+	 */
+	public GameView(int gameID, int playerID)
+	{
+		this.gameID = gameID;
+		this.playerID = playerID;
+	}
+
+	public int GetGameID()
+	{
+		return gameID;
+	}
+
+	public int GetVersion()
+	{
+		return Read(new Query<Integer>()
+		{
+			@Override
+			protected Integer Read(GameModel model, Player player)
+			{
+				return model.version;
+			}
+		});
+	}
+
+	public GameRound GetState()
+	{
+		return Read(new Query<GameRound>()
+		{
+			@Override
+			protected GameRound Read(GameModel model, Player player)
+			{
+				return model.gameState.state;
+			}
+		});
+	}
+
+	public boolean IsSetup()
+	{
+		return Read(new Query<Boolean>()
+		{
+			@Override
+			protected Boolean Read(GameModel model, Player player)
+			{
+				return model.gameState.IsSetup();
+			}
+		});
+	}
+
+	/**
+	 * Gets whose turn it is.
+	 * @return The index of the player.
+	 */
+	public int GetTurn()
+	{
+		return Read(new Query<Integer>()
+		{
+			@Override
+			protected Integer Read(GameModel model, Player player)
+			{
+				return model.gameState.activePlayerIndex;
+			}
+		});
+	}
+
+	/**
+	 * Gets the player who has won.
+	 * @return The index of the player, or -1 if nobody has won yet.
+	 */
+	public int GetWinner()
+	{
+		return Read(new Query<Integer>()
+		{
+			@Override
+			protected Integer Read(GameModel model, Player player)
+			{
+				return model.victoryPointManager.winner();
+			}
+		});
+	}
+
+	/**
+	 * Checks whether it is the player's turn.
+	 * @return True if yes, else false.
+	 */
+	public boolean IsTurn()
+	{
+		return Read(new Query<Boolean>()
+		{
+			@Override
+			protected Boolean Read(GameModel model, Player player)
+			{
+				return model.gameState.activePlayerIndex == player.playerIndex();
+			}
+		});
+	}
+
+	/**
+	 * Gets the player's color.
+	 * @return The color.
+	 */
+	public CatanColor GetColor()
+	{
+		return Read(new Query<CatanColor>()
+		{
+			@Override
+			protected CatanColor Read(GameModel model, Player player)
+			{
+				return player.color;
+			}
+		});
+	}
+
+	/**
+	 * Gets the index of the player with a color.
+	 * @param color The color.
+	 * @return The player's index, or -1 if no player has the color.
+	 */
+	public int GetPlayerIndex(final CatanColor color)
+	{
+		return Read(new Query<Integer>()
+		{
+			@Override
+			protected Integer Read(GameModel model, Player player)
+			{
+				return IndexOf(model, color);
+			}
+		});
+	}
+
+	/**
+	 * Gets how many resource cards the player holds.
+	 * @return The number of cards.
+	 */
+	public int GetResourceCount()
+	{
+		return Read(new Query<Integer>()
+		{
+			@Override
+			protected Integer Read(GameModel model, Player player)
+			{
+				return player.playerBank.getResourceCount();
+			}
+		});
+	}
+
+	/**
+	 * Gets how many cards of a resource the player holds.
+	 * @param type The resource.
+	 * @return The number of cards.
+	 */
+	public int GetResourceCount(final ResourceType type)
+	{
+		return Read(new Query<Integer>()
+		{
+			@Override
+			protected Integer Read(GameModel model, Player player)
+			{
+				return player.playerBank.getResourceCount(type);
+			}
+		});
+	}
+
+	/**
+	 * Checks whether the player has what a road costs.
+	 * @return True if yes, else false.
+	 */
+	public boolean CanBuildRoad()
+	{
+		return Read(new Query<Boolean>()
+		{
+			@Override
+			protected Boolean Read(GameModel model, Player player)
+			{
+				return player.playerBank.canBuildRoad();
+			}
+		});
+	}
+
+	/**
+	 * Checks whether the player has what a settlement costs.
+	 * @return True if yes, else false.
+	 */
+	public boolean CanBuildSettlement()
+	{
+		return Read(new Query<Boolean>()
+		{
+			@Override
+			protected Boolean Read(GameModel model, Player player)
+			{
+				return player.playerBank.canBuildSettlement();
+			}
+		});
+	}
+
+	/**
+	 * Checks whether the player has what a city costs.
+	 * @return True if yes, else false.
+	 */
+	public boolean CanBuildCity()
+	{
+		return Read(new Query<Boolean>()
+		{
+			@Override
+			protected Boolean Read(GameModel model, Player player)
+			{
+				return player.playerBank.canBuildCity();
+			}
+		});
+	}
+
+	/**
+	 * Checks whether the player has what a development card costs.
+	 * @return True if yes, else false.
+	 */
+	public boolean CanBuyDevCard()
+	{
+		return Read(new Query<Boolean>()
+		{
+			@Override
+			protected Boolean Read(GameModel model, Player player)
+			{
+				return player.playerBank.canBuyDevCard();
+			}
+		});
+	}
+
+	/**
+	 * Gets the vertices the player could put a settlement on, by the setup rules while the game
+	 * is being set up.
+	 * @return The vertices' coordinates.
+	 */
+	public List<Coordinate> GetAvailableVertices()
+	{
+		return Read(new Query<List<Coordinate>>()
+		{
+			@Override
+			protected List<Coordinate> Read(GameModel model, Player player)
+			{
+				boolean setup = model.gameState.IsSetup();
+
+				List<Coordinate> available = new ArrayList<Coordinate>();
+				Iterator<Vertex> vertices = model.mapModel.GetVertices();
+				while (vertices.hasNext())
+				{
+					Vertex vertex = vertices.next();
+					if (model.mapModel.CanPlaceSettlement(vertex.getPoint(), player.color, setup))
+						available.add(vertex.getPoint());
+				}
+
+				return available;
+			}
+		});
+	}
+
+	/**
+	 * Gets the edges the player could put a road on, by the setup rules while the game is being
+	 * set up.
+	 * @return Copies of the edges, without roads.
+	 */
+	public List<Edge> GetAvailableEdges()
+	{
+		return Read(new Query<List<Edge>>()
+		{
+			@Override
+			protected List<Edge> Read(GameModel model, Player player)
+			{
+				boolean setup = model.gameState.IsSetup();
+
+				List<Edge> available = new ArrayList<Edge>();
+				Iterator<Edge> edges = model.mapModel.GetEdges();
+				while (edges.hasNext())
+				{
+					Edge edge = edges.next();
+					if (model.mapModel.CanPlaceRoad(edge.getStart(), edge.getEnd(), player.color, setup))
+						available.add(new Edge(edge.getStart(), edge.getEnd()));
+				}
+
+				return available;
+			}
+		});
+	}
+
+	/**
+	 * Gets the player's settlements.
+	 * @return The settlements' coordinates.
+	 */
+	public List<Coordinate> GetSettlements()
+	{
+		return Read(new Query<List<Coordinate>>()
+		{
+			@Override
+			protected List<Coordinate> Read(GameModel model, Player player)
+			{
+				List<Coordinate> settlements = new ArrayList<Coordinate>();
+				Iterator<Vertex> vertices = model.mapModel.GetVertices();
+				while (vertices.hasNext())
+				{
+					Vertex vertex = vertices.next();
+					if (vertex.getType() == PieceType.SETTLEMENT && vertex.getColor() == player.color)
+						settlements.add(vertex.getPoint());
+				}
+
+				return settlements;
+			}
+		});
+	}
+
+	/**
+	 * Gets the vertices next to a vertex, i.e. the other ends of its edges.
+	 * @param point The vertex.
+	 * @return The neighbors' coordinates, or none if there is no such vertex.
+	 */
+	public List<Coordinate> GetNeighbors(final Coordinate point)
+	{
+		return Read(new Query<List<Coordinate>>()
+		{
+			@Override
+			protected List<Coordinate> Read(GameModel model, Player player)
+			{
+				List<Coordinate> neighbors = new ArrayList<Coordinate>(3);
+				if (!model.mapModel.ContainsVertex(point))
+					return neighbors;
+
+				try
+				{
+					Iterator<Vertex> vertices = model.mapModel.GetVertices(model.mapModel.GetVertex(point));
+					while (vertices.hasNext())
+						neighbors.add(vertices.next().getPoint());
+				}
+				catch (MapException e)
+				{
+					e.printStackTrace();
+				}
+
+				return neighbors;
+			}
+		});
+	}
+
+	/**
+	 * Gets the hex the robber is on.
+	 * @return The hex's coordinate.
+	 */
+	public Coordinate GetRobberLocation()
+	{
+		return Read(new Query<Coordinate>()
+		{
+			@Override
+			protected Coordinate Read(GameModel model, Player player)
+			{
+				return model.mapModel.GetRobberLocation().getPoint();
+			}
+		});
+	}
+
+	/**
+	 * Gets every hex that isn't water.
+	 * @return The hexes' coordinates.
+	 */
+	public List<Coordinate> GetLandHexes()
+	{
+		return Read(new Query<List<Coordinate>>()
+		{
+			@Override
+			protected List<Coordinate> Read(GameModel model, Player player)
+			{
+				List<Coordinate> land = new ArrayList<Coordinate>();
+				Iterator<Hex> hexes = model.mapModel.GetHexes();
+				while (hexes.hasNext())
+				{
+					Hex hex = hexes.next();
+					if (hex.getType() != HexType.WATER)
+						land.add(hex.getPoint());
+				}
+
+				return land;
+			}
+		});
+	}
+
+	/**
+	 * Gets the other players with a settlement or city on a hex, who could be robbed from it.
+	 * @param hex The hex.
+	 * @return The players' indices.
+	 */
+	public Set<Integer> GetRobbable(final Coordinate hex)
+	{
+		return Read(new Query<Set<Integer>>()
+		{
+			@Override
+			protected Set<Integer> Read(GameModel model, Player player)
+			{
+				Set<Integer> robbable = new TreeSet<Integer>();
+				Iterator<CatanColor> colors = model.mapModel.GetOccupiedVertices(hex);
+				while (colors.hasNext())
+				{
+					CatanColor color = colors.next();
+					if (color != player.color)
+						robbable.add(IndexOf(model, color));
+				}
+
+				return robbable;
+			}
+		});
+	}
+
+	/**
+	 * Numbers the map's layout for searching moves. The layout doesn't change during a game,
+	 * so it only has to be made once.
+	 * @return The layout.
+	 */
+	public SearchBoard GetSearchBoard()
+	{
+		return Read(new Query<SearchBoard>()
+		{
+			@Override
+			protected SearchBoard Read(GameModel model, Player player)
+			{
+				return new SearchBoard(model.mapModel);
+			}
+		});
+	}
+
+	/**
+	 * Copies the game for searching moves from.
+	 * @param board The layout of the game's map, from {@link #GetSearchBoard()}.
+	 * @return The copy.
+	 */
+	public SearchState GetSearchState(final SearchBoard board)
+	{
+		return Read(new Query<SearchState>()
+		{
+			@Override
+			protected SearchState Read(GameModel model, Player player)
+			{
+				return new SearchState(board, model);
+			}
+		});
+	}
+
+	private <T> T Read(Query<T> query)
+	{
+		ServerGameManager game;
+		try
+		{
+			game = GameArcade.games().GetGame(gameID);
+		}
+		catch (GameException e)
+		{
+			throw new IllegalStateException("Game " + gameID + " can't be viewed", e);
+		}
+
+		CachedModel published = game.ServerGetCachedModel();
+		Decoded last = decoded;
+		if (last == null || last.published != published)
+		{
+			last = new Decoded(published);
+			decoded = last;
+		}
+		
+		return query.Read(last.model);
+	}
+
+	private static int IndexOf(GameModel model, CatanColor color)
+	{
+		for (Player player : model.players)
+		{
+			if (player != null && player.color == color)
+				return player.playerIndex();
+		}
+
+		return -1;
+	}
+
+	/**
+	 * A published model and the model decoded from it.
+	 */
+	private static class Decoded
+	{
+		final CachedModel published;
+		final GameModel model;
+
+		Decoded(CachedModel published)
+		{
+			this.published = published;
+			this.model = published.GetModel();
+		}
+	}
+
+	/**
+	 * Reads something from the game's model on the player's behalf.
+	 */
+	private abstract class Query<T>
+	{
+		T Read(GameModel model)
+		{
+			for (Player player : model.players)
+			{
+				if (player != null && player.playerID() == playerID)
+					return Read(model, player);
+			}
+
+			throw new IllegalStateException("Player " + playerID + " isn't in game " + gameID);
+		}
+
+		protected abstract T Read(GameModel model, Player player);
+	}
+}
@@ -0,0 +1,333 @@
+package server.ai;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+import server.Log;
+import server.ai.characters.AI;
+import server.model.GameArcade;
+import server.model.RealServerGameManager;
+import server.persistence.PersistenceException;
+import server.persistence.PersistenceFacade;
+import shared.definitions.AIType;
+import shared.definitions.CatanColor;
+import shared.definitions.GameRound;
+import shared.model.ModelException;
+
+/**
+ * Plays games between AIs, with nobody else and as fast as they can go.
+ * <br/>Each game is a real game on the server, played through the same moves the AIs make
+ * normally, but the AIs are run straight away instead of being scheduled and given time to
+ * think, and there's no HTTP. Games are saved only if persistence was initialized. Games run
+ * in parallel on a fork-join pool and are dropped once they are over, so any number can be
+ * played. It's used to measure the rules engine and to compare AIs.
+ */
+public class SelfPlay
+{
+	/** The most turns a game is played for before it counts as won by nobody. */
+	public static final int DEFAULT_MAX_TURNS = 1000;
+
+	private static final int PLAYERS = 4;
+	private static final AtomicInteger runs = new AtomicInteger();
+
+	/**
+	 * Plays games between AIs and prints what happened.
+	 * @param args
+	 * <br/>Command line arguments can be the following:
+	 * <br/>[games][threads][plug-in][AI names, comma separated]
+	 * <br/>Every game seats four AIs picked at random unless names are given.
+	 */
+	public static void main(String[] args) throws PersistenceException
+	{
+		int games = 1000;
+		int threads = Runtime.getRuntime().availableProcessors();
+		String plugin = "";
+		List<String> names = null;
+
+		if (args.length >= 1)
+			games = Integer.parseInt(args[0]);
+
+		if (args.length >= 2)
+			threads = Integer.parseInt(args[1]);
+
+		if (args.length >= 3)
+			plugin = args[2];
+
+		if (args.length >= 4)
+		{
+			names = new ArrayList<String>();
+			for (String name : args[3].split(","))
+				names.add(name.trim());
+		}
+
+		//Logging every move would cost more than the moves
+		Log.GetLog().setLevel(Level.WARNING);
+
+		if (!plugin.isEmpty())
+			PersistenceFacade.Initialize(plugin, 10);
+
+		SelfPlay play = new SelfPlay(games, threads, DEFAULT_MAX_TURNS);
+		play.SetNames(names);
+		System.out.print(play.Run());
+	}
+
+	private final int games;
+	private final int threads;
+	private final int maxTurns;
+	private final AIFactory factory;
+	private List<String> names;
+
+	private int played;
+	private int won;
+	private int failed;
+	private long moves;
+	private long allocated;
+	private Map<String, Integer> seats;
+	private Map<String, Integer> wins;
+
+	/**
+	 * Creates a run of games.
+	 * @param games The number of games to play.
+	 * @param threads The number of games played at once.
+	 * @param maxTurns The most turns a game is played for.
+	 */
+	public SelfPlay(int games, int threads, int maxTurns)
+	{
+		this.games = games;
+		this.threads = Math.max(1, threads);
+		this.maxTurns = maxTurns;
+		this.factory = new AIFactory();
+	}
+
+	/**
+	 * Picks the AIs that play. Each game seats them in a different order.
+	 * @param names The AIs' names, up to four, or null to seat AIs at random.
+	 */
+	public void SetNames(List<String> names)
+	{
+		this.names = names;
+	}
+
+	/**
+	 * Plays the games.
+	 * @return What happened.
+	 */
+	public SelfPlayReport Run()
+	{
+		synchronized (this)
+		{
+			played = 0;
+			won = 0;
+			failed = 0;
+			moves = 0;
+			allocated = CanMeasureAllocation() ? 0 : -1;
+			seats = new HashMap<String, Integer>();
+			wins = new HashMap<String, Integer>();
+		}
+
+		final String title = "self-play " + runs.incrementAndGet() + "-" + System.nanoTime() + " ";
+
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		long start = System.nanoTime();
+		try
+		{
+			pool.invoke(new Games(title, 0, games));
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+		long elapsed = System.nanoTime() - start;
+
+		synchronized (this)
+		{
+			return new SelfPlayReport(played, won, failed, moves, allocated, elapsed, seats, wins);
+		}
+	}
+
+	private void PlayGame(String title, int number)
+	{
+		long before = Allocated();
+
+		RealServerGameManager game = new RealServerGameManager(title + number, true, true, true);
+		int gameID = GameArcade.games().CreateGame(game, true).getId();
+		try
+		{
+			AI[] players = Seat(game, number);
+
+			PersistenceFacade facade = PersistenceFacade.GetPersistence();
+			if (facade != null)
+				facade.AddGame(game);
+
+			GameView view = new GameView(gameID, players[0].GetID());
+			int start = view.GetVersion();
+			int winner = Play(gameID, players, view);
+
+			Record(players, winner, view.GetVersion() - start, Allocated() - before);
+		}
+		catch (ModelException | PersistenceException | RuntimeException e)
+		{
+			Log.GetLog().log(Level.WARNING, "Self-play game " + number + " failed", e);
+			Record(null, -1, 0, Allocated() - before);
+		}
+		finally
+		{
+			GameArcade.games().RemoveGame(gameID);
+		}
+	}
+
+	/**
+	 * Gives each seat an AI of its own. The player IDs only have to differ within the game.
+	 */
+	private AI[] Seat(RealServerGameManager game, int number) throws ModelException
+	{
+		AI[] players = new AI[PLAYERS];
+		Set<String> taken = new HashSet<String>();
+		Set<CatanColor> colors = new HashSet<CatanColor>();
+
+		for (int seat = 0; seat < PLAYERS; seat++)
+		{
+			AI ai;
+			if (names != null && !names.isEmpty())
+				ai = factory.Create(names.get((seat + number) % names.size()));
+			else
+				ai = factory.Create(AIType.RANDOM, taken);
+
+			if (ai == null)
+				throw new IllegalArgumentException("No AI to seat in game " + number);
+
+			ai.SetID(seat + 1);
+			CatanColor color = ai.PickColor(colors);
+			players[game.AddPlayer(ai.GetName(), color, false, ai.GetID())] = ai;
+
+			taken.add(ai.GetName());
+			colors.add(color);
+		}
+
+		return players;
+	}
+
+	/**
+	 * Plays a game until somebody wins. The AIs are told what to do as AIHandler would tell them,
+	 * but straight away.
+	 * @return The index of the winner, or -1 if nobody won.
+	 */
+	private int Play(int gameID, AI[] players, GameView view)
+	{
+		int turns = 0;
+		while (turns < maxTurns && view.GetWinner() < 0)
+		{
+			int version = view.GetVersion();
+
+			if (view.GetState() == GameRound.DISCARDING)
+			{
+				for (AI ai : players)
+					ai.Discard(gameID);
+			}
+			else
+			{
+				players[view.GetTurn()].TakeTurn(gameID);
+				turns++;
+			}
+
+			//Nobody could move, so the game is stuck
+			if (view.GetVersion() == version)
+				break;
+		}
+
+		return view.GetWinner();
+	}
+
+	private synchronized void Record(AI[] players, int winner, int gameMoves, long gameAllocated)
+	{
+		played++;
+		moves += gameMoves;
+		if (allocated >= 0)
+			allocated += gameAllocated;
+
+		if (players == null)
+		{
+			failed++;
+			return;
+		}
+
+		for (AI ai : players)
+			Increment(seats, ai.GetName());
+
+		if (winner >= 0)
+		{
+			won++;
+			Increment(wins, players[winner].GetName());
+		}
+	}
+
+	private static void Increment(Map<String, Integer> counts, String name)
+	{
+		Integer count = counts.get(name);
+		counts.put(name, count == null ? 1 : count + 1);
+	}
+
+	private static boolean CanMeasureAllocation()
+	{
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		return threads instanceof com.sun.management.ThreadMXBean
+				&& ((com.sun.management.ThreadMXBean)threads).isThreadAllocatedMemorySupported()
+				&& ((com.sun.management.ThreadMXBean)threads).isThreadAllocatedMemoryEnabled();
+	}
+
+	/**
+	 * Gets how much the current thread has allocated. A game is played on one thread, so the
+	 * difference over a game is what the game allocated.
+	 */
+	private static long Allocated()
+	{
+		if (!CanMeasureAllocation())
+			return 0;
+
+		return ((com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean())
+				.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * Plays a range of games, splitting it in half until there's one game left.
+	 */
+	private class Games extends RecursiveAction
+	{
+		private static final long serialVersionUID = 4062913058117640781L;
+
+		private final String title;
+		private final int from;
+		private final int to;
+
+		Games(String title, int from, int to)
+		{
+			this.title = title;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (to - from <= 1)
+			{
+				if (to > from)
+					PlayGame(title, from);
+				return;
+			}
+
+			int middle = (from + to) >>> 1;
+			invokeAll(new Games(title, from, middle), new Games(title, middle, to));
+		}
+	}
+}
@@ -0,0 +1,143 @@
+package server.ai;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * What happened when AIs played each other (see {@link SelfPlay}).
+ */
+public class SelfPlayReport
+{
+	private final int games;
+	private final int won;
+	private final int failed;
+	private final long moves;
+	private final long allocatedBytes;
+	private final long elapsedNanos;
+	private final Map<String, Integer> seats;
+	private final Map<String, Integer> wins;
+
+	public SelfPlayReport(int games, int won, int failed, long moves, long allocatedBytes, long elapsedNanos,
+			Map<String, Integer> seats, Map<String, Integer> wins)
+	{
+		this.games = games;
+		this.won = won;
+		this.failed = failed;
+		this.moves = moves;
+		this.allocatedBytes = allocatedBytes;
+		this.elapsedNanos = elapsedNanos;
+		this.seats = new TreeMap<String, Integer>(seats);
+		this.wins = new TreeMap<String, Integer>(wins);
+	}
+
+	/**
+	 * @return The number of games played, including those nobody won and those that failed.
+	 */
+	public int GetGames()
+	{
+		return games;
+	}
+
+	/**
+	 * @return The number of games somebody won.
+	 */
+	public int GetWon()
+	{
+		return won;
+	}
+
+	/**
+	 * @return The number of games stopped by an error.
+	 */
+	public int GetFailed()
+	{
+		return failed;
+	}
+
+	/**
+	 * @return The number of moves made, in every game.
+	 */
+	public long GetMoves()
+	{
+		return moves;
+	}
+
+	/**
+	 * @return How many bytes were allocated per move, or -1 if the JVM can't tell.
+	 */
+	public double GetBytesPerMove()
+	{
+		if (allocatedBytes < 0 || moves == 0)
+			return -1;
+
+		return (double)allocatedBytes / moves;
+	}
+
+	/**
+	 * @return How long the games took, in milliseconds.
+	 */
+	public double GetElapsedMillis()
+	{
+		return elapsedNanos / 1e6;
+	}
+
+	public double GetGamesPerSecond()
+	{
+		return games / (elapsedNanos / 1e9);
+	}
+
+	public double GetMovesPerSecond()
+	{
+		return moves / (elapsedNanos / 1e9);
+	}
+
+	/**
+	 * @return How many seats each AI took, by name.
+	 */
+	public Map<String, Integer> GetSeats()
+	{
+		return seats;
+	}
+
+	/**
+	 * @return How many games each AI won, by name.
+	 */
+	public Map<String, Integer> GetWins()
+	{
+		return wins;
+	}
+
+	/**
+	 * Gets the share of its games an AI won.
+	 * @param name The AI's name.
+	 * @return The win rate, from 0 to 1.
+	 */
+	public double GetWinRate(String name)
+	{
+		Integer played = seats.get(name);
+		if (played == null || played == 0)
+			return 0;
+
+		Integer won = wins.get(name);
+		return won == null ? 0 : (double)won / played;
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder report = new StringBuilder();
+		report.append(String.format("games=%d won=%d failed=%d moves=%d elapsed=%.1fms%n",
+				games, won, failed, moves, GetElapsedMillis()));
+		report.append(String.format("games/sec=%.1f moves/sec=%.1f bytes/move=%.0f%n",
+				GetGamesPerSecond(), GetMovesPerSecond(), GetBytesPerMove()));
+
+		for (Map.Entry<String, Integer> seat : seats.entrySet())
+		{
+			Integer won = wins.get(seat.getKey());
+			report.append(String.format("%s: seats=%d wins=%d rate=%.3f%n", seat.getKey(), seat.getValue(),
+					won == null ? 0 : won, GetWinRate(seat.getKey())));
+		}
+
+		return report.toString();
+	}
+}
@@ -0,0 +1,27 @@
+package server.ai.characters;
+
+import server.ai.characters.personalities.ExpertPersonality;
+import shared.definitions.AIType;
+
+/**
+ * Creates HAL.
+ */
+public class E_Hal extends AI
+{
+	private static final String NAME = "HAL";
+	
+	/**
+	 * Switches on HAL.
+	 */
+	public E_Hal() 
+	{
+		super(AIType.EXPERT, new ExpertPersonality(NAME));
+	}
+
+	@Override
+	public String GetName() 
+	{
+		return NAME;
+	}
+
+}
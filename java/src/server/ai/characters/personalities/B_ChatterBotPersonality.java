@@ -8,30 +8,43 @@ import server.ai.chatbots.ChatterBotType;
 public class B_ChatterBotPersonality extends server.ai.characters.personalities.BeginnerPersonality {
 
 	private ChatterBotSession botsession = null;
+	private boolean started = false;
 	
 	public B_ChatterBotPersonality(String username) {
 		super(username);
-		ChatterBotFactory factory = new ChatterBotFactory();
-		
-		try 
+	}
+	
+	/**
+	 * Starts the bot's session the first time someone chats, so an AI that's never chatted to,
+	 * e.g. in self-play, never goes to the web.
+	 */
+	private ChatterBotSession GetBotSession()
+	{
+		if (botsession == null && !started)
 		{
-			ChatterBot bot;
-			bot = factory.create(ChatterBotType.PANDORABOTS, "b0dafd24ee35a477");
-			botsession = bot.createSession();
-		}
-		catch (Exception e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+			started = true;
+			ChatterBotFactory factory = new ChatterBotFactory();
+			
+			try 
+			{
+				ChatterBot bot;
+				bot = factory.create(ChatterBotType.PANDORABOTS, "b0dafd24ee35a477");
+				botsession = bot.createSession();
+			}
+			catch (Exception e) {
+				// TODO Auto-generated catch block
+				e.printStackTrace();
+			}
 		}
-       
-
+		
+		return botsession;
 	}
 	
 	@Override
 	public void ChatReceived(int gameID, String message)
 	{
 		//only response 75% of the time
-		if (botsession != null && Math.random() <= .6)
+		if (Math.random() <= .6 && GetBotSession() != null)
 		{
 			try 
 			{
@@ -1,24 +1,19 @@
 package server.ai.characters.personalities;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Random;
 import java.util.Set;
 
 import server.Log;
-import shared.definitions.CatanColor;
+import server.ai.GameSession;
+import server.ai.GameView;
 import shared.definitions.GameRound;
-import shared.definitions.HexType;
 import shared.definitions.ResourceType;
-import shared.model.Bank;
-import shared.model.GameModel;
 import shared.model.OfferedTrade;
 import shared.model.map.Coordinate;
 import shared.model.map.objects.Edge;
-import shared.model.map.objects.Hex;
-import shared.model.map.objects.Vertex;
 
 /**
  * Personality and playing style that can be used by beginner AIs.
@@ -39,52 +34,47 @@ public class BeginnerPersonality extends Personality
 	@Override
 	public void TakeTurn(int gameID)
 	{
-		try
+		GameSession session = GetSession(gameID);
+		if (session == null)
+			return;
+		
+		GameView view = session.GetView();
+		
+		//The turn may have been taken up already, e.g. if the discards finished before we looked
+		if (!view.IsTurn())
+			return;
+		
+		if (view.IsSetup())
+			Setup(session);
+		else
 		{
-			GameModel model = GetModel(gameID);
+			if (view.GetState() == GameRound.ROLLING)
+				RollDice(session);
+			
+			//If we roll a 7, the game asks everyone to discard and gives us the turn back once they have
+			if (view.GetState() == GameRound.DISCARDING)
+				return;
 			
-			if (model.gameState.IsSetup())
-				Setup(model);
+			//Check if we are robbing
+			if (view.GetState() == GameRound.ROBBING)
+				Rob(session);
 			else
-			{
-				if (model.gameState.state == GameRound.ROLLING)
-					model = this.RollDice(gameID);
-				
-				//If we roll a 7
-				if (model.gameState.state == GameRound.DISCARDING)
-				{
-					//Discard if necessary.
-					Discard(gameID);
-					
-					do
-					{
-						Thread.sleep(3000);
-						model = GetModel(gameID);
-					} while (model.gameState.state == GameRound.DISCARDING);
-				}
-				
-				//Check if we are robbing
-				if (model.gameState.state == GameRound.ROBBING)
-					Rob(model);
-				else
-					Play(model);
-			}
-		}
-		catch (InterruptedException e)
-		{
-			e.printStackTrace();
-			Log.GetLog().throwing("BeginnerPersonality", "TakeTurn", e);
+				Play(session);
 		}
 		
-		FinishTurn(gameID);
+		session.FinishTurn();
 	}
 	
 	@Override
 	public void Discard(int gameID) 
 	{
-		GameModel model = GetModel(gameID);
+		GameSession session = GetSession(gameID);
+		if (session == null)
+			return;
+		
+		GameView view = session.GetView();
 		
-		int count = GetBank(model).getResourceCount();
+		int count = view.GetResourceCount();
 		if (count <= 7)
 			return;
 		
@@ -95,11 +85,11 @@ public class BeginnerPersonality extends Personality
 		List<Integer> selectedResources = new ArrayList<Integer>();
 		
 		
-		currentResources.add(GetBank(model).getResourceCount(ResourceType.BRICK));
-		currentResources.add(GetBank(model).getResourceCount(ResourceType.ORE));
-		currentResources.add(GetBank(model).getResourceCount(ResourceType.SHEEP));
-		currentResources.add(GetBank(model).getResourceCount(ResourceType.WHEAT));
-		currentResources.add(GetBank(model).getResourceCount(ResourceType.WOOD));
+		currentResources.add(view.GetResourceCount(ResourceType.BRICK));
+		currentResources.add(view.GetResourceCount(ResourceType.ORE));
+		currentResources.add(view.GetResourceCount(ResourceType.SHEEP));
+		currentResources.add(view.GetResourceCount(ResourceType.WHEAT));
+		currentResources.add(view.GetResourceCount(ResourceType.WOOD));
 
 		for (@SuppressWarnings("unused") ResourceType resource : ResourceType.values())
 			selectedResources.add(0);
@@ -119,7 +109,7 @@ public class BeginnerPersonality extends Personality
 				index = 0;
 		}
 		
-		Discard(model.gameID, selectedResources);
+		session.DiscardCards(selectedResources);
 	}
 
 	@Override
@@ -136,130 +126,109 @@ public class BeginnerPersonality extends Personality
 	}
 
 	@Override
-	protected void Setup(GameModel model) 
+	protected void Setup(GameSession session) 
 	{
 		final boolean free = true;
 		
-		List<Vertex> available = GetAvailableVertices(model);
+		List<Coordinate> available = session.GetView().GetAvailableVertices();
 		
 		Random random = new Random();
 		int vertex = random.nextInt(available.size());
 		
-		int gameID = model.gameID;
-		Vertex selectedVertex = available.get(vertex);
-		Coordinate mainVertex = selectedVertex.getPoint();
-		model = BuildSettlement(gameID, mainVertex, free);
+		Coordinate mainVertex = available.get(vertex);
+		GameView view = session.BuildSettlement(mainVertex, free);
+		if (view == null)
+			return;
 		
-		List<Vertex> availableRoadEnd = new ArrayList<Vertex>();
-		Iterator<Vertex> roads = model.mapModel.GetVertices(selectedVertex);
-		while (roads.hasNext())
-			availableRoadEnd.add(roads.next());
+		List<Coordinate> availableRoadEnd = view.GetNeighbors(mainVertex);
 		
 		int road = random.nextInt(availableRoadEnd.size());
 		
-		Coordinate endVertex = availableRoadEnd.get(road).getPoint();
-		model = BuildRoad(gameID, mainVertex, endVertex, free);
+		Coordinate endVertex = availableRoadEnd.get(road);
+		session.BuildRoad(mainVertex, endVertex, free);
 	}
 	
 	
 
 	@Override
-	protected void Play(GameModel model) 
+	protected void Play(GameSession session) 
 	{
-		Bank bank = GetBank(model);
-		
-		if (bank.canBuildCity())
-			AttemptBuildCity(model);
-		if (bank.canBuildSettlement())
-			AttemptBuildSettlement(model);
-		if (bank.canBuildRoad())
-			AttemptBuildRoad(model);
-		if (bank.canBuyDevCard())
-			AttemptBuyDevCard(model);
+		GameView view = session.GetView();
+		
+		if (view.CanBuildCity())
+			AttemptBuildCity(session);
+		if (view.CanBuildSettlement())
+			AttemptBuildSettlement(session);
+		if (view.CanBuildRoad())
+			AttemptBuildRoad(session);
+		if (view.CanBuyDevCard())
+			AttemptBuyDevCard(session);
 	}
 	
-	private void AttemptBuildCity(GameModel model)
+	private void AttemptBuildCity(GameSession session)
 	{
-		Iterator<Vertex> settlements = GetSettlements(model).iterator();
+		GameView view = session.GetView();
+		Iterator<Coordinate> settlements = view.GetSettlements().iterator();
 		
-		while (settlements.hasNext() && model != null && GetBank(model).canBuildCity())
+		while (settlements.hasNext() && view != null && view.CanBuildCity())
 		{
-			Vertex vertex = settlements.next();
+			Coordinate vertex = settlements.next();
 			
-			model = BuildCity(model.gameID, vertex.getPoint());
+			view = session.BuildCity(vertex);
 		}
 	}
 	
-	private void AttemptBuildSettlement(GameModel model)
+	private void AttemptBuildSettlement(GameSession session)
 	{
 		final boolean free = false;
 		
-		Iterator<Vertex> available = GetAvailableVertices(model).iterator();
+		GameView view = session.GetView();
+		Iterator<Coordinate> available = view.GetAvailableVertices().iterator();
 		
-		while (available.hasNext() && model != null && GetBank(model).canBuildSettlement())
+		while (available.hasNext() && view != null && view.CanBuildSettlement())
 		{
-			Vertex vertex = available.next();
+			Coordinate vertex = available.next();
 			
-			model = BuildSettlement(model.gameID, vertex.getPoint(), free);
+			view = session.BuildSettlement(vertex, free);
 		}
 	}
 	
-	private void AttemptBuildRoad(GameModel model)
+	private void AttemptBuildRoad(GameSession session)
 	{
 		final boolean free = false;
 		
-		Iterator<Edge> available = GetAvailableEdges(model).iterator();
+		GameView view = session.GetView();
+		Iterator<Edge> available = view.GetAvailableEdges().iterator();
 		
-		while (available.hasNext() && model != null && GetBank(model).canBuildRoad())
+		while (available.hasNext() && view != null && view.CanBuildRoad())
 		{
 			Edge edge = available.next();
 			
-			model = BuildRoad(model.gameID, edge.getStart(), edge.getEnd(), free);
+			view = session.BuildRoad(edge.getStart(), edge.getEnd(), free);
 		}
 	}
 	
-	private void AttemptBuyDevCard(GameModel model)
+	private void AttemptBuyDevCard(GameSession session)
 	{
-		while (model != null && GetBank(model).canBuyDevCard())
-			model = BuyDevCard(model.gameID);
+		GameView view = session.GetView();
+		
+		while (view != null && view.CanBuyDevCard())
+			view = session.BuyDevCard();
 	}
 	
-	private void Rob(GameModel model)
+	protected void Rob(GameSession session)
 	{
-		Hex current = model.mapModel.GetRobberLocation();
-		
-		Iterator<Hex> hexes = model.mapModel.GetHexes();
+		GameView view = session.GetView();
 		
-		List<Hex> options = new ArrayList<Hex>();
-		while (hexes.hasNext())
-		{
-			Hex hex = hexes.next();
-			
-			if (hex.getType() == HexType.WATER || hex.equals(current))
-				continue;
-			
-			options.add(hex);
-		}
+		List<Coordinate> options = view.GetLandHexes();
+		options.remove(view.GetRobberLocation());
 		
 		Random random = new Random();
 		int selected = random.nextInt(options.size());
 		
-		Hex robber = options.get(selected);
+		Coordinate robber = options.get(selected);
 		
-		CatanColor aiColor = GetColor(model);
-		Set<Integer> robOptions = new HashSet<Integer>();
-		Iterator<CatanColor> colors = model.mapModel.GetOccupiedVertices(robber.getPoint());
-		while (colors.hasNext())
-		{
-			CatanColor color = colors.next();
-			
-			if (color == aiColor)
-				continue;
-			
-			int index = GetIndexByColor(model, color);
-			
-			robOptions.add(index);
-		}
+		Set<Integer> robOptions = view.GetRobbable(robber);
 		
 		int toRob = -1;
 		if (robOptions.size() > 0)
@@ -270,6 +239,6 @@ public class BeginnerPersonality extends Personality
 			toRob = pickToRob[selected];
 		}
 		
-		Rob(model.gameID, toRob, robber.getPoint());
+		session.RobPlayer(toRob, robber);
 	}
 }
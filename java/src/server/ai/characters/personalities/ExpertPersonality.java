@@ -0,0 +1,238 @@
+package server.ai.characters.personalities;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import server.Log;
+import server.ai.GameSession;
+import server.ai.GameView;
+import server.ai.search.SearchBoard;
+import server.ai.search.SearchState;
+import server.ai.search.TreeSearch;
+import shared.definitions.ResourceType;
+import shared.model.map.Coordinate;
+
+/**
+ * Personality and playing style that can be used by expert AIs.
+ * <br/>It settles where the dice pay best, then picks every move of its turn with a
+ * {@link TreeSearch}, which takes the same time for each move however busy the game is.
+ * Discarding and trading are done as a beginner does.
+ */
+public class ExpertPersonality extends BeginnerPersonality
+{
+	private static final int RESOURCES = ResourceType.values().length;
+
+	private final TreeSearch search;
+	private SearchBoard board;
+	private int boardGame = -1;
+
+	/**
+	 * Creates an expert personality that searches each move for the configured time.
+	 * @param username The AIs username.
+	 */
+	public ExpertPersonality(String username)
+	{
+		this(username, new TreeSearch());
+	}
+
+	/**
+	 * Creates an expert personality.
+	 * @param username The AIs username.
+	 * @param search The search that picks its moves.
+	 */
+	public ExpertPersonality(String username, TreeSearch search)
+	{
+		super(username);
+		this.search = search;
+	}
+
+	@Override
+	protected void Setup(GameSession session)
+	{
+		final boolean free = true;
+
+		GameView view = session.GetView();
+		final SearchBoard board = GetBoard(view);
+		final SearchState state = view.GetSearchState(board);
+		final int me = session.GetPlayerIndex();
+
+		int best = -1;
+		int bestValue = Integer.MIN_VALUE;
+		for (Coordinate point : view.GetAvailableVertices())
+		{
+			int vertex = board.GetVertexIndex(point);
+			int value = Value(board, state, vertex, me);
+			if (value > bestValue)
+			{
+				best = vertex;
+				bestValue = value;
+			}
+		}
+
+		if (best < 0 || session.BuildSettlement(board.GetVertex(best), free) == null)
+			return;
+
+		//Head for the best spot a road away
+		final int settlement = best;
+		List<Integer> ends = new ArrayList<Integer>();
+		for (int end : board.GetNeighbors(settlement))
+			ends.add(end);
+
+		Collections.sort(ends, new Comparator<Integer>()
+		{
+			@Override
+			public int compare(Integer a, Integer b)
+			{
+				return Integer.compare(Reach(board, state, b, settlement, me), Reach(board, state, a, settlement, me));
+			}
+		});
+
+		for (int end : ends)
+		{
+			if (session.BuildRoad(board.GetVertex(settlement), board.GetVertex(end), free) != null)
+				return;
+		}
+	}
+
+	@Override
+	protected void Play(GameSession session)
+	{
+		final boolean free = false;
+
+		GameView view = session.GetView();
+		SearchBoard board = GetBoard(view);
+
+		while (view != null)
+		{
+			int move = search.Choose(view.GetSearchState(board));
+			int index = SearchState.GetIndex(move);
+
+			Log.GetLog().fine(this.username + " searched " + search.GetRollouts() + " games in "
+					+ search.GetElapsedMillis() + "ms");
+
+			switch (SearchState.GetType(move))
+			{
+			case SearchState.CITY:
+				view = session.BuildCity(board.GetVertex(index));
+				break;
+			case SearchState.SETTLEMENT:
+				view = session.BuildSettlement(board.GetVertex(index), free);
+				break;
+			case SearchState.ROAD:
+				view = session.BuildRoad(board.GetVertex(board.GetEdgeStart(index)),
+						board.GetVertex(board.GetEdgeEnd(index)), free);
+				break;
+			case SearchState.END:
+			default:
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Moves the robber next to the player most worth stealing from. The robber doesn't stop a
+	 * hex paying in this game, so only the card stolen matters.
+	 */
+	@Override
+	protected void Rob(GameSession session)
+	{
+		GameView view = session.GetView();
+		SearchBoard board = GetBoard(view);
+		SearchState state = view.GetSearchState(board);
+		int me = session.GetPlayerIndex();
+
+		int bestHex = -1;
+		int bestVictim = -1;
+		int bestValue = Integer.MIN_VALUE;
+		for (int hex = 0; hex < board.GetHexCount(); hex++)
+		{
+			if (hex == state.GetRobber())
+				continue;
+
+			if (bestHex < 0)
+				bestHex = hex;
+
+			for (int vertex : board.GetHexVertices(hex))
+			{
+				int victim = state.GetVertexOwner(vertex);
+				if (victim < 0 || victim == me || state.GetResourceCount(victim) == 0)
+					continue;
+
+				//The leader first, then whoever has the most cards
+				int value = state.GetPoints(victim) * 100 + state.GetResourceCount(victim);
+				if (value > bestValue)
+				{
+					bestHex = hex;
+					bestVictim = victim;
+					bestValue = value;
+				}
+			}
+		}
+
+		if (bestHex >= 0)
+			session.RobPlayer(bestVictim, board.GetHex(bestHex));
+	}
+
+	private SearchBoard GetBoard(GameView view)
+	{
+		if (board == null || boardGame != view.GetGameID())
+		{
+			board = view.GetSearchBoard();
+			boardGame = view.GetGameID();
+		}
+
+		return board;
+	}
+
+	/**
+	 * How good a vertex is to settle on: how often the dice pay it, and more for resources the
+	 * player isn't paid yet.
+	 */
+	private static int Value(SearchBoard board, SearchState state, int vertex, int player)
+	{
+		boolean[] paid = new boolean[RESOURCES];
+		for (int v = 0; v < board.GetVertexCount(); v++)
+		{
+			if (state.GetVertexOwner(v) != player)
+				continue;
+
+			for (int r = 0; r < RESOURCES; r++)
+				paid[r] |= board.GetVertexDots(v, r) > 0;
+		}
+
+		int value = 0;
+		for (int r = 0; r < RESOURCES; r++)
+		{
+			int dots = board.GetVertexDots(vertex, r);
+			value += dots;
+			if (dots > 0 && !paid[r])
+				value += 2;
+		}
+
+		return value;
+	}
+
+	/**
+	 * How good the best open vertex past the end of a road is.
+	 */
+	private static int Reach(SearchBoard board, SearchState state, int end, int from, int player)
+	{
+		int best = 0;
+		for (int next : board.GetNeighbors(end))
+		{
+			if (next == from || state.GetVertexOwner(next) >= 0)
+				continue;
+
+			boolean open = true;
+			for (int neighbor : board.GetNeighbors(next))
+				open &= state.GetVertexOwner(neighbor) < 0;
+
+			if (open)
+				best = Math.max(best, Value(board, state, next, player));
+		}
+
+		return best;
+	}
+}
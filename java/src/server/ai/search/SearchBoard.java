@@ -0,0 +1,323 @@
+package server.ai.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import shared.definitions.HexType;
+import shared.definitions.ResourceType;
+import shared.model.map.Coordinate;
+import shared.model.map.model.MapModel;
+import shared.model.map.objects.Edge;
+import shared.model.map.objects.Hex;
+import shared.model.map.objects.Vertex;
+
+/**
+ * The layout of a game's map, numbered so a search can look it up in arrays.
+ * <br/>Vertices, edges and land hexes are each given an index, and everything that never changes
+ * during a game (who neighbors whom, which vertices each roll pays) is worked out once. What is
+ * built on the map is kept by a {@link SearchState}.
+ */
+public class SearchBoard
+{
+	private final Coordinate[] vertices;
+	private final Map<Coordinate, Integer> vertexIndex;
+	private final int[][] neighbors;
+	private final int[][] vertexEdges;
+	private final int[] edgeStart;
+	private final int[] edgeEnd;
+	private final Coordinate[] hexes;
+	private final int[][] hexVertices;
+	private final int[] hexDots;
+	private final int[][] rollVertices;
+	private final int[][] rollResources;
+	private final int[][] vertexDots;
+
+	/**
+	 * Numbers a map's layout.
+	 * @param map The map. Only read, so it must not change while this is being made.
+	 */
+	public SearchBoard(MapModel map)
+	{
+		List<Coordinate> points = new ArrayList<Coordinate>();
+		vertexIndex = new HashMap<Coordinate, Integer>();
+		Iterator<Vertex> allVertices = map.GetVertices();
+		while (allVertices.hasNext())
+		{
+			Coordinate point = allVertices.next().getPoint();
+			vertexIndex.put(point, points.size());
+			points.add(point);
+		}
+		vertices = points.toArray(new Coordinate[points.size()]);
+
+		neighbors = new int[vertices.length][];
+		for (int v = 0; v < vertices.length; v++)
+			neighbors[v] = Indices(map.GetVertices(new Vertex(vertices[v])));
+
+		List<int[]> edges = new ArrayList<int[]>();
+		Iterator<Edge> allEdges = map.GetEdges();
+		while (allEdges.hasNext())
+		{
+			Edge edge = allEdges.next();
+			Integer start = vertexIndex.get(edge.getStart());
+			Integer end = vertexIndex.get(edge.getEnd());
+			if (start != null && end != null)
+				edges.add(new int[] { start, end });
+		}
+		edgeStart = new int[edges.size()];
+		edgeEnd = new int[edges.size()];
+		List<List<Integer>> byVertex = new ArrayList<List<Integer>>();
+		for (int v = 0; v < vertices.length; v++)
+			byVertex.add(new ArrayList<Integer>(3));
+		for (int e = 0; e < edges.size(); e++)
+		{
+			edgeStart[e] = edges.get(e)[0];
+			edgeEnd[e] = edges.get(e)[1];
+			byVertex.get(edgeStart[e]).add(e);
+			byVertex.get(edgeEnd[e]).add(e);
+		}
+		vertexEdges = new int[vertices.length][];
+		for (int v = 0; v < vertices.length; v++)
+			vertexEdges[v] = ToArray(byVertex.get(v));
+
+		Map<Coordinate, Integer> numbers = new HashMap<Coordinate, Integer>();
+		Iterator<Entry<Integer, List<Hex>>> pips = map.GetPips();
+		while (pips.hasNext())
+		{
+			Entry<Integer, List<Hex>> pip = pips.next();
+			for (Hex hex : pip.getValue())
+				numbers.put(hex.getPoint(), pip.getKey());
+		}
+
+		List<Coordinate> land = new ArrayList<Coordinate>();
+		List<int[]> landVertices = new ArrayList<int[]>();
+		List<Integer> landDots = new ArrayList<Integer>();
+		List<List<Integer>> paidVertices = new ArrayList<List<Integer>>();
+		List<List<Integer>> paidResources = new ArrayList<List<Integer>>();
+		for (int roll = 0; roll <= 12; roll++)
+		{
+			paidVertices.add(new ArrayList<Integer>());
+			paidResources.add(new ArrayList<Integer>());
+		}
+		vertexDots = new int[vertices.length][ResourceType.values().length];
+
+		Iterator<Hex> allHexes = map.GetHexes();
+		while (allHexes.hasNext())
+		{
+			Hex hex = allHexes.next();
+			if (hex.getType() == HexType.WATER)
+				continue;
+
+			int[] around = Indices(map.GetVertices(hex));
+			Integer number = numbers.get(hex.getPoint());
+			ResourceType resource = ResourceType.fromHex(hex.getType());
+			int dots = number == null ? 0 : Dots(number);
+
+			land.add(hex.getPoint());
+			landVertices.add(around);
+			landDots.add(dots);
+
+			if (number == null || resource == null)
+				continue;
+
+			for (int v : around)
+			{
+				paidVertices.get(number).add(v);
+				paidResources.get(number).add(resource.ordinal());
+				vertexDots[v][resource.ordinal()] += dots;
+			}
+		}
+
+		hexes = land.toArray(new Coordinate[land.size()]);
+		hexVertices = landVertices.toArray(new int[land.size()][]);
+		hexDots = ToArray(landDots);
+		rollVertices = new int[13][];
+		rollResources = new int[13][];
+		for (int roll = 0; roll <= 12; roll++)
+		{
+			rollVertices[roll] = ToArray(paidVertices.get(roll));
+			rollResources[roll] = ToArray(paidResources.get(roll));
+		}
+	}
+
+	public int GetVertexCount()
+	{
+		return vertices.length;
+	}
+
+	public int GetEdgeCount()
+	{
+		return edgeStart.length;
+	}
+
+	public int GetHexCount()
+	{
+		return hexes.length;
+	}
+
+	/**
+	 * @param vertex The vertex's index.
+	 * @return The vertex's coordinate.
+	 */
+	public Coordinate GetVertex(int vertex)
+	{
+		return vertices[vertex];
+	}
+
+	/**
+	 * @param point A vertex's coordinate.
+	 * @return The vertex's index, or -1 if there is no such vertex.
+	 */
+	public int GetVertexIndex(Coordinate point)
+	{
+		Integer index = vertexIndex.get(point);
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * @param vertex The vertex's index.
+	 * @return The indices of the vertices next to it. Not to be changed.
+	 */
+	public int[] GetNeighbors(int vertex)
+	{
+		return neighbors[vertex];
+	}
+
+	/**
+	 * @param vertex The vertex's index.
+	 * @return The indices of the edges that end at it. Not to be changed.
+	 */
+	public int[] GetEdges(int vertex)
+	{
+		return vertexEdges[vertex];
+	}
+
+	public int GetEdgeStart(int edge)
+	{
+		return edgeStart[edge];
+	}
+
+	public int GetEdgeEnd(int edge)
+	{
+		return edgeEnd[edge];
+	}
+
+	/**
+	 * @param hex The land hex's index.
+	 * @return The hex's coordinate.
+	 */
+	public Coordinate GetHex(int hex)
+	{
+		return hexes[hex];
+	}
+
+	/**
+	 * @param point A hex's coordinate.
+	 * @return The index of the land hex, or -1 if it isn't a land hex.
+	 */
+	public int GetHexIndex(Coordinate point)
+	{
+		for (int hex = 0; hex < hexes.length; hex++)
+		{
+			if (hexes[hex].equals(point))
+				return hex;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * @param hex The land hex's index.
+	 * @return The indices of the vertices around it. Not to be changed.
+	 */
+	public int[] GetHexVertices(int hex)
+	{
+		return hexVertices[hex];
+	}
+
+	/**
+	 * Gets how often a hex pays out, as the number of ways two dice roll its number.
+	 * @param hex The land hex's index.
+	 * @return From 0 (the desert) to 5 (a 6 or an 8).
+	 */
+	public int GetHexDots(int hex)
+	{
+		return hexDots[hex];
+	}
+
+	/**
+	 * @param roll The dice roll.
+	 * @return The vertices a roll pays, once for each hex it pays them from. Not to be changed.
+	 */
+	public int[] GetRollVertices(int roll)
+	{
+		return rollVertices[roll];
+	}
+
+	/**
+	 * @param roll The dice roll.
+	 * @return The resource each of {@link #GetRollVertices(int)} is paid, by ordinal. Not to be changed.
+	 */
+	public int[] GetRollResources(int roll)
+	{
+		return rollResources[roll];
+	}
+
+	/**
+	 * Gets how often a vertex is paid a resource.
+	 * @param vertex The vertex's index.
+	 * @param resource The resource's ordinal.
+	 * @return The dots of every hex around the vertex that pays the resource.
+	 */
+	public int GetVertexDots(int vertex, int resource)
+	{
+		return vertexDots[vertex][resource];
+	}
+
+	/**
+	 * Gets the edge between two vertices.
+	 * @return The edge's index, or -1 if they aren't neighbors.
+	 */
+	public int GetEdgeIndex(int start, int end)
+	{
+		for (int edge : vertexEdges[start])
+		{
+			if (edgeStart[edge] == end || edgeEnd[edge] == end)
+				return edge;
+		}
+
+		return -1;
+	}
+
+	private int[] Indices(Iterator<Vertex> found)
+	{
+		List<Integer> indices = new ArrayList<Integer>(6);
+		while (found.hasNext())
+		{
+			Integer index = vertexIndex.get(found.next().getPoint());
+			if (index != null)
+				indices.add(index);
+		}
+
+		return ToArray(indices);
+	}
+
+	private static int[] ToArray(List<Integer> values)
+	{
+		int[] array = new int[values.size()];
+		for (int i = 0; i < array.length; i++)
+			array[i] = values.get(i);
+		return array;
+	}
+
+	/**
+	 * The number of ways two dice roll a number.
+	 */
+	private static int Dots(int number)
+	{
+		return 6 - Math.abs(7 - number);
+	}
+}
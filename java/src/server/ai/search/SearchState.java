@@ -0,0 +1,601 @@
+package server.ai.search;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+
+import shared.definitions.CatanColor;
+import shared.definitions.PieceType;
+import shared.definitions.ResourceType;
+import shared.model.GameModel;
+import shared.model.ModelException;
+import shared.model.Player;
+import shared.model.map.objects.Edge;
+import shared.model.map.objects.Vertex;
+
+/**
+ * A copy of a game, in arrays, that a search can play forward as fast as it likes.
+ * <br/>It holds what the rules need once the game is set up: what is built where, each
+ * player's cards, pieces and points, and the bank's cards. Copying it copies a few small
+ * arrays, so a search can copy it for every game it plays out. It plays by the server's rules
+ * for the moves an AI can make (building and ending its turn). Development cards, trading and
+ * the longest road aren't played out.
+ * <br/>A move is an int made by {@link #Move(int, int)} from a type and the index of the vertex
+ * or edge on the {@link SearchBoard}.
+ */
+public class SearchState
+{
+	public static final int END = 0;
+	public static final int ROAD = 1;
+	public static final int SETTLEMENT = 2;
+	public static final int CITY = 3;
+
+	/** The points that win the game. */
+	public static final int WINNING_POINTS = 10;
+
+	private static final int RESOURCES = 5;
+	private static final int WOOD = ResourceType.WOOD.ordinal();
+	private static final int BRICK = ResourceType.BRICK.ordinal();
+	private static final int SHEEP = ResourceType.SHEEP.ordinal();
+	private static final int WHEAT = ResourceType.WHEAT.ordinal();
+	private static final int ORE = ResourceType.ORE.ordinal();
+
+	private final SearchBoard board;
+	private final int players;
+	private int current;
+	private int robber;
+	private final int[] vertexOwner;
+	private final int[] vertexLevel;
+	private final int[] edgeOwner;
+	private final int[] hands;
+	private final int[] points;
+	private final int[] roads;
+	private final int[] settlements;
+	private final int[] cities;
+	private final int[] bank;
+
+	/**
+	 * Copies a game. The game must not change while it is copied, e.g. by copying it while
+	 * reading the game.
+	 * @param board The layout of the game's map.
+	 * @param model The game.
+	 */
+	public SearchState(SearchBoard board, GameModel model)
+	{
+		this.board = board;
+		this.players = model.players.size();
+		this.current = model.gameState.activePlayerIndex;
+		this.robber = board.GetHexIndex(model.mapModel.GetRobberLocation().getPoint());
+
+		vertexOwner = new int[board.GetVertexCount()];
+		vertexLevel = new int[board.GetVertexCount()];
+		edgeOwner = new int[board.GetEdgeCount()];
+		hands = new int[players * RESOURCES];
+		points = new int[players];
+		roads = new int[players];
+		settlements = new int[players];
+		cities = new int[players];
+		bank = new int[RESOURCES];
+
+		CatanColor[] colors = new CatanColor[players];
+		for (int p = 0; p < players; p++)
+		{
+			Player player = model.players.get(p);
+			colors[p] = player.color;
+			points[p] = model.victoryPointManager.getVictoryPoints(p);
+
+			for (ResourceType type : ResourceType.values())
+				hands[p * RESOURCES + type.ordinal()] = player.playerBank.getResourceCount(type);
+
+			try
+			{
+				roads[p] = player.playerBank.getPieceCount(PieceType.ROAD);
+				settlements[p] = player.playerBank.getPieceCount(PieceType.SETTLEMENT);
+				cities[p] = player.playerBank.getPieceCount(PieceType.CITY);
+			}
+			catch (ModelException e)
+			{
+				//Only the robber isn't counted
+				e.printStackTrace();
+			}
+		}
+
+		for (ResourceType type : ResourceType.values())
+			bank[type.ordinal()] = model.gameBank.getResourceCount(type);
+
+		Arrays.fill(vertexOwner, -1);
+		Iterator<Vertex> vertices = model.mapModel.GetVertices();
+		while (vertices.hasNext())
+		{
+			Vertex vertex = vertices.next();
+			int index = board.GetVertexIndex(vertex.getPoint());
+			if (index < 0 || vertex.getType() == PieceType.NONE)
+				continue;
+
+			vertexOwner[index] = IndexOf(colors, vertex.getColor());
+			vertexLevel[index] = vertex.getType() == PieceType.CITY ? 2 : 1;
+		}
+
+		Arrays.fill(edgeOwner, -1);
+		Iterator<Edge> edges = model.mapModel.GetEdges();
+		while (edges.hasNext())
+		{
+			Edge edge = edges.next();
+			if (!edge.doesRoadExists())
+				continue;
+
+			int index = board.GetEdgeIndex(board.GetVertexIndex(edge.getStart()), board.GetVertexIndex(edge.getEnd()));
+			if (index >= 0)
+				edgeOwner[index] = IndexOf(colors, edge.getColor());
+		}
+	}
+
+	private SearchState(SearchState other)
+	{
+		this.board = other.board;
+		this.players = other.players;
+		this.current = other.current;
+		this.robber = other.robber;
+		this.vertexOwner = other.vertexOwner.clone();
+		this.vertexLevel = other.vertexLevel.clone();
+		this.edgeOwner = other.edgeOwner.clone();
+		this.hands = other.hands.clone();
+		this.points = other.points.clone();
+		this.roads = other.roads.clone();
+		this.settlements = other.settlements.clone();
+		this.cities = other.cities.clone();
+		this.bank = other.bank.clone();
+	}
+
+	/**
+	 * Copies the state, so the copy can be played without changing this one.
+	 * @return The copy.
+	 */
+	public SearchState Copy()
+	{
+		return new SearchState(this);
+	}
+
+	public static int Move(int type, int index)
+	{
+		return type << 16 | index;
+	}
+
+	public static int GetType(int move)
+	{
+		return move >>> 16;
+	}
+
+	/**
+	 * @return The index of the vertex or edge the move builds on.
+	 */
+	public static int GetIndex(int move)
+	{
+		return move & 0xFFFF;
+	}
+
+	public SearchBoard GetBoard()
+	{
+		return board;
+	}
+
+	public int GetPlayers()
+	{
+		return players;
+	}
+
+	/**
+	 * @return The index of the player whose turn it is.
+	 */
+	public int GetCurrent()
+	{
+		return current;
+	}
+
+	/**
+	 * @return The index of the land hex the robber is on, or -1 if it isn't on one.
+	 */
+	public int GetRobber()
+	{
+		return robber;
+	}
+
+	public int GetPoints(int player)
+	{
+		return points[player];
+	}
+
+	public int GetResourceCount(int player)
+	{
+		int count = 0;
+		for (int r = 0; r < RESOURCES; r++)
+			count += hands[player * RESOURCES + r];
+		return count;
+	}
+
+	public int GetResourceCount(int player, ResourceType type)
+	{
+		return hands[player * RESOURCES + type.ordinal()];
+	}
+
+	/**
+	 * @param vertex The vertex's index.
+	 * @return The index of the player who has built on it, or -1 if nobody has.
+	 */
+	public int GetVertexOwner(int vertex)
+	{
+		return vertexOwner[vertex];
+	}
+
+	/**
+	 * @param vertex The vertex's index.
+	 * @return 0 for nothing, 1 for a settlement and 2 for a city, i.e. the cards it's paid.
+	 */
+	public int GetVertexLevel(int vertex)
+	{
+		return vertexLevel[vertex];
+	}
+
+	/**
+	 * @param edge The edge's index.
+	 * @return The index of the player with a road on it, or -1 if there isn't one.
+	 */
+	public int GetEdgeOwner(int edge)
+	{
+		return edgeOwner[edge];
+	}
+
+	/**
+	 * @return The index of the player who has won, or -1 if nobody has yet.
+	 */
+	public int GetWinner()
+	{
+		for (int p = 0; p < players; p++)
+		{
+			if (points[p] >= WINNING_POINTS)
+				return p;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Gets the moves the current player can make. Ending the turn is always one of them, and is
+	 * always first.
+	 * @param moves Where the moves are put. Must hold one more than the board has vertices and
+	 * edges.
+	 * @return The number of moves.
+	 */
+	public int GetMoves(int[] moves)
+	{
+		int count = 0;
+		moves[count++] = Move(END, 0);
+
+		int hand = current * RESOURCES;
+		if (cities[current] > 0 && hands[hand + WHEAT] >= 2 && hands[hand + ORE] >= 3)
+		{
+			for (int v = 0; v < vertexOwner.length; v++)
+			{
+				if (vertexOwner[v] == current && vertexLevel[v] == 1)
+					moves[count++] = Move(CITY, v);
+			}
+		}
+
+		if (settlements[current] > 0 && hands[hand + WOOD] > 0 && hands[hand + BRICK] > 0
+				&& hands[hand + SHEEP] > 0 && hands[hand + WHEAT] > 0)
+		{
+			for (int v = 0; v < vertexOwner.length; v++)
+			{
+				if (CanSettle(v))
+					moves[count++] = Move(SETTLEMENT, v);
+			}
+		}
+
+		if (roads[current] > 0 && hands[hand + WOOD] > 0 && hands[hand + BRICK] > 0)
+		{
+			for (int e = 0; e < edgeOwner.length; e++)
+			{
+				if (CanRoad(e))
+					moves[count++] = Move(ROAD, e);
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Makes a move for the current player. Ending the turn rolls the dice for the next player.
+	 * @param move A move from {@link #GetMoves(int[])}.
+	 * @param random Rolls the dice, and picks the cards that are lost or stolen on a 7.
+	 */
+	public void Apply(int move, Random random)
+	{
+		int index = GetIndex(move);
+		int hand = current * RESOURCES;
+
+		switch (GetType(move))
+		{
+		case CITY:
+			Pay(hand, WHEAT, 2);
+			Pay(hand, ORE, 3);
+			cities[current]--;
+			settlements[current]++;
+			vertexLevel[index] = 2;
+			points[current]++;
+			break;
+		case SETTLEMENT:
+			Pay(hand, WOOD, 1);
+			Pay(hand, BRICK, 1);
+			Pay(hand, SHEEP, 1);
+			Pay(hand, WHEAT, 1);
+			settlements[current]--;
+			vertexOwner[index] = current;
+			vertexLevel[index] = 1;
+			points[current]++;
+			break;
+		case ROAD:
+			Pay(hand, WOOD, 1);
+			Pay(hand, BRICK, 1);
+			roads[current]--;
+			edgeOwner[index] = current;
+			break;
+		case END:
+		default:
+			current = (current + 1) % players;
+			Roll(random.nextInt(6) + random.nextInt(6) + 2, random);
+			break;
+		}
+	}
+
+	/**
+	 * Plays the game forward, every player building whatever they can at random, until
+	 * somebody wins or the rounds run out. Cities come before settlements and settlements before
+	 * roads, as that's how players get points.
+	 * @param random Picks the moves and rolls the dice.
+	 * @param rounds The most rounds to play.
+	 * @param moves Room for the moves, as for {@link #GetMoves(int[])}.
+	 * @return The index of the winner, or -1 if nobody won in time.
+	 */
+	public int Playout(Random random, int rounds, int[] moves)
+	{
+		int turns = rounds * players;
+		for (int turn = 0; turn <= turns; turn++)
+		{
+			while (true)
+			{
+				int winner = GetWinner();
+				if (winner >= 0)
+					return winner;
+
+				int count = GetMoves(moves);
+				if (count == 1)
+					break;
+
+				Apply(PickMove(moves, count, random), random);
+			}
+
+			Apply(Move(END, 0), random);
+		}
+
+		return GetWinner();
+	}
+
+	/**
+	 * Guesses the cards the other players hold. Everyone sees how many cards each player holds
+	 * but not which, so a search shouldn't know either; the cards the bank hasn't paid out are
+	 * dealt at random.
+	 * @param player The player searching, whose cards are kept.
+	 * @param random Deals the cards.
+	 */
+	public void Redeal(int player, Random random)
+	{
+		int[] unseen = new int[RESOURCES];
+		int total = 0;
+		for (int p = 0; p < players; p++)
+		{
+			if (p == player)
+				continue;
+
+			for (int r = 0; r < RESOURCES; r++)
+			{
+				unseen[r] += hands[p * RESOURCES + r];
+				total += hands[p * RESOURCES + r];
+			}
+		}
+
+		for (int p = 0; p < players; p++)
+		{
+			if (p == player)
+				continue;
+
+			int count = 0;
+			for (int r = 0; r < RESOURCES; r++)
+			{
+				count += hands[p * RESOURCES + r];
+				hands[p * RESOURCES + r] = 0;
+			}
+
+			for (int c = 0; c < count; c++)
+			{
+				int pick = random.nextInt(total--);
+				int r = 0;
+				while (pick >= unseen[r])
+					pick -= unseen[r++];
+
+				unseen[r]--;
+				hands[p * RESOURCES + r]++;
+			}
+		}
+	}
+
+	private int PickMove(int[] moves, int count, Random random)
+	{
+		int best = END;
+		int found = 0;
+		int pick = moves[0];
+		for (int i = 1; i < count; i++)
+		{
+			int type = GetType(moves[i]);
+			if (type < best)
+				continue;
+
+			if (type > best)
+			{
+				best = type;
+				found = 0;
+			}
+
+			//Picks one of the best type at random, without keeping a list
+			if (random.nextInt(++found) == 0)
+				pick = moves[i];
+		}
+
+		return pick;
+	}
+
+	private void Roll(int roll, Random random)
+	{
+		if (roll != 7)
+		{
+			int[] paid = board.GetRollVertices(roll);
+			int[] resources = board.GetRollResources(roll);
+			for (int i = 0; i < paid.length; i++)
+			{
+				int owner = vertexOwner[paid[i]];
+				if (owner < 0)
+					continue;
+
+				//Like the server, a payment the bank can't make isn't made at all
+				int amount = vertexLevel[paid[i]];
+				if (bank[resources[i]] >= amount)
+				{
+					bank[resources[i]] -= amount;
+					hands[owner * RESOURCES + resources[i]] += amount;
+				}
+			}
+			return;
+		}
+
+		for (int p = 0; p < players; p++)
+		{
+			int count = GetResourceCount(p);
+			if (count > 7)
+				Lose(p, count / 2, random);
+		}
+
+		MoveRobber(random);
+	}
+
+	/**
+	 * Moves the robber to a hex with another player on it and steals a card from one of them.
+	 */
+	private void MoveRobber(Random random)
+	{
+		int hexes = board.GetHexCount();
+		int start = random.nextInt(hexes);
+		for (int i = 0; i < hexes; i++)
+		{
+			int hex = (start + i) % hexes;
+			if (hex == robber)
+				continue;
+
+			for (int v : board.GetHexVertices(hex))
+			{
+				int victim = vertexOwner[v];
+				if (victim >= 0 && victim != current && GetResourceCount(victim) > 0)
+				{
+					robber = hex;
+					int r = RandomCard(victim, random);
+					hands[victim * RESOURCES + r]--;
+					hands[current * RESOURCES + r]++;
+					return;
+				}
+			}
+		}
+	}
+
+	private void Lose(int player, int lost, Random random)
+	{
+		for (int i = 0; i < lost; i++)
+		{
+			int r = RandomCard(player, random);
+			hands[player * RESOURCES + r]--;
+			bank[r]++;
+		}
+	}
+
+	/**
+	 * Picks one of a player's cards at random. The player must have one.
+	 * @return The card's resource.
+	 */
+	private int RandomCard(int player, Random random)
+	{
+		int pick = random.nextInt(GetResourceCount(player));
+		int r = 0;
+		while (pick >= hands[player * RESOURCES + r])
+			pick -= hands[player * RESOURCES + r++];
+		return r;
+	}
+
+	private void Pay(int hand, int resource, int amount)
+	{
+		hands[hand + resource] -= amount;
+		bank[resource] += amount;
+	}
+
+	private boolean CanSettle(int vertex)
+	{
+		if (vertexOwner[vertex] >= 0)
+			return false;
+
+		for (int neighbor : board.GetNeighbors(vertex))
+		{
+			if (vertexOwner[neighbor] >= 0)
+				return false;
+		}
+
+		return HasRoad(vertex);
+	}
+
+	private boolean CanRoad(int edge)
+	{
+		if (edgeOwner[edge] >= 0)
+			return false;
+
+		return Reaches(board.GetEdgeStart(edge)) || Reaches(board.GetEdgeEnd(edge));
+	}
+
+	/**
+	 * Whether a road can be built out from a vertex: the current player has built on it, or has
+	 * a road to it that nobody else has built across.
+	 */
+	private boolean Reaches(int vertex)
+	{
+		if (vertexOwner[vertex] == current)
+			return true;
+
+		return vertexOwner[vertex] < 0 && HasRoad(vertex);
+	}
+
+	private boolean HasRoad(int vertex)
+	{
+		for (int edge : board.GetEdges(vertex))
+		{
+			if (edgeOwner[edge] == current)
+				return true;
+		}
+
+		return false;
+	}
+
+	private static int IndexOf(CatanColor[] colors, CatanColor color)
+	{
+		for (int p = 0; p < colors.length; p++)
+		{
+			if (colors[p] == color)
+				return p;
+		}
+
+		return -1;
+	}
+}
@@ -0,0 +1,307 @@
+package server.ai.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+import server.ServerConfig;
+
+/**
+ * Picks a player's moves with a Monte Carlo tree search.
+ * <br/>The tree holds the moves the player could make this turn, one after another. Each time
+ * round, the search follows the moves that have done best so far (UCT), tries one new one, then
+ * plays the game out at random from there on a copy of the {@link SearchState} and counts who
+ * won. The other players' cards are dealt again for every playout, so the search doesn't use
+ * what the player couldn't know.
+ * <br/>The searches of every AI share one fork-join pool. A move is searched by one tree for
+ * each of the pool's threads, each until the move's time is up, and their counts are added
+ * together, so a move never costs more than its time on each thread. A search that is asked
+ * for from a fork-join pool's thread, e.g. by self-play, grows one tree on that thread instead,
+ * since that pool's threads are already busy and its size already says how many CPUs to use.
+ */
+public class TreeSearch
+{
+	/** How much the search tries moves it knows little about. Rewards are from 0 to 1. */
+	private static final double EXPLORATION = 0.7;
+	/** The most rounds a playout lasts when nobody wins. */
+	private static final int PLAYOUT_ROUNDS = 15;
+
+	private static ForkJoinPool pool = null;
+
+	private static synchronized ForkJoinPool GetPool()
+	{
+		if (pool == null)
+		{
+			int threads = ServerConfig.GetInt(ServerConfig.AI_SEARCH_THREADS, Runtime.getRuntime().availableProcessors());
+			pool = new ForkJoinPool(Math.max(1, threads), new ForkJoinWorkerThreadFactory()
+			{
+				@Override
+				public ForkJoinWorkerThread newThread(ForkJoinPool pool)
+				{
+					ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+					thread.setName("catan-search-" + thread.getPoolIndex());
+					thread.setDaemon(true);
+					return thread;
+				}
+			}, null, false);
+		}
+
+		return pool;
+	}
+
+	private final long budget;
+	private volatile long rollouts;
+	private volatile long elapsed;
+
+	/**
+	 * Creates a search that takes the configured time per move.
+	 */
+	public TreeSearch()
+	{
+		this(ServerConfig.GetLong(ServerConfig.AI_SEARCH_TIME, 200));
+	}
+
+	/**
+	 * Creates a search.
+	 * @param millis How long each move is searched for, in milliseconds.
+	 */
+	public TreeSearch(long millis)
+	{
+		this.budget = Math.max(1, millis) * 1000000L;
+	}
+
+	/**
+	 * Picks the best move for the player whose turn it is.
+	 * @param root The game as it is. It isn't changed.
+	 * @return The move, from {@link SearchState#GetMoves(int[])}.
+	 */
+	public int Choose(final SearchState root)
+	{
+		final int[] moves = new int[Capacity(root)];
+		final int count = root.GetMoves(moves);
+		if (count == 1)
+		{
+			rollouts = 0;
+			elapsed = 0;
+			return moves[0];
+		}
+
+		long start = System.nanoTime();
+		final long deadline = start + budget;
+
+		final List<Tree> trees = new ArrayList<Tree>();
+		if (ForkJoinTask.inForkJoinPool())
+		{
+			Tree tree = new Tree(root, deadline);
+			trees.add(tree);
+			tree.invoke();
+		}
+		else
+		{
+			ForkJoinPool searchers = GetPool();
+			for (int i = 0; i < searchers.getParallelism(); i++)
+				trees.add(new Tree(root, deadline));
+
+			searchers.invoke(new RecursiveAction()
+			{
+				private static final long serialVersionUID = -3342151846204578112L;
+
+				@Override
+				protected void compute()
+				{
+					ForkJoinTask.invokeAll(trees);
+				}
+			});
+		}
+
+		//Every tree has the same moves at the top, in the same order
+		long[] visits = new long[count];
+		double[] wins = new double[count];
+		long played = 0;
+		for (Tree tree : trees)
+		{
+			Node top = tree.join();
+			played += top.visits;
+			for (int i = 0; i < top.expanded; i++)
+			{
+				visits[i] += top.children[i].visits;
+				wins[i] += top.children[i].wins;
+			}
+		}
+
+		int best = 0;
+		for (int i = 1; i < count; i++)
+		{
+			if (visits[i] > visits[best] || (visits[i] == visits[best] && wins[i] > wins[best]))
+				best = i;
+		}
+
+		rollouts = played;
+		elapsed = System.nanoTime() - start;
+		return moves[best];
+	}
+
+	/**
+	 * @return How many games the last move played out.
+	 */
+	public long GetRollouts()
+	{
+		return rollouts;
+	}
+
+	/**
+	 * @return How long the last move was searched for, in milliseconds.
+	 */
+	public double GetElapsedMillis()
+	{
+		return elapsed / 1e6;
+	}
+
+	private static int Capacity(SearchState state)
+	{
+		return state.GetBoard().GetVertexCount() + state.GetBoard().GetEdgeCount() + 1;
+	}
+
+	/**
+	 * A move in the tree and what it has led to.
+	 */
+	private static class Node
+	{
+		final int move;
+		final int[] moves;
+		final int count;
+		final Node[] children;
+		int expanded;
+		long visits;
+		double wins;
+
+		/**
+		 * @param state The game after the move, or null if the move ended the turn.
+		 */
+		Node(int move, SearchState state, int[] buffer)
+		{
+			this.move = move;
+
+			//Ending the turn ends the tree; the rest is played out
+			if (state == null)
+			{
+				this.moves = null;
+				this.count = 0;
+			}
+			else
+			{
+				this.count = state.GetMoves(buffer);
+				this.moves = Arrays.copyOf(buffer, count);
+			}
+			this.children = new Node[count];
+		}
+
+		Node Select()
+		{
+			double log = Math.log(visits);
+			Node best = null;
+			double bestValue = Double.NEGATIVE_INFINITY;
+			for (Node child : children)
+			{
+				double value = child.wins / child.visits + EXPLORATION * Math.sqrt(log / child.visits);
+				if (value > bestValue)
+				{
+					best = child;
+					bestValue = value;
+				}
+			}
+
+			return best;
+		}
+	}
+
+	/**
+	 * One tree, searched on one thread until the time is up.
+	 */
+	private static class Tree extends RecursiveTask<Node>
+	{
+		private static final long serialVersionUID = 6029155148731941390L;
+
+		private final SearchState root;
+		private final long deadline;
+
+		Tree(SearchState root, long deadline)
+		{
+			this.root = root;
+			this.deadline = deadline;
+		}
+
+		@Override
+		protected Node compute()
+		{
+			Random random = new Random();
+			int player = root.GetCurrent();
+			int[] buffer = new int[Capacity(root)];
+			Node top = new Node(-1, root, buffer);
+			List<Node> path = new ArrayList<Node>();
+
+			//Every move at the top is tried at least once
+			while (top.expanded < top.count || System.nanoTime() < deadline)
+			{
+				SearchState state = root.Copy();
+				state.Redeal(player, random);
+
+				path.clear();
+				path.add(top);
+				Node node = top;
+				while (node.count > 0)
+				{
+					if (node.expanded < node.count)
+					{
+						int move = node.moves[node.expanded];
+						state.Apply(move, random);
+						Node child = new Node(move, SearchState.GetType(move) == SearchState.END ? null : state, buffer);
+						node.children[node.expanded++] = child;
+						path.add(child);
+						break;
+					}
+
+					node = node.Select();
+					state.Apply(node.move, random);
+					path.add(node);
+				}
+
+				double reward = Reward(state, state.Playout(random, PLAYOUT_ROUNDS, buffer), player);
+				for (Node visited : path)
+				{
+					visited.visits++;
+					visited.wins += reward;
+				}
+			}
+
+			return top;
+		}
+
+		/**
+		 * Scores a played out game for the player: 1 for a win, 0 for a loss, and if nobody won
+		 * in time, the player's share of their own and the leader's points.
+		 */
+		private static double Reward(SearchState state, int winner, int player)
+		{
+			if (winner >= 0)
+				return winner == player ? 1 : 0;
+
+			int best = 0;
+			for (int p = 0; p < state.GetPlayers(); p++)
+			{
+				if (p != player)
+					best = Math.max(best, state.GetPoints(p));
+			}
+
+			int points = state.GetPoints(player);
+			return points + best == 0 ? 0.5 : (double)points / (points + best);
+		}
+	}
+}
@@ -0,0 +1,16 @@
+package server.commands;
+
+import server.model.CachedModel;
+
+/**
+ * Interface for commands that respond with a game model. The server can send the cached
+ * bytes directly instead of going through the response string.
+ */
+public interface IModelCommand extends ICommand
+{
+	/**
+	 * Gets the model to respond with.
+	 * @return The cached model, or null if the response isn't a model.
+	 */
+	public CachedModel GetModel();
+}
@@ -0,0 +1,19 @@
+package server.commands;
+
+import java.io.IOException;
+
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Interface for commands that can write their JSON response straight to the response body,
+ * instead of building it as a string first.
+ */
+public interface IStreamingCommand extends ICommand
+{
+	/**
+	 * Writes the response. This writes the same JSON as {@link ICommand#GetResponse()}.
+	 * @param writer Where to write the response.
+	 * @throws IOException Thrown if the response can't be written.
+	 */
+	public void WriteResponse(JsonWriter writer) throws IOException;
+}
@@ -0,0 +1,32 @@
+package server.commands;
+
+/**
+ * Interface for commands that may hold their response until the game they are watching
+ * changes (long polling).
+ */
+public interface IWaitingCommand extends ICommand
+{
+	/**
+	 * Checks whether the response should be held after executing.
+	 * @return True if the command should wait for a newer version, else false.
+	 */
+	public boolean ShouldWait();
+	
+	/**
+	 * Gets the ID of the game being watched.
+	 * @return The game ID.
+	 */
+	public int GetWaitGameID();
+	
+	/**
+	 * Gets the version the client already has.
+	 * @return The client's version.
+	 */
+	public int GetWaitVersion();
+	
+	/**
+	 * Gets the longest time the response may be held.
+	 * @return The timeout in milliseconds.
+	 */
+	public long GetWaitTimeout();
+}
@@ -1,10 +1,12 @@
 package server.commands.game;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Logger;
 
+import server.commands.CommandFactory;
 import server.commands.CookieBuilder;
 import server.commands.Factory;
 import server.commands.ICommand;
@@ -16,6 +18,7 @@ import shared.definitions.AIType;
 import shared.networking.SerializationUtils;
 import shared.networking.cookie.NetworkCookie;
 import shared.networking.parameter.PAddAI;
+import shared.networking.parameter.PCommands;
 import shared.networking.parameter.PGetModel;
 
 /**
@@ -132,19 +135,42 @@ public class GameCommandFactory extends Factory
 	
 	private class CommandsBuilder extends CookieBuilder
 	{
-		private List<ICommand> commands;
+		private PCommands batch;
 		
 		@Override
 		public ICommand BuildCommand() 
 		{
+			List<ICommand> commands = null;
+			
+			if (batch != null && batch.getCommands() != null)
+			{
+				try
+				{
+					//Each move is built exactly as if it had been sent to /moves/ on its own
+					commands = new ArrayList<ICommand>();
+					for (PCommands.Move move : batch.getCommands())
+					{
+						StringBuilder param = new StringBuilder("MOVES/" + move.getType().toUpperCase());
+						commands.add(CommandFactory.GetCommandFactory().GetCommand(param, cookie, move.getParams()));
+					}
+				}
+				catch (InvalidFactoryParameterException | RuntimeException e)
+				{
+					Logger.getLogger("CatanServer").throwing("GameCommandFactory", "CommandsBuilder", e);
+					commands = null;
+				}
+			}
+			
 			return new GameCommandsCommand(cookie, commands);
 		}
 
 		@Override
 		public void SetData(String object) 
 		{
-			// TODO Auto-generated method stub
-			//Acts as both get and post.
+			if (object == null || object.trim().isEmpty())
+				return;
+			
+			batch = SerializationUtils.deserialize(object, PCommands.class);
 		}
 	}
 	
@@ -166,17 +192,22 @@ public class GameCommandFactory extends Factory
 	private class ModelBuilder extends CookieBuilder
 	{
 		private int version;
+		private int wait;
+		private boolean patch;
 		
 		@Override
 		public ICommand BuildCommand() 
 		{
-			return new GameModelCommand(cookie, version);
+			return new GameModelCommand(cookie, version, wait, patch);
 		}
 
 		@Override
 		public void SetData(String object) 
 		{
-			version = SerializationUtils.deserialize(object, PGetModel.class).getVersion();			
+			PGetModel model = SerializationUtils.deserialize(object, PGetModel.class);
+			version = model.getVersion();
+			wait = model.getWait();
+			patch = model.getPatch();
 		}
 	}
 	
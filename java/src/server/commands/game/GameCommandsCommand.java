@@ -1,57 +1,126 @@
 package server.commands.game;
 
 import java.util.List;
+import java.util.concurrent.Callable;
 
+import server.Log;
 import server.commands.*;
+import server.model.CachedModel;
+import server.model.GameArcade;
+import server.model.GameException;
+import server.model.ServerGameManager;
 import shared.networking.cookie.NetworkCookie;
 
 /**
- * Command class that allows commands to be executed on the server. Seems sketchy.
+ * Command class that runs a batch of moves as one request. The moves run in order
+ * against the game as one change; if any of them fails the game is rolled back to how it
+ * was before the batch, so either every move is applied or none are. Nothing the moves
+ * set off, such as AI turns or waking pollers, happens unless the whole batch is made.
  * Requires user to be logged into a game.
  * @author Jonathan Sadler
  *
  */
-public class GameCommandsCommand extends CookieCommand 
+public class GameCommandsCommand extends CookieCommand implements IModelCommand
 {
 	private static final long serialVersionUID = -8283458741743309988L;
-	
+
 	private List<ICommand> commands;
-	
+	transient private ServerGameManager sgm;
+	transient private String error;
+
 	/**
 	 * Creates a command to allow the execution of commands.
 	 * @param playerID The ID of the player.
-	 * @param commands The command list.
+	 * @param commands The command list, or null if the list couldn't be read.
 	 */
-	public GameCommandsCommand(NetworkCookie cookie, List<ICommand> commands) 
+	public GameCommandsCommand(NetworkCookie cookie, List<ICommand> commands)
 	{
 		super(cookie);
 		this.commands = commands;
 	}
 
+	/**
+	 * Gets the commands in the batch.
+	 * @return The commands.
+	 */
+	public List<ICommand> GetCommands()
+	{
+		return commands;
+	}
+
 	@Override
 	public boolean Execute()
 	{
-		// TODO Auto-generated method stub
-		// This is going to act as both get and post. If commands = null, assume get. Else, post.
+		sgm = null;
+
+		if (commands == null || commands.isEmpty())
+		{
+			error = "No commands to run";
+			return false;
+		}
+
+		try
+		{
+			ServerGameManager game = GameArcade.games().GetGame(gameID);
+			boolean made = game.ServerBatch(commands.size(), new Callable<Boolean>()
+			{
+				@Override
+				public Boolean call()
+				{
+					for (int i = 0; i < commands.size(); i++)
+					{
+						ICommand command = commands.get(i);
+
+						if (!command.Execute())
+						{
+							error = "Command " + i + " (" + command.getClass().getSimpleName() + ") failed. No commands were applied.";
+							Log.GetLog().fine(error);
+							return false;
+						}
+					}
+					return true;
+				}
+			});
+
+			if (made)
+				sgm = game;
+			return made;
+		}
+		catch (GameException e)
+		{ //game not found
+			error = e.getMessage();
+			e.printStackTrace();
+		}
+
 		return false;
 	}
 
 	@Override
-	public boolean Unexecute() 
+	public boolean Unexecute()
 	{
 		// TODO Auto-generated method stub
 		return false;
 	}
 
 	@Override
-	public String GetResponse() 
+	public String GetResponse()
 	{
-		// TODO Auto-generated method stub
+		if (sgm != null)
+			return sgm.ServerGetCachedModel().GetJson();
+
+		return error;
+	}
+
+	@Override
+	public CachedModel GetModel()
+	{
+		if (sgm != null)
+			return sgm.ServerGetCachedModel();
 		return null;
 	}
 
 	@Override
-	public String GetHeader() 
+	public String GetHeader()
 	{
 		return null;
 	}
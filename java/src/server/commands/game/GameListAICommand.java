@@ -1,8 +1,12 @@
 package server.commands.game;
 
+import java.io.IOException;
 import java.util.List;
 
+import com.google.gson.stream.JsonWriter;
+
 import server.commands.CookieCommand;
+import server.commands.IStreamingCommand;
 import server.model.GameArcade;
 import shared.networking.SerializationUtils;
 import shared.networking.cookie.NetworkCookie;
@@ -12,7 +16,7 @@ import shared.networking.cookie.NetworkCookie;
  * @author Jonathan Sadler
  *
  */
-public class GameListAICommand extends CookieCommand 
+public class GameListAICommand extends CookieCommand implements IStreamingCommand 
 {
 	private static final long serialVersionUID = -4350250084638678160L;
 	
@@ -46,6 +50,12 @@ public class GameListAICommand extends CookieCommand
 		return SerializationUtils.serialize(types);
 	}
 
+	@Override
+	public void WriteResponse(JsonWriter writer) throws IOException
+	{
+		SerializationUtils.serialize(types, writer);
+	}
+
 	@Override
 	public String GetHeader() 
 	{
@@ -1,10 +1,13 @@
 package server.commands.game;
 
+import server.ServerConfig;
 import server.commands.CookieCommand;
+import server.commands.IModelCommand;
+import server.commands.IWaitingCommand;
+import server.model.CachedModel;
 import server.model.GameArcade;
 import server.model.GameException;
 import server.model.ServerGameManager;
-import shared.networking.SerializationUtils;
 import shared.networking.cookie.NetworkCookie;
 
 /**
@@ -12,11 +15,16 @@ import shared.networking.cookie.NetworkCookie;
  * @author Jonathan Sadler
  *
  */
-public class GameModelCommand extends CookieCommand
+public class GameModelCommand extends CookieCommand implements IWaitingCommand, IModelCommand
 {
 	private static final long serialVersionUID = 7071448787665345669L;
 	
+	/** The longest a client may hold a model request open, in milliseconds. */
+	private static final long MAX_WAIT = ServerConfig.GetLong(ServerConfig.LONG_POLL_MAX_WAIT, 30000);
+	
 	private int version;
+	private int wait;
+	private boolean patch;
 	private ServerGameManager sgm;
 	
 	/**
@@ -24,9 +32,33 @@ public class GameModelCommand extends CookieCommand
 	 * @param version The version number as had by the client.
 	 */
 	public GameModelCommand(NetworkCookie cookie, int version) 
+	{
+		this(cookie, version, 0);
+	}
+	
+	/**
+	 * Gets a game model from the server, optionally waiting for a newer version.
+	 * @param version The version number as had by the client.
+	 * @param wait How long to wait for a newer version, in milliseconds. 0 doesn't wait.
+	 */
+	public GameModelCommand(NetworkCookie cookie, int version, int wait) 
+	{
+		this(cookie, version, wait, false);
+	}
+	
+	/**
+	 * Gets a game model from the server, optionally waiting for a newer version.
+	 * @param version The version number as had by the client.
+	 * @param wait How long to wait for a newer version, in milliseconds. 0 doesn't wait.
+	 * @param patch True to send a patch from the client's version when the server still
+	 * remembers it, else the full model is sent.
+	 */
+	public GameModelCommand(NetworkCookie cookie, int version, int wait, boolean patch) 
 	{
 		super(cookie);
 		this.version = version;
+		this.wait = wait;
+		this.patch = patch;
 	}
 
 	@Override
@@ -58,7 +90,7 @@ public class GameModelCommand extends CookieCommand
 		if (sgm != null) 
 		{
 			if(sgm.GetVersion() != version)
-				return SerializationUtils.serialize(sgm.ServerGetSerializableModel());
+				return GetModel().GetJson();
 			else
 				//Logger.getLogger("CatanServer").log(Level.INFO, "No new model detected. Current version: " + sgm.GetVersion() + " client version: " + version);
 				return "No new model";
@@ -67,9 +99,49 @@ public class GameModelCommand extends CookieCommand
 		return "No Model";
 	}
 
+	@Override
+	public CachedModel GetModel()
+	{
+		if (sgm == null || sgm.GetVersion() == version)
+			return null;
+		
+		if (patch)
+		{
+			CachedModel changes = sgm.ServerGetModelPatch(version);
+			if (changes != null)
+				return changes;
+		}
+		
+		return sgm.ServerGetCachedModel();
+	}
+
 	@Override
 	public String GetHeader() 
 	{
 		return null;
 	}
+
+	@Override
+	public boolean ShouldWait()
+	{
+		return wait > 0 && sgm != null && sgm.GetVersion() == version;
+	}
+
+	@Override
+	public int GetWaitGameID()
+	{
+		return gameID;
+	}
+
+	@Override
+	public int GetWaitVersion()
+	{
+		return version;
+	}
+
+	@Override
+	public long GetWaitTimeout()
+	{
+		return Math.min(wait, MAX_WAIT);
+	}
 }
@@ -1,11 +1,11 @@
 package server.commands.game;
 
 import server.commands.CookieCommand;
+import server.commands.IModelCommand;
+import server.model.CachedModel;
 import server.model.GameArcade;
 import server.model.GameException;
 import server.model.ServerGameManager;
-import shared.model.GameModel;
-import shared.networking.SerializationUtils;
 import shared.networking.cookie.NetworkCookie;
 
 /**
@@ -13,11 +13,11 @@ import shared.networking.cookie.NetworkCookie;
  * @author Jonathan Sadler
  *
  */
-public class GameResetCommand extends CookieCommand
+public class GameResetCommand extends CookieCommand implements IModelCommand
 {
 	private static final long serialVersionUID = 8767925065146797291L;
 	
-	private GameModel gm;
+	transient private ServerGameManager sgm;
 	/**
 	 * Creates a command that allows the game to be reset.
 	 * @param playerID The player ID executing the reset.
@@ -33,10 +33,9 @@ public class GameResetCommand extends CookieCommand
 		// TODO Auto-generated method stub
 		try 
 		{
-			ServerGameManager sgm = GameArcade.games().GetGame(gameID);
+			sgm = GameArcade.games().GetGame(gameID);
 			
 			sgm.reset();
-			gm = sgm.ServerGetModel();
 			return true;
 			
 		}
@@ -57,11 +56,19 @@ public class GameResetCommand extends CookieCommand
 	@Override
 	public String GetResponse() 
 	{
-		if (gm != null) 
-			return SerializationUtils.serialize(gm);
+		if (sgm != null) 
+			return sgm.ServerGetCachedModel().GetJson();
 		return "ERROR";
 	}
 
+	@Override
+	public CachedModel GetModel()
+	{
+		if (sgm != null)
+			return sgm.ServerGetCachedModel();
+		return null;
+	}
+
 	@Override
 	public String GetHeader() 
 	{
@@ -1,8 +1,11 @@
 package server.commands.games;
 
+import java.io.IOException;
 import java.util.List;
 
-import server.commands.ICommand;
+import com.google.gson.stream.JsonWriter;
+
+import server.commands.IStreamingCommand;
 import server.model.GameArcade;
 import shared.data.GameInfo;
 import shared.networking.SerializationUtils;
@@ -12,7 +15,7 @@ import shared.networking.SerializationUtils;
  * @author Jonathan Sadler
  *
  */
-public class GamesListCommand implements ICommand 
+public class GamesListCommand implements IStreamingCommand 
 {
 	private static final long serialVersionUID = 6040602245599921636L;
 
@@ -45,6 +48,12 @@ public class GamesListCommand implements ICommand
 		return SerializationUtils.serialize(games);
 	}
 
+	@Override
+	public void WriteResponse(JsonWriter writer) throws IOException
+	{
+		SerializationUtils.serialize(games, writer);
+	}
+
 	@Override
 	public String GetHeader() 
 	{
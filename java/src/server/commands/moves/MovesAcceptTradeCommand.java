@@ -1,9 +1,9 @@
 package server.commands.moves;
 
+import server.model.CachedModel;
 import server.model.GameArcade;
 import server.model.GameException;
 import server.model.ServerGameManager;
-import shared.networking.SerializationUtils;
 import shared.networking.cookie.NetworkCookie;
 
 /**
@@ -56,7 +56,15 @@ public class MovesAcceptTradeCommand extends MovesCommand
 	public String GetResponse() 
 	{
 		if (sgm != null)
-			return SerializationUtils.serialize(sgm.ServerGetSerializableModel());
+			return sgm.ServerGetCachedModel().GetJson();
+		return null;
+	}
+
+	@Override
+	public CachedModel GetModel()
+	{
+		if (sgm != null)
+			return sgm.ServerGetCachedModel();
 		return null;
 	}
 
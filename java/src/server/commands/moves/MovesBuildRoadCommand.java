@@ -1,11 +1,10 @@
 package server.commands.moves;
 
+import server.model.CachedModel;
 import server.model.GameArcade;
 import server.model.GameException;
 import server.model.ServerGameManager;
-import shared.model.GameModel;
 import shared.model.map.Coordinate;
-import shared.networking.SerializationUtils;
 import shared.networking.cookie.NetworkCookie;
 
 /**
@@ -17,7 +16,7 @@ public class MovesBuildRoadCommand extends MovesCommand
 {
 	private static final long serialVersionUID = 365330419501017038L;
 
-	transient private GameModel gm;
+	transient private ServerGameManager sgm;
 	private Coordinate start;
 	private Coordinate end;
 	private boolean free;
@@ -46,7 +45,7 @@ public class MovesBuildRoadCommand extends MovesCommand
 			ServerGameManager sgm = GameArcade.games().GetGame(gameID);
 			if (sgm.ServerBuildRoad(playerID, start, end, free))
 			{
-				gm = sgm.ServerGetModel();
+				this.sgm = sgm;
 				return true;
 			}
 		}
@@ -67,11 +66,19 @@ public class MovesBuildRoadCommand extends MovesCommand
 	@Override
 	public String GetResponse()
 	{
-		if (gm != null) 
-			return SerializationUtils.serialize(gm);
+		if (sgm != null) 
+			return sgm.ServerGetCachedModel().GetJson();
 		return "ERROR";
 	}
 
+	@Override
+	public CachedModel GetModel()
+	{
+		if (sgm != null)
+			return sgm.ServerGetCachedModel();
+		return null;
+	}
+
 	@Override
 	public String GetHeader() 
 	{
@@ -1,10 +1,10 @@
 package server.commands.moves;
 
+import server.model.CachedModel;
 import server.model.GameArcade;
 import server.model.GameException;
 import server.model.ServerGameManager;
 import shared.model.map.Coordinate;
-import shared.networking.SerializationUtils;
 import shared.networking.cookie.NetworkCookie;
 
 /**
@@ -60,7 +60,15 @@ public class MovesBuildSettlementCommand extends MovesCommand
 	public String GetResponse() 
 	{
 		if (sgm != null) 
-			return SerializationUtils.serialize(sgm.ServerGetSerializableModel());
+			return sgm.ServerGetCachedModel().GetJson();
+		return null;
+	}
+
+	@Override
+	public CachedModel GetModel()
+	{
+		if (sgm != null)
+			return sgm.ServerGetCachedModel();
 		return null;
 	}
 
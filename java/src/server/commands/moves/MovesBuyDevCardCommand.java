@@ -1,9 +1,9 @@
 package server.commands.moves;
 
+import server.model.CachedModel;
 import server.model.GameArcade;
 import server.model.GameException;
 import server.model.ServerGameManager;
-import shared.networking.SerializationUtils;
 import shared.networking.cookie.NetworkCookie;
 
 /**
@@ -54,7 +54,15 @@ public class MovesBuyDevCardCommand extends MovesCommand
 	{
 		// TODO Auto-generated method stub
 		if (sgm != null)
-			return SerializationUtils.serialize(sgm.ServerGetSerializableModel());
+			return sgm.ServerGetCachedModel().GetJson();
+		return null;
+	}
+
+	@Override
+	public CachedModel GetModel()
+	{
+		if (sgm != null)
+			return sgm.ServerGetCachedModel();
 		return null;
 	}
 
@@ -1,9 +1,14 @@
 package server.commands.moves;
 
 import server.commands.CookieCommand;
+import server.commands.IModelCommand;
+import server.model.GameArcade;
+import server.model.GameException;
+import server.model.IGameWriter;
+import server.model.ServerGameManager;
 import shared.networking.cookie.NetworkCookie;
 
-public abstract class MovesCommand extends CookieCommand 
+public abstract class MovesCommand extends CookieCommand implements IModelCommand
 {
 	private static final long serialVersionUID = -7039269162067245299L;
 
@@ -14,4 +19,31 @@ public abstract class MovesCommand extends CookieCommand
 		super(cookie);
 		this.playerIndex = playerIndex;
 	}
+	
+	/**
+	 * Makes the move as one change to its game, so nobody reads the game with the move half made.
+	 * Moves are made this way wherever they come in; Execute alone doesn't lock the game.
+	 * @return True if the move was made, else false.
+	 */
+	public boolean ExecuteOnGame()
+	{
+		ServerGameManager sgm;
+		try
+		{
+			sgm = GameArcade.games().GetGame(gameID);
+		}
+		catch (GameException e)
+		{ //game not found, which the move reports itself
+			return Execute();
+		}
+		
+		return sgm.Write(new IGameWriter<Boolean>()
+		{
+			@Override
+			public Boolean Write(ServerGameManager game)
+			{
+				return Execute();
+			}
+		});
+	}
 }
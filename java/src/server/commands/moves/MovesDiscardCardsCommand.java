@@ -2,10 +2,10 @@ package server.commands.moves;
 
 import java.util.List;
 
+import server.model.CachedModel;
 import server.model.GameArcade;
 import server.model.GameException;
 import server.model.ServerGameManager;
-import shared.networking.SerializationUtils;
 import shared.networking.cookie.NetworkCookie;
 
 /**
@@ -56,7 +56,15 @@ public class MovesDiscardCardsCommand extends MovesCommand
 	public String GetResponse() {
 		// TODO Auto-generated method stub
 		if (sgm != null)
-			return SerializationUtils.serialize(sgm.ServerGetSerializableModel());
+			return sgm.ServerGetCachedModel().GetJson();
+		return null;
+	}
+
+	@Override
+	public CachedModel GetModel()
+	{
+		if (sgm != null)
+			return sgm.ServerGetCachedModel();
 		return null;
 	}
 
@@ -1,12 +1,11 @@
 package server.commands.moves;
 
+import server.model.CachedModel;
 import server.model.GameArcade;
 import server.model.GameException;
 import server.model.ServerGameManager;
 import shared.definitions.ResourceType;
-import shared.networking.SerializationUtils;
 import shared.networking.cookie.NetworkCookie;
-import shared.model.GameModel;
 
 /**
  * Command for handling the monopoly card.
@@ -17,7 +16,7 @@ public class MovesMonopolyCommand extends MovesCommand
 {
 	private static final long serialVersionUID = 1098691127093527138L;
 	
-	transient private GameModel gm;
+	transient private ServerGameManager sgm;
 	private ResourceType resource;
 	
 	/**
@@ -37,7 +36,7 @@ public class MovesMonopolyCommand extends MovesCommand
 	{
 		try
 		{
-			ServerGameManager sgm = GameArcade.games().GetGame(gameID);
+			sgm = GameArcade.games().GetGame(gameID);
 			return sgm.ServerMonopoly(playerIndex, resource);
 		}
 		catch (GameException e)
@@ -57,11 +56,19 @@ public class MovesMonopolyCommand extends MovesCommand
 	@Override
 	public String GetResponse() 
 	{
-		if (gm != null) 
-			return SerializationUtils.serialize(gm);
+		if (sgm != null) 
+			return sgm.ServerGetCachedModel().GetJson();
 		return "ERROR";
 	}
 
+	@Override
+	public CachedModel GetModel()
+	{
+		if (sgm != null)
+			return sgm.ServerGetCachedModel();
+		return null;
+	}
+
 	@Override
 	public String GetHeader() 
 	{
@@ -1,11 +1,10 @@
 package server.commands.moves;
 
-import shared.networking.SerializationUtils;
 import shared.networking.cookie.NetworkCookie;
+import server.model.CachedModel;
 import server.model.GameArcade;
 import server.model.GameException;
 import server.model.ServerGameManager;
-import shared.model.GameModel;
 
 /**
  * Command class that handles playing of monument card.
@@ -16,7 +15,7 @@ public class MovesMonumentCommand extends MovesCommand
 {
 	private static final long serialVersionUID = -3986184261159150802L;
 	
-	transient private GameModel gm;
+	transient private ServerGameManager sgm;
 	
 	/**
 	 * Creates a command object to play the monument card.
@@ -33,7 +32,7 @@ public class MovesMonumentCommand extends MovesCommand
 	{
 		try
 		{
-			ServerGameManager sgm = GameArcade.games().GetGame(gameID);
+			sgm = GameArcade.games().GetGame(gameID);
 			return sgm.ServerMonument(playerIndex);
 		}
 		catch (GameException e)
@@ -53,11 +52,19 @@ public class MovesMonumentCommand extends MovesCommand
 	@Override
 	public String GetResponse() 
 	{
-		if (gm != null) 
-			return SerializationUtils.serialize(gm);
+		if (sgm != null) 
+			return sgm.ServerGetCachedModel().GetJson();
 		return "ERROR";
 	}
 
+	@Override
+	public CachedModel GetModel()
+	{
+		if (sgm != null)
+			return sgm.ServerGetCachedModel();
+		return null;
+	}
+
 	@Override
 	public String GetHeader() 
 	{
@@ -1,12 +1,11 @@
 package server.commands.moves;
 
+import server.model.CachedModel;
 import server.model.GameArcade;
 import server.model.GameException;
 import server.model.ServerGameManager;
 import shared.model.map.Coordinate;
-import shared.networking.SerializationUtils;
 import shared.networking.cookie.NetworkCookie;
-import shared.model.GameModel;
 
 /**
  * Command object that handles the road building card.
@@ -17,7 +16,7 @@ public class MovesRoadBuildingCommand extends MovesCommand
 {
 	private static final long serialVersionUID = 7141582360298763934L;
 
-	transient private GameModel gm;
+	transient private ServerGameManager sgm;
 	private Coordinate start1;
 	private Coordinate end1;
 	private Coordinate start2;
@@ -47,7 +46,7 @@ public class MovesRoadBuildingCommand extends MovesCommand
 	{
 		try
 		{
-			ServerGameManager sgm = GameArcade.games().GetGame(gameID);
+			sgm = GameArcade.games().GetGame(gameID);
 			return sgm.ServerRoadBuilding(playerIndex, start1, end1, start2, end2);
 		}
 		catch (GameException e)
@@ -67,11 +66,19 @@ public class MovesRoadBuildingCommand extends MovesCommand
 	@Override
 	public String GetResponse() 
 	{
-		if (gm != null) 
-			return SerializationUtils.serialize(gm);
+		if (sgm != null) 
+			return sgm.ServerGetCachedModel().GetJson();
 		return "ERROR";
 	}
 
+	@Override
+	public CachedModel GetModel()
+	{
+		if (sgm != null)
+			return sgm.ServerGetCachedModel();
+		return null;
+	}
+
 	@Override
 	public String GetHeader() 
 	{
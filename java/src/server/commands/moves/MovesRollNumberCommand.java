@@ -4,11 +4,10 @@ package server.commands.moves;
 import java.util.logging.Level;
 
 import server.Log;
+import server.model.CachedModel;
 import server.model.GameArcade;
 import server.model.GameException;
 import server.model.ServerGameManager;
-import shared.model.GameModel;
-import shared.networking.SerializationUtils;
 import shared.networking.cookie.NetworkCookie;
 
 /**
@@ -20,7 +19,7 @@ public class MovesRollNumberCommand extends MovesCommand
 {
 	private static final long serialVersionUID = 147194849952376560L;
 
-	transient private GameModel model;
+	transient private ServerGameManager sgm;
 	private int roll;
 	
 	/**
@@ -44,7 +43,7 @@ public class MovesRollNumberCommand extends MovesCommand
 			ServerGameManager sgm = GameArcade.games().GetGame(gameID);
 			if (sgm.ServerRollNumber(playerIndex, roll))
 			{
-				model = sgm.ServerGetModel();
+				this.sgm = sgm;
 				return true;
 			}
 		}
@@ -66,12 +65,20 @@ public class MovesRollNumberCommand extends MovesCommand
 	@Override
 	public String GetResponse() 
 	{
-		if (model != null)
-			return SerializationUtils.serialize(model);
+		if (sgm != null)
+			return sgm.ServerGetCachedModel().GetJson();
 		else 
 			return "Unable to Roll";
 	}
 
+	@Override
+	public CachedModel GetModel()
+	{
+		if (sgm != null)
+			return sgm.ServerGetCachedModel();
+		return null;
+	}
+
 	@Override
 	public String GetHeader() 
 	{
@@ -1,12 +1,11 @@
 package server.commands.moves;
 
+import server.model.CachedModel;
 import server.model.GameArcade;
 import server.model.GameException;
 import server.model.ServerGameManager;
 import shared.definitions.ResourceType;
-import shared.networking.SerializationUtils;
 import shared.networking.cookie.NetworkCookie;
-import shared.model.GameModel;
 
 /**
  * Command object that allows the playing of the Year of Plenty card.
@@ -17,7 +16,7 @@ public class MovesYearOfPlentyCommand extends MovesCommand
 {
 	private static final long serialVersionUID = 1411132109078150814L;
 
-	transient private GameModel gm;
+	transient private ServerGameManager sgm;
 	private ResourceType resource1;
 	private ResourceType resource2;
 	
@@ -40,7 +39,7 @@ public class MovesYearOfPlentyCommand extends MovesCommand
 	{
 		try
 		{
-			ServerGameManager sgm = GameArcade.games().GetGame(gameID);
+			sgm = GameArcade.games().GetGame(gameID);
 			return sgm.ServerYearOfPlenty(playerIndex, resource1, resource2);
 		}
 		catch (GameException e)
@@ -60,11 +59,19 @@ public class MovesYearOfPlentyCommand extends MovesCommand
 	@Override
 	public String GetResponse() 
 	{
-		if (gm != null) 
-			return SerializationUtils.serialize(gm);
+		if (sgm != null) 
+			return sgm.ServerGetCachedModel().GetJson();
 		return "ERROR";
 	}
 
+	@Override
+	public CachedModel GetModel()
+	{
+		if (sgm != null)
+			return sgm.ServerGetCachedModel();
+		return null;
+	}
+
 	@Override
 	public String GetHeader() 
 	{
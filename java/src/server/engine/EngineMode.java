@@ -0,0 +1,26 @@
+package server.engine;
+
+/**
+ * The ways the server can execute incoming requests.
+ */
+public enum EngineMode
+{
+	/** Every request runs on the HTTP server's single dispatcher thread. */
+	DISPATCHER,
+	/** Requests run on a fixed size pool of worker threads. */
+	POOLED,
+	/** Each request runs on its own virtual thread (falls back to POOLED if unsupported). */
+	VIRTUAL;
+
+	public static EngineMode fromString(String mode)
+	{
+		switch(mode.toLowerCase())
+		{
+		case "pooled": return POOLED;
+		case "virtual": return VIRTUAL;
+		case "dispatcher":
+		default:
+			return DISPATCHER;
+		}
+	}
+}
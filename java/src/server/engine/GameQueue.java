@@ -0,0 +1,136 @@
+package server.engine;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+
+import server.Log;
+
+/**
+ * Runs the tasks submitted for a single game one at a time, in submission order, on a
+ * shared executor. Different games each have their own queue, so they run in parallel
+ * while requests to the same game never overlap.
+ * <br/>Once its game is dropped the queue is retired: it runs what it already has, then
+ * removes itself from the engine and takes no more tasks.
+ */
+class GameQueue
+{
+	private static final ThreadLocal<GameQueue> current = new ThreadLocal<GameQueue>();
+
+	private final int gameID;
+	private final Executor executor;
+	private final ConcurrentMap<Integer, GameQueue> owner;
+	private final Queue<Runnable> tasks;
+	private Runnable active;
+	private boolean retired;
+	private boolean closed;
+
+	/**
+	 * Creates a queue for a game.
+	 * @param gameID The ID of the game.
+	 * @param executor The executor the tasks are run on.
+	 * @param owner The queues the engine keeps, which this one is removed from when it closes.
+	 */
+	GameQueue(int gameID, Executor executor, ConcurrentMap<Integer, GameQueue> owner)
+	{
+		this.gameID = gameID;
+		this.executor = executor;
+		this.owner = owner;
+		this.tasks = new ArrayDeque<Runnable>();
+		this.active = null;
+	}
+
+	/**
+	 * Gets the ID of the game served by this queue.
+	 * @return The game ID.
+	 */
+	int GetGameID()
+	{
+		return gameID;
+	}
+
+	/**
+	 * Checks whether the calling thread is currently running a task from this queue.
+	 * @return True if the caller is inside this queue, else false.
+	 */
+	boolean IsCurrent()
+	{
+		return current.get() == this;
+	}
+
+	/**
+	 * Gets the number of tasks waiting to run.
+	 * @return The number of waiting tasks.
+	 */
+	synchronized int Pending()
+	{
+		return tasks.size();
+	}
+
+	/**
+	 * Retires the queue. It closes as soon as it has nothing left to run.
+	 */
+	synchronized void Retire()
+	{
+		retired = true;
+
+		if (active == null)
+			Close();
+	}
+
+	/**
+	 * Adds a task to the queue.
+	 * @param task The task to run.
+	 * @return False if the queue has closed, in which case the task must go to the game's next queue.
+	 */
+	synchronized boolean Offer(final Runnable task)
+	{
+		if (closed)
+			return false;
+
+		tasks.add(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				current.set(GameQueue.this);
+				try
+				{
+					task.run();
+				}
+				catch (RuntimeException e)
+				{
+					Log.GetLog().log(Level.SEVERE, "Task failed for game " + gameID, e);
+				}
+				finally
+				{
+					current.remove();
+					ScheduleNext();
+				}
+			}
+		});
+
+		if (active == null)
+			ScheduleNext();
+
+		return true;
+	}
+
+	private synchronized void ScheduleNext()
+	{
+		active = tasks.poll();
+
+		if (active != null)
+			executor.execute(active);
+		else if (retired)
+			Close();
+	}
+
+	private void Close()
+	{
+		closed = true;
+		owner.remove(gameID, this);
+	}
+}
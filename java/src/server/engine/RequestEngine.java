@@ -0,0 +1,342 @@
+package server.engine;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import server.Log;
+
+/**
+ * Executes server requests. Requests that target a game are serialized on that game's
+ * queue so a game only ever sees one request at a time, while requests to different
+ * games run in parallel on the engine's workers.
+ */
+public class RequestEngine
+{
+	/** Game ID used for requests that don't target a game. */
+	public static final int NO_GAME = -1;
+
+	private static RequestEngine engine = null;
+
+	/**
+	 * Initializes the request engine.
+	 * @param mode The execution mode to use.
+	 * @param threads The number of workers for the pooled mode.
+	 */
+	public static synchronized void Initialize(EngineMode mode, int threads)
+	{
+		if (engine != null)
+			engine.Shutdown();
+
+		engine = new RequestEngine(mode, threads);
+	}
+
+	/**
+	 * Gets the request engine. If it hasn't been initialized, a dispatcher engine is used.
+	 * @return The request engine.
+	 */
+	public static synchronized RequestEngine GetEngine()
+	{
+		if (engine == null)
+			engine = new RequestEngine(EngineMode.DISPATCHER, 0);
+
+		return engine;
+	}
+
+	private final EngineMode mode;
+	private final ExecutorService workers;
+	/** Runs the game queues: the workers, or in the dispatcher mode threads of its own. */
+	private final ExecutorService background;
+	/**
+	 * In the dispatcher mode, tasks run on the thread that submits them, so each game's tasks
+	 * take turns on one of these instead of a queue. Games share them, so they never pile up.
+	 */
+	private final Object[] turns;
+	private final ConcurrentMap<Integer, GameQueue> queues;
+
+	private RequestEngine(EngineMode mode, int threads)
+	{
+		this.queues = new ConcurrentHashMap<Integer, GameQueue>();
+		this.turns = new Object[64];
+		for (int i = 0; i < turns.length; i++)
+			turns[i] = new Object();
+
+		ExecutorService service = null;
+		if (mode == EngineMode.VIRTUAL)
+		{
+			service = CreateVirtualExecutor();
+			if (service == null)
+			{
+				Log.GetLog().warning("Virtual threads unavailable, using pooled engine");
+				mode = EngineMode.POOLED;
+			}
+		}
+
+		if (mode == EngineMode.POOLED)
+		{
+			if (threads <= 0)
+				threads = Runtime.getRuntime().availableProcessors() * 2;
+
+			service = Executors.newFixedThreadPool(threads, new WorkerFactory("catan-worker-"));
+		}
+
+		this.mode = mode;
+		this.workers = service;
+		this.background = service != null ? service : Executors.newCachedThreadPool(new WorkerFactory("catan-resume-"));
+
+		Log.GetLog().fine("Request engine: " + mode.name().toLowerCase()
+				+ (mode == EngineMode.POOLED ? " (" + threads + " threads)" : ""));
+	}
+
+	/**
+	 * Gets the mode the engine is running in.
+	 * @return The engine mode.
+	 */
+	public EngineMode GetMode()
+	{
+		return mode;
+	}
+
+	/**
+	 * Gets the executor that the HTTP server should hand exchanges to.
+	 * @return The executor, or null to use the HTTP server's dispatcher thread.
+	 */
+	public Executor GetServerExecutor()
+	{
+		return workers;
+	}
+
+	/**
+	 * Submits a task. Tasks for the same game run one at a time in submission order.
+	 * @param gameID The ID of the game the task targets, or NO_GAME.
+	 * @param task The task to run.
+	 */
+	public void Submit(int gameID, Runnable task)
+	{
+		if (gameID == NO_GAME && workers == null)
+		{
+			task.run();
+		}
+		else if (workers == null)
+		{
+			synchronized (GetTurn(gameID))
+			{
+				task.run();
+			}
+		}
+		else if (gameID == NO_GAME)
+		{
+			workers.execute(task);
+		}
+		else
+		{
+			Enqueue(gameID, task);
+		}
+	}
+
+	/**
+	 * Submits a task that was parked outside the server's request threads, e.g. a long poll
+	 * whose wait is over. Unlike {@link #Submit(int, Runnable)} it never runs on the caller's
+	 * thread, so a timer can hand tasks on without running them. Tasks for the same game still
+	 * run one at a time in submission order, and in the dispatcher mode they take the game's turn
+	 * like its other requests.
+	 * @param gameID The ID of the game the task targets.
+	 * @param task The task to run.
+	 */
+	public void Resume(final int gameID, final Runnable task)
+	{
+		if (workers != null)
+		{
+			Enqueue(gameID, task);
+			return;
+		}
+		
+		Enqueue(gameID, new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				synchronized (GetTurn(gameID))
+				{
+					task.run();
+				}
+			}
+		});
+	}
+
+	/**
+	 * Runs a task on a game's queue and waits for its result. If the caller is already
+	 * running on that game's queue the task is run directly. In the dispatcher mode it runs on
+	 * the caller's thread, once no other task for the game is running.
+	 * @param gameID The ID of the game the task targets, or NO_GAME.
+	 * @param task The task to run.
+	 * @return The task's result.
+	 * @throws ExecutionException Thrown if the task throws or the wait is interrupted.
+	 */
+	public <T> T Call(int gameID, Callable<T> task) throws ExecutionException
+	{
+		if (workers == null && gameID != NO_GAME)
+		{
+			synchronized (GetTurn(gameID))
+			{
+				return CallDirectly(task);
+			}
+		}
+
+		if (workers == null || gameID == NO_GAME || IsCurrent(gameID))
+			return CallDirectly(task);
+
+		FutureTask<T> future = new FutureTask<T>(task);
+		Enqueue(gameID, future);
+
+		try
+		{
+			return future.get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new ExecutionException(e);
+		}
+	}
+
+	/**
+	 * Gets the number of tasks waiting on a game's queue.
+	 * @param gameID The ID of the game.
+	 * @return The number of waiting tasks.
+	 */
+	public int GetPending(int gameID)
+	{
+		GameQueue queue = queues.get(gameID);
+		return queue == null ? 0 : queue.Pending();
+	}
+
+	/**
+	 * Lets go of a game's queue once the game has been dropped, e.g. hibernated or removed. The
+	 * queue still runs the tasks it has, and a task submitted for the game later gets a new one.
+	 * @param gameID The ID of the game.
+	 */
+	public void Release(int gameID)
+	{
+		GameQueue queue = queues.get(gameID);
+		if (queue != null)
+			queue.Retire();
+	}
+
+	/**
+	 * Gets the number of games that have a queue.
+	 * @return The number of queues.
+	 */
+	public int GetQueueCount()
+	{
+		return queues.size();
+	}
+
+	/**
+	 * Stops accepting tasks and waits briefly for running tasks to finish.
+	 */
+	public void Shutdown()
+	{
+		background.shutdown();
+		try
+		{
+			background.awaitTermination(5, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private <T> T CallDirectly(Callable<T> task) throws ExecutionException
+	{
+		try
+		{
+			return task.call();
+		}
+		catch (Exception e)
+		{
+			throw new ExecutionException(e);
+		}
+	}
+
+	private Object GetTurn(int gameID)
+	{
+		return turns[Math.floorMod(gameID, turns.length)];
+	}
+
+	private boolean IsCurrent(int gameID)
+	{
+		GameQueue queue = queues.get(gameID);
+		return queue != null && queue.IsCurrent();
+	}
+
+	private void Enqueue(int gameID, Runnable task)
+	{
+		//A queue that closed after it was looked up has already left the map
+		while (!GetQueue(gameID).Offer(task))
+			continue;
+	}
+
+	private GameQueue GetQueue(int gameID)
+	{
+		GameQueue queue = queues.get(gameID);
+
+		if (queue == null)
+		{
+			GameQueue created = new GameQueue(gameID, background, queues);
+			queue = queues.putIfAbsent(gameID, created);
+
+			if (queue == null)
+				queue = created;
+		}
+
+		return queue;
+	}
+
+	/**
+	 * Looks up Executors.newVirtualThreadPerTaskExecutor so the server still runs on
+	 * JVMs that don't have virtual threads.
+	 * @return The executor, or null if virtual threads aren't supported.
+	 */
+	private static ExecutorService CreateVirtualExecutor()
+	{
+		try
+		{
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService)factory.invoke(null);
+		}
+		catch (ReflectiveOperationException | RuntimeException e)
+		{
+			return null;
+		}
+	}
+
+	private static class WorkerFactory implements ThreadFactory
+	{
+		private final String prefix;
+		private final AtomicInteger count = new AtomicInteger();
+
+		WorkerFactory(String prefix)
+		{
+			this.prefix = prefix;
+		}
+
+		@Override
+		public Thread newThread(Runnable task)
+		{
+			Thread thread = new Thread(task, prefix + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
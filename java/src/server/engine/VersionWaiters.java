@@ -0,0 +1,208 @@
+package server.engine;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import server.model.ServerGameManager;
+
+/**
+ * Keeps track of requests that are waiting for a game to move past a version. Waiters
+ * don't hold a thread: each one is just a callback plus a timeout on a shared timer.
+ * When the game's version changes (or the timeout expires) the callback is handed to the
+ * game's queue on the request engine, so the timer thread never runs a resumed request itself.
+ * <br/>A game only has a queue of waiters while something is waiting on it; the queue is dropped
+ * when its last waiter fires, so games that are removed or hibernated leave nothing behind.
+ */
+public class VersionWaiters
+{
+	private static VersionWaiters waiters = null;
+
+	/**
+	 * Gets the version waiters.
+	 * @return The version waiters.
+	 */
+	public static synchronized VersionWaiters GetWaiters()
+	{
+		if (waiters == null)
+			waiters = new VersionWaiters();
+
+		return waiters;
+	}
+
+	private final ConcurrentMap<Integer, Queue<Waiter>> byGame;
+	private final ScheduledThreadPoolExecutor timer;
+
+	private VersionWaiters()
+	{
+		byGame = new ConcurrentHashMap<Integer, Queue<Waiter>>();
+
+		timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory()
+		{
+			@Override
+			public Thread newThread(Runnable task)
+			{
+				Thread thread = new Thread(task, "catan-version-waiters");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		timer.setRemoveOnCancelPolicy(true);
+	}
+
+	/**
+	 * Waits for a game to move past a version.
+	 * @param sgm The game to watch.
+	 * @param version The version the caller already has.
+	 * @param timeout The longest time to wait, in milliseconds.
+	 * @param resume Run on the game's queue once the version changes or the wait times out.
+	 */
+	public void Await(ServerGameManager sgm, int version, long timeout, Runnable resume)
+	{
+		int gameID = sgm.GetGameID();
+		final Waiter waiter = new Waiter(gameID, version, resume);
+
+		Add(waiter);
+		waiter.timeout = timer.schedule(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				Fire(waiter);
+			}
+		}, timeout, TimeUnit.MILLISECONDS);
+
+		//The version may have moved while we were registering
+		if (sgm.GetVersion() != version)
+			Fire(waiter);
+	}
+
+	/**
+	 * Wakes every waiter on a game that doesn't have the new version.
+	 * @param gameID The ID of the game that changed.
+	 * @param version The game's new version.
+	 */
+	public void VersionChanged(int gameID, int version)
+	{
+		Queue<Waiter> queue = byGame.get(gameID);
+		if (queue == null || queue.isEmpty())
+			return;
+
+		Iterator<Waiter> iter = queue.iterator();
+		while (iter.hasNext())
+		{
+			Waiter waiter = iter.next();
+
+			if (waiter.version != version)
+				Fire(waiter);
+		}
+	}
+
+	/**
+	 * Gets the number of games that have requests waiting on them.
+	 * @return The number of games.
+	 */
+	public int GetGameCount()
+	{
+		return byGame.size();
+	}
+
+	/**
+	 * Gets the number of requests waiting on a game.
+	 * @param gameID The ID of the game.
+	 * @return The number of waiting requests.
+	 */
+	public int GetWaiting(int gameID)
+	{
+		Queue<Waiter> queue = byGame.get(gameID);
+		return queue == null ? 0 : queue.size();
+	}
+
+	private void Fire(final Waiter waiter)
+	{
+		if (!waiter.fired.compareAndSet(false, true))
+			return;
+
+		Remove(waiter);
+
+		if (waiter.timeout != null)
+			waiter.timeout.cancel(false);
+
+		//Queued behind the change that woke us, and never run on the timer or the changing thread
+		RequestEngine.GetEngine().Resume(waiter.gameID, waiter.resume);
+	}
+
+	/**
+	 * Adds a waiter to its game's queue. Adding and removing hold the queue, so a waiter is
+	 * never added to a queue that has just been dropped.
+	 */
+	private void Add(Waiter waiter)
+	{
+		while (true)
+		{
+			Queue<Waiter> queue = GetQueue(waiter.gameID);
+			synchronized (queue)
+			{
+				if (byGame.get(waiter.gameID) == queue)
+				{
+					queue.add(waiter);
+					return;
+				}
+			}
+		}
+	}
+
+	private void Remove(Waiter waiter)
+	{
+		Queue<Waiter> queue = byGame.get(waiter.gameID);
+		if (queue == null)
+			return;
+
+		synchronized (queue)
+		{
+			queue.remove(waiter);
+			if (queue.isEmpty())
+				byGame.remove(waiter.gameID, queue);
+		}
+	}
+
+	private Queue<Waiter> GetQueue(int gameID)
+	{
+		Queue<Waiter> queue = byGame.get(gameID);
+
+		if (queue == null)
+		{
+			Queue<Waiter> created = new ConcurrentLinkedQueue<Waiter>();
+			queue = byGame.putIfAbsent(gameID, created);
+
+			if (queue == null)
+				queue = created;
+		}
+
+		return queue;
+	}
+
+	private static class Waiter
+	{
+		private final int gameID;
+		private final int version;
+		private final Runnable resume;
+		private final AtomicBoolean fired;
+		private volatile ScheduledFuture<?> timeout;
+
+		public Waiter(int gameID, int version, Runnable resume)
+		{
+			this.gameID = gameID;
+			this.version = version;
+			this.resume = resume;
+			this.fired = new AtomicBoolean(false);
+		}
+	}
+}
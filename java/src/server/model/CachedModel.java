@@ -0,0 +1,99 @@
+package server.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import shared.model.GameModel;
+import shared.networking.SerializationUtils;
+
+/**
+ * A game model that has already been serialized for one version of a game. Every request
+ * that asks for the same version shares the same JSON (and gzipped bytes), so the model
+ * is only serialized once per change instead of once per request.
+ */
+public class CachedModel
+{
+	private final int version;
+	private final String json;
+	private byte[] bytes;
+	private byte[] gzip;
+
+	/**
+	 * Creates a cached model.
+	 * @param version The version of the game that was serialized.
+	 * @param json The serialized model.
+	 */
+	public CachedModel(int version, String json)
+	{
+		this.version = version;
+		this.json = json;
+		this.bytes = null;
+		this.gzip = null;
+	}
+
+	/**
+	 * Gets the version of the game this model was serialized from.
+	 * @return The version.
+	 */
+	public int GetVersion()
+	{
+		return version;
+	}
+
+	/**
+	 * Gets the serialized model.
+	 * @return The model as JSON.
+	 */
+	public String GetJson()
+	{
+		return json;
+	}
+
+	/**
+	 * Gets a copy of the model. Each call gets its own copy, so the caller can change it
+	 * without affecting anyone else.
+	 * @return The model.
+	 */
+	public GameModel GetModel()
+	{
+		return SerializationUtils.deserialize(json, GameModel.class);
+	}
+
+	/**
+	 * Gets the serialized model as UTF-8 bytes.
+	 * @return The model bytes.
+	 */
+	public synchronized byte[] GetBytes()
+	{
+		if (bytes == null)
+			bytes = json.getBytes(StandardCharsets.UTF_8);
+
+		return bytes;
+	}
+
+	/**
+	 * Gets the serialized model gzipped. The bytes are only compressed the first time they
+	 * are asked for.
+	 * @return The gzipped model bytes.
+	 */
+	public synchronized byte[] GetGzip()
+	{
+		if (gzip == null)
+		{
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			try (GZIPOutputStream zip = new GZIPOutputStream(out))
+			{
+				zip.write(GetBytes());
+			}
+			catch (IOException e)
+			{ //Can't happen writing to memory
+				throw new IllegalStateException(e);
+			}
+			gzip = out.toByteArray();
+		}
+
+		return gzip;
+	}
+}
@@ -4,7 +4,7 @@ public class GameArcade
 {
 	private static GameTable games = null;
 	
-	public static GameTable games()
+	public static synchronized GameTable games()
 	{
 		if (games == null)
 		{
@@ -1,42 +1,79 @@
 package server.model;
 
-import java.util.Collection;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
 
+import server.Log;
+import server.ai.AIHandler;
+import server.engine.RequestEngine;
 import shared.data.GameInfo;
 
-public class GameHandler 
+/**
+ * Keeps track of the games on the server.
+ * <br/>Games in use are kept in memory. Once a store is set, games that go unused for a while
+ * can be hibernated: they are saved to the store and only a summary of them is kept. A
+ * hibernated game is loaded again the first time it is asked for, so memory grows with the
+ * games being played rather than every game ever created.
+ */
+public class GameHandler
 {
 	private final ReadWriteLock lock = new ReentrantReadWriteLock();
-	
-	private Map<Integer, ServerGameManager> gameIndex;
+
+	private Map<Integer, Entry> gameIndex;
+	private Map<Integer, GameInfo> hibernated;
 	private Set<String> gameNames;
-	
-	public GameHandler() 
+	/** The ID the next new game is given. */
+	private int nextID;
+	private volatile IGameStore store;
+
+	public GameHandler()
 	{
-		gameIndex = new HashMap<Integer, ServerGameManager>();
+		gameIndex = new HashMap<Integer, Entry>();
+		hibernated = new HashMap<Integer, GameInfo>();
 		gameNames = new HashSet<String>();
-		
+
+	}
+
+	/**
+	 * Sets where hibernated games are kept. Games aren't hibernated until this is set.
+	 * @param store The game store.
+	 */
+	public void SetStore(IGameStore store)
+	{
+		this.store = store;
 	}
 
-	public Collection<ServerGameManager> GetAllGames()
+	/**
+	 * Gets a summary of every game, including hibernated games, without loading them.
+	 * @return The games, in ID order.
+	 */
+	public List<GameInfo> GetAllGames()
 	{
 		lock.readLock().lock();
 		try
 		{
-			return java.util.Collections.unmodifiableCollection(gameIndex.values());
+			Map<Integer, GameInfo> all = new TreeMap<Integer, GameInfo>(hibernated);
+			for (Entry entry : gameIndex.values())
+				all.put(entry.game.GetGameID(), Summarize(entry.game));
+
+			return new ArrayList<GameInfo>(all.values());
 		}
 		finally
 		{
 			lock.readLock().unlock();
 		}
 	}
-	
+
 	public boolean ContainsGame(String name)
 	{
 		lock.readLock().lock();
@@ -49,7 +86,24 @@ public class GameHandler
 			lock.readLock().unlock();
 		}
 	}
-	
+
+	/**
+	 * Gets the number of games held in memory.
+	 * @return The number of games that aren't hibernated.
+	 */
+	public int GetLoadedCount()
+	{
+		lock.readLock().lock();
+		try
+		{
+			return gameIndex.size();
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
 	public GameInfo AddGame(ServerGameManager sgm, boolean setID)
 	{
 		lock.writeLock().lock();
@@ -58,17 +112,19 @@ public class GameHandler
 			int index;
 			if (setID)
 			{
-				index = gameIndex.size();
+				index = nextID;
 				sgm.SetGameID(index);
 			}
 			else
 			{
 				index = sgm.GetGameID();
 			}
-			
-			gameIndex.put(index, sgm);
+			nextID = Math.max(nextID, index + 1);
+
+			hibernated.remove(index);
+			gameIndex.put(index, new Entry(sgm, Entry.UNSAVED));
 			gameNames.add(sgm.GetGameTitle());
-			
+
 			GameInfo info = new GameInfo();
 			info.setId(index);
 			info.setTitle(sgm.GetGameTitle());
@@ -79,22 +135,77 @@ public class GameHandler
 			lock.writeLock().unlock();
 		}
 	}
-	
+
+	/**
+	 * Adds a game that was loaded from the store, e.g. when the server starts. It counts as used
+	 * when it is restored, so it stays loaded until it has been idle as long as any other game.
+	 * @param sgm The game.
+	 */
+	public void RestoreGame(ServerGameManager sgm)
+	{
+		lock.writeLock().lock();
+		try
+		{
+			Entry entry = new Entry(sgm, sgm.GetVersion());
+
+			hibernated.remove(sgm.GetGameID());
+			gameIndex.put(sgm.GetGameID(), entry);
+			gameNames.add(sgm.GetGameTitle());
+			nextID = Math.max(nextID, sgm.GetGameID() + 1);
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
 	/**
-	 * Gets a game object
+	 * Gets a game object, loading it from the store if it was hibernated.
 	 * @param id the ID of the game
 	 * @return The game associated with the ID.
-	 * @throws GameException if the game is not found
+	 * @throws GameException if the game is not found or can't be loaded
 	 */
 	public ServerGameManager GetGame (int id) throws GameException
 	{
 		lock.readLock().lock();
 		try
 		{
-			if (!gameIndex.containsKey(id))
+			Entry entry = gameIndex.get(id);
+			if (entry != null)
+			{
+				entry.lastUsed = System.currentTimeMillis();
+				return entry.game;
+			}
+			else if (!hibernated.containsKey(id))
 				throw new GameException("Game " + id + " not found");
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+
+		return Wake(id);
+	}
+
+	/**
+	 * Gets a game without counting it as used, e.g. for an open stream's keep-alive. A
+	 * hibernated game isn't loaded for it.
+	 * @param id the ID of the game
+	 * @return The game, or null if it is hibernated.
+	 * @throws GameException if the game is not found
+	 */
+	public ServerGameManager PeekGame(int id) throws GameException
+	{
+		lock.readLock().lock();
+		try
+		{
+			Entry entry = gameIndex.get(id);
+			if (entry != null)
+				return entry.game;
+			else if (hibernated.containsKey(id))
+				return null;
 			else
-				return gameIndex.get(id);
+				throw new GameException("Game " + id + " not found");
 		}
 		finally
 		{
@@ -103,8 +214,216 @@ public class GameHandler
 	}
 
 	public void SetGame(ServerGameManager sgm) {
-		gameIndex.put(sgm.GetGameID(), sgm);
-		gameNames.add(sgm.GetGameTitle());
-		
+		lock.writeLock().lock();
+		try
+		{
+			Entry old = gameIndex.get(sgm.GetGameID());
+
+			hibernated.remove(sgm.GetGameID());
+			gameIndex.put(sgm.GetGameID(), new Entry(sgm, old != null ? old.savedVersion : Entry.UNSAVED));
+			gameNames.add(sgm.GetGameTitle());
+			nextID = Math.max(nextID, sgm.GetGameID() + 1);
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Drops a game, e.g. one that was only played to measure the server. It isn't saved, and its
+	 * ID isn't given to another game.
+	 * @param id The ID of the game.
+	 * @return False if there was no such game.
+	 */
+	public boolean RemoveGame(int id)
+	{
+		lock.writeLock().lock();
+		try
+		{
+			Entry entry = gameIndex.remove(id);
+			GameInfo info = hibernated.remove(id);
+			if (entry != null)
+				gameNames.remove(entry.game.GetGameTitle());
+			else if (info != null)
+				gameNames.remove(info.getTitle());
+
+			RequestEngine.GetEngine().Release(id);
+			AIHandler.GetHandler().Release(id);
+			return entry != null || info != null;
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+	
+	/**
+	 * Hibernates every game that hasn't been used for a while. Each game is hibernated on its
+	 * request queue, so it can't change while it is being saved.
+	 * @param idleMillis How long a game has to go unused, in milliseconds.
+	 * @return The number of games hibernated.
+	 */
+	public int HibernateIdle(long idleMillis)
+	{
+		if (store == null)
+			return 0;
+
+		final long cutoff = System.currentTimeMillis() - idleMillis;
+
+		List<Integer> idle = new ArrayList<Integer>();
+		lock.readLock().lock();
+		try
+		{
+			for (Map.Entry<Integer, Entry> game : gameIndex.entrySet())
+			{
+				if (game.getValue().lastUsed <= cutoff)
+					idle.add(game.getKey());
+			}
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+
+		int count = 0;
+		for (final int id : idle)
+		{
+			try
+			{
+				boolean done = RequestEngine.GetEngine().Call(id, new Callable<Boolean>()
+				{
+					@Override
+					public Boolean call() throws GameException
+					{
+						return Hibernate(id, cutoff);
+					}
+				});
+
+				if (done)
+					count++;
+			}
+			catch (ExecutionException e)
+			{
+				Log.GetLog().log(Level.SEVERE, "Unable to hibernate game " + id, e.getCause());
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Saves a game if it changed since it was last saved here, then drops it from memory as long
+	 * as it wasn't used or changed while being saved.
+	 */
+	private boolean Hibernate(int id, long cutoff) throws GameException
+	{
+		Entry entry;
+		lock.readLock().lock();
+		try
+		{
+			entry = gameIndex.get(id);
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+
+		if (entry == null)
+			return false;
+
+		int version = entry.game.GetVersion();
+		if (version != entry.savedVersion)
+		{
+			store.StoreGame(entry.game);
+			entry.savedVersion = version;
+		}
+
+		lock.writeLock().lock();
+		try
+		{
+			if (gameIndex.get(id) != entry || entry.lastUsed > cutoff || entry.game.GetVersion() != version)
+				return false;
+
+			gameIndex.remove(id);
+			hibernated.put(id, Summarize(entry.game));
+			RequestEngine.GetEngine().Release(id);
+			AIHandler.GetHandler().Release(id);
+			return true;
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Loads a hibernated game. If two threads load it at once, the first one loaded is kept.
+	 */
+	private ServerGameManager Wake(int id) throws GameException
+	{
+		IGameStore source = store;
+		if (source == null)
+			throw new GameException("Game " + id + " is hibernated but there is no store to load it from");
+
+		ServerGameManager loaded = source.LoadGame(id);
+		loaded.SetGameID(id);
+
+		lock.writeLock().lock();
+		try
+		{
+			Entry entry = gameIndex.get(id);
+			if (entry == null)
+			{
+				entry = new Entry(loaded, loaded.GetVersion());
+				hibernated.remove(id);
+				gameIndex.put(id, entry);
+			}
+
+			entry.lastUsed = System.currentTimeMillis();
+			return entry.game;
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	private GameInfo Summarize(ServerGameManager sgm)
+	{
+		//Games are listed from any thread, so the players are read under the game's lock
+		return sgm.Read(new IGameReader<GameInfo>()
+		{
+			@Override
+			public GameInfo Read(ServerGameManager game)
+			{
+				GameInfo info = new GameInfo();
+				info.setId(game.GetGameID());
+				info.setTitle(game.GetGameTitle());
+				info.setPlayers(game.allCurrentPlayers());
+				return info;
+			}
+		});
+	}
+
+	/**
+	 * A game held in memory.
+	 */
+	private static class Entry
+	{
+		/** The version of a game that has never been saved here. */
+		static final int UNSAVED = -1;
+
+		final ServerGameManager game;
+		/** The version the game was at when last loaded or saved, so unchanged games aren't saved again. */
+		int savedVersion;
+		volatile long lastUsed;
+
+		Entry(ServerGameManager game, int savedVersion)
+		{
+			this.game = game;
+			this.savedVersion = savedVersion;
+			this.lastUsed = System.currentTimeMillis();
+		}
 	}
 }
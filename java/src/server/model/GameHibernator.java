@@ -0,0 +1,74 @@
+package server.model;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import server.Log;
+
+/**
+ * Periodically stores games that haven't been used for a while and drops them from memory.
+ * They are loaded again the next time they're used.
+ */
+public class GameHibernator
+{
+	private static ScheduledExecutorService timer;
+	
+	/**
+	 * Starts hibernating idle games. The first check is made straight away.
+	 * @param idleMillis How long a game has to go unused before it is hibernated, in milliseconds.
+	 * 0 or less turns hibernation off.
+	 */
+	public static synchronized void Start(final long idleMillis)
+	{
+		Stop();
+		
+		if (idleMillis <= 0)
+			return;
+		
+		timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+		{
+			@Override
+			public Thread newThread(Runnable r)
+			{
+				Thread thread = new Thread(r, "game-hibernator");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		
+		//Checking twice per idle period means a game is hibernated at most 1.5 periods after its last use
+		long period = Math.max(1000, idleMillis / 2);
+		timer.scheduleWithFixedDelay(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					int hibernated = GameArcade.games().HibernateIdle(idleMillis);
+					if (hibernated > 0)
+						Log.GetLog().fine("Hibernated " + hibernated + " idle games");
+				}
+				catch (RuntimeException e)
+				{
+					Log.GetLog().log(Level.SEVERE, "Unable to hibernate idle games", e);
+				}
+			}
+		}, 0, period, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Stops hibernating idle games.
+	 */
+	public static synchronized void Stop()
+	{
+		if (timer != null)
+		{
+			timer.shutdownNow();
+			timer = null;
+		}
+	}
+}
@@ -11,15 +11,14 @@ import java.io.UnsupportedEncodingException;
 import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
 import server.Log;
 import server.ai.AIHandler;
+import server.ai.characters.AI;
 import shared.definitions.AIType;
 import shared.definitions.CatanColor;
 import shared.model.ModelException;
@@ -43,12 +42,9 @@ public class GameTable
 		games = new GameHandler();
 		playerTable = new PlayerDen();
 		
-		Set<String> aiNames = AIHandler.GetHandler().GetNames();
-		for (String name : aiNames)
-		{
-			int index = playerTable.RegisterAI(name);
-			AIHandler.GetHandler().RegisterAI(name, index);
-		}
+		//Nobody can register as one of the AIs
+		for (String name : AIHandler.GetHandler().GetNames())
+			playerTable.ReserveName(name);
 	}
 	
 	/**
@@ -96,18 +92,7 @@ public class GameTable
 	 */
 	public List<GameInfo> GetAllGames()
 	{
-		List<GameInfo> gamelist = new ArrayList<>(); 
-		Iterator<ServerGameManager> iter = games.GetAllGames().iterator();
-		while(iter.hasNext())
-		{
-			ServerGameManager sgm = iter.next();
-			GameInfo gi = new GameInfo();
-			gi.setId(sgm.GetGameID());
-			gi.setTitle(sgm.GetGameTitle());
-			gi.setPlayers(sgm.allCurrentPlayers());
-			gamelist.add(gi);
-		}
-		return gamelist;	 
+		return games.GetAllGames();
 	}
 	
 	/**
@@ -122,6 +107,59 @@ public class GameTable
 		return games.AddGame(sgm, setID);
 	}
 	
+	/**
+	 * Adds a game that was saved before the server started. Unless it is used it will be
+	 * hibernated by the next check.
+	 * @param sgm The saved game.
+	 * @return False if a game with the same name already exists.
+	 */
+	public boolean RestoreGame(ServerGameManager sgm)
+	{
+		if (games.ContainsGame(sgm.GetGameTitle()))
+			return false;
+		
+		games.RestoreGame(sgm);
+		return true;
+	}
+	
+	/**
+	 * Drops a game without saving it.
+	 * @param gameID The ID of the game.
+	 * @return False if there was no such game.
+	 */
+	public boolean RemoveGame(int gameID)
+	{
+		return games.RemoveGame(gameID);
+	}
+	
+	/**
+	 * Sets where idle games are hibernated.
+	 * @param store The game store.
+	 */
+	public void SetStore(IGameStore store)
+	{
+		games.SetStore(store);
+	}
+	
+	/**
+	 * Hibernates the games that haven't been used for a while.
+	 * @param idleMillis How long a game has to go unused, in milliseconds.
+	 * @return The number of games hibernated.
+	 */
+	public int HibernateIdle(long idleMillis)
+	{
+		return games.HibernateIdle(idleMillis);
+	}
+	
+	/**
+	 * Gets the number of games held in memory.
+	 * @return The number of games that aren't hibernated.
+	 */
+	public int GetLoadedCount()
+	{
+		return games.GetLoadedCount();
+	}
+	
 	/**
 	 * Joins a player to the game specified
 	 * @param playerID
@@ -166,6 +204,17 @@ public class GameTable
 		return games.GetGame(gameID);
 	}
 	
+	/**
+	 * Gets a game without counting it as used or loading it if it is hibernated.
+	 * @param gameID
+	 * @return The game, or null if it is hibernated.
+	 * @throws GameException
+	 */
+	public ServerGameManager PeekGame(int gameID) throws GameException
+	{
+		return games.PeekGame(gameID);
+	}
+	
 	/**
 	 * Gets the available list of AIs.
 	 * @return List of AIs.
@@ -192,22 +241,30 @@ public class GameTable
 			}
 			
 			Set<CatanColor> notAvailable = new HashSet<CatanColor>();
-			List<Integer> ids = new ArrayList<Integer>();
+			Set<String> names = new HashSet<String>();
 			int num = manager.getNumberPlayers();
 			
 			for (int i = 0; i < num; i++)
 			{
 				CatanColor color = manager.getPlayerColorByIndex(i);
-				int takenPlayerID = manager.allCurrentPlayers()[i].getId();
+				String takenName = manager.allCurrentPlayers()[i].getName();
 				notAvailable.add(color);
-				ids.add(takenPlayerID);
+				names.add(takenName);
+			}
+			
+			//Each seat gets an AI of its own, with the seat's player ID
+			AI ai = AIHandler.GetHandler().CreateAI(type, names);
+			if (ai == null)
+			{
+				Log.GetLog().severe("No " + AIType.toString(type) + " AIs left to add to game " + gameID);
+				return false;
 			}
 			
-			int aiID = AIHandler.GetHandler().GetAI(type, ids);
-			String name = AIHandler.GetHandler().GetName(aiID);
-			CatanColor color = AIHandler.GetHandler().PickColor(aiID, notAvailable);
-			manager.AddPlayer(name, color, false, aiID);
+			ai.SetID(PlayerDen.GetAIID(gameID, num));
+			CatanColor color = ai.PickColor(notAvailable);
+			manager.AddPlayer(ai.GetName(), color, false, ai.GetID());
 			
+			AIHandler.GetHandler().SeatAI(gameID, ai);
 			return true;
 		}
 		catch (Exception e)
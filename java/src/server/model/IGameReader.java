@@ -0,0 +1,16 @@
+package server.model;
+
+/**
+ * Reads something from a game without changing it.
+ * @param <T> What is read.
+ */
+public interface IGameReader<T>
+{
+	/**
+	 * Reads from the game. The game's lock is held for reading while this runs, so it must not
+	 * change anything.
+	 * @param game The game.
+	 * @return What was read.
+	 */
+	T Read(ServerGameManager game);
+}
@@ -0,0 +1,22 @@
+package server.model;
+
+/**
+ * Where games that haven't been used for a while are kept, so they don't take up memory.
+ */
+public interface IGameStore
+{
+	/**
+	 * Loads a game that was stored.
+	 * @param gameID The ID of the game.
+	 * @return The game, as it was when stored.
+	 * @throws GameException Thrown if the game can't be loaded.
+	 */
+	ServerGameManager LoadGame(int gameID) throws GameException;
+	
+	/**
+	 * Stores a game, returning once it is saved.
+	 * @param sgm The game to store.
+	 * @throws GameException Thrown if the game can't be saved.
+	 */
+	void StoreGame(ServerGameManager sgm) throws GameException;
+}
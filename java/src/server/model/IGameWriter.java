@@ -0,0 +1,15 @@
+package server.model;
+
+/**
+ * Changes a game as one change, so nobody reads the game with it half made.
+ * @param <T> What the change returns.
+ */
+public interface IGameWriter<T>
+{
+	/**
+	 * Changes the game. The game's lock is held for writing while this runs.
+	 * @param game The game.
+	 * @return What the change returns.
+	 */
+	T Write(ServerGameManager game);
+}
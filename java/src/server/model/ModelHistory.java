@@ -0,0 +1,214 @@
+package server.model;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import shared.networking.ModelPatch;
+import shared.networking.SerializationUtils;
+
+/**
+ * Remembers the sections of the last few versions of a game so clients that are only a
+ * few versions behind can be sent a patch instead of the full model. Versions are kept as
+ * section strings: a section that didn't change reuses the previous version's string, but one
+ * that changed at all is kept whole again, so sharing is only as fine as the sections.
+ * <br/>Each version is serialized one section at a time and the full model is joined from
+ * those same strings, so remembering a version costs no more than serializing it.
+ */
+public class ModelHistory
+{
+	private final int capacity;
+	private final LinkedHashMap<Integer, Snapshot> versions;
+	private final Map<Integer, CachedModel> patches;
+	private Snapshot latest;
+	private Map<String, JsonElement> latestSections;
+
+	/**
+	 * Creates a history.
+	 * @param capacity The number of versions to remember.
+	 */
+	public ModelHistory(int capacity)
+	{
+		this.capacity = capacity;
+		this.versions = new LinkedHashMap<Integer, Snapshot>();
+		this.patches = new HashMap<Integer, CachedModel>();
+		this.latest = null;
+		this.latestSections = null;
+	}
+
+	/**
+	 * Records a version of the game.
+	 * @param version The version.
+	 * @param model The model for that version, as a JSON tree.
+	 * @return The serialized model.
+	 */
+	public synchronized String Record(int version, JsonObject model)
+	{
+		Map<String, JsonElement> sections = ModelPatch.Split(model);
+		Map<String, String> written = new HashMap<String, String>();
+		Snapshot snapshot = new Snapshot(version);
+
+		for (Entry<String, JsonElement> section : sections.entrySet())
+		{
+			String path = section.getKey();
+			String json = SerializationUtils.serialize(section.getValue());
+			written.put(path, json);
+
+			if (ModelPatch.IsAppended(path) && section.getValue().isJsonArray())
+			{
+				snapshot.lengths.put(path, section.getValue().getAsJsonArray().size());
+				continue;
+			}
+
+			//Share unchanged sections with the previous version
+			if (latest != null && json.equals(latest.sections.get(path)))
+				json = latest.sections.get(path);
+
+			snapshot.sections.put(path, json);
+		}
+
+		versions.remove(version);
+		versions.put(version, snapshot);
+		while (versions.size() > capacity)
+		{
+			Iterator<Integer> oldest = versions.keySet().iterator();
+			oldest.next();
+			oldest.remove();
+		}
+
+		latest = snapshot;
+		latestSections = sections;
+		patches.clear();
+
+		return ModelPatch.Join(model, written);
+	}
+
+	/**
+	 * Gets a patch from a version to the latest recorded version.
+	 * @param base The version the client has.
+	 * @return The patch, or null if the base version is no longer remembered.
+	 */
+	public synchronized CachedModel GetPatch(int base)
+	{
+		Snapshot from = versions.get(base);
+		if (from == null || latest == null || from == latest)
+			return null;
+
+		CachedModel patch = patches.get(base);
+		if (patch == null)
+		{
+			patch = new CachedModel(latest.version, SerializationUtils.serialize(BuildPatch(from)));
+			patches.put(base, patch);
+		}
+
+		return patch;
+	}
+
+	/**
+	 * Gets the number of versions remembered.
+	 * @return The number of versions.
+	 */
+	public synchronized int Size()
+	{
+		return versions.size();
+	}
+
+	/**
+	 * Forgets every version, e.g. when the game is reset and versions start over.
+	 */
+	public synchronized void Clear()
+	{
+		versions.clear();
+		patches.clear();
+		latest = null;
+		latestSections = null;
+	}
+
+	private JsonObject BuildPatch(Snapshot from)
+	{
+		JsonObject set = new JsonObject();
+		JsonObject append = new JsonObject();
+		JsonArray remove = new JsonArray();
+
+		for (Entry<String, String> section : latest.sections.entrySet())
+		{
+			String path = section.getKey();
+
+			if (!section.getValue().equals(from.sections.get(path)))
+				set.add(path, latestSections.get(path));
+		}
+
+		for (Entry<String, Integer> section : latest.lengths.entrySet())
+		{
+			String path = section.getKey();
+			JsonArray entries = latestSections.get(path).getAsJsonArray();
+			Integer had = from.lengths.get(path);
+
+			if (had == null || had > entries.size())
+			{
+				set.add(path, entries);
+			}
+			else if (had < entries.size())
+			{
+				JsonArray added = new JsonArray();
+				for (int i = had; i < entries.size(); i++)
+					added.add(entries.get(i));
+
+				append.add(path, added);
+			}
+		}
+
+		for (String path : from.Paths())
+		{
+			if (!latest.Has(path))
+				remove.add(new JsonPrimitive(path));
+		}
+
+		JsonObject patch = new JsonObject();
+		patch.addProperty(ModelPatch.PATCH, true);
+		patch.addProperty(ModelPatch.BASE, from.version);
+		patch.addProperty(ModelPatch.VERSION, latest.version);
+		patch.add(ModelPatch.SET, set);
+		if (append.entrySet().size() > 0)
+			patch.add(ModelPatch.APPEND, append);
+		if (remove.size() > 0)
+			patch.add(ModelPatch.REMOVE, remove);
+
+		return patch;
+	}
+
+	private static class Snapshot
+	{
+		private final int version;
+		private final Map<String, String> sections;
+		private final Map<String, Integer> lengths;
+
+		public Snapshot(int version)
+		{
+			this.version = version;
+			this.sections = new HashMap<String, String>();
+			this.lengths = new HashMap<String, Integer>();
+		}
+
+		public Set<String> Paths()
+		{
+			Set<String> paths = new HashSet<String>(sections.keySet());
+			paths.addAll(lengths.keySet());
+			return paths;
+		}
+
+		public boolean Has(String path)
+		{
+			return sections.containsKey(path) || lengths.containsKey(path);
+		}
+	}
+}
@@ -14,6 +14,8 @@ public class PlayerDen
 {
 	private final int MIN_USERNAME_LENGTH = 3;
 	private final int MIN_PASSWORD_LENGTH = 5;
+	private static final int FIRST_AI_ID = 1000000000;
+	private static final int MAX_SEATS = 4;
 	
 	private Map<Integer,ServerPlayer> players;
 	private List<String> playerNames;
@@ -111,15 +113,27 @@ public class PlayerDen
 		return index;
 	}
 	
-	public int RegisterAI(String username)
+	/**
+	 * Gets the player ID of the AI in a seat. AI IDs come from the game and seat, in a range
+	 * far above the IDs players are given, so they never meet a player's or another seat's ID,
+	 * and a game restored from storage needs nothing saved or reserved to keep them unique.
+	 * @param gameID The ID of the game.
+	 * @param seat The index of the AI's seat in the game.
+	 * @return The AI's player ID.
+	 */
+	public static int GetAIID(int gameID, int seat)
 	{
-		playerNames.add(username);
-		
-		int index = numberPlayers++;
-		ServerPlayer sp = new ServerPlayer(username, "AI", index);
-		players.put(index, sp);
-		
-		return index;
+		return FIRST_AI_ID + gameID * MAX_SEATS + seat;
+	}
+	
+	/**
+	 * Stops players from registering with a name, e.g. an AI's.
+	 * @param username The name.
+	 */
+	public void ReserveName(String username)
+	{
+		if (!playerNames.contains(username))
+			playerNames.add(username);
 	}
 	
 	/**
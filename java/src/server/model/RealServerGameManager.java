@@ -86,6 +86,7 @@ public class RealServerGameManager extends ServerGameManager implements Serializ
 	protected void updateVersion()
 	{
 		this.version++;
+		VersionChanged();
 	}
 
 	/**
@@ -98,43 +99,76 @@ public class RealServerGameManager extends ServerGameManager implements Serializ
 		return playerIndexLookup.get(playerID);
 	}
 
+	@Override
+	protected void Restore(ServerGameManager copy)
+	{
+		super.Restore(copy);
+		RealServerGameManager real = (RealServerGameManager)copy;
+		this.playerIndexLookup = real.playerIndexLookup;
+		this.discardList = real.discardList;
+	}
+
 	@Override
 	public void reset()
 	{
-		this.map = MapGenerator.GenerateMap(randomTiles, randomNumbers, randomPorts);
-		version = -1;
-		waterCooler = new ChatBox();
-		log = new GameActionLog();
-		gameBank = new Bank();
-		gameState = new GameState();
-		map = MapGenerator.BeginnerMap();
-		victoryPointManager = new VictoryPointManager();
-		offeredTrade = null;
-		playerColors = new int[10];
-		//fill the array with -1 by default
-		Arrays.fill(playerColors,-1);
-		playerCanMoveRobber = -1;
-		gameBank.resetToBankDefaults();
-
-		for (Player p: players)
+		long stamp = StartWrite();
+		try
+		{
+			this.map = MapGenerator.GenerateMap(randomTiles, randomNumbers, randomPorts);
+			version = -1;
+			clearModelHistory();
+			waterCooler = new ChatBox();
+			log = new GameActionLog();
+			gameBank = new Bank();
+			gameState = new GameState();
+			map = MapGenerator.BeginnerMap();
+			victoryPointManager = new VictoryPointManager();
+			offeredTrade = null;
+			playerColors = new int[10];
+			//fill the array with -1 by default
+			Arrays.fill(playerColors,-1);
+			playerCanMoveRobber = -1;
+			gameBank.resetToBankDefaults();
+
+			for (Player p: players)
+			{
+				p.playerBank.resetToPlayerDefaults();
+			}
+			
+			//Waiters are told once the reset ends, as for any other change
+			VersionChanged();
+		}
+		finally
 		{
-			p.playerBank.resetToPlayerDefaults();
+			EndWrite(stamp);
 		}
 	}
 
 	@Override
 	public int AddPlayer(String name, CatanColor color, boolean isHuman, int playerID) throws ModelException
 	{
-		int index = super.AddPlayer(name, color, isHuman, playerID);
-		playerIndexLookup.put(playerID, index);
+		long stamp = StartWrite();
+		try
+		{
+			//Two seats with one ID would share a lookup entry
+			if (playerIndexLookup.containsKey(playerID))
+				throw new ModelException("Player " + playerID + " is already in the game");
+			
+			int index = super.AddPlayer(name, color, isHuman, playerID);
+			playerIndexLookup.put(playerID, index);
 
-		//Start the game if we have 4 players
-		if (this.players.size() == 4)
-			this.StartGame();
+			//Start the game if we have 4 players
+			if (this.players.size() == 4)
+				this.StartGame();
 
-		this.updateVersion();
+			this.updateVersion();
 
-		return index;
+			return index;
+		}
+		finally
+		{
+			EndWrite(stamp);
+		}
 	}
 
 	/**
@@ -153,10 +187,20 @@ public class RealServerGameManager extends ServerGameManager implements Serializ
 			super.PlayerChat(playerIndex, message);
 			ServerChatCommand(playerIndex,message);
 			this.updateVersion();
-			for (Player p: this.players)
+			final String said = message;
+			for (final Player p: this.players)
 			{
 				if (p.isARobot() && playerIndex != p.playerIndex())
-					AIHandler.GetHandler().Chat(p.playerID(), this.gameID, message);
+				{
+					Notify(new Runnable()
+					{
+						@Override
+						public void run()
+						{
+							AIHandler.GetHandler().Chat(p.playerID(), gameID, said);
+						}
+					});
+				}
 			}
 			return true;
 		}
@@ -212,9 +256,18 @@ public class RealServerGameManager extends ServerGameManager implements Serializ
 				//have the AI discard cards
 				for(int i = 0; i < players.size(); i++)
 				{
-					Player p = players.get(i);
+					final Player p = players.get(i);
 					if (p.isARobot() && this.discardList.get(i))
-						AIHandler.GetHandler().Discard(p.playerID(), gameID);
+					{
+						Notify(new Runnable()
+						{
+							@Override
+							public void run()
+							{
+								AIHandler.GetHandler().Discard(p.playerID(), gameID);
+							}
+						});
+					}
 				}
 			}
 
@@ -316,8 +369,15 @@ public class RealServerGameManager extends ServerGameManager implements Serializ
 				player.playerBank.newToOldDevs();
 				if (player.playerIndex() == current && player.isARobot())
 				{
-					int aiID = player.playerID();
-					AIHandler.GetHandler().RunAI(aiID, gameID);
+					final int aiID = player.playerID();
+					Notify(new Runnable()
+					{
+						@Override
+						public void run()
+						{
+							AIHandler.GetHandler().RunAI(aiID, gameID);
+						}
+					});
 					break;
 				}
 			}
@@ -843,8 +903,15 @@ public class RealServerGameManager extends ServerGameManager implements Serializ
 
 		if (this.IsPlayerRobot(playerIndexReceiving))
 		{
-			int aiID = this.GetPlayerIDbyIndex(playerIndexReceiving);
-			AIHandler.GetHandler().Trade(aiID, this.gameID, offer);
+			final int aiID = this.GetPlayerIDbyIndex(playerIndexReceiving);
+			Notify(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					AIHandler.GetHandler().Trade(aiID, gameID, offer);
+				}
+			});
 		}
 
 		this.updateVersion();
@@ -1058,6 +1125,23 @@ public class RealServerGameManager extends ServerGameManager implements Serializ
 			this.gameState.state = GameRound.ROBBING;
 
 		this.updateVersion();
+
+		//An AI whose roll made everyone discard goes on with its turn
+		if(!stillNeedToDiscard)
+		{
+			final Player current = players.get(this.CurrentPlayersTurn());
+			if (current.isARobot())
+			{
+				Notify(new Runnable()
+				{
+					@Override
+					public void run()
+					{
+						AIHandler.GetHandler().RunAI(current.playerID(), gameID);
+					}
+				});
+			}
+		}
 		return true;
 	}
 
@@ -1,16 +1,42 @@
 package server.model;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.logging.Level;
+import java.util.concurrent.locks.StampedLock;
 
+import com.google.gson.JsonObject;
+
+import server.Log;
+import server.ServerConfig;
+import server.engine.VersionWaiters;
 import shared.definitions.ResourceType;
 import shared.model.GameManager;
 import shared.model.GameModel;
 import shared.model.map.Coordinate;
 import shared.model.map.model.MapGenerator;
+import shared.networking.SerializationUtils;
 
 /**
  * Special formation of the game manager
+ * <br/>Each game has its own lock, so games never wait on each other. Changes to a game hold
+ * the lock for writing, one at a time: moves are made through {@link #Write(IGameWriter)} where
+ * they come in, rather than each move locking the game itself. Readers that walk the game
+ * (e.g. serializing the model) hold the lock for reading, so they never see a change half made.
+ * <br/>Each version's model is published once, as the change that made it ends. The change
+ * walks the game to a JSON tree holding the lock only for reading, then writes the tree out once
+ * the game is free, and only then tells waiters the version changed. The published model never
+ * changes, so requests, spectators and the AI read it without any lock, seeing the last whole
+ * version while a change is being made or published.
  * @author matthewcarlson
  *
  */
@@ -20,9 +46,25 @@ public abstract class ServerGameManager extends GameManager implements Serializa
 	 *
 	 */
 	protected static final long serialVersionUID = 1293281;
+	private static final AtomicIntegerFieldUpdater<ServerGameManager> ENDING =
+			AtomicIntegerFieldUpdater.newUpdater(ServerGameManager.class, "ending");
 	protected boolean randomTiles;
 	protected boolean randomNumbers;
 	protected boolean randomPorts;
+	/** The model of the last whole version. Replaced, never changed. */
+	private transient volatile CachedModel cachedModel;
+	private transient ModelHistory history;
+	private transient volatile StampedLock lock;
+	/** Held while publishing a version, so readers that ask at once serialize it only once. */
+	private transient volatile Object publishing;
+	/** How many ended changes are still publishing their model. Readers keep the last one till then. */
+	private transient volatile int ending;
+	/** The thread changing the game, so it can read the game and nest changes. */
+	private transient volatile Thread writer;
+	/** Whether the change being made bumped the version, so waiters are told once it ends. */
+	private transient boolean versionChanged;
+	/** What the batch of moves being made set off, held back until every move in it is made. */
+	private transient List<Runnable> held;
 
 	public ServerGameManager(String name, boolean randomTiles, boolean randomNumbers, boolean randomPorts)
 	{
@@ -227,6 +269,259 @@ public abstract class ServerGameManager extends GameManager implements Serializa
 	protected abstract ResourceType takeRandomResourceCard(int receiver, int giver);
 
 
+	/**
+	 * Reads from the game, never seeing a change half made. The game's lock is held for reading
+	 * while it runs, so it may walk the whole game.
+	 * @param reader What to read.
+	 * @return What was read.
+	 */
+	public <T> T Read(IGameReader<T> reader)
+	{
+		if (writer == Thread.currentThread())
+			return reader.Read(this);
+		
+		StampedLock current = GetLock();
+		long stamp = current.readLock();
+		try
+		{
+			return reader.Read(this);
+		}
+		finally
+		{
+			current.unlockRead(stamp);
+		}
+	}
+	
+	/**
+	 * Makes a change to the game, holding its lock for writing. A change made while already
+	 * changing the game is part of the outer change.
+	 * @param change The change.
+	 * @return What the change returned.
+	 */
+	public <T> T Write(IGameWriter<T> change)
+	{
+		long stamp = StartWrite();
+		try
+		{
+			return change.Write(this);
+		}
+		finally
+		{
+			EndWrite(stamp);
+		}
+	}
+	
+	/**
+	 * Reads the game's version without blocking. The read is tried without locking first, and
+	 * again under the lock if the game changed while it ran.
+	 * @return The version.
+	 */
+	protected int ReadVersion()
+	{
+		if (writer == Thread.currentThread())
+			return version;
+		
+		StampedLock current = GetLock();
+		long stamp = current.tryOptimisticRead();
+		int read = version;
+		if (stamp != 0 && current.validate(stamp))
+			return read;
+		
+		stamp = current.readLock();
+		try
+		{
+			return version;
+		}
+		finally
+		{
+			current.unlockRead(stamp);
+		}
+	}
+	
+	/**
+	 * Starts a change to the game, waiting for any other change or locked read to finish.
+	 * A change made while already changing the game is part of the outer change.
+	 * @return The stamp to end the change with.
+	 */
+	protected long StartWrite()
+	{
+		if (writer == Thread.currentThread())
+			return 0;
+		
+		long stamp = GetLock().writeLock();
+		writer = Thread.currentThread();
+		return stamp;
+	}
+	
+	/**
+	 * Ends a change to the game. If the version changed, its model is published and then anyone
+	 * waiting on the game is told.
+	 * @param stamp The stamp the change was started with.
+	 */
+	protected void EndWrite(long stamp)
+	{
+		if (stamp == 0)
+			return;
+		
+		boolean changed = versionChanged;
+		versionChanged = false;
+		int current = version;
+		
+		if (!changed)
+		{
+			writer = null;
+			GetLock().unlockWrite(stamp);
+			return;
+		}
+		
+		ENDING.incrementAndGet(this);
+		writer = null;
+		try
+		{
+			PublishChange(stamp, current);
+		}
+		finally
+		{
+			ENDING.decrementAndGet(this);
+		}
+		
+		VersionWaiters.GetWaiters().VersionChanged(gameID, current);
+	}
+	
+	/**
+	 * Publishes the model a change made. Other readers may walk the game while its tree is built,
+	 * but no other change can start until it is, and the tree is written out after that.
+	 * @param stamp The stamp of the change, which still holds the lock for writing.
+	 * @param current The version the change made.
+	 */
+	private void PublishChange(long stamp, int current)
+	{
+		StampedLock lock = GetLock();
+		CachedModel before = cachedModel;
+		JsonObject tree;
+		
+		long read = lock.tryConvertToReadLock(stamp);
+		try
+		{
+			tree = SerializationUtils.serializeTree(ServerGetSerializableModel()).getAsJsonObject();
+		}
+		catch (RuntimeException e)
+		{
+			//The first reader to ask for the version tries again
+			Log.GetLog().log(Level.WARNING, "Unable to publish version " + current + " of game " + gameID, e);
+			return;
+		}
+		finally
+		{
+			lock.unlockRead(read);
+		}
+		
+		synchronized (GetPublishing())
+		{
+			Publish(before, tree, current);
+		}
+	}
+	
+	/**
+	 * Tells anyone waiting on the game that its version changed. During a change, they're told
+	 * once it ends.
+	 */
+	protected void VersionChanged()
+	{
+		if (writer == Thread.currentThread())
+			versionChanged = true;
+		else
+			VersionWaiters.GetWaiters().VersionChanged(gameID, version);
+	}
+
+	/**
+	 * Sets off something a change causes outside the game, such as an AI taking its turn. During
+	 * a batch of moves it's held back until the whole batch is made, and dropped if it fails.
+	 * @param effect What the change sets off.
+	 */
+	protected void Notify(Runnable effect)
+	{
+		if (held != null && writer == Thread.currentThread())
+			held.add(effect);
+		else
+			effect.run();
+	}
+
+	/**
+	 * Makes a batch of moves as one change. If the batch fails, the game is put back the way it
+	 * was before it, nobody is told the version changed and nothing the moves set off happens.
+	 * <br/>Rolling back needs a copy of the whole game made before the first move, through
+	 * {@link #ServerCopy()}. That costs far more than a move: about a millisecond for a
+	 * four-player game, and more as its chat and log grow. A batch of one move isn't copied, since
+	 * a move that fails changes nothing, just as when it is made on its own.
+	 * @param moves The number of moves in the batch.
+	 * @param batch Makes the moves, returning whether every one of them was made.
+	 * @return True if the batch was made, else false.
+	 * @throws GameException Thrown if the game can't be copied to roll back to.
+	 */
+	public boolean ServerBatch(int moves, Callable<Boolean> batch) throws GameException
+	{
+		long stamp = StartWrite();
+		List<Runnable> outer = held;
+		List<Runnable> effects = new ArrayList<Runnable>();
+		boolean made = false;
+		try
+		{
+			ServerGameManager before = moves > 1 ? ServerCopy() : null;
+			held = effects;
+			try
+			{
+				made = batch.call();
+			}
+			catch (Exception e)
+			{
+				Log.GetLog().log(Level.WARNING, "Batch of moves failed in game " + gameID, e);
+			}
+			
+			if (!made && before != null)
+			{
+				Restore(before);
+				if (stamp != 0)
+					versionChanged = false;
+			}
+		}
+		finally
+		{
+			held = outer;
+			EndWrite(stamp);
+		}
+		
+		if (made)
+		{
+			for (Runnable effect : effects)
+				Notify(effect);
+		}
+		return made;
+	}
+
+	/**
+	 * Puts the game back to a copy of it that was made earlier.
+	 * @param copy The copy, from {@link #ServerCopy()}.
+	 */
+	protected void Restore(ServerGameManager copy)
+	{
+		this.gameTitle = copy.gameTitle;
+		this.gameState = copy.gameState;
+		this.gameBank = copy.gameBank;
+		this.players = copy.players;
+		this.victoryPointManager = copy.victoryPointManager;
+		this.waterCooler = copy.waterCooler;
+		this.offeredTrade = copy.offeredTrade;
+		this.log = copy.log;
+		this.map = copy.map;
+		this.version = copy.version;
+		this.playerColors = copy.playerColors;
+		this.playerCanMoveRobber = copy.playerCanMoveRobber;
+		this.randomTiles = copy.randomTiles;
+		this.randomNumbers = copy.randomNumbers;
+		this.randomPorts = copy.randomPorts;
+	}
+
 	/**
 	 * Gets the server's current game model in a serializable form
 	 * @return
@@ -237,9 +532,188 @@ public abstract class ServerGameManager extends GameManager implements Serializa
 	}
 
 	/**
-	 * Gets the current game model
+	 * Gets the current game model. It shares the game's own objects, so it's only safe to use
+	 * while changing or reading the game; everyone else should use {@link #ServerGetCachedModel()}.
 	 * @return
 	 */
 	public abstract GameModel ServerGetModel();
 
+	/**
+	 * Gets the published game model, without locking or serializing anything. A game changed
+	 * other than through {@link #Write(IGameWriter)} has nothing published for its new version,
+	 * so the first reader to ask for it publishes it.
+	 * @return The serialized model for the latest whole version.
+	 */
+	public CachedModel ServerGetCachedModel()
+	{
+		CachedModel cached = cachedModel;
+		Thread changing = writer;
+		
+		//Part way through its own change, which may yet be rolled back, so it isn't published
+		if (changing == Thread.currentThread())
+			return new CachedModel(version, SerializationUtils.serialize(ServerGetSerializableModel()));
+		
+		//Another thread is changing the game or publishing its change, so the published model is
+		//the latest whole one
+		if (cached != null && (changing != null || ending > 0))
+			return cached;
+		
+		if (cached != null && cached.GetVersion() == ReadVersion())
+			return cached;
+		
+		synchronized (GetPublishing())
+		{
+			//Another reader may have published it while this one waited
+			cached = cachedModel;
+			if (cached != null && cached.GetVersion() == ReadVersion())
+				return cached;
+			
+			ModelTree model = Read(new IGameReader<ModelTree>()
+			{
+				@Override
+				public ModelTree Read(ServerGameManager game)
+				{
+					return new ModelTree(version, SerializationUtils.serializeTree(ServerGetSerializableModel()).getAsJsonObject());
+				}
+			});
+			
+			//Written out from the tree once the game is free again
+			return Publish(cached, model.tree, model.version);
+		}
+	}
+
+	/**
+	 * Publishes the model for a version, unless another thread published a model since.
+	 * @param expected The model that was published when this one was serialized.
+	 * @return The published model.
+	 */
+	private synchronized CachedModel Publish(CachedModel expected, JsonObject tree, int version)
+	{
+		if (cachedModel != expected)
+			return cachedModel;
+		
+		CachedModel cached = new CachedModel(version, GetModelHistory().Record(version, tree));
+		cachedModel = cached;
+		return cached;
+	}
+
+	/**
+	 * Gets a patch that brings a client from an older version to the current one.
+	 * @param version The version the client has.
+	 * @return The patch, or null if that version is no longer remembered.
+	 */
+	public CachedModel ServerGetModelPatch(int version)
+	{
+		//Make sure the current version has been recorded
+		ServerGetCachedModel();
+		return GetModelHistory().GetPatch(version);
+	}
+
+	/**
+	 * Drops the serialized model and forgets every remembered version. Used when the
+	 * versions start over.
+	 */
+	protected void clearModelHistory()
+	{
+		cachedModel = null;
+		GetModelHistory().Clear();
+	}
+
+	/**
+	 * Makes a deep copy of the game, e.g. to roll back to if a batch of moves fails.
+	 * @return The copy.
+	 * @throws GameException Thrown if the game can't be copied.
+	 */
+	public ServerGameManager ServerCopy() throws GameException
+	{
+		try
+		{
+			byte[] bytes = Read(new IGameReader<byte[]>()
+			{
+				@Override
+				public byte[] Read(ServerGameManager game)
+				{
+					try
+					{
+						ByteArrayOutputStream baoStream = new ByteArrayOutputStream();
+						ObjectOutputStream ooStream = new ObjectOutputStream(baoStream);
+						ooStream.writeObject(game);
+						ooStream.close();
+						return baoStream.toByteArray();
+					}
+					catch (IOException e)
+					{
+						throw new UncheckedIOException(e);
+					}
+				}
+			});
+			
+			ObjectInputStream oiStream = new ObjectInputStream(new ByteArrayInputStream(bytes));
+			ServerGameManager copy = (ServerGameManager)oiStream.readObject();
+			oiStream.close();
+			
+			return copy;
+		}
+		catch (IOException | UncheckedIOException | ClassNotFoundException e)
+		{
+			throw new GameException("Unable to copy game " + gameID + ": " + e.getMessage());
+		}
+	}
+
+	private StampedLock GetLock()
+	{
+		StampedLock current = lock;
+		if (current == null)
+		{
+			//Transient, so games that were loaded need one made
+			synchronized (this)
+			{
+				if (lock == null)
+					lock = new StampedLock();
+				current = lock;
+			}
+		}
+		
+		return current;
+	}
+
+	private Object GetPublishing()
+	{
+		Object current = publishing;
+		if (current == null)
+		{
+			synchronized (this)
+			{
+				if (publishing == null)
+					publishing = new Object();
+				current = publishing;
+			}
+		}
+		
+		return current;
+	}
+
+	private synchronized ModelHistory GetModelHistory()
+	{
+		if (history == null)
+			history = new ModelHistory(ServerConfig.GetInt(ServerConfig.MODEL_HISTORY, 64));
+
+		return history;
+	}
+
+	/**
+	 * A model serialized from one version of the game.
+	 */
+	private static class ModelTree
+	{
+		final int version;
+		final JsonObject tree;
+		
+		ModelTree(int version, JsonObject tree)
+		{
+			this.version = version;
+			this.tree = tree;
+		}
+	}
+
 }
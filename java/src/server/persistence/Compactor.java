@@ -0,0 +1,228 @@
+package server.persistence;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import server.Log;
+
+/**
+ * Keeps each game's saved commands short by saving the game whole in the background.
+ * <br/>The compactor tracks how many commands each game has saved since it was last saved
+ * whole, how big they are and how long ago the first of them was saved. Once any of those
+ * passes its limit, a snapshot of the game is taken on the compactor's thread, so the request
+ * that saved the command doesn't wait for it.
+ */
+public class Compactor
+{
+	/**
+	 * Takes a snapshot of a game.
+	 */
+	public interface ISnapshotter
+	{
+		/**
+		 * Saves the game whole. The game must not change while it is being captured, and commands
+		 * saved after it is captured must still be kept.
+		 * @param gameID The game to save.
+		 * @throws Exception Thrown if the game can't be saved.
+		 */
+		void Snapshot(int gameID) throws Exception;
+	}
+
+	private final ISnapshotter snapshotter;
+	private final int maxCommands;
+	private final long maxBytes;
+	private final long maxAge;
+	private final ConcurrentHashMap<Integer, GameLog> logs;
+	private final Set<Integer> pending;
+	private final ScheduledExecutorService thread;
+
+	/**
+	 * Creates a compactor and starts its thread.
+	 * @param snapshotter What saves the games.
+	 * @param maxCommands The most commands a game saves before it is compacted.
+	 * @param maxBytes The most bytes of commands a game saves before it is compacted.
+	 * @param maxAge The longest a command is kept before its game is compacted, in milliseconds. 0 for no limit.
+	 */
+	public Compactor(ISnapshotter snapshotter, int maxCommands, long maxBytes, long maxAge)
+	{
+		this.snapshotter = snapshotter;
+		this.maxCommands = maxCommands;
+		this.maxBytes = maxBytes;
+		this.maxAge = maxAge;
+		this.logs = new ConcurrentHashMap<Integer, GameLog>();
+		this.pending = ConcurrentHashMap.newKeySet();
+
+		this.thread = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+		{
+			@Override
+			public Thread newThread(Runnable r)
+			{
+				Thread thread = new Thread(r, "persistence-compactor");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+
+		if (maxAge > 0)
+		{
+			long period = Math.max(1000, maxAge / 2);
+			thread.scheduleWithFixedDelay(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					CompactOld();
+				}
+			}, period, period, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Records that a game was saved whole, so it has no saved commands.
+	 * @param gameID The game.
+	 */
+	public void Saved(int gameID)
+	{
+		logs.put(gameID, new GameLog());
+	}
+
+	/**
+	 * Forgets a game's saved commands, e.g. because one failed to save. The game has to be saved
+	 * whole before any more of its commands are.
+	 * @param gameID The game.
+	 */
+	public void Forget(int gameID)
+	{
+		logs.remove(gameID);
+	}
+
+	/**
+	 * Records a command being saved for a game, compacting the game in the background if its
+	 * commands are now over a limit.
+	 * @param gameID The game.
+	 * @param bytes The size of the saved command.
+	 * @return False if the game has to be saved whole instead, because it hasn't been saved
+	 * whole since the server started or was forgotten.
+	 */
+	public boolean Append(int gameID, int bytes)
+	{
+		GameLog log = logs.get(gameID);
+		if (log == null)
+			return false;
+
+		boolean full;
+		synchronized (log)
+		{
+			if (log.commands == 0)
+				log.since = System.currentTimeMillis();
+			log.commands++;
+			log.bytes += bytes;
+
+			full = log.commands >= maxCommands || log.bytes >= maxBytes;
+		}
+
+		if (full)
+			Compact(gameID);
+
+		return true;
+	}
+
+	/**
+	 * Gets how many commands a game has saved since it was last saved whole.
+	 * @param gameID The game.
+	 * @return The number of commands, or -1 if the game hasn't been saved whole.
+	 */
+	public int GetCommands(int gameID)
+	{
+		GameLog log = logs.get(gameID);
+		if (log == null)
+			return -1;
+
+		synchronized (log)
+		{
+			return log.commands;
+		}
+	}
+
+	/**
+	 * Compacts a game in the background, unless it is already waiting to be.
+	 * @param gameID The game.
+	 */
+	public void Compact(final int gameID)
+	{
+		if (!pending.add(gameID))
+			return;
+
+		try
+		{
+			thread.execute(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					pending.remove(gameID);
+
+					try
+					{
+						snapshotter.Snapshot(gameID);
+					}
+					catch (Exception e)
+					{
+						Log.GetLog().log(Level.WARNING, "Unable to compact game " + gameID, e);
+					}
+				}
+			});
+		}
+		catch (RejectedExecutionException e)
+		{
+			//Shut down, so the game's commands are kept until it's next saved
+			pending.remove(gameID);
+		}
+	}
+
+	/**
+	 * Stops compacting. Games waiting to be compacted keep their commands.
+	 */
+	public void Shutdown()
+	{
+		thread.shutdownNow();
+	}
+
+	/**
+	 * Compacts every game whose oldest saved command has passed the age limit.
+	 */
+	private void CompactOld()
+	{
+		long cutoff = System.currentTimeMillis() - maxAge;
+
+		for (Map.Entry<Integer, GameLog> game : logs.entrySet())
+		{
+			GameLog log = game.getValue();
+			synchronized (log)
+			{
+				if (log.commands == 0 || log.since > cutoff)
+					continue;
+			}
+
+			Compact(game.getKey());
+		}
+	}
+
+	/**
+	 * The commands a game has saved since it was last saved whole.
+	 */
+	private static class GameLog
+	{
+		int commands;
+		long bytes;
+		/** When the first of the commands was saved. */
+		long since;
+	}
+}
@@ -0,0 +1,34 @@
+package server.persistence;
+
+/**
+ * When a save counts as done, which decides how long a request waits on persistence.
+ */
+public enum Durability
+{
+	/** The request waits until its saves are committed. */
+	SYNC,
+	/** The request responds as soon as its saves are queued for the writer. */
+	ENQUEUE;
+
+	public static String toString(Durability durability)
+	{
+		switch(durability)
+		{
+		case ENQUEUE: return "enqueue";
+		case SYNC:
+		default:
+			return "sync";
+		}
+	}
+
+	public static Durability fromString(String durability)
+	{
+		switch(durability.toLowerCase())
+		{
+		case "enqueue": return ENQUEUE;
+		case "sync":
+		default:
+			return SYNC;
+		}
+	}
+}
@@ -0,0 +1,142 @@
+package server.persistence;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+import server.Log;
+import server.commands.ICommand;
+import server.commands.moves.MovesCommand;
+import server.persistence.codec.Codecs;
+
+/**
+ * Replays the commands saved since each game was last saved whole.
+ * <br/>Games don't share any state, so each game's commands are replayed in order by its own
+ * task on a fork-join pool, and the games are recovered in parallel. If a game's commands
+ * can't be read or one of them fails, that game is left as it was after its last good command
+ * and the other games carry on. The next save of the failed game saves it whole, which
+ * replaces its broken commands.
+ */
+public class GameRecovery
+{
+	/** How often progress is logged, as a fraction of the games. */
+	private static final int PROGRESS_STEPS = 10;
+	
+	private final int parallelism;
+	
+	/**
+	 * Creates a recovery engine.
+	 * @param parallelism The most games replayed at once.
+	 */
+	public GameRecovery(int parallelism)
+	{
+		this.parallelism = Math.max(1, parallelism);
+	}
+	
+	/**
+	 * Replays the saved commands. The games must already be loaded.
+	 * @param commands Each game's saved commands, in order. A game mapped to null has commands
+	 * that couldn't be read.
+	 * @return What was recovered.
+	 */
+	public RecoveryReport Recover(Map<Integer, List<byte[]>> commands)
+	{
+		long start = System.nanoTime();
+		
+		final int total = commands.size();
+		final AtomicInteger done = new AtomicInteger();
+		final AtomicLong replayed = new AtomicLong();
+		final List<Integer> failed = Collections.synchronizedList(new ArrayList<Integer>());
+		final int step = Math.max(1, total / PROGRESS_STEPS);
+		
+		final List<RecursiveAction> tasks = new ArrayList<RecursiveAction>(total);
+		for (final Map.Entry<Integer, List<byte[]>> game : commands.entrySet())
+		{
+			tasks.add(new RecursiveAction()
+			{
+				private static final long serialVersionUID = 1L;
+				
+				@Override
+				protected void compute()
+				{
+					if (!Replay(game.getKey(), game.getValue(), replayed))
+						failed.add(game.getKey());
+					
+					int finished = done.incrementAndGet();
+					if (finished % step == 0 || finished == total)
+						Log.GetLog().info("Recovered " + finished + " of " + total + " games");
+				}
+			});
+		}
+		
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try
+		{
+			pool.invoke(new RecursiveAction()
+			{
+				private static final long serialVersionUID = 1L;
+				
+				@Override
+				protected void compute()
+				{
+					invokeAll(tasks);
+				}
+			});
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+		
+		List<Integer> failedGames = new ArrayList<Integer>(failed);
+		Collections.sort(failedGames);
+		
+		return new RecoveryReport(total, replayed.get(), failedGames, System.nanoTime() - start);
+	}
+	
+	/**
+	 * Replays one game's commands in order, stopping at the first that can't be replayed.
+	 * @return True if every command was replayed.
+	 */
+	private boolean Replay(int gameID, List<byte[]> blobs, AtomicLong replayed)
+	{
+		if (blobs == null)
+		{
+			Log.GetLog().severe("Commands for game " + gameID + " couldn't be read, so none were replayed");
+			return false;
+		}
+		
+		for (int i = 0; i < blobs.size(); i++)
+		{
+			try
+			{
+				ICommand command = Codecs.Decode(blobs.get(i), ICommand.class);
+				boolean executed = command instanceof MovesCommand ? ((MovesCommand)command).ExecuteOnGame() : command.Execute();
+				
+				if (!executed)
+				{
+					Log.GetLog().severe("Command " + i + " of game " + gameID + " (" + command.getClass().getSimpleName() +
+							") failed. The game's remaining " + (blobs.size() - i) + " commands were not replayed.");
+					return false;
+				}
+			}
+			catch (IOException | RuntimeException e)
+			{
+				Log.GetLog().log(Level.SEVERE, "Command " + i + " of game " + gameID + " couldn't be replayed. The game's remaining " +
+						(blobs.size() - i) + " commands were not replayed.", e);
+				return false;
+			}
+			
+			replayed.incrementAndGet();
+		}
+		
+		return true;
+	}
+}
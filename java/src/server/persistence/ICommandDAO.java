@@ -1,6 +1,7 @@
 package server.persistence;
 
 import java.util.List;
+import java.util.Map;
 
 public interface ICommandDAO 
 {
@@ -11,7 +12,14 @@ public interface ICommandDAO
 	 * @return
 	 * @throws PersistenceException
 	 */
-	void AddCommand(int gameID, String blob) throws PersistenceException;
+	void AddCommand(int gameID, byte[] blob) throws PersistenceException;
+	
+	/**
+	 * Adds a group of commands at once
+	 * @param commands The commands for each game, in the order they were executed
+	 * @throws PersistenceException
+	 */
+	void AddCommands(Map<Integer, List<byte[]>> commands) throws PersistenceException;
 	
 	/**
 	 * Deletes all commands for a specific games
@@ -23,10 +31,18 @@ public interface ICommandDAO
 	
 	/**
 	 * Gets all the saved commands
-	 * @return A list of commands as strings
+	 * @return A list of the encoded commands
+	 * @throws PersistenceException Thrown if errors occur
+	 */
+	List<byte[]> GetCommands() throws PersistenceException;
+	
+	/**
+	 * Gets all the saved commands, grouped by game
+	 * @return Each game's commands in the order they were added. A game whose commands
+	 * can't be read maps to null, so the other games can still be loaded.
 	 * @throws PersistenceException Thrown if errors occur
 	 */
-	List<String> GetCommands() throws PersistenceException;
+	Map<Integer, List<byte[]>> GetGameCommands() throws PersistenceException;
 	
 	/**
 	 * Gets the total number of commands for
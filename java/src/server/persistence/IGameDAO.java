@@ -16,7 +16,7 @@ public interface IGameDAO
 	 * @return
 	 * @throws PersistenceException
 	 */
-	void AddGame(int gameID, String blob) throws PersistenceException;
+	void AddGame(int gameID, byte[] blob) throws PersistenceException;
 	
 	/**
 	 * Updates an existing game
@@ -25,7 +25,7 @@ public interface IGameDAO
 	 * @return
 	 * @throws PersistenceException
 	 */
-	void UpdateGame(int gameID, String blob) throws PersistenceException;
+	void UpdateGame(int gameID, byte[] blob) throws PersistenceException;
 	
 	
 	/**
@@ -33,6 +33,14 @@ public interface IGameDAO
 	 * @return a map of Game ID to blobs
 	 * @throws PersistenceException
 	 */
-	List<String> GetAllGames() throws PersistenceException;
+	List<byte[]> GetAllGames() throws PersistenceException;
+	
+	/**
+	 * Returns one game
+	 * @param gameID
+	 * @return the game's blob, or null if the game isn't saved
+	 * @throws PersistenceException
+	 */
+	byte[] GetGame(int gameID) throws PersistenceException;
 	
 }
@@ -12,6 +12,13 @@ public interface IPersistenceProvider
 	 */
 	void StartTransaction() throws PersistenceException;
 	
+	/**
+	 * Starts a transaction that only reads, which may run alongside other transactions.
+	 * It's ended the same way as any other.
+	 * @throws PersistenceException
+	 */
+	void StartReadTransaction() throws PersistenceException;
+	
 	/**
 	 * Ends a transaction
 	 * @param commit 
@@ -40,5 +47,12 @@ public interface IPersistenceProvider
 	 */
 	ICommandDAO GetCommandDAO() throws PersistenceException;
 	
+	/**
+	 * Releases anything the provider holds open, such as its connection.
+	 * The provider isn't used after this.
+	 * @throws PersistenceException
+	 */
+	void Close() throws PersistenceException;
+	
 	
 }
@@ -0,0 +1,20 @@
+package server.persistence;
+
+/**
+ * Lends out persistence providers, one per transaction.
+ */
+public interface IProviderPool
+{
+	/**
+	 * Borrows a provider, waiting if they're all in use.
+	 * @return The provider. Give it back with {@link #Release} when the transaction is done.
+	 * @throws PersistenceException Thrown if no provider can be made or the pool is closed.
+	 */
+	IPersistenceProvider Acquire() throws PersistenceException;
+	
+	/**
+	 * Gives back a borrowed provider.
+	 * @param provider The provider.
+	 */
+	void Release(IPersistenceProvider provider);
+}
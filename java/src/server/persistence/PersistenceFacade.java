@@ -1,31 +1,45 @@
 package server.persistence;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
-import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
+import server.Log;
+import server.ServerConfig;
 import server.commands.ICommand;
+import server.commands.game.GameAddAICommand;
+import server.commands.game.GameCommandsCommand;
+import server.commands.games.GamesCreateCommand;
+import server.commands.moves.MovesCommand;
+import server.commands.moves.MovesRobPlayerCommand;
+import server.commands.user.UserRegisterCommand;
+import server.engine.RequestEngine;
 import server.model.*;
-import shared.networking.SerializationUtils;
+import server.persistence.codec.Codecs;
+import server.persistence.codec.ICodec;
 
 /**
  * Handles saving server data for persistence purposes.
  * @author Jonathan Sadler
  *
  */
-public class PersistenceFacade 
+public class PersistenceFacade implements IGameStore
 {
 	private static PersistenceFacade facade;
 	
+	/** The game ID used for saves that don't belong to a game. */
+	private static final int NO_GAME = -1;
+	
 	/**
-	 * Initializes the persistence setup.
+	 * Initializes the persistence setup. How saves are written is read from {@link ServerConfig}.
 	 * @param type Specifies the persistence method to use.
+	 * @param commandLength The number of commands saved for a game before it is compacted.
 	 * @throws PersistenceException Thrown if unable to load persistence method.
 	 */
 	public static void Initialize(String type, int commandLength) throws PersistenceException
@@ -47,52 +61,200 @@ public class PersistenceFacade
 	
 	private PersistenceHandler handler;
 	private int commandLength;
+	private Durability durability;
+	private ICodec codec;
+	private PersistenceWriter writer;
+	/** Tracks the commands saved (or queued) for each game since it was last saved whole. */
+	private Compactor compactor;
 	
 	private PersistenceFacade(String type, int commandLength) throws PersistenceException
 	{
-		this.handler = new PersistenceHandler(type);
+		this.handler = new PersistenceHandler(type, ServerConfig.GetInt(ServerConfig.PERSISTENCE_POOL, 4));
 		this.commandLength = commandLength;
+		this.durability = Durability.fromString(ServerConfig.GetString(ServerConfig.PERSISTENCE_DURABILITY, "sync"));
+		this.codec = Codecs.fromString(ServerConfig.GetString(ServerConfig.PERSISTENCE_CODEC, "binary"));
+		this.compactor = new Compactor(new Compactor.ISnapshotter()
+		{
+			@Override
+			public void Snapshot(int gameID) throws Exception
+			{
+				Compact(gameID);
+			}
+		}, commandLength,
+				ServerConfig.GetLong(ServerConfig.COMPACTION_BYTES, 1 << 20),
+				ServerConfig.GetLong(ServerConfig.COMPACTION_AGE, 10 * 60 * 1000));
+		
+		this.writer = new PersistenceWriter(handler,
+				ServerConfig.GetInt(ServerConfig.PERSISTENCE_QUEUE, 256),
+				ServerConfig.GetInt(ServerConfig.PERSISTENCE_BATCH, 64),
+				ServerConfig.GetLong(ServerConfig.PERSISTENCE_WINDOW, 0));
+		
+		//Don't lose queued saves or leave connections open when the server is stopped
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				Shutdown();
+			}
+		}, "persistence-shutdown"));
+	}
+	
+	/**
+	 * Gets when a save counts as done.
+	 * @return The durability.
+	 */
+	public Durability GetDurability()
+	{
+		return durability;
 	}
 	
 	/**
-	 * Adds a command to be saved.
+	 * Waits until every queued save has been written.
+	 * @throws PersistenceException Thrown if interrupted while waiting.
+	 */
+	public void Flush() throws PersistenceException
+	{
+		try
+		{
+			writer.Flush();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new PersistenceException("Interrupted while flushing saves", e);
+		}
+	}
+	
+	/**
+	 * Writes any queued saves and closes the plugin's providers. Nothing can be saved after this.
+	 */
+	public void Shutdown()
+	{
+		compactor.Shutdown();
+		
+		try
+		{
+			Flush();
+		}
+		catch (PersistenceException e)
+		{
+			e.printStackTrace();
+		}
+		
+		handler.Close();
+		Log.GetLog().info("Persistence shut down: " + handler.GetStats());
+	}
+	
+	/**
+	 * Gets how long transactions have waited for one of the plugin's providers.
+	 * @return The provider pool stats.
+	 */
+	public PoolStats GetPoolStats()
+	{
+		return handler.GetStats();
+	}
+	
+	/**
+	 * Saves a command that was just executed. Once a game has enough commands saved, or they
+	 * get too big or old, the game is saved whole in the background, which clears its commands.
 	 * @param gameID The gameID of the command.
 	 * @param command The command to be saved.
-	 * @return True if adding was successful. Else false (in this case, attempt updating the game).
-	 * @throws PersistenceException Thrown if issues occur adding the command
+	 * @throws PersistenceException Thrown if issues occur saving the command or game.
 	 */
-	public boolean AddCommand(int gameID, ICommand command) throws PersistenceException 
+	public void SaveCommand(int gameID, ICommand command) throws PersistenceException
 	{
-		IPersistenceProvider provider = handler.GetPlugin();
+		//The store may be behind the writer, so the count is kept here instead of asked for.
+		//A game with no count (e.g. one whose save failed) is saved whole to start one.
+		if (compactor.GetCommands(gameID) < 0)
+		{
+			UpdateGame(GetGame(gameID));
+			return;
+		}
 		
-		boolean success = false;
-		try
+		final byte[] data = ToBytes(command, "Error saving command");
+		
+		Submit(new PersistenceWriter.CommandJob(gameID)
 		{
-			provider.StartTransaction();
-			
-			ICommandDAO commandDAO = provider.GetCommandDAO();
+			@Override
+			public byte[] GetBlob()
+			{
+				return data;
+			}
 			
-			if (commandDAO.GetCommandCount(gameID) <= commandLength)
+			@Override
+			protected void Failed()
 			{
-				String serializedCommand = Serialize(command);
-				
-				provider.GetCommandDAO().AddCommand(gameID, serializedCommand);
-				success = true;
+				//The game's saved commands may now have a gap, so save it whole next time
+				compactor.Forget(GetGameID());
 			}
-			else
+		});
+		
+		//Counted once queued, so a snapshot this triggers is always queued after the command
+		compactor.Append(gameID, data.length);
+	}
+	
+	/**
+	 * Saves whatever an executed command changed. Moves are saved as commands, except those that
+	 * can't be replayed (robbing is random), which save the whole game instead.
+	 * @param command The command, after it executed successfully.
+	 * @throws PersistenceException Thrown if issues occur saving the command or game.
+	 */
+	public void SaveExecuted(ICommand command) throws PersistenceException
+	{
+		if (command.getClass() == UserRegisterCommand.class)
+		{
+			UserRegisterCommand user = (UserRegisterCommand)command;
+			Log.GetLog().finest("Adding User :"+user.GetPlayer());
+			AddUser(user.GetPlayer());
+		}
+		else if (command.getClass() == GamesCreateCommand.class)
+		{
+			GamesCreateCommand game = (GamesCreateCommand)command;
+			Log.GetLog().finest("Adding Game :"+game.GetGame().GetGameTitle());
+			AddGame(game.GetGame());
+		}
+		else if (command.getClass() == GameAddAICommand.class)
+		{
+			GameAddAICommand game = (GameAddAICommand)command;
+			ServerGameManager sgm = GetGame(game.GetGameID());
+			Log.GetLog().finest("Updating Game: "+sgm.GetGameID());
+			UpdateGame(sgm);
+		}
+		else if (command.getClass() == GameCommandsCommand.class)
+		{
+			//The whole batch is saved as one command, unless it can't be replayed
+			GameCommandsCommand batch = (GameCommandsCommand)command;
+			int gameID = batch.GetGameID();
+			
+			boolean replayable = true;
+			for (ICommand move : batch.GetCommands())
 			{
-				success = false;
+				if (move.getClass() == MovesRobPlayerCommand.class)
+					replayable = false;
 			}
 			
-			provider.EndTransaction(true);
+			if (!replayable)
+			{
+				ServerGameManager sgm = GetGame(gameID);
+				Log.GetLog().finest("Updating Game: "+sgm.GetGameID());
+				UpdateGame(sgm);
+			}
+			else
+				SaveCommand(gameID, command);
 		}
-		catch (PersistenceException | IOException e)
+		else if (command.getClass() == MovesRobPlayerCommand.class)
 		{
-			provider.EndTransaction(false);
-			throw new PersistenceException("Error saving command", e);
+			MovesCommand move = (MovesCommand)command;
+			ServerGameManager sgm = GetGame(move.GetGameID());
+			Log.GetLog().finest("Updating Game: "+sgm.GetGameID());
+			UpdateGame(sgm);
+		}
+		else if (MovesCommand.class.isAssignableFrom(command.getClass()))
+		{
+			MovesCommand move = (MovesCommand)command;
+			SaveCommand(move.GetGameID(), command);
 		}
-		
-		return success;
 	}
 	
 	/**
@@ -102,24 +264,17 @@ public class PersistenceFacade
 	 */
 	public void AddGame(ServerGameManager sgm) throws PersistenceException
 	{
-		IPersistenceProvider provider = handler.GetPlugin();
+		final byte[] data = ToBytes(sgm, "Error saving game");
+		compactor.Saved(sgm.GetGameID());
 		
-		try
-		{
-			provider.StartTransaction();
-			
-			int gameID = sgm.GetGameID();
-			
-			String blob = Serialize(sgm);
-			provider.GetGameDAO().AddGame(gameID, blob);
-			
-			provider.EndTransaction(true);
-		}
-		catch (PersistenceException | IOException e)
+		Submit(new GameJob(sgm.GetGameID())
 		{
-			provider.EndTransaction(false);
-			throw new PersistenceException("Error saving game", e);
-		}
+			@Override
+			public void Write(IPersistenceProvider provider) throws PersistenceException
+			{
+				provider.GetGameDAO().AddGame(GetGameID(), data);
+			}
+		});
 	}
 	
 	/**
@@ -129,41 +284,35 @@ public class PersistenceFacade
 	 */
 	public void AddUser(ServerPlayer player) throws PersistenceException
 	{
-		IPersistenceProvider provider = handler.GetPlugin();
+		final int id = player.GetID();
+		final String username = player.GetName();
+		final String password = player.GetPassword();
 		
-		try
+		Submit(new PersistenceWriter.Job(NO_GAME)
 		{
-			provider.StartTransaction();
-			
-			int id = player.GetID();
-			String username = player.GetName();
-			String password = player.GetPassword();
-			
-			provider.GetUserDAO().AddUser(id, username, password);
-			
-			provider.EndTransaction(true);
-		}
-		catch (PersistenceException e)
-		{
-			provider.EndTransaction(false);
-			throw e;
-		}
+			@Override
+			public void Write(IPersistenceProvider provider) throws PersistenceException
+			{
+				provider.GetUserDAO().AddUser(id, username, password);
+			}
+		});
 	}
 	
 	/**
-	 * Get all the commands that haven't been applied.
-	 * @return The commands for all the games.
+	 * Replays the commands that haven't been applied to the saved games. Each game's commands
+	 * are replayed in order, and the games are replayed in parallel. The games must already be loaded.
+	 * @return What was recovered.
 	 * @throws PersistenceException Thrown if issues occur getting the commands.
 	 */
-	public List<ICommand> GetAllCommands() throws PersistenceException
+	public RecoveryReport RecoverGames() throws PersistenceException
 	{
-		IPersistenceProvider provider = handler.GetPlugin();
+		IPersistenceProvider provider = handler.Acquire();
 		
-		List<String> commands;
+		Map<Integer, List<byte[]>> commands;
 		try
 		{
-			provider.StartTransaction();
-			commands = provider.GetCommandDAO().GetCommands();
+			provider.StartReadTransaction();
+			commands = provider.GetCommandDAO().GetGameCommands();
 			provider.EndTransaction(true);
 		}
 		catch (PersistenceException e)
@@ -171,22 +320,29 @@ public class PersistenceFacade
 			provider.EndTransaction(false);
 			throw e;
 		}
-			
-		List<ICommand> convertedCommands = new ArrayList<ICommand>(commands.size());
-		for (String command : commands)
+		finally
 		{
-			try
+			handler.Release(provider);
+		}
+		
+		int threads = ServerConfig.GetInt(ServerConfig.RECOVERY_THREADS, Runtime.getRuntime().availableProcessors());
+		RecoveryReport report = new GameRecovery(threads).Recover(commands);
+		
+		//Fold the replayed commands into the saved games so the next start doesn't replay them
+		for (Map.Entry<Integer, List<byte[]>> game : commands.entrySet())
+		{
+			if (game.getValue() == null || report.GetFailedGames().contains(game.getKey()))
 			{
-				ICommand convertedCommand = Deserialize(command, ICommand.class);
-				convertedCommands.add(convertedCommand);
+				compactor.Forget(game.getKey());
 			}
-			catch (IOException | ClassNotFoundException e)
+			else if (!game.getValue().isEmpty())
 			{
-				e.printStackTrace();
+				compactor.Saved(game.getKey());
+				compactor.Compact(game.getKey());
 			}
 		}
 		
-		return convertedCommands;
+		return report;
 	}
 	
 	/**
@@ -196,12 +352,12 @@ public class PersistenceFacade
 	 */
 	public List<ServerGameManager> GetAllGames() throws PersistenceException
 	{
-		IPersistenceProvider provider = handler.GetPlugin();
+		IPersistenceProvider provider = handler.Acquire();
 		
-		List<String> games;
+		List<byte[]> games;
 		try
 		{
-			provider.StartTransaction();
+			provider.StartReadTransaction();
 			games = provider.GetGameDAO().GetAllGames(); 
 			provider.EndTransaction(true);
 		}
@@ -210,14 +366,19 @@ public class PersistenceFacade
 			provider.EndTransaction(false);
 			throw e;
 		}
+		finally
+		{
+			handler.Release(provider);
+		}
 		
 		List<ServerGameManager> convertedGames = new ArrayList<ServerGameManager>(games.size());
-		for (String game : games)
+		for (byte[] game : games)
 		{
 			try
 			{
-				ServerGameManager convertedGame = Deserialize(game, RealServerGameManager.class);
+				ServerGameManager convertedGame = Codecs.Decode(game, RealServerGameManager.class);
 				convertedGames.add(convertedGame);
+				compactor.Saved(convertedGame.GetGameID());
 			}
 			catch (Exception e)
 			{
@@ -235,11 +396,11 @@ public class PersistenceFacade
 	 */
 	public List<ServerPlayer> GetAllUsers() throws PersistenceException
 	{
-		IPersistenceProvider provider = handler.GetPlugin();
+		IPersistenceProvider provider = handler.Acquire();
 		
 		try
 		{
-			provider.StartTransaction();
+			provider.StartReadTransaction();
 			
 			List<ServerPlayer> players = provider.GetUserDAO().GetAllUsers();
 			
@@ -252,6 +413,10 @@ public class PersistenceFacade
 			provider.EndTransaction(false);
 			throw e;
 		}
+		finally
+		{
+			handler.Release(provider);
+		}
 	}
 	
 	/**
@@ -261,52 +426,208 @@ public class PersistenceFacade
 	 */
 	public void UpdateGame(ServerGameManager sgm) throws PersistenceException
 	{
-		IPersistenceProvider provider = handler.GetPlugin();
-		
+		UpdateGame(sgm, durability == Durability.SYNC);
+	}
+	
+	/**
+	 * Loads a saved game, e.g. one that was hibernated.
+	 * @param gameID The ID of the game.
+	 * @return The game as it was last saved whole.
+	 * @throws GameException Thrown if the game isn't saved or can't be read.
+	 */
+	@Override
+	public ServerGameManager LoadGame(int gameID) throws GameException
+	{
 		try
 		{
-			provider.StartTransaction();
+			IPersistenceProvider provider = handler.Acquire();
 			
-			int gameID = sgm.GetGameID();
-			provider.GetCommandDAO().DeleteCommands(gameID);
+			byte[] game;
+			try
+			{
+				provider.StartReadTransaction();
+				game = provider.GetGameDAO().GetGame(gameID);
+				provider.EndTransaction(true);
+			}
+			catch (PersistenceException e)
+			{
+				provider.EndTransaction(false);
+				throw e;
+			}
+			finally
+			{
+				handler.Release(provider);
+			}
 			
-			String blob = Serialize(sgm);
-			provider.GetGameDAO().UpdateGame(gameID, blob);
+			if (game == null)
+				throw new GameException("Game " + gameID + " isn't saved");
 			
-			provider.EndTransaction(true);
+			return Codecs.Decode(game, RealServerGameManager.class);
+		}
+		catch (PersistenceException | IOException e)
+		{
+			throw new GameException("Unable to load game " + gameID + ": " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Saves a game whole so it can be hibernated, waiting for it to be written whatever the durability.
+	 * @param sgm The game to save.
+	 * @throws GameException Thrown if the game can't be saved.
+	 */
+	@Override
+	public void StoreGame(ServerGameManager sgm) throws GameException
+	{
+		try
+		{
+			UpdateGame(sgm, true);
 		}
 		catch (PersistenceException e)
 		{
-			provider.EndTransaction(false);
-			throw e;
-		} 
-		catch (IOException e) 
+			throw new GameException("Unable to save game " + sgm.GetGameID() + ": " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Saves a game whole on its request queue, so it can't change while it's being captured and
+	 * any command saved after it is queued behind the save rather than deleted by it. A move is
+	 * made and saved as one task, so the save never falls between a move and its command, even
+	 * in the dispatcher mode where the task runs on the compactor's thread.
+	 */
+	private void Compact(final int gameID) throws Exception
+	{
+		RequestEngine.GetEngine().Call(gameID, new Callable<Void>()
 		{
-			// TODO Auto-generated catch block
-			provider.EndTransaction(false);
-			throw new PersistenceException("Unable to serialize");
+			@Override
+			public Void call() throws PersistenceException
+			{
+				UpdateGame(GetGame(gameID), false);
+				return null;
+			}
+		});
+	}
+	
+	private void UpdateGame(ServerGameManager sgm, boolean wait) throws PersistenceException
+	{
+		final byte[] data = ToBytes(sgm, "Unable to serialize");
+		compactor.Saved(sgm.GetGameID());
 		
+		Submit(new GameJob(sgm.GetGameID())
+		{
+			@Override
+			public void Write(IPersistenceProvider provider) throws PersistenceException
+			{
+				provider.GetCommandDAO().DeleteCommands(GetGameID());
+				provider.GetGameDAO().UpdateGame(GetGameID(), data);
+			}
+		}, wait);
+	}
+	
+	/**
+	 * Hands a save to the writer, waiting for it to be written unless saves are only queued.
+	 */
+	private void Submit(PersistenceWriter.Job job) throws PersistenceException
+	{
+		Submit(job, durability == Durability.SYNC);
+	}
+	
+	private void Submit(PersistenceWriter.Job job, boolean wait) throws PersistenceException
+	{
+		try
+		{
+			Future<Void> written = writer.Enqueue(job);
+			
+			if (wait)
+				written.get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new PersistenceException("Interrupted while saving", e);
+		}
+		catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof PersistenceException)
+				throw (PersistenceException)e.getCause();
+			throw new PersistenceException("Error saving", e.getCause());
 		}
 	}
 	
-	private String Serialize(Object object) throws IOException
+	/**
+	 * A save of a whole game.
+	 */
+	private abstract class GameJob extends PersistenceWriter.Job
 	{
-		ByteArrayOutputStream baoStream = new ByteArrayOutputStream();
-		ObjectOutputStream ooStream = new ObjectOutputStream(baoStream);
-		ooStream.writeObject(object);
-		ooStream.close();
+		public GameJob(int gameID)
+		{
+			super(gameID);
+		}
 		
-		return Base64.getEncoder().encodeToString(baoStream.toByteArray());
+		@Override
+		protected void Failed()
+		{
+			//Commands saved after this would be replayed against an old game, so try again next time
+			compactor.Forget(GetGameID());
+		}
 	}
 	
-	@SuppressWarnings("unchecked")
-	private <T extends Serializable> T Deserialize(String object, java.lang.Class<T> objClass) throws IOException, ClassNotFoundException
+	private ServerGameManager GetGame(int gameID) throws PersistenceException
 	{
-		byte[] data = Base64.getDecoder().decode(object); 
-		ByteArrayInputStream baiStream = new ByteArrayInputStream(data);
-		ObjectInputStream oiStream = new ObjectInputStream(baiStream);
-		oiStream.close();
-		
-		 return (T)oiStream.readObject();
+		try
+		{
+			return GameArcade.games().GetGame(gameID);
+		}
+		catch (GameException e)
+		{
+			throw new PersistenceException("Unable to find game " + gameID, e);
+		}
+	}
+	
+	/**
+	 * Encodes a game under its lock, so the save never holds a change half made.
+	 */
+	private byte[] ToBytes(ServerGameManager sgm, String error) throws PersistenceException
+	{
+		try
+		{
+			return sgm.Read(new IGameReader<byte[]>()
+			{
+				@Override
+				public byte[] Read(ServerGameManager game)
+				{
+					try
+					{
+						return codec.Encode(game);
+					}
+					catch (IOException e)
+					{
+						throw new UncheckedIOException(e);
+					}
+				}
+			});
+		}
+		catch (UncheckedIOException e)
+		{
+			throw new PersistenceException(error, e.getCause());
+		}
+		catch (RuntimeException e)
+		{
+			throw new PersistenceException(error, e);
+		}
+	}
+	
+	/**
+	 * Encodes an object on the caller's thread, so the save holds the object as it is now.
+	 */
+	private byte[] ToBytes(Serializable object, String error) throws PersistenceException
+	{
+		try
+		{
+			return codec.Encode(object);
+		}
+		catch (IOException | RuntimeException e)
+		{
+			throw new PersistenceException(error, e);
+		}
 	}
-}
+}
\ No newline at end of file
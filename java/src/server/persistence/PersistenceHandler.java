@@ -5,6 +5,9 @@ import java.io.FileInputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.jar.JarEntry;
 import java.util.jar.JarInputStream;
 
@@ -12,16 +15,31 @@ import server.Log;
 
 /**
  * This class is used to load the plugin. Like a registry
+ * <br/>Providers are made once and then lent out again, so a plugin's connections are kept
+ * open and reused instead of being opened for every transaction.
  * @author matthewcarlson
  *
  */
-class PersistenceHandler
+class PersistenceHandler implements IProviderPool
 {
 	private String DAOType;
 	private Class<IPersistenceProvider> provider = null;
+	
+	private int poolSize;
+	private int created;
+	private boolean closed;
+	private final BlockingQueue<IPersistenceProvider> idle;
+	
+	private final AtomicLong acquires = new AtomicLong();
+	private final AtomicLong waits = new AtomicLong();
+	private final AtomicLong totalWaitNanos = new AtomicLong();
+	private final AtomicLong maxWaitNanos = new AtomicLong();
 
-	PersistenceHandler(String type) throws PersistenceException
+	PersistenceHandler(String type, int poolSize) throws PersistenceException
 	{
+		this.poolSize = Math.max(1, poolSize);
+		this.idle = new LinkedBlockingQueue<IPersistenceProvider>();
+		
 		DAOType = type.toLowerCase().trim();
 		if (DAOType != null && DAOType.length() >= 3)
 		{
@@ -34,15 +52,103 @@ class PersistenceHandler
 	}
 	
 	/**
-	 * Returns the plugin
+	 * Borrows a provider, making a new one if none are free and the pool isn't full yet
 	 * @return
 	 * @throws PersistenceException 
 	 */
-	IPersistenceProvider GetPlugin() throws PersistenceException
+	@Override
+	public IPersistenceProvider Acquire() throws PersistenceException
 	{
 		if (provider == null)
 			throw new PersistenceException("No plugin");
 		
+		acquires.incrementAndGet();
+		
+		IPersistenceProvider plugin = idle.poll();
+		if (plugin != null)
+			return plugin;
+		
+		synchronized (this)
+		{
+			if (closed)
+				throw new PersistenceException("Persistence is shut down");
+			
+			if (created < poolSize)
+			{
+				plugin = NewInstance();
+				created++;
+				return plugin;
+			}
+		}
+		
+		//Every provider is in use, so wait for one to come back
+		long start = System.nanoTime();
+		try
+		{
+			plugin = idle.take();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new PersistenceException("Interrupted while waiting for the plugin", e);
+		}
+		
+		long waited = System.nanoTime() - start;
+		waits.incrementAndGet();
+		totalWaitNanos.addAndGet(waited);
+		
+		long max = maxWaitNanos.get();
+		while (waited > max && !maxWaitNanos.compareAndSet(max, waited))
+			max = maxWaitNanos.get();
+		
+		return plugin;
+	}
+	
+	/**
+	 * Gives back a borrowed provider
+	 * @param plugin
+	 */
+	@Override
+	public void Release(IPersistenceProvider plugin)
+	{
+		synchronized (this)
+		{
+			if (!closed)
+			{
+				idle.add(plugin);
+				return;
+			}
+		}
+		
+		Close(plugin);
+	}
+	
+	/**
+	 * Closes the idle providers. Providers still in use are closed when they're given back.
+	 */
+	void Close()
+	{
+		synchronized (this)
+		{
+			closed = true;
+		}
+		
+		IPersistenceProvider plugin;
+		while ((plugin = idle.poll()) != null)
+			Close(plugin);
+	}
+	
+	/**
+	 * Gets how long transactions have waited for a provider
+	 * @return
+	 */
+	synchronized PoolStats GetStats()
+	{
+		return new PoolStats(created, acquires.get(), waits.get(), totalWaitNanos.get(), maxWaitNanos.get());
+	}
+	
+	private IPersistenceProvider NewInstance() throws PersistenceException
+	{
 		try 
 		{
 			return provider.newInstance();
@@ -52,7 +158,18 @@ class PersistenceHandler
 			e.printStackTrace();
 			throw new PersistenceException("Plugin was unable to create instance");
 		}
-		
+	}
+	
+	private void Close(IPersistenceProvider plugin)
+	{
+		try
+		{
+			plugin.Close();
+		}
+		catch (PersistenceException e)
+		{
+			e.printStackTrace();
+		}
 	}
 	
 	/**
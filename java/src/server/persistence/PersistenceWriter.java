@@ -0,0 +1,384 @@
+package server.persistence;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import server.Log;
+
+/**
+ * Writes saves on a background thread so requests don't wait on the disk.
+ * <br/>Saves are written in the order they were queued, so the saves for a game always
+ * land in order. Saves that are waiting together are written as a group in a single
+ * transaction (a group commit), with all of the group's commands added in one call.
+ * <br/>Each game may only have a limited number of saves waiting; once it's full, queuing
+ * another blocks until the writer catches up with that game.
+ * <br/>Once a save for a game fails, its saved commands have a gap, so the game's later
+ * commands fail too until the whole game is saved again.
+ */
+public class PersistenceWriter
+{
+	/**
+	 * A single save.
+	 */
+	public static abstract class Job
+	{
+		private final int gameID;
+		
+		protected Job(int gameID)
+		{
+			this.gameID = gameID;
+		}
+		
+		/**
+		 * Gets the game the save belongs to.
+		 * @return The game ID.
+		 */
+		public int GetGameID()
+		{
+			return gameID;
+		}
+		
+		/**
+		 * Writes the save. A transaction has already been started on the provider.
+		 * @param provider The provider to write with.
+		 * @throws PersistenceException Thrown if the save fails.
+		 */
+		public abstract void Write(IPersistenceProvider provider) throws PersistenceException;
+		
+		/**
+		 * Called when the save couldn't be written.
+		 */
+		protected void Failed()
+		{
+		}
+	}
+	
+	/**
+	 * A save that adds a command. Commands in the same group are added together.
+	 */
+	public static abstract class CommandJob extends Job
+	{
+		protected CommandJob(int gameID)
+		{
+			super(gameID);
+		}
+		
+		/**
+		 * Gets the command to add.
+		 * @return The serialized command.
+		 */
+		public abstract byte[] GetBlob();
+		
+		@Override
+		public void Write(IPersistenceProvider provider) throws PersistenceException
+		{
+			provider.GetCommandDAO().AddCommand(GetGameID(), GetBlob());
+		}
+	}
+	
+	private final IProviderPool providers;
+	private final BlockingQueue<Entry> queue;
+	private final ConcurrentHashMap<Integer, Semaphore> slots;
+	/** Games with a failed save that haven't been saved whole since. Only used by the writer's thread. */
+	private final Set<Integer> gaps;
+	private final int capacity;
+	private final int batchSize;
+	private final long window;
+	private final Thread thread;
+	
+	/**
+	 * Creates a writer and starts its thread.
+	 * @param providers Where to borrow providers from.
+	 * @param capacity The most saves a single game may have waiting.
+	 * @param batchSize The most saves written in one transaction.
+	 * @param window How long to wait for more saves to join a group, in milliseconds.
+	 */
+	public PersistenceWriter(IProviderPool providers, int capacity, int batchSize, long window)
+	{
+		this.providers = providers;
+		this.queue = new LinkedBlockingQueue<Entry>();
+		this.slots = new ConcurrentHashMap<Integer, Semaphore>();
+		this.gaps = new HashSet<Integer>();
+		this.capacity = Math.max(1, capacity);
+		this.batchSize = Math.max(1, batchSize);
+		this.window = Math.max(0, window);
+		
+		this.thread = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				Drain();
+			}
+		}, "persistence-writer");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+	
+	/**
+	 * Queues a save, blocking while its game already has as many saves waiting as it's allowed.
+	 * @param job The save.
+	 * @return Completes once the save is written, or with the exception it failed with.
+	 * @throws InterruptedException Thrown if interrupted while waiting for room.
+	 */
+	public Future<Void> Enqueue(Job job) throws InterruptedException
+	{
+		Semaphore free = slots.get(job.GetGameID());
+		if (free == null)
+		{
+			slots.putIfAbsent(job.GetGameID(), new Semaphore(capacity));
+			free = slots.get(job.GetGameID());
+		}
+		
+		free.acquire();
+		
+		Entry entry = new Entry(job, free);
+		queue.add(entry);
+		return entry.written;
+	}
+	
+	/**
+	 * Waits until every save queued before this call has been written.
+	 * @throws InterruptedException Thrown if interrupted while waiting.
+	 */
+	public void Flush() throws InterruptedException
+	{
+		Entry marker = new Entry(null, null);
+		queue.add(marker);
+		
+		//The marker doesn't write anything, so it can't fail
+		marker.written.join();
+	}
+	
+	/**
+	 * Gets the number of saves waiting to be written.
+	 * @return The number of saves.
+	 */
+	public int GetPending()
+	{
+		return queue.size();
+	}
+	
+	private void Drain()
+	{
+		while (true)
+		{
+			try
+			{
+				List<Entry> group = new ArrayList<Entry>();
+				group.add(queue.take());
+				
+				long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(window);
+				while (group.size() < batchSize)
+				{
+					long remaining = deadline - System.nanoTime();
+					Entry next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+					
+					if (next == null)
+						break;
+					group.add(next);
+				}
+				
+				Commit(group);
+			}
+			catch (InterruptedException e)
+			{
+				return;
+			}
+		}
+	}
+	
+	private void Commit(List<Entry> group)
+	{
+		group = SkipGaps(group);
+		
+		try
+		{
+			Write(group);
+			
+			for (Entry entry : group)
+			{
+				//Saved whole, so its commands can be saved again
+				if (entry.job != null && !(entry.job instanceof CommandJob))
+					gaps.remove(entry.job.GetGameID());
+				entry.Written();
+			}
+		}
+		catch (PersistenceException e)
+		{
+			if (group.size() == 1)
+			{
+				Entry entry = group.get(0);
+				if (entry.job != null)
+					gaps.add(entry.job.GetGameID());
+				entry.Failed(e);
+				return;
+			}
+			
+			//Don't let one bad save lose the rest of its group
+			Log.GetLog().warning("Group commit failed, writing saves one at a time");
+			for (Entry entry : group)
+			{
+				List<Entry> single = new ArrayList<Entry>(1);
+				single.add(entry);
+				Commit(single);
+			}
+		}
+	}
+	
+	/**
+	 * Fails the commands of games whose saved commands have a gap, unless the game is saved
+	 * whole before them in the group.
+	 * @return The rest of the group, to be written.
+	 */
+	private List<Entry> SkipGaps(List<Entry> group)
+	{
+		if (gaps.isEmpty())
+			return group;
+		
+		Set<Integer> open = new HashSet<Integer>(gaps);
+		List<Entry> rest = new ArrayList<Entry>(group.size());
+		for (Entry entry : group)
+		{
+			Job job = entry.job;
+			
+			if (job instanceof CommandJob && open.contains(job.GetGameID()))
+			{
+				entry.Failed(new PersistenceException("An earlier save for game " + job.GetGameID() + " failed"));
+				continue;
+			}
+			
+			if (job != null && !(job instanceof CommandJob))
+				open.remove(job.GetGameID());
+			rest.add(entry);
+		}
+		
+		return rest;
+	}
+	
+	private void Write(List<Entry> group) throws PersistenceException
+	{
+		boolean empty = true;
+		for (Entry entry : group)
+		{
+			if (entry.job != null)
+				empty = false;
+		}
+		
+		//Only flush markers, so there's nothing to commit
+		if (empty)
+			return;
+		
+		IPersistenceProvider provider = providers.Acquire();
+		
+		try
+		{
+			provider.StartTransaction();
+			
+			Map<Integer, List<byte[]>> commands = new LinkedHashMap<Integer, List<byte[]>>();
+			for (Entry entry : group)
+			{
+				Job job = entry.job;
+				
+				if (job == null)
+					continue;
+				
+				if (job instanceof CommandJob)
+				{
+					List<byte[]> blobs = commands.get(job.GetGameID());
+					if (blobs == null)
+					{
+						blobs = new ArrayList<byte[]>();
+						commands.put(job.GetGameID(), blobs);
+					}
+					blobs.add(((CommandJob)job).GetBlob());
+				}
+				else
+				{
+					//Commands queued before this save have to be written before it
+					WriteCommands(provider, commands);
+					job.Write(provider);
+				}
+			}
+			WriteCommands(provider, commands);
+			
+			provider.EndTransaction(true);
+		}
+		catch (PersistenceException e)
+		{
+			provider.EndTransaction(false);
+			throw e;
+		}
+		catch (RuntimeException e)
+		{
+			//Always end the transaction, or the provider would be returned still holding it
+			provider.EndTransaction(false);
+			throw new PersistenceException("Unexpected error saving", e);
+		}
+		finally
+		{
+			providers.Release(provider);
+		}
+	}
+	
+	private void WriteCommands(IPersistenceProvider provider, Map<Integer, List<byte[]>> commands) throws PersistenceException
+	{
+		if (commands.isEmpty())
+			return;
+		
+		provider.GetCommandDAO().AddCommands(commands);
+		commands.clear();
+	}
+	
+	/**
+	 * A queued save. Frees its game's slot once it's done, whether or not it worked.
+	 */
+	private static class Entry
+	{
+		private final Job job;
+		private final Semaphore slot;
+		private final CompletableFuture<Void> written;
+		
+		public Entry(Job job, Semaphore slot)
+		{
+			this.job = job;
+			this.slot = slot;
+			this.written = new CompletableFuture<Void>();
+		}
+		
+		public void Written()
+		{
+			Release();
+			written.complete(null);
+		}
+		
+		public void Failed(PersistenceException e)
+		{
+			Log.GetLog().log(Level.SEVERE, "Background save failed", e);
+			
+			if (job != null)
+				job.Failed();
+			
+			Release();
+			written.completeExceptionally(e);
+		}
+		
+		private void Release()
+		{
+			if (slot != null)
+				slot.release();
+		}
+	}
+}
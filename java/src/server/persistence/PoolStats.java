@@ -0,0 +1,69 @@
+package server.persistence;
+
+/**
+ * How long transactions have waited for a persistence provider.
+ */
+public class PoolStats
+{
+	private final int size;
+	private final long acquires;
+	private final long waits;
+	private final long totalWaitNanos;
+	private final long maxWaitNanos;
+	
+	public PoolStats(int size, long acquires, long waits, long totalWaitNanos, long maxWaitNanos)
+	{
+		this.size = size;
+		this.acquires = acquires;
+		this.waits = waits;
+		this.totalWaitNanos = totalWaitNanos;
+		this.maxWaitNanos = maxWaitNanos;
+	}
+	
+	/**
+	 * @return The number of providers the pool has made.
+	 */
+	public int GetSize()
+	{
+		return size;
+	}
+	
+	/**
+	 * @return The number of times a provider was borrowed.
+	 */
+	public long GetAcquires()
+	{
+		return acquires;
+	}
+	
+	/**
+	 * @return The number of times every provider was in use, so the borrower had to wait.
+	 */
+	public long GetWaits()
+	{
+		return waits;
+	}
+	
+	/**
+	 * @return The total time spent waiting for a provider, in milliseconds.
+	 */
+	public double GetTotalWaitMillis()
+	{
+		return totalWaitNanos / 1e6;
+	}
+	
+	/**
+	 * @return The longest single wait for a provider, in milliseconds.
+	 */
+	public double GetMaxWaitMillis()
+	{
+		return maxWaitNanos / 1e6;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return String.format("providers=%d acquires=%d waits=%d totalWait=%.1fms maxWait=%.1fms",
+				size, acquires, waits, GetTotalWaitMillis(), GetMaxWaitMillis());
+	}
+}
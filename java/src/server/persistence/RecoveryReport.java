@@ -0,0 +1,61 @@
+package server.persistence;
+
+import java.util.List;
+
+/**
+ * What happened when the saved games were recovered on startup.
+ */
+public class RecoveryReport
+{
+	private final int games;
+	private final long commands;
+	private final List<Integer> failedGames;
+	private final long elapsedNanos;
+	
+	public RecoveryReport(int games, long commands, List<Integer> failedGames, long elapsedNanos)
+	{
+		this.games = games;
+		this.commands = commands;
+		this.failedGames = failedGames;
+		this.elapsedNanos = elapsedNanos;
+	}
+	
+	/**
+	 * @return The number of games that had saved commands.
+	 */
+	public int GetGames()
+	{
+		return games;
+	}
+	
+	/**
+	 * @return The number of saved commands that were replayed.
+	 */
+	public long GetCommands()
+	{
+		return commands;
+	}
+	
+	/**
+	 * @return The games whose commands couldn't all be replayed, in ID order.
+	 */
+	public List<Integer> GetFailedGames()
+	{
+		return failedGames;
+	}
+	
+	/**
+	 * @return How long recovery took, in milliseconds.
+	 */
+	public double GetElapsedMillis()
+	{
+		return elapsedNanos / 1e6;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return String.format("games=%d commands=%d failed=%s elapsed=%.1fms",
+				games, commands, failedGames, GetElapsedMillis());
+	}
+}
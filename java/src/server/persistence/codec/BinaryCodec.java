@@ -0,0 +1,141 @@
+package server.persistence.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Serializable;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializationContext;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
+
+import server.commands.ICommand;
+import shared.networking.ModelAdapterFactory;
+
+/**
+ * Stores objects in a compact, versioned binary form.
+ * <br/>The data starts with a marker, the schema version and the object's class. The object's
+ * fields follow, mapped by name (the same mapping the client API uses) and deflated. Because
+ * fields are matched by name, saves survive classes changing their serialVersionUID, and the
+ * schema version leaves room to migrate saves when fields are renamed.
+ */
+public class BinaryCodec implements ICodec
+{
+	/** Marks data written by this codec. */
+	private static final byte[] MAGIC = { (byte)0xCA, (byte)0x7A };
+	/** The current schema version. */
+	public static final int SCHEMA_VERSION = 1;
+	
+	private final Gson gson;
+	
+	public BinaryCodec()
+	{
+		gson = new GsonBuilder()
+				.enableComplexMapKeySerialization()
+				.registerTypeAdapter(ICommand.class, new CommandAdapter())
+				.registerTypeAdapterFactory(new ModelAdapterFactory())
+				.create();
+	}
+	
+	@Override
+	public boolean CanDecode(byte[] data)
+	{
+		return data.length > MAGIC.length && data[0] == MAGIC[0] && data[1] == MAGIC[1];
+	}
+	
+	@Override
+	public byte[] Encode(Serializable object) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		
+		DataOutputStream header = new DataOutputStream(bytes);
+		header.write(MAGIC);
+		header.writeByte(SCHEMA_VERSION);
+		header.writeUTF(object.getClass().getName());
+		header.flush();
+		
+		Writer body = new OutputStreamWriter(new DeflaterOutputStream(bytes), StandardCharsets.UTF_8);
+		gson.toJson(object, object.getClass(), body);
+		body.close();
+		
+		return bytes.toByteArray();
+	}
+	
+	@Override
+	public <T extends Serializable> T Decode(byte[] data, Class<T> type) throws IOException
+	{
+		if (!CanDecode(data))
+			throw new IOException("Not binary codec data");
+		
+		DataInputStream header = new DataInputStream(new ByteArrayInputStream(data, MAGIC.length, data.length - MAGIC.length));
+		
+		int version = header.readUnsignedByte();
+		if (version > SCHEMA_VERSION)
+			throw new IOException("Saved with schema version " + version + ", which is newer than this server");
+		
+		String className = header.readUTF();
+		
+		try
+		{
+			Class<?> objClass = Class.forName(className);
+			if (!type.isAssignableFrom(objClass))
+				throw new IOException("Expected a " + type.getSimpleName() + " but found " + className);
+			
+			InputStreamReader body = new InputStreamReader(new InflaterInputStream(header), StandardCharsets.UTF_8);
+			Object object = gson.fromJson(body, objClass);
+			body.close();
+			
+			return type.cast(object);
+		}
+		catch (ClassNotFoundException | JsonParseException e)
+		{
+			throw new IOException("Unable to read a " + className, e);
+		}
+	}
+	
+	/**
+	 * Records the concrete class of commands held by other commands (e.g. a batch of moves).
+	 */
+	private static class CommandAdapter implements JsonSerializer<ICommand>, JsonDeserializer<ICommand>
+	{
+		@Override
+		public JsonElement serialize(ICommand command, Type type, JsonSerializationContext context)
+		{
+			JsonObject json = new JsonObject();
+			json.addProperty("class", command.getClass().getName());
+			json.add("data", context.serialize(command, command.getClass()));
+			return json;
+		}
+		
+		@Override
+		public ICommand deserialize(JsonElement json, Type type, JsonDeserializationContext context) throws JsonParseException
+		{
+			JsonObject object = json.getAsJsonObject();
+			
+			try
+			{
+				Class<?> commandClass = Class.forName(object.get("class").getAsString());
+				return context.deserialize(object.get("data"), commandClass);
+			}
+			catch (ClassNotFoundException e)
+			{
+				throw new JsonParseException(e);
+			}
+		}
+	}
+}
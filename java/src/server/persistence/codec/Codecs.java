@@ -0,0 +1,48 @@
+package server.persistence.codec;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+/**
+ * The codecs saves can be written with. Saves are always read with whichever codec wrote
+ * them, so the codec can be changed without losing older saves.
+ */
+public class Codecs
+{
+	private static final ICodec[] codecs = { new BinaryCodec(), new JavaCodec(), new LegacyCodec() };
+	
+	/**
+	 * Gets a codec by name.
+	 * @param name binary, java or legacy (Base64 Java serialization).
+	 * @return The codec, or the binary codec if the name isn't known.
+	 */
+	public static ICodec fromString(String name)
+	{
+		switch(name.toLowerCase())
+		{
+		case "java": return codecs[1];
+		case "legacy": return codecs[2];
+		case "binary":
+		default:
+			return codecs[0];
+		}
+	}
+	
+	/**
+	 * Decodes a save with the codec that wrote it.
+	 * @param data The save.
+	 * @param type The type the save is expected to be.
+	 * @return The saved object.
+	 * @throws IOException Thrown if no codec recognizes the data, or it can't be decoded.
+	 */
+	public static <T extends Serializable> T Decode(byte[] data, Class<T> type) throws IOException
+	{
+		for (ICodec codec : codecs)
+		{
+			if (codec.CanDecode(data))
+				return codec.Decode(data, type);
+		}
+		
+		throw new IOException("Saved data is in an unknown format");
+	}
+}
@@ -0,0 +1,34 @@
+package server.persistence.codec;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+/**
+ * Turns saved objects (games and commands) into the bytes that are stored, and back.
+ */
+public interface ICodec
+{
+	/**
+	 * Checks whether data was written by this codec.
+	 * @param data The stored data.
+	 * @return True if this codec can decode it.
+	 */
+	boolean CanDecode(byte[] data);
+	
+	/**
+	 * Encodes an object.
+	 * @param object The object to encode.
+	 * @return The encoded object.
+	 * @throws IOException Thrown if the object can't be encoded.
+	 */
+	byte[] Encode(Serializable object) throws IOException;
+	
+	/**
+	 * Decodes an object.
+	 * @param data The encoded object.
+	 * @param type The type the object is expected to be.
+	 * @return The decoded object.
+	 * @throws IOException Thrown if the data can't be decoded or isn't of the expected type.
+	 */
+	<T extends Serializable> T Decode(byte[] data, Class<T> type) throws IOException;
+}
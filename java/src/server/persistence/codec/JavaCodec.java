@@ -0,0 +1,51 @@
+package server.persistence.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+/**
+ * Stores objects with Java serialization.
+ */
+public class JavaCodec implements ICodec
+{
+	@Override
+	public boolean CanDecode(byte[] data)
+	{
+		//Every serialization stream starts with this
+		return data.length >= 2 && data[0] == (byte)0xAC && data[1] == (byte)0xED;
+	}
+	
+	@Override
+	public byte[] Encode(Serializable object) throws IOException
+	{
+		ByteArrayOutputStream baoStream = new ByteArrayOutputStream();
+		ObjectOutputStream ooStream = new ObjectOutputStream(baoStream);
+		ooStream.writeObject(object);
+		ooStream.close();
+		
+		return baoStream.toByteArray();
+	}
+	
+	@Override
+	public <T extends Serializable> T Decode(byte[] data, Class<T> type) throws IOException
+	{
+		ObjectInputStream oiStream = new ObjectInputStream(new ByteArrayInputStream(data));
+		
+		try
+		{
+			return type.cast(oiStream.readObject());
+		}
+		catch (ClassNotFoundException | ClassCastException e)
+		{
+			throw new IOException("Unable to read a " + type.getSimpleName(), e);
+		}
+		finally
+		{
+			oiStream.close();
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package server.persistence.codec;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Stores objects the way older servers did: Java serialization written out as Base64 text.
+ * Kept so that their saves can still be read.
+ */
+public class LegacyCodec implements ICodec
+{
+	private JavaCodec java = new JavaCodec();
+	
+	@Override
+	public boolean CanDecode(byte[] data)
+	{
+		//The start of a serialization stream, in Base64
+		return data.length >= 3 && data[0] == 'r' && data[1] == 'O' && data[2] == '0';
+	}
+	
+	@Override
+	public byte[] Encode(Serializable object) throws IOException
+	{
+		return Base64.getEncoder().encode(java.Encode(object));
+	}
+	
+	@Override
+	public <T extends Serializable> T Decode(byte[] data, Class<T> type) throws IOException
+	{
+		String text = new String(data, StandardCharsets.US_ASCII).trim();
+		
+		try
+		{
+			return java.Decode(Base64.getDecoder().decode(text), type);
+		}
+		catch (IllegalArgumentException e)
+		{
+			throw new IOException("Saved data isn't valid Base64", e);
+		}
+	}
+}
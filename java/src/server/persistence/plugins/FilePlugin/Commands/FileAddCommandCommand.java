@@ -3,6 +3,9 @@
  */
 package server.persistence.plugins.FilePlugin.Commands;
 
+import java.util.Collection;
+import java.util.Collections;
+
 import server.persistence.ICommandDAO;
 import server.persistence.PersistenceException;
 
@@ -14,9 +17,9 @@ public class FileAddCommandCommand implements IFileCommand
 {
 	private ICommandDAO commandDAO;
 	private int gameID;
-	private String command;
+	private byte[] command;
 
-	public FileAddCommandCommand(ICommandDAO commandDAO, int gameID, String command)
+	public FileAddCommandCommand(ICommandDAO commandDAO, int gameID, byte[] command)
 	{
 		this.commandDAO = commandDAO;
 		this.gameID = gameID;
@@ -31,4 +34,11 @@ public class FileAddCommandCommand implements IFileCommand
 	{
 			commandDAO.AddCommand(gameID, command);
 	}
+
+	@Override
+	public Collection<Integer> getGameIDs()
+	{
+		return Collections.singleton(gameID);
+	}
+
 }
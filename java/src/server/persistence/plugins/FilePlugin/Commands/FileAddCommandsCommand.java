@@ -0,0 +1,42 @@
+/**
+ * 
+ */
+package server.persistence.plugins.FilePlugin.Commands;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import server.persistence.ICommandDAO;
+import server.persistence.PersistenceException;
+
+/**
+ * Adds a group of commands, so each game's log is only synced once.
+ */
+public class FileAddCommandsCommand implements IFileCommand
+{
+	private ICommandDAO commandDAO;
+	private Map<Integer, List<byte[]>> commands;
+
+	public FileAddCommandsCommand(ICommandDAO commandDAO, Map<Integer, List<byte[]>> commands)
+	{
+		this.commandDAO = commandDAO;
+		this.commands = commands;
+	}
+	
+	/* (non-Javadoc)
+	 * @see server.persistence.plugins.FilePlugin.Commands.IFileCommand#execute()
+	 */
+	@Override
+	public void execute() throws PersistenceException
+	{
+		commandDAO.AddCommands(commands);
+	}
+
+	@Override
+	public Collection<Integer> getGameIDs()
+	{
+		return commands.keySet();
+	}
+
+}
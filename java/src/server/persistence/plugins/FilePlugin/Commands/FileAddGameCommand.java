@@ -1,15 +1,18 @@
 package server.persistence.plugins.FilePlugin.Commands;
 
+import java.util.Collection;
+import java.util.Collections;
+
 import server.persistence.IGameDAO;
 import server.persistence.PersistenceException;
 
 public class FileAddGameCommand implements IFileCommand {
 
 	IGameDAO gameDAO;
-	String blob;
+	byte[] blob;
 	int gameID;
 	
-	public FileAddGameCommand(IGameDAO gameDAO, int gameID, String blob)
+	public FileAddGameCommand(IGameDAO gameDAO, int gameID, byte[] blob)
 	{
 		this.gameDAO = gameDAO;
 		this.gameID = gameID;
@@ -21,4 +24,9 @@ public class FileAddGameCommand implements IFileCommand {
 		gameDAO.AddGame(gameID, blob);
 	}
 
+	@Override
+	public Collection<Integer> getGameIDs() {
+		return Collections.singleton(gameID);
+	}
+
 }
@@ -1,7 +1,11 @@
 package server.persistence.plugins.FilePlugin.Commands;
 
+import java.util.Collection;
+import java.util.Collections;
+
 import server.persistence.IUserDAO;
 import server.persistence.PersistenceException;
+import server.persistence.plugins.FilePlugin.FileTransactionManager;
 
 public class FileAddUserCommand implements IFileCommand{
 	String username, password;
@@ -21,4 +25,9 @@ public class FileAddUserCommand implements IFileCommand{
 		userDAO.AddUser(userID, username, password);
 	}
 
+	@Override
+	public Collection<Integer> getGameIDs() {
+		return Collections.singleton(FileTransactionManager.USERS);
+	}
+
 }
@@ -3,6 +3,9 @@
  */
 package server.persistence.plugins.FilePlugin.Commands;
 
+import java.util.Collection;
+import java.util.Collections;
+
 import server.persistence.ICommandDAO;
 import server.persistence.PersistenceException;
 
@@ -27,4 +30,10 @@ public class FileDeleteCommandsCommand implements IFileCommand
 		commandDAO.DeleteCommands(gameID);
 	}
 
+	@Override
+	public Collection<Integer> getGameIDs()
+	{
+		return Collections.singleton(gameID);
+	}
+
 }
@@ -3,6 +3,9 @@
  */
 package server.persistence.plugins.FilePlugin.Commands;
 
+import java.util.Collection;
+import java.util.Collections;
+
 import server.persistence.IGameDAO;
 import server.persistence.PersistenceException;
 
@@ -14,9 +17,9 @@ public class FileUpdateGameCommand implements IFileCommand
 {
 	private IGameDAO gameDAO;
 	private int gameID;
-	private String blob;
+	private byte[] blob;
 	
-	public FileUpdateGameCommand(IGameDAO gameDAO, int gameID, String blob)
+	public FileUpdateGameCommand(IGameDAO gameDAO, int gameID, byte[] blob)
 	{
 		this.gameDAO = gameDAO;
 		this.gameID = gameID;
@@ -29,4 +32,10 @@ public class FileUpdateGameCommand implements IFileCommand
 		gameDAO.UpdateGame(gameID, blob);
 	}
 
+	@Override
+	public Collection<Integer> getGameIDs()
+	{
+		return Collections.singleton(gameID);
+	}
+
 }
@@ -3,6 +3,8 @@
  */
 package server.persistence.plugins.FilePlugin.Commands;
 
+import java.util.Collection;
+
 import server.persistence.PersistenceException;
 
 /**
@@ -11,4 +13,10 @@ import server.persistence.PersistenceException;
  */
 public interface IFileCommand {
 	public void execute() throws PersistenceException;
+	
+	/**
+	 * Gets the games the command writes to, so only they are locked while it runs.
+	 * @return The game IDs, or {@link server.persistence.plugins.FilePlugin.FileTransactionManager#USERS} for users.
+	 */
+	public Collection<Integer> getGameIDs();
 }
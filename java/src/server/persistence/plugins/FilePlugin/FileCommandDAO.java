@@ -1,9 +1,15 @@
 package server.persistence.plugins.FilePlugin;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
 
+import server.Log;
 import server.persistence.ICommandDAO;
 import server.persistence.PersistenceException;
 
@@ -20,41 +26,32 @@ public class FileCommandDAO implements ICommandDAO {
     }
 
     /**
-     * gets command blobs for a game ID
+     * gets command blobs for every game, reading each game's log in one pass
      *
-     * @param gameID
      * @return
      */
     @Override
-    public List<String> GetCommands() throws PersistenceException
+    public List<byte[]> GetCommands() throws PersistenceException
     {
-    	List<String> retList = new ArrayList<String>();
+    	List<byte[]> retList = new ArrayList<byte[]>();
     	
     	File dataDir = new File(FilenameUtils.dataDir);
-    	for(File gdfile : dataDir.listFiles())
+    	File[] gameDirs = dataDir.listFiles();
+    	if(gameDirs == null) return retList;
+    	
+    	for(File gdfile : gameDirs)
     	{
     		if(gdfile.getName().contains(FilenameUtils.gameDir))
 			{
     			int gameID = FilenameUtils.getGameIDFromDirString(gdfile.getName());
-    			String commandPath = FilenameUtils.getFullCommandsDir(gameID);
-    			File dir = new File(commandPath);
-    			if(!dir.exists()) continue;
-    	    	
-    			int commandCount = this.GetCommandCount(gameID);
-    			
-    			//iterate through all of the commands that should exist in this folder
-    			for(int i = 0; i < commandCount; i++)
-				{
-    				//Get file name of the specified command
-    				String fileName = commandPath + File.separator + FilenameUtils.commandPrefix + i + FilenameUtils.fileSuffix;
-    				File tempFile = new File(fileName);
-    				if(!tempFile.exists())
-    				{
-    					throw new PersistenceException("Path " + fileName + " should have existed but didn't");
-    				}
-    				
-    	    		retList.add(FilePersistenceUtils.getBlob(fileName));
-				}	
+    			try
+    			{
+    				retList.addAll(GetLog(gameID).ReadAll());
+    			}
+    			catch (IOException e)
+    			{
+    				throw new PersistenceException("Unable to read commands for game " + gameID, e);
+    			}
 			}
     	}
     	
@@ -62,40 +59,73 @@ public class FileCommandDAO implements ICommandDAO {
     }
 
     /**
-     * Adds a command to the DAO
+     * gets command blobs grouped by game. A game whose log can't be read maps to null.
      *
-     * @param gameID
-     * @param blob
      * @return
      */
     @Override
-    public void AddCommand(int gameID, String blob) 
+    public Map<Integer, List<byte[]>> GetGameCommands()
     {
-    	String commandsDir = FilenameUtils.getFullCommandsDir(gameID);
-    	File theDir = new File(commandsDir);
-    	FilePersistenceUtils.makeDirs(theDir);
+    	Map<Integer, List<byte[]>> retMap = new LinkedHashMap<Integer, List<byte[]>>();
+    	
+    	File dataDir = new File(FilenameUtils.dataDir);
+    	File[] gameDirs = dataDir.listFiles();
+    	if(gameDirs == null) return retMap;
     	
-    	int num = this.GetCommandCount(gameID);
+    	for(File gdfile : gameDirs)
+    	{
+    		if(gdfile.getName().contains(FilenameUtils.gameDir))
+			{
+    			int gameID = FilenameUtils.getGameIDFromDirString(gdfile.getName());
+    			try
+    			{
+    				retMap.put(gameID, GetLog(gameID).ReadAll());
+    			}
+    			catch (IOException | PersistenceException e)
+    			{
+    				Log.GetLog().log(Level.SEVERE, "Unable to read commands for game " + gameID, e);
+    				retMap.put(gameID, null);
+    			}
+			}
+    	}
     	
-    	//Format: data/game1/commands/Command21.catan
-    	File theFile = new File(commandsDir + File.separator + FilenameUtils.commandPrefix + num + FilenameUtils.fileSuffix);
-    	FilePersistenceUtils.writeFile(theFile, blob);
+    	return retMap;
     }
 
     /**
+     * Appends a command to the game's log
+     *
      * @param gameID
-     * @return false if the commands have already been cleared
+     * @param blob
+     * @return
      */
     @Override
-    public void DeleteCommands(int gameID) 
+    public void AddCommand(int gameID, byte[] blob) throws PersistenceException
     {
-    	String commandsDirPath = FilenameUtils.getFullCommandsDir(gameID);
-    	File commandsDir = new File(commandsDirPath);
-    	
-    	//make sure the commands dir actually exists
-    	if(!commandsDir.exists()) return;
-    	File dir = new File(commandsDirPath);
-    	FilePersistenceUtils.deleteFolder(dir);
+    	Append(gameID, Collections.singletonList(blob));
+    }
+    
+    /**
+     * Appends a group of commands, syncing each game's log once
+     *
+     * @param commands
+     */
+    @Override
+    public void AddCommands(Map<Integer, List<byte[]>> commands) throws PersistenceException
+    {
+    	for (Map.Entry<Integer, List<byte[]>> game : commands.entrySet())
+    		Append(game.getKey(), game.getValue());
+    }
+
+    /**
+     * Drops the game's log segments
+     *
+     * @param gameID
+     */
+    @Override
+    public void DeleteCommands(int gameID) throws PersistenceException
+    {
+    	GetLog(gameID).Delete();
     }
 
     /**
@@ -105,20 +135,33 @@ public class FileCommandDAO implements ICommandDAO {
      * @return
      */
     @Override
-    public int GetCommandCount(int gameID) 
+    public int GetCommandCount(int gameID) throws PersistenceException
     {
-    	String commandsDir = FilenameUtils.getFullCommandsDir(gameID);
-    	File dir = new File(commandsDir);
-    	if(!dir.exists()) return 0;
-    	int numCommands = 0;
-    	for(File f : dir.listFiles())
+    	return GetLog(gameID).Count();
+    }
+    
+    private void Append(int gameID, List<byte[]> blobs) throws PersistenceException
+    {
+    	try
+    	{
+    		GetLog(gameID).Append(blobs);
+    	}
+    	catch (IOException e)
+    	{
+    		throw new PersistenceException("Unable to append commands for game " + gameID, e);
+    	}
+    }
+    
+    private FileCommandLog GetLog(int gameID) throws PersistenceException
+    {
+    	try
+    	{
+    		return FileCommandLog.Get(gameID);
+    	}
+    	catch (IOException e)
     	{
-    		if(f.getName().contains(FilenameUtils.commandPrefix))
-    		{
-    			numCommands++;
-    		}
+    		throw new PersistenceException("Unable to load commands for game " + gameID, e);
     	}
-        return numCommands;
     }
 
     private String pathToFileSystem = "";
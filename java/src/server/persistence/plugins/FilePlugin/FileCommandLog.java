@@ -0,0 +1,304 @@
+package server.persistence.plugins.FilePlugin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * The saved commands for one game, kept as an append-only log.
+ * <br/>The log is split into segment files. Each record is the command's length, a checksum
+ * and then the command. Once a segment is full it is sealed and its record count is added to
+ * a small index, so counting the commands only needs the active segment to be read.
+ * <br/>A crash part way through an append leaves a partial record at the end of the active
+ * segment. It fails its checksum when the log is next loaded and is cut off.
+ * <br/>Commands saved one per file by older versions are still read, ahead of the log.
+ */
+public class FileCommandLog
+{
+	/** Size a segment can grow to before a new one is started, in bytes. */
+	public static final int SEGMENT_SIZE = 1 << 20;
+
+	private static final int HEADER_SIZE = 8;
+	private static final Map<Integer, FileCommandLog> logs = new HashMap<Integer, FileCommandLog>();
+
+	/**
+	 * Gets the log for a game, loading it if it isn't loaded or was changed on disk.
+	 * @param gameID The game.
+	 * @return The game's log.
+	 * @throws IOException Thrown if the log can't be read.
+	 */
+	public static synchronized FileCommandLog Get(int gameID) throws IOException
+	{
+		FileCommandLog log = logs.get(gameID);
+
+		if (log == null || !log.IsCurrent())
+		{
+			log = new FileCommandLog(gameID);
+			logs.put(gameID, log);
+		}
+
+		return log;
+	}
+
+	private final int gameID;
+	private final File dir;
+
+	private int legacyRecords;
+	/** Record count of each sealed segment. */
+	private List<Integer> sealed;
+	private int activeRecords;
+	private long activeBytes;
+
+	private FileCommandLog(int gameID) throws IOException
+	{
+		this.gameID = gameID;
+		this.dir = new File(FilenameUtils.getFullCommandsDir(gameID));
+		Load();
+	}
+
+	/**
+	 * Gets the number of commands in the log.
+	 * @return The number of commands.
+	 */
+	public synchronized int Count()
+	{
+		int count = legacyRecords + activeRecords;
+		for (int records : sealed)
+			count += records;
+		return count;
+	}
+
+	/**
+	 * Appends commands to the log. They are flushed to disk once, after they're all written.
+	 * @param blobs The commands, in order.
+	 * @throws IOException Thrown if the commands can't be written.
+	 */
+	public synchronized void Append(List<byte[]> blobs) throws IOException
+	{
+		FilePersistenceUtils.makeDirs(dir);
+
+		FileOutputStream out = new FileOutputStream(GetSegment(sealed.size()), true);
+		try
+		{
+			for (byte[] blob : blobs)
+			{
+				byte[] record = Encode(blob);
+
+				if (activeRecords > 0 && activeBytes + record.length > SEGMENT_SIZE)
+				{
+					out.getFD().sync();
+					out.close();
+					Seal();
+					out = new FileOutputStream(GetSegment(sealed.size()), true);
+				}
+
+				out.write(record);
+				activeRecords++;
+				activeBytes += record.length;
+			}
+
+			out.getFD().sync();
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+
+	/**
+	 * Reads every command in the log, one sequential read per segment.
+	 * @return The commands, in the order they were appended.
+	 * @throws IOException Thrown if the log can't be read or a sealed segment is corrupt.
+	 */
+	public synchronized List<byte[]> ReadAll() throws IOException
+	{
+		List<byte[]> blobs = new ArrayList<byte[]>(Count());
+
+		for (int i = 0; i < legacyRecords; i++)
+		{
+			String fileName = dir.getPath() + File.separator + FilenameUtils.commandPrefix + i + FilenameUtils.fileSuffix;
+			byte[] blob = FilePersistenceUtils.getBytes(fileName);
+			if (blob == null)
+				throw new IOException("Path " + fileName + " should have existed but didn't");
+			blobs.add(blob);
+		}
+
+		for (int i = 0; i <= sealed.size(); i++)
+		{
+			File segment = GetSegment(i);
+			if (!segment.exists())
+				continue;
+
+			int expected = i < sealed.size() ? sealed.get(i) : activeRecords;
+			int before = blobs.size();
+			Read(Files.readAllBytes(segment.toPath()), blobs);
+
+			if (blobs.size() - before < expected)
+				throw new IOException("Command log segment " + segment + " is corrupt");
+		}
+
+		return blobs;
+	}
+
+	/**
+	 * Deletes every command in the log by dropping its segments.
+	 */
+	public synchronized void Delete()
+	{
+		if (dir.exists())
+			FilePersistenceUtils.deleteFolder(dir);
+
+		legacyRecords = 0;
+		sealed = new ArrayList<Integer>();
+		activeRecords = 0;
+		activeBytes = 0;
+	}
+
+	/**
+	 * Checks the log still matches what's on disk, in case the files were changed or removed.
+	 */
+	private synchronized boolean IsCurrent()
+	{
+		if (!dir.exists())
+			return Count() == 0;
+
+		return GetSegment(sealed.size()).length() == activeBytes;
+	}
+
+	private void Load() throws IOException
+	{
+		legacyRecords = 0;
+		sealed = new ArrayList<Integer>();
+		activeRecords = 0;
+		activeBytes = 0;
+
+		if (!dir.exists())
+			return;
+
+		//Commands saved before the log, one file each
+		File[] files = dir.listFiles();
+		if (files != null)
+		{
+			for (File f : files)
+			{
+				if (f.getName().startsWith(FilenameUtils.commandPrefix))
+					legacyRecords++;
+			}
+		}
+
+		File index = new File(dir, FilenameUtils.commandIndexFilename);
+		if (index.exists())
+		{
+			for (String line : Files.readAllLines(index.toPath(), StandardCharsets.UTF_8))
+			{
+				if (!line.trim().isEmpty())
+					sealed.add(Integer.parseInt(line.trim()));
+			}
+		}
+
+		File active = GetSegment(sealed.size());
+		if (!active.exists())
+			return;
+
+		byte[] data = Files.readAllBytes(active.toPath());
+		List<byte[]> blobs = new ArrayList<byte[]>();
+		activeBytes = Read(data, blobs);
+		activeRecords = blobs.size();
+
+		//Cut off a record that was only partly written
+		if (activeBytes < data.length)
+		{
+			RandomAccessFile file = new RandomAccessFile(active, "rw");
+			try
+			{
+				file.setLength(activeBytes);
+			}
+			finally
+			{
+				file.close();
+			}
+		}
+	}
+
+	/**
+	 * Starts a new segment, recording the full one in the index.
+	 */
+	private void Seal() throws IOException
+	{
+		sealed.add(activeRecords);
+		activeRecords = 0;
+		activeBytes = 0;
+
+		StringBuilder index = new StringBuilder();
+		for (int records : sealed)
+			index.append(records).append('\n');
+
+		File indexFile = new File(dir, FilenameUtils.commandIndexFilename);
+		if (!FilePersistenceUtils.writeFile(indexFile, index.toString()))
+			throw new IOException("Unable to write command index for game " + gameID);
+	}
+
+	private File GetSegment(int segment)
+	{
+		return new File(dir, FilenameUtils.commandSegmentPrefix + segment + FilenameUtils.commandSegmentSuffix);
+	}
+
+	private static byte[] Encode(byte[] data) throws IOException
+	{
+
+		CRC32 crc = new CRC32();
+		crc.update(data);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(HEADER_SIZE + data.length);
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(data.length);
+		out.writeInt((int)crc.getValue());
+		out.write(data);
+		out.close();
+
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Reads records until the data ends or a record is incomplete or fails its checksum.
+	 * @return The length of the data up to the end of the last good record.
+	 */
+	private static int Read(byte[] data, List<byte[]> blobs)
+	{
+		ByteBuffer buffer = ByteBuffer.wrap(data);
+		int valid = 0;
+
+		while (buffer.remaining() >= HEADER_SIZE)
+		{
+			int length = buffer.getInt();
+			int checksum = buffer.getInt();
+
+			if (length < 0 || length > buffer.remaining())
+				break;
+
+			byte[] record = new byte[length];
+			buffer.get(record);
+
+			CRC32 crc = new CRC32();
+			crc.update(record);
+			if ((int)crc.getValue() != checksum)
+				break;
+
+			blobs.add(record);
+			valid = buffer.position();
+		}
+
+		return valid;
+	}
+}
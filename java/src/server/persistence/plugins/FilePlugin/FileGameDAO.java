@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import server.persistence.IGameDAO;
+import server.persistence.PersistenceException;
 
 /**
  * Created by Tunadude09 on 4/4/2016.
@@ -24,13 +25,14 @@ public class FileGameDAO implements IGameDAO {
      * @return
      */
     @Override
-    public void AddGame(int gameID, String blob) {
+    public void AddGame(int gameID, byte[] blob) throws PersistenceException {
     	String gameDir = FilenameUtils.getFullGameDir(gameID);
     	File theDir = new File(gameDir);
     	FilePersistenceUtils.makeDirs(theDir);
     	
     	File theFile = new File(gameDir + File.separator + FilenameUtils.gameFilename);
-    	FilePersistenceUtils.writeFile(theFile, blob);
+    	if(!FilePersistenceUtils.writeBytes(theFile, blob))
+    		throw new PersistenceException("Unable to write game " + gameID);
     }
 
     /**
@@ -39,32 +41,47 @@ public class FileGameDAO implements IGameDAO {
      * @return
      */
     @Override
-    public void UpdateGame(int gameID, String blob) {
+    public void UpdateGame(int gameID, byte[] blob) throws PersistenceException {
     	String gameDir = FilenameUtils.getFullGameDir(gameID);
+    	FilePersistenceUtils.makeDirs(new File(gameDir));
     	
     	File theFile = new File(gameDir + File.separator + FilenameUtils.gameFilename);
-    	FilePersistenceUtils.writeFile(theFile, blob);
+    	if(!FilePersistenceUtils.writeBytes(theFile, blob))
+    		throw new PersistenceException("Unable to write game " + gameID);
     }
 
     /**
      * @return a map of Game ID to blobs
      */
     @Override
-    public List<String> GetAllGames() {
-    	List<String> gameMap = new ArrayList<String>();
+    public List<byte[]> GetAllGames() {
+    	List<byte[]> gameMap = new ArrayList<byte[]>();
         File rootDir = new File(FilenameUtils.dataDir);
         for(File f : rootDir.listFiles())
         {
         	if(f.isDirectory() && f.getName().contains(FilenameUtils.gameDir))
         	{
         		String gameBlobFile = f.getPath() + File.separator + FilenameUtils.gameFilename;
-        		String blob = FilePersistenceUtils.getBlob(gameBlobFile);
+        		byte[] blob = FilePersistenceUtils.getBytes(gameBlobFile);
         		gameMap.add(blob);
         	}
         }
         return gameMap;
     }
 
+    /**
+     * @param gameID
+     * @return the game's blob, or null if it isn't saved
+     */
+    @Override
+    public byte[] GetGame(int gameID) {
+    	File gameFile = new File(FilenameUtils.getFullGameDir(gameID) + File.separator + FilenameUtils.gameFilename);
+    	if(!gameFile.exists())
+    		return null;
+    	
+    	return FilePersistenceUtils.getBytes(gameFile.getPath());
+    }
+
     private String pathToFileSystem = "";
 
     
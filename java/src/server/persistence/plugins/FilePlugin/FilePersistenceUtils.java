@@ -1,11 +1,13 @@
 package server.persistence.plugins.FilePlugin;
 
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 
 public class FilePersistenceUtils
 {
@@ -18,15 +20,48 @@ public class FilePersistenceUtils
     
     public static boolean writeFile(File theFile, String blob)
     {
+    	return writeBytes(theFile, blob.getBytes(Charset.defaultCharset()));
+    }
+    
+    /**
+     * Replaces a file's contents. They're written to a temp file that's then renamed over the
+     * file, so readers and crashes see either the old contents or the new, never part of them.
+     * @param theFile the file to write
+     * @param blob the new contents
+     * @return false if the file couldn't be written
+     */
+    public static boolean writeBytes(File theFile, byte[] blob)
+    {
+    	File temp = null;
     	try
     	{
-    		FileWriter fw = new FileWriter(theFile, false);
-    		fw.write(blob);
-    		fw.close();
+    		//Hidden, so it's never mistaken for a user, game or command file
+    		temp = File.createTempFile("." + theFile.getName(), ".tmp", theFile.getAbsoluteFile().getParentFile());
+    		
+    		FileOutputStream out = new FileOutputStream(temp, false);
+    		try
+    		{
+    			out.write(blob);
+    			out.getFD().sync();
+    		}
+    		finally
+    		{
+    			out.close();
+    		}
+    		
+    		try
+    		{
+    			Files.move(temp.toPath(), theFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    		}
+    		catch(AtomicMoveNotSupportedException e)
+    		{
+    			Files.move(temp.toPath(), theFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    		}
     	}
     	catch(IOException e)
     	{
     		e.printStackTrace();
+    		if(temp != null) temp.delete();
     		return false;
     	}
     	
@@ -64,4 +99,17 @@ public class FilePersistenceUtils
 		
 		return null;
     }
+    
+    public static byte[] getBytes(String cp)
+    {
+		try
+		{
+			return Files.readAllBytes(Paths.get(cp));
+		} catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+		
+		return null;
+    }
 }
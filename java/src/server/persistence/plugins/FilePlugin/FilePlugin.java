@@ -16,6 +16,8 @@ public class FilePlugin implements IPersistenceProvider {
 	private IUserDAO userDAO = null;
 	private IGameDAO gameDAO = null;
 	private ICommandDAO commandDAO = null;
+	/** This provider's own transaction, so providers on other threads don't wait for it. */
+	private FileTransactionManager transactions = new FileTransactionManager();
 	
     /**
      * Initialize filesystem in plugins/filePlugin
@@ -42,17 +44,23 @@ public class FilePlugin implements IPersistenceProvider {
 	@Override
 	public void StartTransaction() throws PersistenceException
 	{
-		boolean successful = FileTransactionManager.startTransaction();
+		boolean successful = transactions.startTransaction();
 		if(!successful)
 		{
 			throw new PersistenceException("The transaction could not be started! Resuld false");
 		}
 	}
 
+	@Override
+	public void StartReadTransaction() throws PersistenceException
+	{
+		StartTransaction();
+	}
+
 	@Override
 	public void EndTransaction(boolean commit) throws PersistenceException
 	{
-		boolean successful = FileTransactionManager.endTransaction(commit);
+		boolean successful = transactions.endTransaction(commit);
 		if(!successful)
 		{
 			throw new PersistenceException("The transaction couldn't be committed! Result false");
@@ -64,7 +72,7 @@ public class FilePlugin implements IPersistenceProvider {
 	{
 		if(userDAO == null)
 		{
-			userDAO = new FileTransactionalUserDAO(new FileUserDAO());
+			userDAO = new FileTransactionalUserDAO(new FileUserDAO(), transactions);
 		}
 		return userDAO;
 	}
@@ -74,7 +82,7 @@ public class FilePlugin implements IPersistenceProvider {
 	{
 		if(gameDAO == null)
 		{
-			gameDAO = new FileTransactionalGameDAO(new FileGameDAO());
+			gameDAO = new FileTransactionalGameDAO(new FileGameDAO(), transactions);
 		}
 		return gameDAO;
 	}
@@ -84,8 +92,14 @@ public class FilePlugin implements IPersistenceProvider {
 	{
 		if(commandDAO == null)
 		{
-			commandDAO = new FileTransactionalCommandDAO(new FileCommandDAO());
+			commandDAO = new FileTransactionalCommandDAO(new FileCommandDAO(), transactions);
 		}
 		return commandDAO;
 	}
+
+	@Override
+	public void Close()
+	{
+		//Nothing is held open between transactions
+	}
 }
@@ -2,19 +2,42 @@ package server.persistence.plugins.FilePlugin;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Semaphore;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
 
+import server.Log;
 import server.persistence.PersistenceException;
 import server.persistence.plugins.FilePlugin.Commands.IFileCommand;
 
+/**
+ * Holds the writes of one provider's transaction until it ends.
+ * <br/>Each provider has its own transaction, so providers on different threads don't wait on
+ * each other. A commit only locks the games it writes to, using a fixed set of striped locks
+ * keyed by game ID, so saves for independent games run in parallel. Stripes are always locked
+ * in order so two commits can't deadlock.
+ * <br/>Each file a commit replaces is written to a temp file and renamed over the old one, so
+ * a crash never leaves a file half written.
+ */
 public class FileTransactionManager {
 	
-	private static boolean transactionBegun = false;
-	private static List<IFileCommand> transaction;
-	private static Semaphore transactionSemaphore = new Semaphore(1);
+	/** The key of writes to users, which don't belong to a game. */
+	public static final int USERS = -1;
 	
+	private static final int STRIPES = 16;
+	private static final ReentrantLock[] locks = new ReentrantLock[STRIPES];
 	
-	public static boolean addCommand(IFileCommand cmd)
+	static
+	{
+		for (int i = 0; i < STRIPES; i++)
+			locks[i] = new ReentrantLock();
+	}
+	
+	private boolean transactionBegun = false;
+	private List<IFileCommand> transaction;
+	
+	
+	public boolean addCommand(IFileCommand cmd)
 	{	
 		if(transactionBegun)
 		{
@@ -27,47 +50,51 @@ public class FileTransactionManager {
 		return false;
 	}
 	
-	public static boolean endTransaction(boolean commit) throws PersistenceException
+	public boolean endTransaction(boolean commit) throws PersistenceException
 	{
 		if(!transactionBegun)
 			return false;
 		boolean successful = true;
 		if(commit)
 		{
+			TreeSet<Integer> stripes = new TreeSet<Integer>();
 			for(IFileCommand ifc : transaction)
 			{
-				try{
-					ifc.execute();
-				}
-				catch(PersistenceException e)
+				for(int gameID : ifc.getGameIDs())
+					stripes.add(Math.floorMod(gameID, STRIPES));
+			}
+			
+			for(int stripe : stripes)
+				locks[stripe].lock();
+			try
+			{
+				for(IFileCommand ifc : transaction)
 				{
-					//TODO make it roll back transactions
-					successful = false;
+					try{
+						ifc.execute();
+					}
+					catch(PersistenceException e)
+					{
+						//Later writes may depend on this one, so stop here
+						Log.GetLog().log(Level.WARNING, "File transaction failed", e);
+						successful = false;
+						break;
+					}
 				}
-			}			
-			//TODO check if successful and rollback if not
-		}
-		else
-		{
-			transaction.clear();
+			}
+			finally
+			{
+				for(int stripe : stripes.descendingSet())
+					locks[stripe].unlock();
+			}
 		}
+		transaction = null;
 		transactionBegun = false;
-		transactionSemaphore.release();
 		return successful;
 	}
 	
-	public static boolean startTransaction()
+	public boolean startTransaction()
 	{
-		try
-		{
-			transactionSemaphore.acquire();
-		}
-		catch(InterruptedException e)
-		{
-			System.out.println("Unable to acquire transaction semaphore!");
-			e.printStackTrace();
-			return false;
-		}
 		if(transactionBegun)
 			return false;
 		transaction = new ArrayList<IFileCommand>();
@@ -75,12 +102,12 @@ public class FileTransactionManager {
 		return true;
 	}
 	
-	public static boolean isInMiddleOfTransaction()
+	public boolean isInMiddleOfTransaction()
 	{
 		return transactionBegun;
 	}
 	
-	public static int transactionSize()
+	public int transactionSize()
 	{
 		if(transaction != null)
 			return transaction.size();
@@ -1,36 +1,59 @@
 package server.persistence.plugins.FilePlugin;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import server.persistence.ICommandDAO;
 import server.persistence.PersistenceException;
 import server.persistence.plugins.FilePlugin.Commands.FileAddCommandCommand;
+import server.persistence.plugins.FilePlugin.Commands.FileAddCommandsCommand;
 import server.persistence.plugins.FilePlugin.Commands.FileDeleteCommandsCommand;
 
 public class FileTransactionalCommandDAO implements ICommandDAO {
 	private ICommandDAO commandDAO;
+	private FileTransactionManager transactions;
 	
-	public FileTransactionalCommandDAO(ICommandDAO commandDAO)
+	public FileTransactionalCommandDAO(ICommandDAO commandDAO, FileTransactionManager transactions)
 	{
 		this.commandDAO = commandDAO;
+		this.transactions = transactions;
 	}
 
 	@Override
-	public List<String> GetCommands() throws PersistenceException
+	public List<byte[]> GetCommands() throws PersistenceException
 	{
 		return commandDAO.GetCommands();
 	}
 
 	@Override
-	public void AddCommand(int gameID, String blob) throws PersistenceException
+	public Map<Integer, List<byte[]>> GetGameCommands() throws PersistenceException
 	{
-		FileTransactionManager.addCommand(new FileAddCommandCommand(commandDAO, gameID, blob));
+		return commandDAO.GetGameCommands();
+	}
+
+	@Override
+	public void AddCommand(int gameID, byte[] blob) throws PersistenceException
+	{
+		transactions.addCommand(new FileAddCommandCommand(commandDAO, gameID, blob));
+	}
+
+	@Override
+	public void AddCommands(Map<Integer, List<byte[]>> commands) throws PersistenceException
+	{
+		//Copied, since the caller may reuse the map before the transaction ends
+		Map<Integer, List<byte[]>> group = new LinkedHashMap<Integer, List<byte[]>>();
+		for (Map.Entry<Integer, List<byte[]>> game : commands.entrySet())
+			group.put(game.getKey(), new ArrayList<byte[]>(game.getValue()));
+		
+		transactions.addCommand(new FileAddCommandsCommand(commandDAO, group));
 	}
 
 	@Override
 	public void DeleteCommands(int gameID) throws PersistenceException
 	{
-		FileTransactionManager.addCommand(new FileDeleteCommandsCommand(commandDAO, gameID));
+		transactions.addCommand(new FileDeleteCommandsCommand(commandDAO, gameID));
 	}
 
 	@Override
@@ -9,28 +9,36 @@ import server.persistence.plugins.FilePlugin.Commands.FileUpdateGameCommand;
 
 public class FileTransactionalGameDAO implements IGameDAO {
 	private IGameDAO gameDAO;
+	private FileTransactionManager transactions;
 	
-	public FileTransactionalGameDAO(IGameDAO gameDAO)
+	public FileTransactionalGameDAO(IGameDAO gameDAO, FileTransactionManager transactions)
 	{
 		this.gameDAO = gameDAO;
+		this.transactions = transactions;
 	}
 	
 	@Override
-	public void AddGame(int gameID, String blob) throws PersistenceException
+	public void AddGame(int gameID, byte[] blob) throws PersistenceException
 	{
-		FileTransactionManager.addCommand(new FileAddGameCommand(gameDAO, gameID, blob));		
+		transactions.addCommand(new FileAddGameCommand(gameDAO, gameID, blob));		
 	}
 
 	@Override
-	public void UpdateGame(int gameID, String blob) throws PersistenceException
+	public void UpdateGame(int gameID, byte[] blob) throws PersistenceException
 	{
-		FileTransactionManager.addCommand(new FileUpdateGameCommand(gameDAO, gameID, blob));		
+		transactions.addCommand(new FileUpdateGameCommand(gameDAO, gameID, blob));		
 	}
 
 	@Override
-	public List<String> GetAllGames() throws PersistenceException
+	public List<byte[]> GetAllGames() throws PersistenceException
 	{
 		return gameDAO.GetAllGames();
 	}
 
+	@Override
+	public byte[] GetGame(int gameID) throws PersistenceException
+	{
+		return gameDAO.GetGame(gameID);
+	}
+
 }
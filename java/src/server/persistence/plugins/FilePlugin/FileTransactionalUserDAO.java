@@ -9,16 +9,18 @@ import server.persistence.plugins.FilePlugin.Commands.FileAddUserCommand;
 
 public class FileTransactionalUserDAO implements IUserDAO {
 	private IUserDAO userDAO;
+	private FileTransactionManager transactions;
 	
-	public FileTransactionalUserDAO(IUserDAO userDAO)
+	public FileTransactionalUserDAO(IUserDAO userDAO, FileTransactionManager transactions)
 	{
 		this.userDAO = userDAO;
+		this.transactions = transactions;
 	}
 
 	@Override
 	public void AddUser(int id, String username, String password) throws PersistenceException
 	{
-		FileTransactionManager.addCommand(new FileAddUserCommand(userDAO, id, username, password));
+		transactions.addCommand(new FileAddUserCommand(userDAO, id, username, password));
 	}
 
 	@Override
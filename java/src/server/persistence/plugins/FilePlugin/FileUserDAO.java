@@ -7,6 +7,7 @@ import java.util.List;
 
 import server.model.ServerPlayer;
 import server.persistence.IUserDAO;
+import server.persistence.PersistenceException;
 
 /**
  * Created by Tunadude09 on 4/4/2016.
@@ -29,7 +30,7 @@ public class FileUserDAO implements IUserDAO {
      * @return
      */
     @Override
-    public void AddUser(int id, String username, String password) {
+    public void AddUser(int id, String username, String password) throws PersistenceException {
     	String userDir = FilenameUtils.userDirFull;
     	File theDir = new File(userDir);
     	FilePersistenceUtils.makeDirs(theDir);
@@ -37,7 +38,8 @@ public class FileUserDAO implements IUserDAO {
     	
     	File theFile = new File(FilenameUtils.getFullUserPath(id));
     	String blob = username + "," + password;
-    	FilePersistenceUtils.writeFile(theFile, blob);
+    	if(!FilePersistenceUtils.writeFile(theFile, blob))
+    		throw new PersistenceException("Unable to write user " + id);
     }
 
     /**
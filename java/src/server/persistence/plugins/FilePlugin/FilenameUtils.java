@@ -15,6 +15,9 @@ public class FilenameUtils
 	public static final String gameFilePrefix = "GameBlob";
 	public static final String gameFilename = gameFilePrefix + fileSuffix;
 	public static final String commandPrefix = "Command";
+	public static final String commandSegmentPrefix = "Segment";
+	public static final String commandSegmentSuffix = ".log";
+	public static final String commandIndexFilename = "segments.idx";
 	
 	/**
 	 * Returns a string that represents what the game directory is called
@@ -1,9 +1,12 @@
 package server.persistence.plugins.MockPlugin;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
+import server.Log;
 import server.persistence.ICommandDAO;
 import server.persistence.PersistenceException;
 
@@ -20,24 +23,38 @@ public class MockCommandDAO implements ICommandDAO
 	}
 
 	@Override
-	public void AddCommand(int gameID, String blob) throws PersistenceException 
+	public void AddCommand(int gameID, byte[] blob) throws PersistenceException 
 	{
-		System.out.println("Saving command");
-		System.out.println("GameID: " + gameID);
+		Log.GetLog().finest("Saving command");
+		Log.GetLog().finest("GameID: " + gameID);
+	}
+
+	@Override
+	public void AddCommands(Map<Integer, List<byte[]>> commands) throws PersistenceException 
+	{
+		Log.GetLog().finest("Saving command group");
+		Log.GetLog().finest("Games: " + commands.keySet());
 	}
 
 	@Override
 	public void DeleteCommands(int gameID) throws PersistenceException 
 	{
-		System.out.println("Deleting saved commands");
-		System.out.println("GameID: " + gameID);
+		Log.GetLog().finest("Deleting saved commands");
+		Log.GetLog().finest("GameID: " + gameID);
+	}
+
+	@Override
+	public List<byte[]> GetCommands() throws PersistenceException 
+	{
+		Log.GetLog().finest("Getting saved commands");
+		return new ArrayList<byte[]>();
 	}
 
 	@Override
-	public List<String> GetCommands() throws PersistenceException 
+	public Map<Integer, List<byte[]>> GetGameCommands() throws PersistenceException 
 	{
-		System.out.println("Getting saved commands");
-		return new ArrayList<String>();
+		Log.GetLog().finest("Getting saved commands by game");
+		return new HashMap<Integer, List<byte[]>>();
 	}
 
 	@Override
@@ -46,8 +63,8 @@ public class MockCommandDAO implements ICommandDAO
 		Random random = new Random();
 		int count = random.nextInt(20);
 		
-		System.out.println("Getting saved command count");
-		System.out.println("Command count randomly assigned: " + count);
+		Log.GetLog().finest("Getting saved command count");
+		Log.GetLog().finest("Command count randomly assigned: " + count);
 		
 		return count;
 	}
@@ -3,6 +3,7 @@ package server.persistence.plugins.MockPlugin;
 import java.util.ArrayList;
 import java.util.List;
 
+import server.Log;
 import server.persistence.IGameDAO;
 import server.persistence.PersistenceException;
 
@@ -19,23 +20,31 @@ public class MockGameDAO implements IGameDAO
 	}
 
 	@Override
-	public void AddGame(int gameID, String blob) throws PersistenceException 
+	public void AddGame(int gameID, byte[] blob) throws PersistenceException 
 	{
-		System.out.println("Saving game");
-		System.out.println("GameID: " + gameID);
+		Log.GetLog().finest("Saving game");
+		Log.GetLog().finest("GameID: " + gameID);
 	}
 
 	@Override
-	public void UpdateGame(int gameID, String blob) throws PersistenceException 
+	public void UpdateGame(int gameID, byte[] blob) throws PersistenceException 
 	{
-		System.out.println("Updating saved game");
-		System.out.println("GameID: " + gameID);
+		Log.GetLog().finest("Updating saved game");
+		Log.GetLog().finest("GameID: " + gameID);
 	}
 
 	@Override
-	public List<String> GetAllGames() throws PersistenceException 
+	public List<byte[]> GetAllGames() throws PersistenceException 
 	{
-		System.out.println("Getting saved games");
-		return new ArrayList<String>();
+		Log.GetLog().finest("Getting saved games");
+		return new ArrayList<byte[]>();
+	}
+
+	@Override
+	public byte[] GetGame(int gameID) throws PersistenceException 
+	{
+		Log.GetLog().finest("Getting saved game");
+		Log.GetLog().finest("GameID: " + gameID);
+		return null;
 	}
 }
@@ -1,5 +1,6 @@
 package server.persistence.plugins.MockPlugin;
 
+import server.Log;
 import server.persistence.ICommandDAO;
 import server.persistence.IGameDAO;
 import server.persistence.IPersistenceProvider;
@@ -27,13 +28,19 @@ public class MockPlugin implements IPersistenceProvider
 	@Override
 	public void StartTransaction() throws PersistenceException 
 	{
-		System.out.println("Start save transaction");
+		Log.GetLog().finest("Start save transaction");
+	}
+
+	@Override
+	public void StartReadTransaction() throws PersistenceException 
+	{
+		StartTransaction();
 	}
 
 	@Override
 	public void EndTransaction(boolean commit) throws PersistenceException 
 	{
-		System.out.println("End save transaction");
+		Log.GetLog().finest("End save transaction");
 	}
 
 	@Override
@@ -53,4 +60,10 @@ public class MockPlugin implements IPersistenceProvider
 	{
 		return new MockCommandDAO();
 	}
+
+	@Override
+	public void Close() throws PersistenceException 
+	{
+		Log.GetLog().finest("Closing save provider");
+	}
 }
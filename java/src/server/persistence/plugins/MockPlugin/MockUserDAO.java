@@ -3,6 +3,7 @@ package server.persistence.plugins.MockPlugin;
 import java.util.ArrayList;
 import java.util.List;
 
+import server.Log;
 import server.model.ServerPlayer;
 import server.persistence.IUserDAO;
 import server.persistence.PersistenceException;
@@ -22,14 +23,14 @@ public class MockUserDAO implements IUserDAO
 	@Override
 	public void AddUser(int id, String username, String password) throws PersistenceException 
 	{
-		System.out.println("Saving user");
-		System.out.println("Username: " + username);
+		Log.GetLog().finest("Saving user");
+		Log.GetLog().finest("Username: " + username);
 	}
 
 	@Override
 	public List<ServerPlayer> GetAllUsers() throws PersistenceException 
 	{
-		System.out.println("Getting saved users");
+		Log.GetLog().finest("Getting saved users");
 		return new ArrayList<ServerPlayer>();
 	}
 }
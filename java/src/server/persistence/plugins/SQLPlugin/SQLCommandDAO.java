@@ -8,7 +8,9 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Created by Tunadude09 on 4/4/2016.
@@ -29,24 +31,25 @@ public class SQLCommandDAO implements ICommandDAO
      * Get a List of all Commands in COMMANDS table
      *
      * @param gameID
-     * @return List of Command as String
+     * @return List of Command as bytes
      * @throws PersistenceException
      */
     @Override
-    public List<String> GetCommands() throws PersistenceException
+    public List<byte[]> GetCommands() throws PersistenceException
     {
     	try
     	{
-    		List<String> commands = new ArrayList<String>();
+    		List<byte[]> commands = new ArrayList<byte[]>();
     		PreparedStatement pStmt = null;
     		
-    		String sql = "SELECT * from COMMANDS";
+    		//Each game's commands in the order they were added
+    		String sql = "SELECT * from COMMANDS ORDER BY ID, rowid";
 			pStmt = connection.prepareStatement(sql);
     		
             ResultSet rs = pStmt.executeQuery();
             while (rs.next())
             {
-               String  commandBlob = rs.getString("BLOB");
+               byte[] commandBlob = rs.getBytes("BLOB");
                commands.add(commandBlob);
             }
             rs.close();
@@ -60,6 +63,46 @@ public class SQLCommandDAO implements ICommandDAO
         }
     }
 
+    /**
+     * Get all Commands in COMMANDS table, grouped by Game
+     *
+     * @return Map of Game ID to its Commands, in the order they were added
+     * @throws PersistenceException
+     */
+    @Override
+    public Map<Integer, List<byte[]>> GetGameCommands() throws PersistenceException
+    {
+    	try
+    	{
+    		Map<Integer, List<byte[]>> commands = new LinkedHashMap<Integer, List<byte[]>>();
+    		PreparedStatement pStmt = null;
+    		
+    		String sql = "SELECT ID, BLOB from COMMANDS ORDER BY ID, rowid";
+			pStmt = connection.prepareStatement(sql);
+    		
+            ResultSet rs = pStmt.executeQuery();
+            while (rs.next())
+            {
+               int gameID = rs.getInt("ID");
+               List<byte[]> gameCommands = commands.get(gameID);
+               if (gameCommands == null)
+               {
+            	   gameCommands = new ArrayList<byte[]>();
+            	   commands.put(gameID, gameCommands);
+               }
+               gameCommands.add(rs.getBytes("BLOB"));
+            }
+            rs.close();
+            pStmt.close();
+            return commands;
+    	}
+        catch (SQLException e)
+        {
+        	e.printStackTrace();
+        	throw new PersistenceException("GetGameCommands SQLException", e);
+        }
+    }
+
     /**
      * Adds a command to the COMMANDS table
      *
@@ -68,7 +111,7 @@ public class SQLCommandDAO implements ICommandDAO
      * @throws PersistenceException
      */
     @Override
-    public void AddCommand(int gameID, String blob) throws PersistenceException
+    public void AddCommand(int gameID, byte[] blob) throws PersistenceException
     {
     	try
     	{
@@ -78,7 +121,7 @@ public class SQLCommandDAO implements ICommandDAO
 			pStmt = connection.prepareStatement(sql);
 			
 			pStmt.setInt(1, gameID);
-			pStmt.setString(2, blob);
+			pStmt.setBytes(2, blob);
 			
 			if (pStmt.executeUpdate() == 1)
 			{
@@ -97,6 +140,42 @@ public class SQLCommandDAO implements ICommandDAO
 		}
     }
 
+    /**
+     * Adds a group of commands to the COMMANDS table in one batch
+     *
+     * @param commands
+     * @throws PersistenceException
+     */
+    @Override
+    public void AddCommands(Map<Integer, List<byte[]>> commands) throws PersistenceException
+    {
+    	try
+    	{
+    		PreparedStatement pStmt = null;
+    		
+    		String sql = "INSERT INTO COMMANDS (ID, BLOB) VALUES (?, ?)";
+			pStmt = connection.prepareStatement(sql);
+			
+			for (Map.Entry<Integer, List<byte[]>> game : commands.entrySet())
+			{
+				for (byte[] blob : game.getValue())
+				{
+					pStmt.setInt(1, game.getKey());
+					pStmt.setBytes(2, blob);
+					pStmt.addBatch();
+				}
+			}
+			
+			pStmt.executeBatch();
+			pStmt.close();
+		}
+    	catch (SQLException e)
+    	{
+			e.printStackTrace();
+			throw new PersistenceException("AddCommands SQLException", e);
+		}
+    }
+
     /**
      * Deletes a Command from COMMANDS table
      * 
@@ -33,7 +33,7 @@ public class SQLGameDAO implements IGameDAO
      * @throws PersistenceException
      */
     @Override
-    public void AddGame(int gameID, String blob) throws PersistenceException
+    public void AddGame(int gameID, byte[] blob) throws PersistenceException
     {
     	try
     	{
@@ -43,7 +43,7 @@ public class SQLGameDAO implements IGameDAO
 			pStmt = connection.prepareStatement(sql);
 			
 			pStmt.setInt(1, gameID);
-			pStmt.setString(2, blob);
+			pStmt.setBytes(2, blob);
 		    
 		    if (pStmt.executeUpdate() == 1)
 			{
@@ -70,7 +70,7 @@ public class SQLGameDAO implements IGameDAO
      * @throws PersistenceException
      */
     @Override
-    public void UpdateGame(int gameID, String blob) throws PersistenceException
+    public void UpdateGame(int gameID, byte[] blob) throws PersistenceException
     {
     	try
     	{
@@ -79,7 +79,7 @@ public class SQLGameDAO implements IGameDAO
     	    String sql = "UPDATE GAMES set BLOB=? where ID=?";
     	    pStmt = connection.prepareStatement(sql);
 			
-    	    pStmt.setString(1, blob);
+    	    pStmt.setBytes(1, blob);
 			pStmt.setInt(2, gameID);
 			
     	    if (pStmt.executeUpdate() == 1)
@@ -102,15 +102,15 @@ public class SQLGameDAO implements IGameDAO
     /**
      * Get a List of all Games in GAMES table
      * 
-     * @return List of Game as String
+     * @return List of Game as bytes
      * @throws PersistenceException
      */
     @Override
-    public List<String> GetAllGames() throws PersistenceException
+    public List<byte[]> GetAllGames() throws PersistenceException
     {
     	try
     	{
-    		List<String> games = new ArrayList<String>();
+    		List<byte[]> games = new ArrayList<byte[]>();
     		PreparedStatement pStmt = null;
     		
     		String sql = "SELECT * from GAMES";
@@ -119,7 +119,7 @@ public class SQLGameDAO implements IGameDAO
             ResultSet rs = pStmt.executeQuery();
             while (rs.next())
             {
-               String  gameBlob = rs.getString("BLOB");
+               byte[] gameBlob = rs.getBytes("BLOB");
                games.add(gameBlob);
             }
             rs.close();
@@ -133,5 +133,41 @@ public class SQLGameDAO implements IGameDAO
         }
     }
 
+    /**
+     * Get one Game from GAMES table
+     * 
+     * @param gameID
+     * @return Game as bytes, or null if there is no such Game
+     * @throws PersistenceException
+     */
+    @Override
+    public byte[] GetGame(int gameID) throws PersistenceException
+    {
+    	try
+    	{
+    		PreparedStatement pStmt = null;
+    		
+    		String sql = "SELECT BLOB from GAMES where ID=?";
+    		pStmt = connection.prepareStatement(sql);
+    		
+    		pStmt.setInt(1, gameID);
+    		
+            ResultSet rs = pStmt.executeQuery();
+            byte[] gameBlob = null;
+            if (rs.next())
+            {
+               gameBlob = rs.getBytes("BLOB");
+            }
+            rs.close();
+            pStmt.close();
+            return gameBlob;
+    	}
+        catch (SQLException e)
+        {
+        	e.printStackTrace();
+        	throw new PersistenceException("GetGame SQLException", e);
+        }
+    }
+
     String mysqlDb;
 }
@@ -4,7 +4,11 @@ import java.io.File;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 import server.Log;
 import server.persistence.ICommandDAO;
@@ -18,9 +22,18 @@ import server.persistence.PersistenceException;
  */
 public class SQLPlugin implements IPersistenceProvider
 {
+	/** How long a transaction waits for the database before giving up, in milliseconds. */
+	private static final long LOCK_TIMEOUT = 30000;
+	
+	/**
+	 * SQLite only lets one connection write at a time, so transactions that write take turns
+	 * here (in the order they asked) rather than failing with a busy database. Transactions
+	 * that only read don't take it; write-ahead logging lets them read alongside a writer.
+	 */
+	private static final ReentrantLock writeLock = new ReentrantLock(true);
+	
 	private Connection connection;
-	private static boolean inUse = false;
-	private static long lastRequested = System.currentTimeMillis();
+	
     /**
      * Initialize sqlite db in plugins/sqlPlugin
      */
@@ -32,6 +45,7 @@ public class SQLPlugin implements IPersistenceProvider
         {
           Class.forName("org.sqlite.JDBC");
           connection = DriverManager.getConnection("jdbc:sqlite:savedata"+File.separator+"sqlite"+File.separator+"db.db");
+          Configure();
           connection.setAutoCommit(false);
         }
         catch ( Exception e )
@@ -39,6 +53,51 @@ public class SQLPlugin implements IPersistenceProvider
           System.err.println(e.getClass().getName() + ": " + e.getMessage());
         }
     }
+    
+    /**
+     * Tunes the connection. Pragmas have to be set outside of a transaction.
+     * @throws SQLException
+     */
+    private void Configure() throws SQLException
+    {
+    	Statement stmt = connection.createStatement();
+    	
+    	//Other processes (and connections) wait for the database instead of failing
+    	stmt.execute("PRAGMA busy_timeout=" + LOCK_TIMEOUT);
+    	
+    	//Write-ahead logging lets readers keep going while a transaction writes. It is
+    	//durable with synchronous=NORMAL, since commits only append to the log. SQLite
+    	//versions before 3.7 don't have it and answer with their current journal mode.
+    	String journal = Query(stmt, "PRAGMA journal_mode=WAL");
+    	if ("wal".equalsIgnoreCase(journal))
+    	{
+    		stmt.execute("PRAGMA synchronous=NORMAL");
+    	}
+    	else
+    	{
+    		Log.GetLog().fine("SQLite " + Query(stmt, "SELECT sqlite_version()") + " has no WAL, using journal mode " + journal);
+    		stmt.execute("PRAGMA synchronous=FULL");
+    	}
+    	
+    	//Lets commands be found (and deleted) per game without scanning every game's
+    	try
+    	{
+    		stmt.execute("CREATE INDEX IF NOT EXISTS COMMANDS_GAME ON COMMANDS (ID)");
+    	}
+    	catch (SQLException e)
+    	{ //the tables haven't been made yet, Clear makes the index with them
+    	}
+    	
+    	stmt.close();
+    }
+    
+    private String Query(Statement stmt, String sql) throws SQLException
+    {
+    	ResultSet rs = stmt.executeQuery(sql);
+    	String result = rs.next() ? rs.getString(1) : null;
+    	rs.close();
+    	return result;
+    }
 
     /**
      * Clears the database, dropping and recreating all tables
@@ -81,9 +140,9 @@ public class SQLPlugin implements IPersistenceProvider
     		String sqlCreateUsers = "CREATE TABLE USERS (ID INTEGER not NULL, " +
     					"USERNAME STRING not NULL, PASSWORD STRING not NULL, PRIMARY KEY (ID))";
     		String sqlCreateGames = "CREATE TABLE GAMES (ID INTEGER not NULL, " + 
-    					"BLOB STRING not NULL, PRIMARY KEY (ID))";
+    					"BLOB BLOB not NULL, PRIMARY KEY (ID))";
     		String sqlCreateCommands = "CREATE TABLE COMMANDS (ID INTEGER not NULL, " + 
-    					"BLOB STRING not NULL)";
+    					"BLOB BLOB not NULL)";
     		
     		pStmtCreateUsers = connection.prepareStatement(sqlCreateUsers);
     		pStmtCreateGames = connection.prepareStatement(sqlCreateGames);
@@ -97,49 +156,46 @@ public class SQLPlugin implements IPersistenceProvider
 			pStmtCreateGames.close();
 			pStmtCreateCommands.close();
 			
+			PreparedStatement pStmtIndexCommands = connection.prepareStatement("CREATE INDEX COMMANDS_GAME ON COMMANDS (ID)");
+			pStmtIndexCommands.execute();
+			pStmtIndexCommands.close();
+			
 			this.EndTransaction(true);
 		}
     	catch (SQLException e)
     	{
 			e.printStackTrace();
-			try 
-			{
-				connection.rollback();
-			}
-			catch (SQLException e1) 
-			{
-				// TODO Auto-generated catch block
-				e1.printStackTrace();
-			}
+			this.EndTransaction(false);
 			throw new PersistenceException("Clear SQLException");
 		}
 	}
 
 	/**
-	 * Starts a transaction (but actually does nothing because SQLite handles that)
+	 * Starts a transaction, waiting until no other transaction is writing
 	 * @throws PersistenceException
 	 */
 	@Override
 	public void StartTransaction() throws PersistenceException
 	{
-		//while someone else is using the system
-		while (SQLPlugin.inUse && SQLPlugin.lastRequested+1000 > System.currentTimeMillis())
+		try 
 		{
-			try 
-			{
-				Log.GetLog().fine("Waiting for SQL Database...");
-				Thread.sleep(1);
-			} 
-			catch (InterruptedException e) 
-			{
-				// TODO Auto-generated catch block
-				e.printStackTrace();
-			}
-			
+			if (!writeLock.tryLock(LOCK_TIMEOUT, TimeUnit.MILLISECONDS))
+				throw new PersistenceException("Timed out waiting for SQL Database");
+		} 
+		catch (InterruptedException e) 
+		{
+			Thread.currentThread().interrupt();
+			throw new PersistenceException("Interrupted waiting for SQL Database", e);
 		}
-		SQLPlugin.lastRequested = System.currentTimeMillis();
-		SQLPlugin.inUse = true;
-		
+	}
+
+	/**
+	 * Starts a transaction that only reads, without waiting for transactions that write
+	 * @throws PersistenceException
+	 */
+	@Override
+	public void StartReadTransaction() throws PersistenceException
+	{
 	}
 
 	/**
@@ -155,26 +211,28 @@ public class SQLPlugin implements IPersistenceProvider
 			if (commit)
 			{
 				connection.commit();
-				//System.out.println("Committed");
 			}
 			else
 			{
 				connection.rollback();
 				System.out.println("Rolled-Back");
 			}
-			SQLPlugin.inUse = false;
-			//connection.close();
-			//System.out.println("Closed");
 		}
 		catch (SQLException e)
 		{
-			System.err.println(e.getClass().getName() + ": " + e.getMessage());
+			throw new PersistenceException("EndTransaction SQLException", e);
+		}
+		finally
+		{
+			if (writeLock.isHeldByCurrentThread())
+				writeLock.unlock();
 		}
 	}
 	
 	/**
 	 * Closes the connection
 	 */
+	@Override
 	public void Close()
 	{
 		try 
@@ -2,7 +2,7 @@ package shared.definitions;
 
 public enum AIType
 {
-	BEGINNER, /*MODERATE, EXPERT,*/ RANDOM, OBNOXIOUS;
+	BEGINNER, /*MODERATE,*/ EXPERT, RANDOM, OBNOXIOUS;
 	
 	public static String toString(AIType type)
 	{
@@ -10,7 +10,7 @@ public enum AIType
 		{
 		case BEGINNER: return "BEGINNER";
 //		case MODERATE: return "MODERATE";
-//		case EXPERT: return "EXPERT";
+		case EXPERT: return "EXPERT";
 
 		case OBNOXIOUS: return "OBNOXIOUS";
 		case RANDOM: 
@@ -26,7 +26,7 @@ public enum AIType
 		{
 		case "BEGINNER": return BEGINNER;
 //		case "MODERATE": return MODERATE;
-//		case "EXPERT": return EXPERT;		
+		case "EXPERT": return EXPERT;		
 		case "OBNOXIOUS": return OBNOXIOUS;
 		case "RANDOM": 
 		default:
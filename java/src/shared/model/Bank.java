@@ -1,13 +1,20 @@
 package shared.model;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
 import shared.definitions.DevCardType;
 import shared.definitions.PieceType;
 import shared.definitions.ResourceType;
+import shared.networking.ModelAdapterFactory;
 
 /**
  * The bank class holds resource cards, game pieces, and dev cards
@@ -691,5 +698,83 @@ public class Bank implements Serializable
 		
 	}
 
-	
+	/**
+	 * Writes and reads banks without reflection.
+	 */
+	public static class Adapter extends TypeAdapter<Bank>
+	{
+		@Override
+		public void write(JsonWriter out, Bank bank) throws IOException
+		{
+			if (bank == null)
+			{
+				out.nullValue();
+				return;
+			}
+
+			out.beginObject();
+			out.name("resources");
+			ModelAdapterFactory.WriteIntArray(out, bank.resources);
+			out.name("devCards");
+			ModelAdapterFactory.WriteIntArray(out, bank.devCards);
+			out.name("pieces");
+			ModelAdapterFactory.WriteIntArray(out, bank.pieces);
+			out.name("numberResourceTypes").value(bank.numberResourceTypes);
+			out.name("numberDevCardTypes").value(bank.numberDevCardTypes);
+			out.name("numberPieceTypes").value(bank.numberPieceTypes);
+			out.name("solidersInPlay").value(bank.solidersInPlay);
+			out.name("newDevCards");
+			ModelAdapterFactory.WriteIntArray(out, bank.newDevCards);
+			out.endObject();
+		}
+
+		@Override
+		public Bank read(JsonReader in) throws IOException
+		{
+			if (in.peek() == JsonToken.NULL)
+			{
+				in.nextNull();
+				return null;
+			}
+
+			Bank bank = new Bank();
+
+			in.beginObject();
+			while (in.hasNext())
+			{
+				switch (in.nextName())
+				{
+				case "resources":
+					bank.resources = ModelAdapterFactory.ReadIntArray(in);
+					break;
+				case "devCards":
+					bank.devCards = ModelAdapterFactory.ReadIntArray(in);
+					break;
+				case "pieces":
+					bank.pieces = ModelAdapterFactory.ReadIntArray(in);
+					break;
+				case "numberResourceTypes":
+					bank.numberResourceTypes = ModelAdapterFactory.ReadInt(in, bank.numberResourceTypes);
+					break;
+				case "numberDevCardTypes":
+					bank.numberDevCardTypes = ModelAdapterFactory.ReadInt(in, bank.numberDevCardTypes);
+					break;
+				case "numberPieceTypes":
+					bank.numberPieceTypes = ModelAdapterFactory.ReadInt(in, bank.numberPieceTypes);
+					break;
+				case "solidersInPlay":
+					bank.solidersInPlay = ModelAdapterFactory.ReadInt(in, bank.solidersInPlay);
+					break;
+				case "newDevCards":
+					bank.newDevCards = ModelAdapterFactory.ReadIntArray(in);
+					break;
+				default:
+					in.skipValue();
+				}
+			}
+			in.endObject();
+
+			return bank;
+		}
+	}
 }
@@ -1,10 +1,19 @@
 package shared.model;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.List;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
 import shared.model.chat.ChatBox;
 import shared.model.map.model.MapModel;
+import shared.networking.ModelAdapterFactory;
 
 /**
  * A simple data holder for communication between ServerProxy and GameManager
@@ -24,4 +33,118 @@ public class GameModel implements Serializable
 	public GameActionLog log;
 	public int version;
 	public OfferedTrade trade;
+
+	/**
+	 * Writes and reads game models without reflection. The parts of the model without an adapter
+	 * of their own (e.g. the players) are still handled by reflection.
+	 */
+	public static class Adapter extends TypeAdapter<GameModel>
+	{
+		private final TypeAdapter<MapModel> maps;
+		private final TypeAdapter<GameState> states;
+		private final TypeAdapter<Bank> banks;
+		private final TypeAdapter<List<Player>> players;
+		private final TypeAdapter<VictoryPointManager> points;
+		private final TypeAdapter<ChatBox> chats;
+		private final TypeAdapter<GameActionLog> logs;
+		private final TypeAdapter<OfferedTrade> trades;
+
+		public Adapter(Gson gson)
+		{
+			maps = gson.getAdapter(MapModel.class);
+			states = gson.getAdapter(GameState.class);
+			banks = gson.getAdapter(Bank.class);
+			players = gson.getAdapter(new TypeToken<List<Player>>(){});
+			points = gson.getAdapter(VictoryPointManager.class);
+			chats = gson.getAdapter(ChatBox.class);
+			logs = gson.getAdapter(GameActionLog.class);
+			trades = gson.getAdapter(OfferedTrade.class);
+		}
+
+		@Override
+		public void write(JsonWriter out, GameModel model) throws IOException
+		{
+			if (model == null)
+			{
+				out.nullValue();
+				return;
+			}
+
+			out.beginObject();
+			out.name("gameID").value(model.gameID);
+			out.name("mapModel");
+			maps.write(out, model.mapModel);
+			out.name("gameState");
+			states.write(out, model.gameState);
+			out.name("gameBank");
+			banks.write(out, model.gameBank);
+			out.name("players");
+			players.write(out, model.players);
+			out.name("victoryPointManager");
+			points.write(out, model.victoryPointManager);
+			out.name("waterCooler");
+			chats.write(out, model.waterCooler);
+			out.name("log");
+			logs.write(out, model.log);
+			out.name("version").value(model.version);
+			out.name("trade");
+			trades.write(out, model.trade);
+			out.endObject();
+		}
+
+		@Override
+		public GameModel read(JsonReader in) throws IOException
+		{
+			if (in.peek() == JsonToken.NULL)
+			{
+				in.nextNull();
+				return null;
+			}
+
+			GameModel model = new GameModel();
+
+			in.beginObject();
+			while (in.hasNext())
+			{
+				switch (in.nextName())
+				{
+				case "gameID":
+					model.gameID = ModelAdapterFactory.ReadInt(in, model.gameID);
+					break;
+				case "mapModel":
+					model.mapModel = maps.read(in);
+					break;
+				case "gameState":
+					model.gameState = states.read(in);
+					break;
+				case "gameBank":
+					model.gameBank = banks.read(in);
+					break;
+				case "players":
+					model.players = players.read(in);
+					break;
+				case "victoryPointManager":
+					model.victoryPointManager = points.read(in);
+					break;
+				case "waterCooler":
+					model.waterCooler = chats.read(in);
+					break;
+				case "log":
+					model.log = logs.read(in);
+					break;
+				case "version":
+					model.version = ModelAdapterFactory.ReadInt(in, model.version);
+					break;
+				case "trade":
+					model.trade = trades.read(in);
+					break;
+				default:
+					in.skipValue();
+				}
+			}
+			in.endObject();
+
+			return model;
+		}
+	}
 }
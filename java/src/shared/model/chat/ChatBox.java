@@ -1,9 +1,17 @@
 package shared.model.chat;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import shared.networking.ModelAdapterFactory;
+
 /**
  * Stores the chat messages for different players. Should probably extend an immutable list
  * @author matthewcarlson
@@ -62,4 +70,117 @@ public class ChatBox implements Serializable
 		if (messages.size() == 0) return -1;
 		return messages.get(messages.size() - 1).playerId;
 	}
+
+	/**
+	 * Writes and reads chat boxes, and the messages in them, without reflection.
+	 */
+	public static class Adapter extends TypeAdapter<ChatBox>
+	{
+		@Override
+		public void write(JsonWriter out, ChatBox box) throws IOException
+		{
+			if (box == null)
+			{
+				out.nullValue();
+				return;
+			}
+
+			out.beginObject();
+			out.name("messages");
+			if (box.messages == null)
+				out.nullValue();
+			else
+			{
+				out.beginArray();
+				for (ChatMessage message : box.messages)
+					WriteMessage(out, message);
+				out.endArray();
+			}
+			out.endObject();
+		}
+
+		@Override
+		public ChatBox read(JsonReader in) throws IOException
+		{
+			if (in.peek() == JsonToken.NULL)
+			{
+				in.nextNull();
+				return null;
+			}
+
+			ChatBox box = new ChatBox();
+
+			in.beginObject();
+			while (in.hasNext())
+			{
+				if (!in.nextName().equals("messages"))
+					in.skipValue();
+				else if (in.peek() == JsonToken.NULL)
+				{
+					in.nextNull();
+					box.messages = null;
+				}
+				else
+				{
+					box.messages = new ArrayList<ChatMessage>();
+					in.beginArray();
+					while (in.hasNext())
+						box.messages.add(ReadMessage(in));
+					in.endArray();
+				}
+			}
+			in.endObject();
+
+			return box;
+		}
+
+		private void WriteMessage(JsonWriter out, ChatMessage message) throws IOException
+		{
+			if (message == null)
+			{
+				out.nullValue();
+				return;
+			}
+
+			out.beginObject();
+			out.name("playerId").value(message.playerId);
+			out.name("message").value(message.message);
+			out.name("timestamp").value(message.timestamp);
+			out.endObject();
+		}
+
+		private ChatMessage ReadMessage(JsonReader in) throws IOException
+		{
+			if (in.peek() == JsonToken.NULL)
+			{
+				in.nextNull();
+				return null;
+			}
+
+			//Set the fields directly, so the player ID isn't checked and the time isn't now
+			ChatMessage message = new ChatMessage(0, null, 0);
+
+			in.beginObject();
+			while (in.hasNext())
+			{
+				switch (in.nextName())
+				{
+				case "playerId":
+					message.playerId = ModelAdapterFactory.ReadInt(in, message.playerId);
+					break;
+				case "message":
+					message.message = ModelAdapterFactory.ReadString(in);
+					break;
+				case "timestamp":
+					message.timestamp = ModelAdapterFactory.ReadLong(in, message.timestamp);
+					break;
+				default:
+					in.skipValue();
+				}
+			}
+			in.endObject();
+
+			return message;
+		}
+	}
 }
@@ -1,7 +1,15 @@
 package shared.model.map;
 
+import java.io.IOException;
 import java.io.Serializable;
 
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import shared.networking.ModelAdapterFactory;
+
 /**
  * Stores a X, Y coordinate pair.
  * @author Jonathan Sadler
@@ -163,4 +171,57 @@ public class Coordinate implements Serializable
 	{
 		return "(" + x + "," + y + ")";
 	}
+
+	/**
+	 * Writes and reads coordinates without reflection.
+	 */
+	public static class Adapter extends TypeAdapter<Coordinate>
+	{
+		@Override
+		public void write(JsonWriter out, Coordinate point) throws IOException
+		{
+			if (point == null)
+			{
+				out.nullValue();
+				return;
+			}
+
+			out.beginObject();
+			out.name("x").value(point.x);
+			out.name("y").value(point.y);
+			out.endObject();
+		}
+
+		@Override
+		public Coordinate read(JsonReader in) throws IOException
+		{
+			if (in.peek() == JsonToken.NULL)
+			{
+				in.nextNull();
+				return null;
+			}
+
+			int x = 0;
+			int y = 0;
+
+			in.beginObject();
+			while (in.hasNext())
+			{
+				switch (in.nextName())
+				{
+				case "x":
+					x = ModelAdapterFactory.ReadInt(in, x);
+					break;
+				case "y":
+					y = ModelAdapterFactory.ReadInt(in, y);
+					break;
+				default:
+					in.skipValue();
+				}
+			}
+			in.endObject();
+
+			return new Coordinate(x, y);
+		}
+	}
 }
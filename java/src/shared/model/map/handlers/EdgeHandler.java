@@ -1,13 +1,21 @@
 package shared.model.map.handlers;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
 import shared.definitions.CatanColor;
 import shared.model.map.*;
 import shared.model.map.objects.Edge;
+import shared.networking.ModelAdapterFactory;
 
 /**
  * Stores and manages the edges contained in a map.
@@ -74,6 +82,15 @@ public class EdgeHandler implements Serializable
 		}
 	}
 	
+	/**
+	 * Creates a EdgeHandler object holding edges that were already made, e.g. read from JSON.
+	 * @param edges The edges, by key.
+	 */
+	private EdgeHandler(Map<Integer, Edge> edges)
+	{
+		this.edges = edges;
+	}
+	
 	/**
 	 * Determines if an edge exists. Point order doesn't matter.
 	 * @param p1 The coordinate of the first end point.
@@ -186,4 +203,57 @@ public class EdgeHandler implements Serializable
 			return false;
 		return true;
 	}
+
+	/**
+	 * Writes and reads the handler without reflection or building the map as a JSON tree first.
+	 */
+	public static class Adapter extends TypeAdapter<EdgeHandler>
+	{
+		private final TypeAdapter<Edge> edges;
+
+		public Adapter(Gson gson)
+		{
+			edges = gson.getAdapter(Edge.class);
+		}
+
+		@Override
+		public void write(JsonWriter out, EdgeHandler handler) throws IOException
+		{
+			if (handler == null)
+			{
+				out.nullValue();
+				return;
+			}
+
+			out.beginObject();
+			out.name("edges");
+			ModelAdapterFactory.WriteMap(out, handler.edges, edges);
+			out.endObject();
+		}
+
+		@Override
+		public EdgeHandler read(JsonReader in) throws IOException
+		{
+			if (in.peek() == JsonToken.NULL)
+			{
+				in.nextNull();
+				return null;
+			}
+
+			Map<Integer, Edge> read = null;
+
+			in.beginObject();
+			while (in.hasNext())
+			{
+				if (in.nextName().equals("edges"))
+					read = ModelAdapterFactory.ReadMap(in, edges);
+				else
+					in.skipValue();
+			}
+			in.endObject();
+
+			//The default constructor builds the whole board, so it's only used if nothing was read
+			return read != null ? new EdgeHandler(read) : new EdgeHandler();
+		}
+	}
 }
@@ -1,12 +1,20 @@
 package shared.model.map.handlers;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
 import shared.model.map.*;
 import shared.model.map.objects.Hex;
+import shared.networking.ModelAdapterFactory;
 
 /**
  * Stores and manages the hexes contained in a map.
@@ -154,4 +162,56 @@ public class HexHandler implements Serializable
 			return false;
 		return true;
 	}
+
+	/**
+	 * Writes and reads the handler without reflection or building the map as a JSON tree first.
+	 */
+	public static class Adapter extends TypeAdapter<HexHandler>
+	{
+		private final TypeAdapter<Hex> hexes;
+
+		public Adapter(Gson gson)
+		{
+			hexes = gson.getAdapter(Hex.class);
+		}
+
+		@Override
+		public void write(JsonWriter out, HexHandler handler) throws IOException
+		{
+			if (handler == null)
+			{
+				out.nullValue();
+				return;
+			}
+
+			out.beginObject();
+			out.name("hexes");
+			ModelAdapterFactory.WriteMap(out, handler.hexes, hexes);
+			out.endObject();
+		}
+
+		@Override
+		public HexHandler read(JsonReader in) throws IOException
+		{
+			if (in.peek() == JsonToken.NULL)
+			{
+				in.nextNull();
+				return null;
+			}
+
+			HexHandler handler = new HexHandler();
+
+			in.beginObject();
+			while (in.hasNext())
+			{
+				if (in.nextName().equals("hexes"))
+					handler.hexes = ModelAdapterFactory.ReadMap(in, hexes);
+				else
+					in.skipValue();
+			}
+			in.endObject();
+
+			return handler;
+		}
+	}
 }
@@ -1,13 +1,21 @@
 package shared.model.map.handlers;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
 import shared.definitions.*;
 import shared.model.map.*;
 import shared.model.map.objects.Vertex;
+import shared.networking.ModelAdapterFactory;
 
 /**
  * Stores and manages the vertices found in a map.
@@ -41,6 +49,15 @@ public class VertexHandler implements Serializable
 		}
 	}
 	
+	/**
+	 * Creates a VertexHandler object holding vertices that were already made, e.g. read from JSON.
+	 * @param verticies The vertices, by key.
+	 */
+	private VertexHandler(Map<Integer, Vertex> verticies)
+	{
+		this.verticies = verticies;
+	}
+	
 	/**
 	 * Determines if there is a vertex associated with the coordinate.
 	 * @param point The coordinate to check.
@@ -144,4 +161,57 @@ public class VertexHandler implements Serializable
 			return false;
 		return true;
 	}
+
+	/**
+	 * Writes and reads the handler without reflection or building the map as a JSON tree first.
+	 */
+	public static class Adapter extends TypeAdapter<VertexHandler>
+	{
+		private final TypeAdapter<Vertex> vertices;
+
+		public Adapter(Gson gson)
+		{
+			vertices = gson.getAdapter(Vertex.class);
+		}
+
+		@Override
+		public void write(JsonWriter out, VertexHandler handler) throws IOException
+		{
+			if (handler == null)
+			{
+				out.nullValue();
+				return;
+			}
+
+			out.beginObject();
+			out.name("verticies");
+			ModelAdapterFactory.WriteMap(out, handler.verticies, vertices);
+			out.endObject();
+		}
+
+		@Override
+		public VertexHandler read(JsonReader in) throws IOException
+		{
+			if (in.peek() == JsonToken.NULL)
+			{
+				in.nextNull();
+				return null;
+			}
+
+			Map<Integer, Vertex> read = null;
+
+			in.beginObject();
+			while (in.hasNext())
+			{
+				if (in.nextName().equals("verticies"))
+					read = ModelAdapterFactory.ReadMap(in, vertices);
+				else
+					in.skipValue();
+			}
+			in.endObject();
+
+			//The default constructor builds the whole board, so it's only used if nothing was read
+			return read != null ? new VertexHandler(read) : new VertexHandler();
+		}
+	}
 }
@@ -1,18 +1,27 @@
 package shared.model.map.model;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Map;
 import java.util.Set;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
 import shared.definitions.*;
 import shared.model.map.*;
 import shared.model.map.handlers.*;
 import shared.model.map.objects.*;
+import shared.networking.ModelAdapterFactory;
 
 /**
  * The Map Model stores all information about the map. This data includes information
@@ -42,15 +51,23 @@ public class MapModel implements IMapModel
 	 * Creates a new Map Model object.
 	 */
 	MapModel()
+	{
+		this(new HexHandler(), new EdgeHandler(), new VertexHandler(), new PortHandler());
+	}
+	
+	/**
+	 * Creates a Map Model object from handlers that were already made, e.g. read from JSON.
+	 */
+	private MapModel(HexHandler hexes, EdgeHandler edges, VertexHandler vertices, PortHandler ports)
 	{
 		setup = false;
 		
 		values = new HashMap<Integer, List<Hex>>();
 		
-		hexes = new HexHandler();
-		edges = new EdgeHandler();
-		vertices = new VertexHandler();
-		ports = new PortHandler();
+		this.hexes = hexes;
+		this.edges = edges;
+		this.vertices = vertices;
+		this.ports = ports;
 		
 		longestRoadColor = null;
 	}
@@ -98,6 +115,20 @@ public class MapModel implements IMapModel
 	
 	@Override
 	public boolean CanPlaceRoad(Coordinate p1, Coordinate p2, CatanColor color)
+	{
+		return CanPlaceRoad(p1, p2, color, setup);
+	}
+	
+	/**
+	 * Returns if a road can be placed, by the setup rules or not, whatever phase the map was
+	 * last put in. Lets the map be checked without changing it.
+	 * @param p1 The start of the road.
+	 * @param p2 The end of the road.
+	 * @param color The color of the road.
+	 * @param setup Whether the setup rules apply.
+	 * @return True if yes, else false.
+	 */
+	public boolean CanPlaceRoad(Coordinate p1, Coordinate p2, CatanColor color, boolean setup)
 	{	
 		try
 		{
@@ -130,6 +161,19 @@ public class MapModel implements IMapModel
 	
 	@Override
 	public boolean CanPlaceSettlement(Coordinate point, CatanColor color)
+	{
+		return CanPlaceSettlement(point, color, setup);
+	}
+	
+	/**
+	 * Returns if a settlement can be placed, by the setup rules or not, whatever phase the map
+	 * was last put in. Lets the map be checked without changing it.
+	 * @param point The point of placement.
+	 * @param color The color of the piece being placed.
+	 * @param setup Whether the setup rules apply.
+	 * @return True if yes, else false.
+	 */
+	public boolean CanPlaceSettlement(Coordinate point, CatanColor color, boolean setup)
 	{
 		try
 		{
@@ -759,5 +803,126 @@ public class MapModel implements IMapModel
 		return true;
 	}
 
-	
+	/**
+	 * Writes and reads map models without reflection. Ports and the robber are still handled by
+	 * reflection.
+	 */
+	public static class Adapter extends TypeAdapter<MapModel>
+	{
+		private final TypeAdapter<List<Hex>> pips;
+		private final TypeAdapter<HexHandler> hexes;
+		private final TypeAdapter<EdgeHandler> edges;
+		private final TypeAdapter<VertexHandler> vertices;
+		private final TypeAdapter<PortHandler> ports;
+		private final TypeAdapter<CatanColor> colors;
+		private final TypeAdapter<Robber> robbers;
+
+		public Adapter(Gson gson)
+		{
+			pips = gson.getAdapter(new TypeToken<List<Hex>>(){});
+			hexes = gson.getAdapter(HexHandler.class);
+			edges = gson.getAdapter(EdgeHandler.class);
+			vertices = gson.getAdapter(VertexHandler.class);
+			ports = gson.getAdapter(PortHandler.class);
+			colors = gson.getAdapter(CatanColor.class);
+			robbers = gson.getAdapter(Robber.class);
+		}
+
+		@Override
+		public void write(JsonWriter out, MapModel map) throws IOException
+		{
+			if (map == null)
+			{
+				out.nullValue();
+				return;
+			}
+
+			out.beginObject();
+			out.name("setup").value(map.setup);
+			out.name("values");
+			ModelAdapterFactory.WriteMap(out, map.values, pips);
+			out.name("hexes");
+			hexes.write(out, map.hexes);
+			out.name("edges");
+			edges.write(out, map.edges);
+			out.name("vertices");
+			vertices.write(out, map.vertices);
+			out.name("ports");
+			ports.write(out, map.ports);
+			out.name("longestRoadColor");
+			colors.write(out, map.longestRoadColor);
+			out.name("robber");
+			robbers.write(out, map.robber);
+			out.endObject();
+		}
+
+		@Override
+		public MapModel read(JsonReader in) throws IOException
+		{
+			if (in.peek() == JsonToken.NULL)
+			{
+				in.nextNull();
+				return null;
+			}
+
+			boolean setup = false;
+			Map<Integer, List<Hex>> values = null;
+			HexHandler hexHandler = null;
+			EdgeHandler edgeHandler = null;
+			VertexHandler vertexHandler = null;
+			PortHandler portHandler = null;
+			CatanColor longestRoadColor = null;
+			Robber robber = null;
+
+			in.beginObject();
+			while (in.hasNext())
+			{
+				switch (in.nextName())
+				{
+				case "setup":
+					setup = ModelAdapterFactory.ReadBoolean(in, setup);
+					break;
+				case "values":
+					values = ModelAdapterFactory.ReadMap(in, pips);
+					break;
+				case "hexes":
+					hexHandler = hexes.read(in);
+					break;
+				case "edges":
+					edgeHandler = edges.read(in);
+					break;
+				case "vertices":
+					vertexHandler = vertices.read(in);
+					break;
+				case "ports":
+					portHandler = ports.read(in);
+					break;
+				case "longestRoadColor":
+					longestRoadColor = colors.read(in);
+					break;
+				case "robber":
+					robber = robbers.read(in);
+					break;
+				default:
+					in.skipValue();
+				}
+			}
+			in.endObject();
+
+			//Anything that wasn't read is made the way the default constructor makes it
+			MapModel map = new MapModel(
+					hexHandler != null ? hexHandler : new HexHandler(),
+					edgeHandler != null ? edgeHandler : new EdgeHandler(),
+					vertexHandler != null ? vertexHandler : new VertexHandler(),
+					portHandler != null ? portHandler : new PortHandler());
+
+			map.setup = setup;
+			if (values != null)
+				map.values = values;
+			map.longestRoadColor = longestRoadColor;
+			map.robber = robber;
+
+			return map;
+		}
+	}
 }
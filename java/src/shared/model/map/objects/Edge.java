@@ -1,9 +1,17 @@
 package shared.model.map.objects;
 
+import java.io.IOException;
 import java.io.Serializable;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
 import shared.definitions.CatanColor;
 import shared.model.map.Coordinate;
+import shared.networking.ModelAdapterFactory;
 
 /**
  * Used to store information about an edge.
@@ -186,4 +194,76 @@ public class Edge implements Serializable
 		
 		return true;
 	}
+
+	/**
+	 * Writes and reads edges without reflection.
+	 */
+	public static class Adapter extends TypeAdapter<Edge>
+	{
+		private final TypeAdapter<Coordinate> points;
+		private final TypeAdapter<CatanColor> colors;
+
+		public Adapter(Gson gson)
+		{
+			points = gson.getAdapter(Coordinate.class);
+			colors = gson.getAdapter(CatanColor.class);
+		}
+
+		@Override
+		public void write(JsonWriter out, Edge edge) throws IOException
+		{
+			if (edge == null)
+			{
+				out.nullValue();
+				return;
+			}
+
+			out.beginObject();
+			out.name("start");
+			points.write(out, edge.start);
+			out.name("end");
+			points.write(out, edge.end);
+			out.name("roadExists").value(edge.roadExists);
+			out.name("color");
+			colors.write(out, edge.color);
+			out.endObject();
+		}
+
+		@Override
+		public Edge read(JsonReader in) throws IOException
+		{
+			if (in.peek() == JsonToken.NULL)
+			{
+				in.nextNull();
+				return null;
+			}
+
+			Edge edge = new Edge(null, null);
+
+			in.beginObject();
+			while (in.hasNext())
+			{
+				switch (in.nextName())
+				{
+				case "start":
+					edge.start = points.read(in);
+					break;
+				case "end":
+					edge.end = points.read(in);
+					break;
+				case "roadExists":
+					edge.roadExists = ModelAdapterFactory.ReadBoolean(in, edge.roadExists);
+					break;
+				case "color":
+					edge.color = colors.read(in);
+					break;
+				default:
+					in.skipValue();
+				}
+			}
+			in.endObject();
+
+			return edge;
+		}
+	}
 }
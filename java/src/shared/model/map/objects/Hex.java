@@ -1,7 +1,14 @@
 package shared.model.map.objects;
 
+import java.io.IOException;
 import java.io.Serializable;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
 import shared.definitions.HexType;
 import shared.definitions.PortType;
 import shared.model.map.*;
@@ -150,4 +157,76 @@ public class Hex implements Serializable
 	{
 		return type.toString() + "-" + point.toString(); 
 	}
+
+	/**
+	 * Writes and reads hexes without reflection.
+	 */
+	public static class Adapter extends TypeAdapter<Hex>
+	{
+		private final TypeAdapter<HexType> types;
+		private final TypeAdapter<Coordinate> points;
+		private final TypeAdapter<PortType> ports;
+
+		public Adapter(Gson gson)
+		{
+			types = gson.getAdapter(HexType.class);
+			points = gson.getAdapter(Coordinate.class);
+			ports = gson.getAdapter(PortType.class);
+		}
+
+		@Override
+		public void write(JsonWriter out, Hex hex) throws IOException
+		{
+			if (hex == null)
+			{
+				out.nullValue();
+				return;
+			}
+
+			out.beginObject();
+			out.name("type");
+			types.write(out, hex.type);
+			out.name("point");
+			points.write(out, hex.point);
+			out.name("port");
+			ports.write(out, hex.port);
+			out.endObject();
+		}
+
+		@Override
+		public Hex read(JsonReader in) throws IOException
+		{
+			if (in.peek() == JsonToken.NULL)
+			{
+				in.nextNull();
+				return null;
+			}
+
+			//Without a default constructor, reflection leaves missing fields null
+			Hex hex = new Hex(null, null);
+			hex.port = null;
+
+			in.beginObject();
+			while (in.hasNext())
+			{
+				switch (in.nextName())
+				{
+				case "type":
+					hex.type = types.read(in);
+					break;
+				case "point":
+					hex.point = points.read(in);
+					break;
+				case "port":
+					hex.port = ports.read(in);
+					break;
+				default:
+					in.skipValue();
+				}
+			}
+			in.endObject();
+
+			return hex;
+		}
+	}
 }
@@ -1,7 +1,14 @@
 package shared.model.map.objects;
 
+import java.io.IOException;
 import java.io.Serializable;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
 import shared.definitions.*;
 import shared.model.map.Coordinate;
 
@@ -114,5 +121,77 @@ public class Vertex implements Serializable
 	public String toString()
 	{
 		return "Vertex-" + point.toString();
-	}	
+	}
+
+	/**
+	 * Writes and reads vertices without reflection.
+	 */
+	public static class Adapter extends TypeAdapter<Vertex>
+	{
+		private final TypeAdapter<Coordinate> points;
+		private final TypeAdapter<PieceType> types;
+		private final TypeAdapter<CatanColor> colors;
+
+		public Adapter(Gson gson)
+		{
+			points = gson.getAdapter(Coordinate.class);
+			types = gson.getAdapter(PieceType.class);
+			colors = gson.getAdapter(CatanColor.class);
+		}
+
+		@Override
+		public void write(JsonWriter out, Vertex vertex) throws IOException
+		{
+			if (vertex == null)
+			{
+				out.nullValue();
+				return;
+			}
+
+			out.beginObject();
+			out.name("point");
+			points.write(out, vertex.point);
+			out.name("type");
+			types.write(out, vertex.type);
+			out.name("color");
+			colors.write(out, vertex.color);
+			out.endObject();
+		}
+
+		@Override
+		public Vertex read(JsonReader in) throws IOException
+		{
+			if (in.peek() == JsonToken.NULL)
+			{
+				in.nextNull();
+				return null;
+			}
+
+			//Without a default constructor, reflection leaves missing fields null
+			Vertex vertex = new Vertex(null);
+			vertex.type = null;
+
+			in.beginObject();
+			while (in.hasNext())
+			{
+				switch (in.nextName())
+				{
+				case "point":
+					vertex.point = points.read(in);
+					break;
+				case "type":
+					vertex.type = types.read(in);
+					break;
+				case "color":
+					vertex.color = colors.read(in);
+					break;
+				default:
+					in.skipValue();
+				}
+			}
+			in.endObject();
+
+			return vertex;
+		}
+	}
 }
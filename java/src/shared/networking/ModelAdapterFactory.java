@@ -0,0 +1,296 @@
+package shared.networking;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import shared.model.Bank;
+import shared.model.GameModel;
+import shared.model.chat.ChatBox;
+import shared.model.map.Coordinate;
+import shared.model.map.handlers.EdgeHandler;
+import shared.model.map.handlers.HexHandler;
+import shared.model.map.handlers.VertexHandler;
+import shared.model.map.model.MapModel;
+import shared.model.map.objects.Edge;
+import shared.model.map.objects.Hex;
+import shared.model.map.objects.Vertex;
+
+/**
+ * Gives Gson hand-written adapters for the game model, so the model is written and read field
+ * by field instead of through reflection.
+ * <br/>Each adapter writes exactly what reflective Gson would: the fields in the order they're
+ * declared, null fields left out and maps keyed by int written as objects keyed by the number.
+ * Classes without an adapter here (e.g. players) are still handled by reflection.
+ */
+public class ModelAdapterFactory implements TypeAdapterFactory
+{
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type)
+	{
+		Class<? super T> raw = type.getRawType();
+		TypeAdapter<?> adapter;
+
+		if (raw == GameModel.class)
+			adapter = new GameModel.Adapter(gson);
+		else if (raw == MapModel.class)
+			adapter = new MapModel.Adapter(gson);
+		else if (raw == HexHandler.class)
+			adapter = new HexHandler.Adapter(gson);
+		else if (raw == EdgeHandler.class)
+			adapter = new EdgeHandler.Adapter(gson);
+		else if (raw == VertexHandler.class)
+			adapter = new VertexHandler.Adapter(gson);
+		else if (raw == Hex.class)
+			adapter = new Hex.Adapter(gson);
+		else if (raw == Edge.class)
+			adapter = new Edge.Adapter(gson);
+		else if (raw == Vertex.class)
+			adapter = new Vertex.Adapter(gson);
+		else if (raw == Coordinate.class)
+			adapter = new Coordinate.Adapter();
+		else if (raw == Bank.class)
+			adapter = new Bank.Adapter();
+		else if (raw == ChatBox.class)
+			adapter = new ChatBox.Adapter();
+		else
+			return null;
+
+		return (TypeAdapter<T>)adapter;
+	}
+
+	/**
+	 * Reads an int field. A null leaves the field as it was, as it does with reflection.
+	 * @param in The reader, at the field's value.
+	 * @param current The field's current value.
+	 * @return The field's new value.
+	 * @throws IOException Thrown if the value isn't a number.
+	 */
+	public static int ReadInt(JsonReader in, int current) throws IOException
+	{
+		if (in.peek() == JsonToken.NULL)
+		{
+			in.nextNull();
+			return current;
+		}
+
+		try
+		{
+			return in.nextInt();
+		}
+		catch (NumberFormatException e)
+		{
+			throw new JsonSyntaxException(e);
+		}
+	}
+
+	/**
+	 * Reads a long field. A null leaves the field as it was, as it does with reflection.
+	 * @param in The reader, at the field's value.
+	 * @param current The field's current value.
+	 * @return The field's new value.
+	 * @throws IOException Thrown if the value isn't a number.
+	 */
+	public static long ReadLong(JsonReader in, long current) throws IOException
+	{
+		if (in.peek() == JsonToken.NULL)
+		{
+			in.nextNull();
+			return current;
+		}
+
+		try
+		{
+			return in.nextLong();
+		}
+		catch (NumberFormatException e)
+		{
+			throw new JsonSyntaxException(e);
+		}
+	}
+
+	/**
+	 * Reads a boolean field. A null leaves the field as it was, as it does with reflection.
+	 * @param in The reader, at the field's value.
+	 * @param current The field's current value.
+	 * @return The field's new value.
+	 * @throws IOException Thrown if the value can't be read.
+	 */
+	public static boolean ReadBoolean(JsonReader in, boolean current) throws IOException
+	{
+		switch (in.peek())
+		{
+		case NULL:
+			in.nextNull();
+			return current;
+		case STRING:
+			return Boolean.parseBoolean(in.nextString());
+		default:
+			return in.nextBoolean();
+		}
+	}
+
+	/**
+	 * Reads a string field.
+	 * @param in The reader, at the field's value.
+	 * @return The string, or null.
+	 * @throws IOException Thrown if the value can't be read.
+	 */
+	public static String ReadString(JsonReader in) throws IOException
+	{
+		switch (in.peek())
+		{
+		case NULL:
+			in.nextNull();
+			return null;
+		case BOOLEAN:
+			return Boolean.toString(in.nextBoolean());
+		default:
+			return in.nextString();
+		}
+	}
+
+	/**
+	 * Writes an int array.
+	 * @param out The writer.
+	 * @param array The array, or null.
+	 * @throws IOException Thrown if the array can't be written.
+	 */
+	public static void WriteIntArray(JsonWriter out, int[] array) throws IOException
+	{
+		if (array == null)
+		{
+			out.nullValue();
+			return;
+		}
+
+		out.beginArray();
+		for (int value : array)
+			out.value(value);
+		out.endArray();
+	}
+
+	/**
+	 * Reads an int array.
+	 * @param in The reader, at the array.
+	 * @return The array, or null.
+	 * @throws IOException Thrown if the array can't be read.
+	 */
+	public static int[] ReadIntArray(JsonReader in) throws IOException
+	{
+		if (in.peek() == JsonToken.NULL)
+		{
+			in.nextNull();
+			return null;
+		}
+
+		int[] array = new int[8];
+		int size = 0;
+
+		in.beginArray();
+		while (in.hasNext())
+		{
+			if (size == array.length)
+				array = Arrays.copyOf(array, size * 2);
+			array[size++] = ReadInt(in, 0);
+		}
+		in.endArray();
+
+		return Arrays.copyOf(array, size);
+	}
+
+	/**
+	 * Writes a map keyed by int as an object whose names are the keys.
+	 * @param out The writer.
+	 * @param map The map, or null.
+	 * @param values Writes the map's values.
+	 * @throws IOException Thrown if the map can't be written.
+	 */
+	public static <V> void WriteMap(JsonWriter out, Map<Integer, V> map, TypeAdapter<V> values) throws IOException
+	{
+		if (map == null)
+		{
+			out.nullValue();
+			return;
+		}
+
+		out.beginObject();
+		for (Map.Entry<Integer, V> entry : map.entrySet())
+		{
+			out.name(String.valueOf(entry.getKey()));
+			values.write(out, entry.getValue());
+		}
+		out.endObject();
+	}
+
+	/**
+	 * Reads a map keyed by int. The map keeps the order it was written in, so it is written the
+	 * same way again. Maps written as arrays of key and value pairs are read too.
+	 * @param in The reader, at the map.
+	 * @param values Reads the map's values.
+	 * @return The map, or null.
+	 * @throws IOException Thrown if the map can't be read or has a key twice.
+	 */
+	public static <V> Map<Integer, V> ReadMap(JsonReader in, TypeAdapter<V> values) throws IOException
+	{
+		JsonToken token = in.peek();
+		if (token == JsonToken.NULL)
+		{
+			in.nextNull();
+			return null;
+		}
+
+		Map<Integer, V> map = new LinkedHashMap<Integer, V>();
+
+		if (token == JsonToken.BEGIN_ARRAY)
+		{
+			in.beginArray();
+			while (in.hasNext())
+			{
+				in.beginArray();
+				Put(map, ReadInt(in, 0), values.read(in));
+				in.endArray();
+			}
+			in.endArray();
+		}
+		else
+		{
+			in.beginObject();
+			while (in.hasNext())
+			{
+				String name = in.nextName();
+				int key;
+				try
+				{
+					key = Integer.parseInt(name);
+				}
+				catch (NumberFormatException e)
+				{
+					throw new JsonSyntaxException("Map key isn't a number: " + name, e);
+				}
+
+				Put(map, key, values.read(in));
+			}
+			in.endObject();
+		}
+
+		return map;
+	}
+
+	private static <V> void Put(Map<Integer, V> map, int key, V value)
+	{
+		if (map.put(key, value) != null)
+			throw new JsonSyntaxException("duplicate key: " + key);
+	}
+}
@@ -0,0 +1,336 @@
+package shared.networking;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+/**
+ * Splits serialized game models into sections and applies patches between versions.
+ * A patch only carries the sections that changed since the client's version, plus the
+ * chat and log entries that were added, so a poll that changes one field stays small.
+ * <p>
+ * Patches look like:
+ * <pre>
+ * {"patch":true, "base":12, "version":14,
+ *  "set":{"gameState":{...}, "players.2":{...}, "mapModel.edges":{...}},
+ *  "append":{"log.actions":[...]},
+ *  "remove":["trade"]}
+ * </pre>
+ */
+public class ModelPatch
+{
+	public static final String PATCH = "patch";
+	public static final String BASE = "base";
+	public static final String VERSION = "version";
+	public static final String SET = "set";
+	public static final String APPEND = "append";
+	public static final String REMOVE = "remove";
+
+	/** Objects that are split into one section per member. */
+	private static final String[] SPLIT_OBJECTS = { "mapModel", "waterCooler", "log" };
+	/** Arrays that are split into one section per entry. */
+	private static final String[] SPLIT_ARRAYS = { "players" };
+	/** Sections that only ever grow, so patches carry the new entries. */
+	private static final String[] APPENDED = { "waterCooler.messages", "log.actions" };
+
+	/**
+	 * Splits a serialized model into its sections. The version isn't a section, since it
+	 * changes every time.
+	 * @param model The serialized model.
+	 * @return The sections of the model, keyed by path.
+	 */
+	public static Map<String, JsonElement> Split(JsonObject model)
+	{
+		Map<String, JsonElement> sections = new LinkedHashMap<String, JsonElement>();
+
+		for (Entry<String, JsonElement> member : model.entrySet())
+		{
+			String name = member.getKey();
+			JsonElement value = member.getValue();
+
+			if (name.equals(VERSION))
+				continue;
+
+			if (Contains(SPLIT_OBJECTS, name) && value.isJsonObject())
+			{
+				for (Entry<String, JsonElement> child : value.getAsJsonObject().entrySet())
+					sections.put(name + "." + child.getKey(), child.getValue());
+			}
+			else if (Contains(SPLIT_ARRAYS, name) && value.isJsonArray())
+			{
+				JsonArray array = value.getAsJsonArray();
+				for (int i = 0; i < array.size(); i++)
+					sections.put(name + "." + i, array.get(i));
+			}
+			else
+			{
+				sections.put(name, value);
+			}
+		}
+
+		return sections;
+	}
+
+	/**
+	 * Writes a model from its sections' JSON, so a model that was split doesn't have to be
+	 * serialized again. The result is what serializing the whole model gives.
+	 * @param model The model the sections were split from, which gives their order.
+	 * @param sections The JSON of each of the model's sections, keyed by path.
+	 * @return The serialized model.
+	 */
+	public static String Join(JsonObject model, Map<String, String> sections)
+	{
+		StringBuilder json = new StringBuilder("{");
+
+		for (Entry<String, JsonElement> member : model.entrySet())
+		{
+			String name = member.getKey();
+			JsonElement value = member.getValue();
+
+			//Null members aren't serialized
+			if (value.isJsonNull())
+				continue;
+
+			if (json.length() > 1)
+				json.append(',');
+			json.append(Name(name));
+
+			if (name.equals(VERSION))
+			{
+				json.append(SerializationUtils.serialize(value));
+			}
+			else if (Contains(SPLIT_OBJECTS, name) && value.isJsonObject())
+			{
+				json.append('{');
+				boolean first = true;
+				for (Entry<String, JsonElement> child : value.getAsJsonObject().entrySet())
+				{
+					if (child.getValue().isJsonNull())
+						continue;
+
+					if (!first)
+						json.append(',');
+					json.append(Name(child.getKey())).append(sections.get(name + "." + child.getKey()));
+					first = false;
+				}
+				json.append('}');
+			}
+			else if (Contains(SPLIT_ARRAYS, name) && value.isJsonArray())
+			{
+				json.append('[');
+				for (int i = 0; i < value.getAsJsonArray().size(); i++)
+				{
+					if (i > 0)
+						json.append(',');
+					json.append(sections.get(name + "." + i));
+				}
+				json.append(']');
+			}
+			else
+			{
+				json.append(sections.get(name));
+			}
+		}
+
+		return json.append('}').toString();
+	}
+
+	/**
+	 * Checks whether a section only ever grows.
+	 * @param path The path of the section.
+	 * @return True if patches should carry only its new entries, else false.
+	 */
+	public static boolean IsAppended(String path)
+	{
+		return Contains(APPENDED, path);
+	}
+
+	/**
+	 * Checks whether a response is a patch rather than a full model.
+	 * @param json The response.
+	 * @return True if it is a patch, else false.
+	 */
+	public static boolean IsPatch(JsonObject json)
+	{
+		return json.has(PATCH) && json.get(PATCH).getAsBoolean();
+	}
+
+	/**
+	 * Gets the version a patch applies to.
+	 * @param patch The patch.
+	 * @return The base version.
+	 */
+	public static int GetBase(JsonObject patch)
+	{
+		return patch.get(BASE).getAsInt();
+	}
+
+	/**
+	 * Applies a patch to a serialized model. The model must be the patch's base version.
+	 * @param model The serialized model, which is updated in place.
+	 * @param patch The patch.
+	 */
+	public static void Apply(JsonObject model, JsonObject patch)
+	{
+		if (patch.has(REMOVE))
+		{
+			for (JsonElement path : patch.getAsJsonArray(REMOVE))
+				Remove(model, path.getAsString());
+		}
+
+		if (patch.has(SET))
+		{
+			for (Entry<String, JsonElement> section : patch.getAsJsonObject(SET).entrySet())
+				Set(model, section.getKey(), section.getValue());
+		}
+
+		if (patch.has(APPEND))
+		{
+			for (Entry<String, JsonElement> section : patch.getAsJsonObject(APPEND).entrySet())
+			{
+				JsonElement existing = Get(model, section.getKey());
+
+				if (existing != null && existing.isJsonArray())
+					existing.getAsJsonArray().addAll(section.getValue().getAsJsonArray());
+				else
+					Set(model, section.getKey(), section.getValue());
+			}
+		}
+
+		model.add(VERSION, patch.get(VERSION));
+	}
+
+	private static JsonElement Get(JsonObject model, String path)
+	{
+		int dot = path.indexOf('.');
+		if (dot < 0)
+			return model.get(path);
+
+		JsonElement parent = model.get(path.substring(0, dot));
+		String child = path.substring(dot + 1);
+
+		if (parent == null)
+			return null;
+		if (parent.isJsonObject())
+			return parent.getAsJsonObject().get(child);
+
+		JsonArray array = parent.getAsJsonArray();
+		int index = Integer.parseInt(child);
+		return index < array.size() ? array.get(index) : null;
+	}
+
+	private static void Set(JsonObject model, String path, JsonElement value)
+	{
+		int dot = path.indexOf('.');
+		if (dot < 0)
+		{
+			model.add(path, value);
+			return;
+		}
+
+		String name = path.substring(0, dot);
+		String child = path.substring(dot + 1);
+
+		if (Contains(SPLIT_ARRAYS, name))
+		{
+			List<JsonElement> entries = Entries(model.get(name));
+			int index = Integer.parseInt(child);
+
+			while (entries.size() <= index)
+				entries.add(JsonNull.INSTANCE);
+			entries.set(index, value);
+
+			model.add(name, ToArray(entries));
+		}
+		else
+		{
+			JsonElement parent = model.get(name);
+			if (parent == null || !parent.isJsonObject())
+			{
+				parent = new JsonObject();
+				model.add(name, parent);
+			}
+
+			parent.getAsJsonObject().add(child, value);
+		}
+	}
+
+	private static void Remove(JsonObject model, String path)
+	{
+		int dot = path.indexOf('.');
+		if (dot < 0)
+		{
+			model.remove(path);
+			return;
+		}
+
+		String name = path.substring(0, dot);
+		String child = path.substring(dot + 1);
+		JsonElement parent = model.get(name);
+
+		if (parent == null)
+			return;
+
+		if (parent.isJsonObject())
+		{
+			parent.getAsJsonObject().remove(child);
+		}
+		else
+		{
+			List<JsonElement> entries = Entries(parent);
+			int index = Integer.parseInt(child);
+
+			//Entries are only ever removed from the end
+			while (entries.size() > index)
+				entries.remove(entries.size() - 1);
+
+			model.add(name, ToArray(entries));
+		}
+	}
+
+	private static List<JsonElement> Entries(JsonElement array)
+	{
+		List<JsonElement> entries = new ArrayList<JsonElement>();
+
+		if (array != null && array.isJsonArray())
+		{
+			for (JsonElement entry : array.getAsJsonArray())
+				entries.add(entry);
+		}
+
+		return entries;
+	}
+
+	private static JsonArray ToArray(List<JsonElement> entries)
+	{
+		JsonArray array = new JsonArray();
+		for (JsonElement entry : entries)
+			array.add(entry);
+
+		return array;
+	}
+
+	private static String Name(String name)
+	{
+		return SerializationUtils.serialize(new JsonPrimitive(name)) + ":";
+	}
+
+	private static boolean Contains(String[] names, String name)
+	{
+		for (String candidate : names)
+		{
+			if (candidate.equals(name))
+				return true;
+		}
+
+		return false;
+	}
+}
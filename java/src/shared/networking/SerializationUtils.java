@@ -1,10 +1,14 @@
 package shared.networking;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.Collection;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
+import com.google.gson.stream.JsonWriter;
 
 /**
  * Class that handles serialization of objects.
@@ -18,7 +22,10 @@ public class SerializationUtils
 	private static Gson gson()
 	{
 		if (gson == null)
-			gson = new GsonBuilder().enableComplexMapKeySerialization().create();
+			gson = new GsonBuilder()
+					.enableComplexMapKeySerialization()
+					.registerTypeAdapterFactory(new ModelAdapterFactory())
+					.create();
 			
 		return gson;
 	}
@@ -54,6 +61,44 @@ public class SerializationUtils
 		return retStr;
 	}
 	
+	/**
+	 * Serializes an object straight to a writer, without building it as a string first.
+	 * @param obj The object to be serialized.
+	 * @param writer Where to write the object.
+	 * @throws IOException Thrown if the object can't be written.
+	 */
+	public static void serialize(Object obj, JsonWriter writer) throws IOException
+	{
+		try
+		{
+			SerializationUtils.gson().toJson(obj, obj == null ? Object.class : obj.getClass(), writer);
+		}
+		catch (JsonIOException e)
+		{
+			throw new IOException(e.getMessage(), e.getCause());
+		}
+	}
+	
+	/**
+	 * Serializes an object into a JSON tree.
+	 * @param obj The object to be serialized.
+	 * @return The serialized object as a tree.
+	 */
+	public static JsonElement serializeTree(Serializable obj)
+	{
+		return SerializationUtils.gson().toJsonTree(obj);
+	}
+	
+	/**
+	 * Serializes a JSON tree.
+	 * @param tree The tree to be serialized.
+	 * @return The serialized tree.
+	 */
+	public static String serialize(JsonElement tree)
+	{
+		return SerializationUtils.gson().toJson(tree);
+	}
+	
 	/**
 	 * Deserializes an object.
 	 * @param json The serialized object.
@@ -66,4 +111,17 @@ public class SerializationUtils
 		
 		return retObj;
 	}
+	
+	/**
+	 * Deserializes an object from a JSON tree.
+	 * @param tree The serialized object.
+	 * @param objClass The class of the object that is being deserialized.
+	 * @return The deserialized object.
+	 */
+	public static <T extends Serializable> T deserialize(JsonElement tree, java.lang.Class<T> objClass)
+	{
+		T retObj = SerializationUtils.gson().fromJson(tree, objClass);
+		
+		return retObj;
+	}
 }
@@ -0,0 +1,78 @@
+package shared.networking.parameter;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.JsonObject;
+
+import shared.networking.SerializationUtils;
+
+/**
+ * An ordered list of moves to run as one batch, e.g.
+ * <pre>{"commands":[{"type":"rollNumber","params":{"Roll":8}}, {"type":"finishTurn","params":{}}]}</pre>
+ * The type is the /moves/ method and params is the body that method normally takes.
+ */
+public class PCommands implements Serializable
+{
+	/**
+	 *
+	 */
+	private static final long serialVersionUID = 4478924011587064529L;
+	private List<Move> commands;
+
+	public PCommands()
+	{
+		commands = new ArrayList<Move>();
+	}
+
+	/**
+	 * Adds a move to the batch
+	 * @param type the /moves/ method, e.g. "buildRoad"
+	 * @param params the parameter object that method takes
+	 */
+	public void add(String type, Serializable params)
+	{
+		commands.add(new Move(type, SerializationUtils.serializeTree(params).getAsJsonObject()));
+	}
+
+	/**
+	 * @return the moves in the batch
+	 */
+	public List<Move> getCommands()
+	{
+		return commands;
+	}
+
+	/**
+	 * One move in the batch.
+	 */
+	public static class Move implements Serializable
+	{
+		private static final long serialVersionUID = -6130640453812569203L;
+		private String type;
+		private JsonObject params;
+
+		public Move(String type, JsonObject params)
+		{
+			this.type = type;
+			this.params = params;
+		}
+
+		/**
+		 * @return the /moves/ method
+		 */
+		public String getType()
+		{
+			return type;
+		}
+
+		/**
+		 * @return the serialized parameters for the move
+		 */
+		public String getParams()
+		{
+			return params == null ? "{}" : params.toString();
+		}
+	}
+}
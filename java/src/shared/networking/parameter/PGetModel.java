@@ -9,15 +9,40 @@ public class PGetModel implements Serializable
 	 */
 	private static final long serialVersionUID = -2543868922800545686L;
 	int version;
+	int wait;
+	boolean patch;
 
 	
 	/**
 	 * @param version
 	 */
 	public PGetModel(int version)
+	{
+		this(version, 0);
+	}
+	
+	/**
+	 * @param version
+	 * @param wait how long the server may hold the request (in milliseconds) waiting
+	 * for a newer version. 0 returns immediately.
+	 */
+	public PGetModel(int version, int wait)
+	{
+		this(version, wait, false);
+	}
+	
+	/**
+	 * @param version
+	 * @param wait how long the server may hold the request (in milliseconds) waiting
+	 * for a newer version. 0 returns immediately.
+	 * @param patch true to accept a patch from version instead of the full model.
+	 */
+	public PGetModel(int version, int wait, boolean patch)
 	{
 		super();
 		this.version = version;
+		this.wait = wait;
+		this.patch = patch;
 	}
 
 	/**
@@ -35,5 +60,37 @@ public class PGetModel implements Serializable
 	{
 		this.version = version;
 	}
+
+	/**
+	 * @return how long to wait for a new version, in milliseconds
+	 */
+	public int getWait()
+	{
+		return wait;
+	}
+
+	/**
+	 * @param wait how long to wait for a new version, in milliseconds
+	 */
+	public void setWait(int wait)
+	{
+		this.wait = wait;
+	}
+
+	/**
+	 * @return true if a patch from version is accepted instead of the full model
+	 */
+	public boolean getPatch()
+	{
+		return patch;
+	}
+
+	/**
+	 * @param patch true to accept a patch from version instead of the full model
+	 */
+	public void setPatch(boolean patch)
+	{
+		this.patch = patch;
+	}
 	
 }
@@ -0,0 +1,18 @@
+package shared.networking.parameter;
+
+import java.io.Serializable;
+
+/**
+ * Playing a monument card needs nothing but the player, who comes from the cookie.
+ */
+public class PMonumentCard implements Serializable {
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 2190461285376409713L;
+
+	public PMonumentCard()
+	{
+		
+	}
+}
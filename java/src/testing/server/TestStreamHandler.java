@@ -0,0 +1,180 @@
+package testing.server;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpServer;
+
+import server.StreamHandler;
+import server.engine.RequestEngine;
+import server.model.GameArcade;
+import server.model.RealServerGameManager;
+import shared.definitions.CatanColor;
+import shared.networking.ModelPatch;
+import shared.networking.SerializationUtils;
+import shared.networking.cookie.NetworkCookie;
+import shared.networking.parameter.PGetModel;
+
+public class TestStreamHandler
+{
+	private HttpServer server;
+	private RealServerGameManager game;
+	private HttpURLConnection connection;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/game/stream", new StreamHandler());
+		server.start();
+
+		game = new RealServerGameManager("stream game " + System.nanoTime(), false, false, false);
+		GameArcade.games().CreateGame(game, true);
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+		if (connection != null)
+			connection.disconnect();
+		server.stop(0);
+	}
+
+	@Test
+	public void testPushesModelThenPatches() throws Exception
+	{
+		BufferedReader events = Open(new PGetModel(-100, 0, true));
+
+		//Client is behind and the server doesn't have its version, so it gets the model
+		String[] first = ReadEvent(events);
+		assertEquals("model", first[0]);
+		JsonObject model = new JsonParser().parse(first[1]).getAsJsonObject();
+		assertEquals(game.GetVersion(), model.get("version").getAsInt());
+
+		game.AddPlayer("Sam", CatanColor.RED, true, 100);
+
+		String[] second = ReadEvent(events);
+		assertEquals("patch", second[0]);
+		JsonObject patch = new JsonParser().parse(second[1]).getAsJsonObject();
+		assertTrue(ModelPatch.IsPatch(patch));
+
+		ModelPatch.Apply(model, patch);
+		assertEquals(new JsonParser().parse(game.ServerGetCachedModel().GetJson()), model);
+	}
+
+	@Test
+	public void testStalledClientDoesNotHoldTheGame() throws Exception
+	{
+		game.AddPlayer("Sam", CatanColor.RED, true, 100);
+		game.AddPlayer("Pam", CatanColor.BLUE, true, 101);
+		game.AddPlayer("Tam", CatanColor.GREEN, true, 102);
+		game.AddPlayer("Cam", CatanColor.WHITE, true, 103);
+
+		NetworkCookie cookie = new NetworkCookie("Sam", "sam", 100);
+		cookie.setGameID(game.GetGameID());
+		byte[] body = SerializationUtils.serialize(new PGetModel(-100, 0, false)).getBytes(StandardCharsets.UTF_8);
+
+		//A client that asks for the stream and then never reads it
+		Socket socket = new Socket();
+		socket.setReceiveBufferSize(1024);
+		socket.connect(server.getAddress());
+		try
+		{
+			OutputStream out = socket.getOutputStream();
+			out.write(("POST /game/stream HTTP/1.1\r\nHost: localhost\r\nCookie: " + SerializationUtils.serialize(cookie)
+					+ "\r\nContent-Length: " + body.length + "\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+			out.write(body);
+			out.flush();
+
+			for (int i = 0; i < 300; i++)
+				game.ServerSendChat(100, "message " + i + " that makes every model a little longer than the last");
+
+			//The game's queue still runs once the stream has been handed every change
+			final CountDownLatch ran = new CountDownLatch(1);
+			RequestEngine.GetEngine().Resume(game.GetGameID(), new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					ran.countDown();
+				}
+			});
+			assertTrue(ran.await(5, TimeUnit.SECONDS));
+		}
+		finally
+		{
+			socket.close();
+		}
+	}
+
+	@Test
+	public void testMissingCookieIsRejected() throws Exception
+	{
+		URL url = new URL("http://localhost:" + server.getAddress().getPort() + "/game/stream");
+		connection = (HttpURLConnection)url.openConnection();
+		connection.setRequestMethod("POST");
+
+		assertEquals(HttpURLConnection.HTTP_BAD_REQUEST, connection.getResponseCode());
+	}
+
+	private BufferedReader Open(PGetModel request) throws Exception
+	{
+		NetworkCookie cookie = new NetworkCookie("Sam", "sam", 100);
+		cookie.setGameID(game.GetGameID());
+
+		URL url = new URL("http://localhost:" + server.getAddress().getPort() + "/game/stream");
+		connection = (HttpURLConnection)url.openConnection();
+		connection.setRequestMethod("POST");
+		connection.setRequestProperty("Cookie", SerializationUtils.serialize(cookie));
+		connection.setReadTimeout(10000);
+		connection.setDoOutput(true);
+
+		OutputStreamWriter writer = new OutputStreamWriter(connection.getOutputStream(), "UTF-8");
+		writer.write(SerializationUtils.serialize(request));
+		writer.close();
+
+		assertEquals(HttpURLConnection.HTTP_OK, connection.getResponseCode());
+		return new BufferedReader(new InputStreamReader(connection.getInputStream(), "utf-8"));
+	}
+
+	/**
+	 * Reads the next event, skipping keep-alive comments.
+	 * @return The event name and its data.
+	 */
+	private String[] ReadEvent(BufferedReader events) throws Exception
+	{
+		String event = null;
+		String data = null;
+		String line;
+
+		while ((line = events.readLine()) != null)
+		{
+			if (line.startsWith("event:"))
+				event = line.substring(6).trim();
+			else if (line.startsWith("data:"))
+				data = line.substring(5).trim();
+			else if (line.isEmpty() && data != null)
+				return new String[] { event, data };
+		}
+
+		fail("Stream ended");
+		return null;
+	}
+}
@@ -0,0 +1,84 @@
+package testing.server.ai;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import server.ai.GameSession;
+import server.ai.GameView;
+import server.model.GameArcade;
+import server.model.GameException;
+import server.model.RealServerGameManager;
+import shared.definitions.CatanColor;
+import shared.definitions.GameRound;
+import shared.model.map.Coordinate;
+
+public class TestGameSession
+{
+	private int gameID;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		RealServerGameManager game = new RealServerGameManager("session game " + System.nanoTime(), false, false, false);
+		gameID = GameArcade.games().CreateGame(game, true).getId();
+
+		game.AddPlayer("Sam", CatanColor.RED, true, 100);
+		game.AddPlayer("Pam", CatanColor.BLUE, true, 101);
+		game.AddPlayer("Tam", CatanColor.GREEN, true, 102);
+		game.AddPlayer("Cam", CatanColor.WHITE, true, 103);
+	}
+
+	@Test
+	public void testMovesShowInView() throws Exception
+	{
+		GameSession session = new GameSession(gameID, 100, "Sam");
+		GameView view = session.GetView();
+
+		assertEquals(0, session.GetPlayerIndex());
+		assertEquals(CatanColor.RED, view.GetColor());
+		assertEquals(1, view.GetPlayerIndex(CatanColor.BLUE));
+		assertTrue(view.IsSetup());
+		assertEquals(GameRound.FIRSTROUND, view.GetState());
+
+		int version = view.GetVersion();
+		Coordinate settlement = view.GetAvailableVertices().get(0);
+
+		assertSame(view, session.BuildSettlement(settlement, true));
+		assertEquals(version + 1, view.GetVersion());
+		assertEquals(1, view.GetSettlements().size());
+		assertEquals(settlement, view.GetSettlements().get(0));
+		assertFalse(view.GetAvailableVertices().contains(settlement));
+
+		List<Coordinate> neighbors = view.GetNeighbors(settlement);
+		assertFalse(neighbors.isEmpty());
+		assertNotNull(session.BuildRoad(settlement, neighbors.get(0), true));
+		assertEquals(version + 2, view.GetVersion());
+	}
+
+	@Test
+	public void testRefusedMoveReturnsNull() throws Exception
+	{
+		//It's Sam's turn, so Pam can't build
+		GameSession session = new GameSession(gameID, 101, "Pam");
+		GameView view = session.GetView();
+
+		int version = view.GetVersion();
+		assertNull(session.BuildSettlement(view.GetAvailableVertices().get(0), true));
+		assertEquals(version, view.GetVersion());
+		assertTrue(view.GetSettlements().isEmpty());
+
+		//Chatting is allowed at any time
+		assertSame(view, session.SendChat("hi"));
+		assertEquals(version + 1, view.GetVersion());
+	}
+
+	@Test(expected = GameException.class)
+	public void testPlayerNotInGame() throws Exception
+	{
+		new GameSession(gameID, 999, "Nobody");
+	}
+}
@@ -0,0 +1,49 @@
+package testing.server.ai;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import server.ai.SelfPlay;
+import server.ai.SelfPlayReport;
+import server.model.GameArcade;
+
+public class TestSelfPlay
+{
+	@Test
+	public void testGamesArePlayedAndDropped()
+	{
+		int loaded = GameArcade.games().GetLoadedCount();
+
+		SelfPlayReport report = new SelfPlay(4, 2, 50).Run();
+
+		assertEquals(4, report.GetGames());
+		assertEquals(0, report.GetFailed());
+		assertTrue(report.GetMoves() > 0);
+
+		int seats = 0;
+		for (int count : report.GetSeats().values())
+			seats += count;
+		assertEquals(16, seats);
+		assertFalse(report.GetSeats().containsKey("HAL"));
+
+		assertEquals(loaded, GameArcade.games().GetLoadedCount());
+	}
+
+	@Test
+	public void testNamedAIsTakeEverySeat()
+	{
+		SelfPlay play = new SelfPlay(2, 1, 20);
+		play.SetNames(Arrays.asList("Groot", "Trogdor"));
+
+		SelfPlayReport report = play.Run();
+
+		assertEquals(2, report.GetGames());
+		assertEquals(2, report.GetSeats().size());
+		assertEquals(4, (int)report.GetSeats().get("Groot"));
+		assertEquals(4, (int)report.GetSeats().get("Trogdor"));
+		assertTrue(report.GetWinRate("Groot") <= 1);
+	}
+}
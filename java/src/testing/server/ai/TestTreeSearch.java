@@ -0,0 +1,243 @@
+package testing.server.ai;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import server.ai.GameSession;
+import server.ai.GameView;
+import server.ai.search.SearchBoard;
+import server.ai.search.SearchState;
+import server.ai.search.TreeSearch;
+import server.model.GameArcade;
+import server.model.RealServerGameManager;
+import shared.definitions.CatanColor;
+import shared.definitions.GameRound;
+import shared.model.map.Coordinate;
+
+public class TestTreeSearch
+{
+	private static final int[] SETUP_ORDER = { 0, 1, 2, 3, 3, 2, 1, 0 };
+
+	private GameSession[] sessions;
+	private SearchBoard board;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		RealServerGameManager game = new RealServerGameManager("search game " + System.nanoTime(), false, false, false);
+		int gameID = GameArcade.games().CreateGame(game, true).getId();
+
+		String[] names = { "Sam", "Pam", "Tam", "Cam" };
+		CatanColor[] colors = { CatanColor.RED, CatanColor.BLUE, CatanColor.GREEN, CatanColor.WHITE };
+		sessions = new GameSession[names.length];
+		for (int i = 0; i < names.length; i++)
+		{
+			game.AddPlayer(names[i], colors[i], true, 200 + i);
+			sessions[i] = new GameSession(gameID, 200 + i, names[i]);
+		}
+
+		//Everyone settles on the first free spot, with a road out of it
+		for (int player : SETUP_ORDER)
+		{
+			GameSession session = sessions[player];
+			Coordinate settlement = session.GetView().GetAvailableVertices().get(0);
+			assertNotNull(session.BuildSettlement(settlement, true));
+
+			boolean built = false;
+			for (Coordinate end : session.GetView().GetNeighbors(settlement))
+			{
+				if (session.BuildRoad(settlement, end, true) != null)
+				{
+					built = true;
+					break;
+				}
+			}
+			assertTrue(built);
+			assertNotNull(session.FinishTurn());
+		}
+
+		board = sessions[0].GetView().GetSearchBoard();
+	}
+
+	@Test
+	public void testStateCopiesGame()
+	{
+		GameView view = sessions[0].GetView();
+		assertEquals(GameRound.ROLLING, view.GetState());
+
+		SearchState state = view.GetSearchState(board);
+		assertEquals(4, state.GetPlayers());
+		assertEquals(view.GetTurn(), state.GetCurrent());
+		assertTrue(state.GetRobber() >= 0);
+
+		int settlements = 0;
+		for (int v = 0; v < board.GetVertexCount(); v++)
+		{
+			if (state.GetVertexOwner(v) >= 0)
+				settlements++;
+		}
+		assertEquals(8, settlements);
+
+		int roads = 0;
+		for (int e = 0; e < board.GetEdgeCount(); e++)
+		{
+			if (state.GetEdgeOwner(e) >= 0)
+				roads++;
+		}
+		assertEquals(8, roads);
+
+		for (int p = 0; p < 4; p++)
+		{
+			assertEquals(2, state.GetPoints(p));
+			assertEquals(sessions[p].GetView().GetResourceCount(), state.GetResourceCount(p));
+		}
+
+		for (Coordinate settlement : view.GetSettlements())
+			assertEquals(0, state.GetVertexOwner(board.GetVertexIndex(settlement)));
+	}
+
+	@Test
+	public void testCopyIsIndependent()
+	{
+		SearchState state = sessions[0].GetView().GetSearchState(board);
+		SearchState copy = state.Copy();
+
+		copy.Playout(new Random(7), 30, new int[board.GetVertexCount() + board.GetEdgeCount() + 1]);
+
+		assertEquals(2, state.GetPoints(0));
+		assertTrue(copy.GetPoints(0) >= 2);
+	}
+
+	@Test
+	public void testPlayoutKeepsTheRules()
+	{
+		int[] moves = new int[board.GetVertexCount() + board.GetEdgeCount() + 1];
+
+		for (long seed = 0; seed < 20; seed++)
+		{
+			SearchState state = sessions[0].GetView().GetSearchState(board);
+			int winner = state.Playout(new Random(seed), 100, moves);
+
+			if (winner >= 0)
+				assertTrue(state.GetPoints(winner) >= SearchState.WINNING_POINTS);
+
+			for (int v = 0; v < board.GetVertexCount(); v++)
+			{
+				if (state.GetVertexOwner(v) < 0)
+					continue;
+
+				//Nobody settles next to anyone else
+				for (int neighbor : board.GetNeighbors(v))
+					assertEquals(-1, state.GetVertexOwner(neighbor));
+			}
+
+			for (int e = 0; e < board.GetEdgeCount(); e++)
+			{
+				int owner = state.GetEdgeOwner(e);
+				if (owner >= 0)
+					assertTrue(Connected(state, e, owner));
+			}
+
+			for (int p = 0; p < state.GetPlayers(); p++)
+				assertTrue(state.GetResourceCount(p) >= 0);
+		}
+	}
+
+	@Test
+	public void testSearchPicksALegalMoveInTime()
+	{
+		SearchState state = sessions[0].GetView().GetSearchState(board);
+		Random random = new Random(3);
+		int[] moves = new int[board.GetVertexCount() + board.GetEdgeCount() + 1];
+
+		//Play on until the player to move can build something
+		int count = state.GetMoves(moves);
+		while (count == 1)
+		{
+			state.Apply(moves[0], random);
+			count = state.GetMoves(moves);
+		}
+
+		TreeSearch search = new TreeSearch(50);
+		int move = search.Choose(state);
+
+		boolean legal = false;
+		for (int i = 0; i < count; i++)
+			legal |= moves[i] == move;
+		assertTrue(legal);
+
+		assertTrue(search.GetRollouts() >= count);
+		assertTrue(search.GetElapsedMillis() < 1000);
+	}
+
+	@Test
+	public void testSearchFromAPoolThread() throws Exception
+	{
+		final SearchState state = sessions[0].GetView().GetSearchState(board);
+		Random random = new Random(3);
+		int[] moves = new int[board.GetVertexCount() + board.GetEdgeCount() + 1];
+		while (state.GetMoves(moves) == 1)
+			state.Apply(moves[0], random);
+
+		final TreeSearch search = new TreeSearch(50);
+		ForkJoinPool pool = new ForkJoinPool(1);
+		try
+		{
+			pool.submit(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					search.Choose(state);
+				}
+			}).get();
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+
+		assertTrue(search.GetRollouts() > 0);
+		assertTrue(search.GetElapsedMillis() < 1000);
+	}
+
+	@Test
+	public void testNothingToSearchWhenOnlyEndingTheTurn()
+	{
+		SearchState state = sessions[0].GetView().GetSearchState(board);
+		int[] moves = new int[board.GetVertexCount() + board.GetEdgeCount() + 1];
+		Random random = new Random(5);
+		while (state.GetMoves(moves) > 1)
+			state.Apply(SearchState.Move(SearchState.END, 0), random);
+
+		TreeSearch search = new TreeSearch(50);
+		assertEquals(SearchState.Move(SearchState.END, 0), search.Choose(state));
+		assertEquals(0, search.GetRollouts());
+	}
+
+	/**
+	 * Whether a road touches its owner's building or another of its roads.
+	 */
+	private boolean Connected(SearchState state, int edge, int owner)
+	{
+		int[] ends = { board.GetEdgeStart(edge), board.GetEdgeEnd(edge) };
+		for (int end : ends)
+		{
+			if (state.GetVertexOwner(end) == owner)
+				return true;
+
+			for (int other : board.GetEdges(end))
+			{
+				if (other != edge && state.GetEdgeOwner(other) == owner)
+					return true;
+			}
+		}
+
+		return false;
+	}
+}
@@ -0,0 +1,173 @@
+package testing.server.commands;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import server.commands.CommandFactory;
+import server.commands.ICommand;
+import server.commands.game.GameCommandsCommand;
+import server.engine.VersionWaiters;
+import server.model.GameArcade;
+import server.model.GameException;
+import server.model.RealServerGameManager;
+import server.model.ServerGameManager;
+import shared.definitions.CatanColor;
+import shared.networking.SerializationUtils;
+import shared.networking.cookie.NetworkCookie;
+import shared.networking.parameter.PCommands;
+import shared.networking.parameter.PMonumentCard;
+import shared.networking.parameter.PSendChat;
+
+public class TestGameCommandsCommand
+{
+	private int gameID;
+	private NetworkCookie cookie;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		RealServerGameManager game = new RealServerGameManager("batch game " + System.nanoTime(), false, false, false);
+		gameID = GameArcade.games().CreateGame(game, true).getId();
+
+		//Four players starts the game, which lets them chat
+		game.AddPlayer("Sam", CatanColor.RED, true, 100);
+		game.AddPlayer("Pam", CatanColor.BLUE, true, 101);
+		game.AddPlayer("Tam", CatanColor.GREEN, true, 102);
+		game.AddPlayer("Cam", CatanColor.WHITE, true, 103);
+
+		cookie = new NetworkCookie("Sam", "sam", 100);
+		cookie.setGameID(gameID);
+	}
+
+	@Test
+	public void testBatchRunsEveryMove() throws Exception
+	{
+		PCommands batch = new PCommands();
+		batch.add("sendChat", new PSendChat("one"));
+		batch.add("sendChat", new PSendChat("two"));
+
+		ServerGameManager game = GameArcade.games().GetGame(gameID);
+		int version = game.GetVersion();
+
+		ICommand command = Build(batch);
+		assertTrue(command.Execute());
+		assertEquals(2, ((GameCommandsCommand)command).GetCommands().size());
+
+		assertEquals(version + 2, game.GetVersion());
+		assertEquals(2, game.ServerGetModel().waterCooler.size());
+		assertEquals(game.ServerGetCachedModel().GetJson(), command.GetResponse());
+	}
+
+	@Test
+	public void testFailedMoveRollsBackBatch() throws Exception
+	{
+		PCommands batch = new PCommands();
+		batch.add("sendChat", new PSendChat("one"));
+		//Nobody has a monument card, so this fails
+		batch.add("Monument", new PMonumentCard());
+
+		int version = GameArcade.games().GetGame(gameID).GetVersion();
+
+		ICommand command = Build(batch);
+		assertFalse(command.Execute());
+		assertTrue(command.GetResponse().contains("Command 1"));
+
+		ServerGameManager game = GameArcade.games().GetGame(gameID);
+		assertEquals(version, game.GetVersion());
+		assertEquals(0, game.ServerGetModel().waterCooler.size());
+	}
+
+	@Test
+	public void testFailedBatchWakesNobody() throws Exception
+	{
+		ServerGameManager game = GameArcade.games().GetGame(gameID);
+		int version = game.GetVersion();
+
+		final AtomicInteger woken = new AtomicInteger();
+		VersionWaiters.GetWaiters().Await(game, version, 10000, new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				woken.incrementAndGet();
+			}
+		});
+
+		PCommands batch = new PCommands();
+		batch.add("sendChat", new PSendChat("one"));
+		batch.add("Monument", new PMonumentCard());
+		assertFalse(Build(batch).Execute());
+
+		//The version the chat made was never seen, and the next move makes it afresh
+		assertEquals(0, woken.get());
+		assertEquals(1, VersionWaiters.GetWaiters().GetWaiting(gameID));
+		assertEquals(version, game.ServerGetCachedModel().GetVersion());
+
+		batch = new PCommands();
+		batch.add("sendChat", new PSendChat("two"));
+		assertTrue(Build(batch).Execute());
+		assertEquals(0, VersionWaiters.GetWaiters().GetWaiting(gameID));
+		assertTrue(game.ServerGetCachedModel().GetJson().contains("two"));
+		assertFalse(game.ServerGetCachedModel().GetJson().contains("one"));
+	}
+
+	@Test
+	public void testOneMoveBatchIsNotCopied() throws Exception
+	{
+		Copying game = new Copying();
+		gameID = GameArcade.games().CreateGame(game, true).getId();
+		game.AddPlayer("Sam", CatanColor.RED, true, 100);
+		game.AddPlayer("Pam", CatanColor.BLUE, true, 101);
+		game.AddPlayer("Tam", CatanColor.GREEN, true, 102);
+		game.AddPlayer("Cam", CatanColor.WHITE, true, 103);
+		cookie.setGameID(gameID);
+
+		PCommands one = new PCommands();
+		one.add("sendChat", new PSendChat("one"));
+		assertTrue(Build(one).Execute());
+		assertEquals(0, game.copies);
+
+		PCommands two = new PCommands();
+		two.add("sendChat", new PSendChat("two"));
+		two.add("sendChat", new PSendChat("three"));
+		assertTrue(Build(two).Execute());
+		assertEquals(1, game.copies);
+	}
+
+	@Test
+	public void testEmptyBatchFails() throws Exception
+	{
+		assertFalse(Build(new PCommands()).Execute());
+	}
+
+	private ICommand Build(PCommands batch) throws Exception
+	{
+		StringBuilder param = new StringBuilder("GAME/COMMANDS");
+		return CommandFactory.GetCommandFactory().GetCommand(param, cookie, SerializationUtils.serialize(batch));
+	}
+
+	/**
+	 * A game that counts the copies made of it.
+	 */
+	private static class Copying extends RealServerGameManager
+	{
+		private static final long serialVersionUID = 1L;
+		int copies;
+
+		public Copying()
+		{
+			super("copying game " + System.nanoTime(), false, false, false);
+		}
+
+		@Override
+		public ServerGameManager ServerCopy() throws GameException
+		{
+			copies++;
+			return super.ServerCopy();
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package testing.server.commands;
+
+import static org.junit.Assert.*;
+
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+import com.google.gson.stream.JsonWriter;
+
+import server.commands.IStreamingCommand;
+import server.commands.game.GameListAICommand;
+import server.commands.games.GamesListCommand;
+import server.model.GameArcade;
+import server.model.RealServerGameManager;
+import shared.definitions.CatanColor;
+import shared.networking.cookie.NetworkCookie;
+
+public class TestStreamingCommands
+{
+	@Test
+	public void testGamesListStreamsSameJson() throws Exception
+	{
+		RealServerGameManager game = new RealServerGameManager("streamed <list> \u00e9", false, false, false);
+		GameArcade.games().CreateGame(game, true);
+		game.AddPlayer("Sam", CatanColor.RED, true, 100);
+
+		GamesListCommand command = new GamesListCommand();
+		assertTrue(command.Execute());
+		assertEquals(command.GetResponse(), Stream(command));
+	}
+
+	@Test
+	public void testAIListStreamsSameJson() throws Exception
+	{
+		GameListAICommand command = new GameListAICommand(new NetworkCookie("Sam", "sam", 100));
+		assertTrue(command.Execute());
+		assertEquals(command.GetResponse(), Stream(command));
+	}
+
+	private String Stream(IStreamingCommand command) throws Exception
+	{
+		StringWriter out = new StringWriter();
+		JsonWriter writer = new JsonWriter(out);
+		command.WriteResponse(writer);
+		writer.close();
+		return out.toString();
+	}
+}
@@ -0,0 +1,292 @@
+package testing.server.engine;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import server.engine.EngineMode;
+import server.engine.RequestEngine;
+
+public class TestRequestEngine
+{
+	private RequestEngine engine;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		RequestEngine.Initialize(EngineMode.POOLED, 4);
+		engine = RequestEngine.GetEngine();
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+		RequestEngine.Initialize(EngineMode.DISPATCHER, 0);
+	}
+
+	@Test
+	public void testSameGameIsSerialized() throws Exception
+	{
+		final int tasks = 200;
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger overlaps = new AtomicInteger();
+		final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+		final CountDownLatch done = new CountDownLatch(tasks);
+
+		for (int i = 0; i < tasks; i++)
+		{
+			final int index = i;
+			engine.Submit(3, new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					if (running.incrementAndGet() > 1)
+						overlaps.incrementAndGet();
+
+					order.add(index);
+					running.decrementAndGet();
+					done.countDown();
+				}
+			});
+		}
+
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		assertEquals(0, overlaps.get());
+
+		for (int i = 0; i < tasks; i++)
+			assertEquals(i, (int)order.get(i));
+	}
+
+	@Test
+	public void testDifferentGamesRunInParallel() throws Exception
+	{
+		final CountDownLatch bothStarted = new CountDownLatch(2);
+		final CountDownLatch done = new CountDownLatch(2);
+
+		for (int game = 0; game < 2; game++)
+		{
+			engine.Submit(game, new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					bothStarted.countDown();
+					try
+					{
+						//Only completes if the other game is running at the same time
+						if (bothStarted.await(5, TimeUnit.SECONDS))
+							done.countDown();
+					}
+					catch (InterruptedException e) { }
+				}
+			});
+		}
+
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testCallIsReentrant() throws Exception
+	{
+		int result = engine.Call(7, new Callable<Integer>()
+		{
+			@Override
+			public Integer call() throws Exception
+			{
+				//Calling the same game from inside its queue must not deadlock
+				return engine.Call(7, new Callable<Integer>()
+				{
+					@Override
+					public Integer call()
+					{
+						return 42;
+					}
+				});
+			}
+		});
+
+		assertEquals(42, result);
+	}
+
+	@Test
+	public void testDispatcherCallWaitsForTheGamesTask() throws Exception
+	{
+		RequestEngine.Initialize(EngineMode.DISPATCHER, 0);
+		final RequestEngine dispatcher = RequestEngine.GetEngine();
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+
+		//A request running on its own thread, e.g. a move that still has to save its command
+		Thread request = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				dispatcher.Submit(9, new Runnable()
+				{
+					@Override
+					public void run()
+					{
+						started.countDown();
+						try
+						{
+							release.await(5, TimeUnit.SECONDS);
+						}
+						catch (InterruptedException e) { }
+						order.add("move");
+					}
+				});
+			}
+		});
+		request.start();
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+
+		Thread snapshot = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					dispatcher.Call(9, new Callable<Void>()
+					{
+						@Override
+						public Void call()
+						{
+							order.add("snapshot");
+							return null;
+						}
+					});
+				}
+				catch (Exception e) { }
+			}
+		});
+		snapshot.start();
+
+		Thread.sleep(100);
+		assertTrue(order.isEmpty());
+
+		release.countDown();
+		request.join(5000);
+		snapshot.join(5000);
+		assertEquals("[move, snapshot]", order.toString());
+	}
+
+	@Test
+	public void testDispatcherResumeWaitsForTheGamesTask() throws Exception
+	{
+		RequestEngine.Initialize(EngineMode.DISPATCHER, 0);
+		final RequestEngine dispatcher = RequestEngine.GetEngine();
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch resumed = new CountDownLatch(1);
+		final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+
+		Thread request = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				dispatcher.Submit(10, new Runnable()
+				{
+					@Override
+					public void run()
+					{
+						started.countDown();
+						try
+						{
+							release.await(5, TimeUnit.SECONDS);
+						}
+						catch (InterruptedException e) { }
+						order.add("move");
+					}
+				});
+			}
+		});
+		request.start();
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+
+		//A long poll whose wait is over
+		dispatcher.Resume(10, new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				order.add("poll");
+				resumed.countDown();
+			}
+		});
+
+		Thread.sleep(100);
+		assertTrue(order.isEmpty());
+
+		release.countDown();
+		assertTrue(resumed.await(5, TimeUnit.SECONDS));
+		request.join(5000);
+		assertEquals("[move, poll]", order.toString());
+	}
+
+	@Test
+	public void testReleasedQueueIsRemoved() throws Exception
+	{
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(2);
+		int before = engine.GetQueueCount();
+
+		engine.Submit(11, new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					release.await(5, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException e) { }
+				done.countDown();
+			}
+		});
+		engine.Submit(11, new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				done.countDown();
+			}
+		});
+
+		//The queue is kept until what it already has has run
+		engine.Release(11);
+		assertEquals(before + 1, engine.GetQueueCount());
+
+		release.countDown();
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		for (int i = 0; i < 100 && engine.GetQueueCount() > before; i++)
+			Thread.sleep(10);
+		assertEquals(before, engine.GetQueueCount());
+
+		//The game gets a new queue if it is used again
+		int result = engine.Call(11, new Callable<Integer>()
+		{
+			@Override
+			public Integer call()
+			{
+				return 5;
+			}
+		});
+		assertEquals(5, result);
+		assertEquals(before + 1, engine.GetQueueCount());
+	}
+}
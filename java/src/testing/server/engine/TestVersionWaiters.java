@@ -0,0 +1,164 @@
+package testing.server.engine;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import server.engine.VersionWaiters;
+import server.model.RealServerGameManager;
+import shared.definitions.CatanColor;
+
+public class TestVersionWaiters
+{
+	private RealServerGameManager game;
+	private VersionWaiters waiters;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		game = new RealServerGameManager("waiting game", false, false, false);
+		game.SetGameID(4242);
+		waiters = VersionWaiters.GetWaiters();
+	}
+
+	@Test
+	public void testWakesOnVersionChange() throws Exception
+	{
+		final CountDownLatch woken = new CountDownLatch(1);
+
+		waiters.Await(game, game.GetVersion(), 10000, new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				woken.countDown();
+			}
+		});
+		assertEquals(1, waiters.GetWaiting(4242));
+
+		//Adding a player bumps the version
+		game.AddPlayer("Sam", CatanColor.RED, true, 100);
+
+		assertTrue(woken.await(5, TimeUnit.SECONDS));
+		assertEquals(0, waiters.GetWaiting(4242));
+	}
+
+	@Test
+	public void testLastWaiterDropsTheGamesQueue() throws Exception
+	{
+		int games = waiters.GetGameCount();
+		final CountDownLatch woken = new CountDownLatch(2);
+		Runnable resume = new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				woken.countDown();
+			}
+		};
+
+		waiters.Await(game, game.GetVersion(), 10000, resume);
+		waiters.Await(game, game.GetVersion(), 10000, resume);
+		assertEquals(games + 1, waiters.GetGameCount());
+
+		game.AddPlayer("Sam", CatanColor.RED, true, 100);
+
+		assertTrue(woken.await(5, TimeUnit.SECONDS));
+		assertTrue(waiters.GetGameCount() <= games);
+	}
+
+	@Test
+	public void testWakesOnReset() throws Exception
+	{
+		game.AddPlayer("Sam", CatanColor.RED, true, 100);
+		final CountDownLatch woken = new CountDownLatch(1);
+
+		waiters.Await(game, game.GetVersion(), 10000, new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				woken.countDown();
+			}
+		});
+
+		game.reset();
+
+		assertTrue(woken.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testWakesOnTimeout() throws Exception
+	{
+		final CountDownLatch woken = new CountDownLatch(1);
+		long start = System.currentTimeMillis();
+
+		waiters.Await(game, game.GetVersion(), 100, new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				woken.countDown();
+			}
+		});
+
+		assertTrue(woken.await(5, TimeUnit.SECONDS));
+		assertTrue(System.currentTimeMillis() - start >= 100);
+	}
+
+	@Test
+	public void testStaleVersionWakesImmediately() throws Exception
+	{
+		final CountDownLatch woken = new CountDownLatch(1);
+
+		waiters.Await(game, game.GetVersion() - 5, 10000, new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				woken.countDown();
+			}
+		});
+
+		assertTrue(woken.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testSlowResumeDoesNotHoldOtherGames() throws Exception
+	{
+		final CountDownLatch second = new CountDownLatch(1);
+		final CountDownLatch first = new CountDownLatch(1);
+
+		RealServerGameManager other = new RealServerGameManager("other waiting game", false, false, false);
+		other.SetGameID(4243);
+
+		//The first resume only finishes once the second has run, so they can't share a thread
+		waiters.Await(game, game.GetVersion(), 50, new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					if (second.await(5, TimeUnit.SECONDS))
+						first.countDown();
+				}
+				catch (InterruptedException e) { }
+			}
+		});
+		waiters.Await(other, other.GetVersion(), 100, new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				second.countDown();
+			}
+		});
+
+		assertTrue(first.await(5, TimeUnit.SECONDS));
+	}
+}
@@ -0,0 +1,218 @@
+package testing.server.model;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import server.model.CachedModel;
+import server.model.RealServerGameManager;
+import shared.definitions.CatanColor;
+import shared.model.GameModel;
+import shared.networking.SerializationUtils;
+
+public class TestCachedModel
+{
+	private RealServerGameManager game;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		game = new RealServerGameManager("cached game", false, false, false);
+		game.SetGameID(77);
+	}
+
+	@Test
+	public void testSameVersionIsShared() throws Exception
+	{
+		CachedModel first = game.ServerGetCachedModel();
+		CachedModel second = game.ServerGetCachedModel();
+
+		assertSame(first, second);
+		assertEquals(game.GetVersion(), first.GetVersion());
+		assertEquals(SerializationUtils.serialize(game.ServerGetSerializableModel()), first.GetJson());
+	}
+
+	@Test
+	public void testVersionChangeReserializes() throws Exception
+	{
+		CachedModel before = game.ServerGetCachedModel();
+		game.AddPlayer("Sam", CatanColor.RED, true, 100);
+		CachedModel after = game.ServerGetCachedModel();
+
+		assertNotSame(before, after);
+		assertEquals(game.GetVersion(), after.GetVersion());
+		assertTrue(after.GetJson().contains("Sam"));
+	}
+
+	@Test
+	public void testResetReserializes() throws Exception
+	{
+		game.AddPlayer("Sam", CatanColor.RED, true, 100);
+		CachedModel before = game.ServerGetCachedModel();
+		game.reset();
+
+		assertNotSame(before, game.ServerGetCachedModel());
+	}
+
+	@Test
+	public void testReadersAskingAtOnceGetOneModel() throws Exception
+	{
+		game.ServerGetCachedModel();
+		game.AddPlayer("Sam", CatanColor.RED, true, 100);
+
+		final int readers = 8;
+		final CountDownLatch start = new CountDownLatch(1);
+		final AtomicReferenceArray<CachedModel> read = new AtomicReferenceArray<CachedModel>(readers);
+		Thread[] threads = new Thread[readers];
+		for (int i = 0; i < readers; i++)
+		{
+			final int index = i;
+			threads[i] = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					try
+					{
+						start.await();
+						read.set(index, game.ServerGetCachedModel());
+					}
+					catch (InterruptedException e)
+					{
+					}
+				}
+			});
+			threads[i].start();
+		}
+
+		start.countDown();
+		for (Thread thread : threads)
+			thread.join(5000);
+
+		//The new version was published once, by whichever reader got there first
+		for (int i = 0; i < readers; i++)
+			assertSame(read.get(0), read.get(i));
+		assertEquals(game.GetVersion(), read.get(0).GetVersion());
+	}
+
+	@Test
+	public void testGzipRoundTrip() throws Exception
+	{
+		CachedModel model = game.ServerGetCachedModel();
+		byte[] zipped = model.GetGzip();
+
+		assertSame(zipped, model.GetGzip());
+
+		GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(zipped));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int read;
+		while ((read = in.read(buffer)) != -1)
+			out.write(buffer, 0, read);
+
+		assertArrayEquals(model.GetBytes(), out.toByteArray());
+	}
+
+	@Test
+	public void testModelCopiesAreIndependent() throws Exception
+	{
+		game.AddPlayer("Sam", CatanColor.RED, true, 100);
+		CachedModel model = game.ServerGetCachedModel();
+
+		GameModel copy = model.GetModel();
+		copy.players.clear();
+
+		assertEquals(1, model.GetModel().players.size());
+	}
+
+	@Test
+	public void testReadersSeeLastWholeVersionDuringChange() throws Exception
+	{
+		final Changing changing = new Changing();
+		final CachedModel before = changing.ServerGetCachedModel();
+
+		long stamp = changing.Hold();
+		changing.AddPlayer("Sam", CatanColor.RED, true, 100);
+
+		//Another thread reads the published model without waiting for the change
+		final AtomicReference<CachedModel> read = new AtomicReference<CachedModel>();
+		Thread reader = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				read.set(changing.ServerGetCachedModel());
+			}
+		});
+		reader.start();
+		reader.join(5000);
+
+		assertSame(before, read.get());
+
+		changing.Release(stamp);
+		CachedModel after = changing.ServerGetCachedModel();
+		assertEquals(changing.GetVersion(), after.GetVersion());
+		assertTrue(after.GetJson().contains("Sam"));
+	}
+
+	@Test
+	public void testChangePublishesItsVersionAsItEnds() throws Exception
+	{
+		final Changing changing = new Changing();
+		changing.ServerGetCachedModel();
+
+		//Nobody reads the version this change makes
+		changing.AddPlayer("Sam", CatanColor.RED, true, 100);
+		final int published = changing.GetVersion();
+
+		long stamp = changing.Hold();
+		changing.AddPlayer("Pam", CatanColor.BLUE, true, 101);
+
+		final AtomicReference<CachedModel> read = new AtomicReference<CachedModel>();
+		Thread reader = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				read.set(changing.ServerGetCachedModel());
+			}
+		});
+		reader.start();
+		reader.join(5000);
+
+		assertEquals(published, read.get().GetVersion());
+		assertTrue(read.get().GetJson().contains("Sam"));
+		changing.Release(stamp);
+	}
+
+	/**
+	 * A game whose changes can be held open.
+	 */
+	private static class Changing extends RealServerGameManager
+	{
+		private static final long serialVersionUID = 1L;
+
+		public Changing()
+		{
+			super("changing", false, false, false);
+		}
+
+		public long Hold()
+		{
+			return StartWrite();
+		}
+
+		public void Release(long stamp)
+		{
+			EndWrite(stamp);
+		}
+	}
+}
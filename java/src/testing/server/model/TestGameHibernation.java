@@ -0,0 +1,131 @@
+package testing.server.model;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import server.model.GameException;
+import server.model.GameTable;
+import server.model.IGameStore;
+import server.model.RealServerGameManager;
+import server.model.ServerGameManager;
+import shared.definitions.CatanColor;
+
+public class TestGameHibernation
+{
+	private GameTable table;
+	private Store store;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		table = new GameTable();
+		store = new Store();
+		table.SetStore(store);
+	}
+
+	@Test
+	public void testIdleGameIsStoredAndReloaded() throws Exception
+	{
+		RealServerGameManager game = new RealServerGameManager("hibernating", false, false, false);
+		int gameID = table.CreateGame(game, true).getId();
+		game.AddPlayer("Sam", CatanColor.RED, true, 100);
+		int version = game.GetVersion();
+
+		assertEquals(1, table.HibernateIdle(0));
+		assertEquals(0, table.GetLoadedCount());
+		assertEquals(1, store.stores);
+
+		//Still listed, without being loaded
+		assertEquals(1, table.GetAllGames().size());
+		assertEquals(1, table.GetAllGames().get(0).getPlayers().size());
+		assertEquals(0, store.loads);
+
+		ServerGameManager loaded = table.GetGame(gameID);
+		assertNotSame(game, loaded);
+		assertEquals(version, loaded.GetVersion());
+		assertEquals(1, store.loads);
+		assertEquals(1, table.GetLoadedCount());
+	}
+
+	@Test
+	public void testUnchangedGameIsNotStoredAgain() throws Exception
+	{
+		RealServerGameManager game = new RealServerGameManager("restored", false, false, false);
+		game.SetGameID(7);
+		table.RestoreGame(game);
+
+		assertEquals(1, table.HibernateIdle(0));
+		assertEquals(0, store.stores);
+
+		//Loading and reading it doesn't change it either
+		store.games.put(7, game);
+		table.GetGame(7);
+		assertEquals(1, table.HibernateIdle(0));
+		assertEquals(0, store.stores);
+	}
+
+	@Test
+	public void testGameInUseStaysLoaded() throws Exception
+	{
+		RealServerGameManager game = new RealServerGameManager("busy", false, false, false);
+		int gameID = table.CreateGame(game, true).getId();
+
+		assertEquals(0, table.HibernateIdle(60 * 1000));
+		assertSame(game, table.GetGame(gameID));
+		assertEquals(0, store.stores);
+	}
+
+	@Test
+	public void testRestoredGameStaysLoaded() throws Exception
+	{
+		RealServerGameManager game = new RealServerGameManager("just restored", false, false, false);
+		game.SetGameID(8);
+		table.RestoreGame(game);
+
+		assertEquals(0, table.HibernateIdle(60 * 1000));
+		assertEquals(1, table.GetLoadedCount());
+	}
+
+	@Test
+	public void testPeekingIsNotUse() throws Exception
+	{
+		RealServerGameManager game = new RealServerGameManager("peeked", false, false, false);
+		int gameID = table.CreateGame(game, true).getId();
+
+		Thread.sleep(50);
+		assertSame(game, table.PeekGame(gameID));
+		assertEquals(1, table.HibernateIdle(25));
+
+		//Hibernated games aren't loaded for a peek
+		assertNull(table.PeekGame(gameID));
+		assertEquals(0, store.loads);
+	}
+
+	private static class Store implements IGameStore
+	{
+		Map<Integer, ServerGameManager> games = new HashMap<Integer, ServerGameManager>();
+		int stores;
+		int loads;
+
+		@Override
+		public ServerGameManager LoadGame(int gameID) throws GameException
+		{
+			loads++;
+			if (!games.containsKey(gameID))
+				throw new GameException("Game " + gameID + " isn't stored");
+			return games.get(gameID).ServerCopy();
+		}
+
+		@Override
+		public void StoreGame(ServerGameManager sgm) throws GameException
+		{
+			stores++;
+			games.put(sgm.GetGameID(), sgm.ServerCopy());
+		}
+	}
+}
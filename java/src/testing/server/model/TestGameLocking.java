@@ -0,0 +1,173 @@
+package testing.server.model;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import server.model.IGameReader;
+import server.model.IGameWriter;
+import server.model.RealServerGameManager;
+import server.model.ServerGameManager;
+import shared.definitions.CatanColor;
+import shared.model.GameModel;
+import shared.networking.SerializationUtils;
+
+public class TestGameLocking
+{
+	private RealServerGameManager game;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		game = new RealServerGameManager("locking", false, false, false);
+
+		//Four players starts the game, which lets them chat
+		game.AddPlayer("Sam", CatanColor.RED, true, 100);
+		game.AddPlayer("Pam", CatanColor.BLUE, true, 101);
+		game.AddPlayer("Tam", CatanColor.GREEN, true, 102);
+		game.AddPlayer("Cam", CatanColor.WHITE, true, 103);
+	}
+
+	@Test
+	public void testConcurrentChangesAreNotLost() throws Exception
+	{
+		final int each = 200;
+		final int version = game.GetVersion();
+		final CountDownLatch start = new CountDownLatch(1);
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int player = 100; player < 104; player++)
+		{
+			final int playerID = player;
+			threads.add(new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					try
+					{
+						start.await();
+						for (int i = 0; i < each; i++)
+						{
+							final String message = "hi " + i;
+							assertTrue(game.Write(new IGameWriter<Boolean>()
+							{
+								@Override
+								public Boolean Write(ServerGameManager game)
+								{
+									return game.ServerSendChat(playerID, message);
+								}
+							}));
+						}
+					}
+					catch (Throwable e)
+					{
+						failure.compareAndSet(null, e);
+					}
+				}
+			}));
+		}
+
+		//Models serialized while the chats are sent are always whole
+		threads.add(new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					start.await();
+					for (int i = 0; i < each; i++)
+					{
+						GameModel model = SerializationUtils.deserialize(game.ServerGetCachedModel().GetJson(), GameModel.class);
+						assertEquals(model.version - version, model.waterCooler.size());
+					}
+				}
+				catch (Throwable e)
+				{
+					failure.compareAndSet(null, e);
+				}
+			}
+		}));
+
+		for (Thread thread : threads)
+			thread.start();
+		start.countDown();
+		for (Thread thread : threads)
+			thread.join();
+
+		assertNull(failure.get());
+		assertEquals(version + 4 * each, game.GetVersion());
+		assertEquals(4 * each, game.ServerGetModel().waterCooler.size());
+	}
+
+	@Test
+	public void testReadWaitsForChange() throws Exception
+	{
+		final CountDownLatch changing = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		Thread writer = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				game.Write(new IGameWriter<Void>()
+				{
+					@Override
+					public Void Write(ServerGameManager game)
+					{
+						game.ServerSendChat(100, "first half");
+						changing.countDown();
+						try
+						{
+							release.await(5, TimeUnit.SECONDS);
+						}
+						catch (InterruptedException e)
+						{
+						}
+						game.ServerSendChat(101, "second half");
+						return null;
+					}
+				});
+			}
+		});
+		writer.start();
+		assertTrue(changing.await(5, TimeUnit.SECONDS));
+
+		final AtomicReference<Integer> read = new AtomicReference<Integer>();
+		Thread reader = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				read.set(game.Read(new IGameReader<Integer>()
+				{
+					@Override
+					public Integer Read(ServerGameManager game)
+					{
+						return game.ServerGetModel().waterCooler.size();
+					}
+				}));
+			}
+		});
+		reader.start();
+
+		//The reader never sees the change half made
+		reader.join(200);
+		assertNull(read.get());
+
+		release.countDown();
+		reader.join(5000);
+		writer.join(5000);
+		assertEquals(Integer.valueOf(2), read.get());
+	}
+}
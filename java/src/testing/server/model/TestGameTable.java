@@ -6,8 +6,17 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.HashSet;
+import java.util.Set;
+
+import server.ai.AIHandler;
+import server.ai.characters.AI;
 import server.model.GameException;
 import server.model.GameTable;
+import server.model.RealServerGameManager;
+import shared.data.PlayerInfo;
+import shared.definitions.AIType;
+import shared.definitions.CatanColor;
 
 public class TestGameTable 
 {
@@ -87,4 +96,69 @@ public class TestGameTable
 		catch (GameException e){}
 	}
 
+	@Test
+	public void testRemovedGameDropsItsAIs() throws Exception
+	{
+		int playerID = gt.RegisterPlayer("aiRemover", "aiRemover");
+		RealServerGameManager manager = new RealServerGameManager("ai removed", false, false, false);
+		int gameID = gt.CreateGame(manager, true).getId();
+		assertTrue(gt.JoinGame(playerID, gameID, CatanColor.RED));
+		assertTrue(gt.AddAI(playerID, gameID, AIType.BEGINNER));
+		assertTrue(AIHandler.GetHandler().GetSeated(gameID) > 0);
+
+		assertTrue(gt.RemoveGame(gameID));
+		assertEquals(0, AIHandler.GetHandler().GetSeated(gameID));
+	}
+
+	@Test
+	public void testEachSeatGetsItsOwnAI() throws Exception
+	{
+		int playerID = gt.RegisterPlayer("seatFiller", "seatFiller");
+		
+		Set<Integer> aiIDs = new HashSet<Integer>();
+		Set<AI> ais = new HashSet<AI>();
+		
+		//More AIs than there are characters, spread over a few games
+		for (int game = 0; game < 3; game++)
+		{
+			RealServerGameManager manager = new RealServerGameManager("ai seats " + game, false, false, false);
+			int gameID = gt.CreateGame(manager, true).getId();
+			assertTrue(gt.JoinGame(playerID, gameID, CatanColor.RED));
+			
+			for (int seat = 0; seat < 3; seat++)
+				assertTrue(gt.AddAI(playerID, gameID, AIType.BEGINNER));
+			
+			//The game is full
+			assertFalse(gt.AddAI(playerID, gameID, AIType.BEGINNER));
+			
+			Set<String> names = new HashSet<String>();
+			for (PlayerInfo player : manager.allCurrentPlayers())
+			{
+				assertTrue(names.add(player.getName()));
+				if (player.getId() == playerID)
+					continue;
+				
+				assertTrue(aiIDs.add(player.getId()));
+				
+				AI ai = AIHandler.GetHandler().GetAI(player.getId(), gameID);
+				assertEquals(player.getName(), ai.GetName());
+				assertEquals(player.getId(), ai.GetID());
+				ais.add(ai);
+			}
+		}
+		
+		assertEquals(9, aiIDs.size());
+		
+		//AI IDs don't come from the players' counter
+		assertEquals(playerID + 1, gt.RegisterPlayer("afterSeats", "afterSeats"));
+		assertEquals(9, ais.size());
+		
+		//Nobody can take an AI's name
+		try
+		{
+			gt.RegisterPlayer("Groot", "iamgroot");
+			fail("We shouldn't be able to register as an AI");
+		}
+		catch (GameException e){}
+	}
 }
@@ -0,0 +1,109 @@
+package testing.server.model;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import server.model.CachedModel;
+import server.model.RealServerGameManager;
+import shared.definitions.CatanColor;
+import shared.model.GameModel;
+import shared.networking.ModelPatch;
+import shared.networking.SerializationUtils;
+
+public class TestModelHistory
+{
+	private RealServerGameManager game;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		game = new RealServerGameManager("patched game", false, false, false);
+		game.SetGameID(78);
+		game.AddPlayer("Sam", CatanColor.RED, true, 100);
+		game.AddPlayer("Pam", CatanColor.BLUE, true, 101);
+		game.AddPlayer("Tam", CatanColor.GREEN, true, 102);
+	}
+
+	@Test
+	public void testPatchMatchesFullModel() throws Exception
+	{
+		JsonObject client = Parse(game.ServerGetCachedModel());
+		int base = game.GetVersion();
+
+		//The fourth player starts the game, which lets players chat
+		game.AddPlayer("Cam", CatanColor.WHITE, true, 103);
+		game.ServerSendChat(100, "hello");
+		game.ServerSendChat(103, "hi");
+
+		CachedModel patch = game.ServerGetModelPatch(base);
+		assertNotNull(patch);
+		assertEquals(game.GetVersion(), patch.GetVersion());
+
+		JsonObject json = Parse(patch);
+		assertTrue(ModelPatch.IsPatch(json));
+		assertEquals(base, ModelPatch.GetBase(json));
+		assertTrue(patch.GetJson().length() < game.ServerGetCachedModel().GetJson().length());
+
+		ModelPatch.Apply(client, json);
+		assertEquals(Parse(game.ServerGetCachedModel()), client);
+
+		GameModel model = SerializationUtils.deserialize(client, GameModel.class);
+		assertEquals(4, model.players.size());
+		assertEquals(2, model.waterCooler.size());
+	}
+
+	@Test
+	public void testChatOnlySendsNewEntries() throws Exception
+	{
+		game.AddPlayer("Cam", CatanColor.WHITE, true, 103);
+		game.ServerSendChat(100, "first");
+		game.ServerGetCachedModel();
+		int base = game.GetVersion();
+
+		game.ServerSendChat(101, "second");
+
+		JsonObject json = Parse(game.ServerGetModelPatch(base));
+		assertFalse(json.toString().contains("first"));
+		assertEquals(1, json.getAsJsonObject(ModelPatch.APPEND).getAsJsonArray("waterCooler.messages").size());
+	}
+
+	@Test
+	public void testJoinedModelMatchesSerializedModel() throws Exception
+	{
+		game.AddPlayer("Cam", CatanColor.WHITE, true, 103);
+		game.ServerSendChat(100, "<b>hello</b> & \"bye\"");
+
+		String expected = SerializationUtils.serialize(SerializationUtils.serializeTree(game.ServerGetSerializableModel()));
+		assertEquals(expected, game.ServerGetCachedModel().GetJson());
+	}
+
+	@Test
+	public void testUnknownVersionHasNoPatch() throws Exception
+	{
+		game.ServerGetCachedModel();
+
+		assertNull(game.ServerGetModelPatch(game.GetVersion() - 10));
+		assertNull(game.ServerGetModelPatch(game.GetVersion()));
+	}
+
+	@Test
+	public void testResetForgetsVersions() throws Exception
+	{
+		game.ServerGetCachedModel();
+		int base = game.GetVersion();
+		game.ServerSendChat(100, "hello");
+		game.reset();
+
+		assertNull(game.ServerGetModelPatch(base));
+	}
+
+	private JsonObject Parse(CachedModel model)
+	{
+		return new JsonParser().parse(model.GetJson()).getAsJsonObject();
+	}
+}
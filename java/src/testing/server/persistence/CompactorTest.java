@@ -0,0 +1,146 @@
+package testing.server.persistence;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import server.persistence.Compactor;
+
+public class CompactorTest
+{
+	private Compactor compactor;
+
+	@After
+	public void tearDown()
+	{
+		if (compactor != null)
+			compactor.Shutdown();
+	}
+
+	@Test
+	public void testUnsavedGameMustBeSavedWhole()
+	{
+		compactor = new Compactor(new Counter(), 10, 1000, 0);
+
+		assertFalse(compactor.Append(1, 10));
+		assertEquals(-1, compactor.GetCommands(1));
+
+		compactor.Saved(1);
+		assertTrue(compactor.Append(1, 10));
+		assertEquals(1, compactor.GetCommands(1));
+
+		compactor.Forget(1);
+		assertFalse(compactor.Append(1, 10));
+	}
+
+	@Test
+	public void testCommandLimitCompacts() throws Exception
+	{
+		Counter counter = new Counter();
+		compactor = new Compactor(counter, 3, 1000, 0);
+		compactor.Saved(1);
+
+		compactor.Append(1, 1);
+		compactor.Append(1, 1);
+		assertEquals(0, counter.snapshots.get());
+
+		compactor.Append(1, 1);
+		assertTrue(counter.Await(1));
+		assertEquals(0, compactor.GetCommands(1));
+	}
+
+	@Test
+	public void testByteLimitCompacts() throws Exception
+	{
+		Counter counter = new Counter();
+		compactor = new Compactor(counter, 100, 50, 0);
+		compactor.Saved(1);
+
+		compactor.Append(1, 60);
+		assertTrue(counter.Await(1));
+	}
+
+	@Test
+	public void testOldCommandsCompacted() throws Exception
+	{
+		Counter counter = new Counter();
+		compactor = new Compactor(counter, 100, 1000, 1);
+		compactor.Saved(1);
+		compactor.Saved(2);
+
+		compactor.Append(1, 1);
+		assertTrue(counter.Await(1));
+		assertEquals(1, counter.last);
+	}
+
+	@Test
+	public void testPendingCompactionNotRepeated() throws Exception
+	{
+		final Semaphore release = new Semaphore(0);
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch drained = new CountDownLatch(1);
+		final AtomicInteger snapshots = new AtomicInteger();
+
+		compactor = new Compactor(new Compactor.ISnapshotter()
+		{
+			@Override
+			public void Snapshot(int gameID) throws Exception
+			{
+				snapshots.incrementAndGet();
+				if (gameID == 0)
+				{
+					started.countDown();
+					release.acquire();
+				}
+				else if (gameID == 2)
+				{
+					drained.countDown();
+				}
+			}
+		}, 100, 1000, 0);
+
+		//Hold the compactor's thread so game 1 stays pending
+		compactor.Compact(0);
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+
+		compactor.Compact(1);
+		compactor.Compact(1);
+		compactor.Compact(1);
+		release.release();
+
+		//Game 2 is compacted last, so everything before it has run once it has
+		compactor.Compact(2);
+		assertTrue(drained.await(5, TimeUnit.SECONDS));
+		assertEquals(3, snapshots.get());
+	}
+
+	/**
+	 * Counts snapshots and saves the game as a real snapshotter would.
+	 */
+	private class Counter implements Compactor.ISnapshotter
+	{
+		final AtomicInteger snapshots = new AtomicInteger();
+		final Semaphore taken = new Semaphore(0);
+		volatile int last = -1;
+
+		@Override
+		public void Snapshot(int gameID)
+		{
+			compactor.Saved(gameID);
+			last = gameID;
+			snapshots.incrementAndGet();
+			taken.release();
+		}
+
+		boolean Await(int count) throws InterruptedException
+		{
+			return taken.tryAcquire(count, 5, TimeUnit.SECONDS);
+		}
+	}
+}
@@ -0,0 +1,119 @@
+package testing.server.persistence;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import server.commands.moves.MovesSendChatCommand;
+import server.model.GameArcade;
+import server.model.RealServerGameManager;
+import server.persistence.GameRecovery;
+import server.persistence.RecoveryReport;
+import server.persistence.codec.BinaryCodec;
+import shared.definitions.CatanColor;
+import shared.model.chat.ChatBox;
+import shared.networking.cookie.NetworkCookie;
+
+public class GameRecoveryTest
+{
+	private BinaryCodec codec;
+	private int first;
+	private int second;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		codec = new BinaryCodec();
+		first = CreateGame();
+		second = CreateGame();
+	}
+
+	@Test
+	public void testEachGameReplayedInOrder() throws Exception
+	{
+		Map<Integer, List<byte[]>> commands = new LinkedHashMap<Integer, List<byte[]>>();
+		commands.put(first, Chats(first, "one", "two", "three"));
+		commands.put(second, Chats(second, "only"));
+
+		RecoveryReport report = new GameRecovery(4).Recover(commands);
+
+		assertEquals(2, report.GetGames());
+		assertEquals(4, report.GetCommands());
+		assertTrue(report.GetFailedGames().isEmpty());
+		assertEquals(Arrays.asList("one", "two", "three"), Messages(first));
+		assertEquals(Arrays.asList("only"), Messages(second));
+	}
+
+	@Test
+	public void testCorruptCommandOnlyFailsItsGame() throws Exception
+	{
+		List<byte[]> broken = Chats(first, "one", "two", "three");
+		broken.set(1, new byte[] { 1, 2, 3 });
+
+		Map<Integer, List<byte[]>> commands = new LinkedHashMap<Integer, List<byte[]>>();
+		commands.put(first, broken);
+		commands.put(second, Chats(second, "fine"));
+
+		RecoveryReport report = new GameRecovery(4).Recover(commands);
+
+		assertEquals(Arrays.asList(first), report.GetFailedGames());
+		assertEquals(Arrays.asList("one"), Messages(first));
+		assertEquals(Arrays.asList("fine"), Messages(second));
+	}
+
+	@Test
+	public void testUnreadableLogOnlyFailsItsGame() throws Exception
+	{
+		Map<Integer, List<byte[]>> commands = new LinkedHashMap<Integer, List<byte[]>>();
+		commands.put(first, null);
+		commands.put(second, Chats(second, "fine"));
+
+		RecoveryReport report = new GameRecovery(1).Recover(commands);
+
+		assertEquals(Arrays.asList(first), report.GetFailedGames());
+		assertEquals(1, report.GetCommands());
+		assertEquals(Arrays.asList("fine"), Messages(second));
+	}
+
+	private int CreateGame() throws Exception
+	{
+		RealServerGameManager game = new RealServerGameManager("recovery game " + System.nanoTime(), false, false, false);
+		int gameID = GameArcade.games().CreateGame(game, true).getId();
+
+		//Four players starts the game, which lets them chat
+		game.AddPlayer("Sam", CatanColor.RED, true, 100);
+		game.AddPlayer("Pam", CatanColor.BLUE, true, 101);
+		game.AddPlayer("Tam", CatanColor.GREEN, true, 102);
+		game.AddPlayer("Cam", CatanColor.WHITE, true, 103);
+
+		return gameID;
+	}
+
+	private List<byte[]> Chats(int gameID, String... messages) throws Exception
+	{
+		NetworkCookie cookie = new NetworkCookie("Sam", "sam", 100);
+		cookie.setGameID(gameID);
+
+		List<byte[]> blobs = new ArrayList<byte[]>();
+		for (String message : messages)
+			blobs.add(codec.Encode(new MovesSendChatCommand(cookie, 0, message)));
+		return blobs;
+	}
+
+	private List<String> Messages(int gameID) throws Exception
+	{
+		ChatBox chat = GameArcade.games().GetGame(gameID).ServerGetModel().waterCooler;
+
+		List<String> messages = new ArrayList<String>();
+		for (int i = 0; i < chat.size(); i++)
+			messages.add(chat.get(i).getMessage());
+		return messages;
+	}
+}
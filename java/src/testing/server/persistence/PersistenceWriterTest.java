@@ -0,0 +1,354 @@
+package testing.server.persistence;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import server.persistence.ICommandDAO;
+import server.persistence.IGameDAO;
+import server.persistence.IPersistenceProvider;
+import server.persistence.IProviderPool;
+import server.persistence.IUserDAO;
+import server.persistence.PersistenceException;
+import server.persistence.PersistenceWriter;
+
+public class PersistenceWriterTest
+{
+	private List<String> written;
+	private List<String> uncommitted;
+	private int commits;
+	private int rollbacks;
+	private int batches;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		written = Collections.synchronizedList(new ArrayList<String>());
+		uncommitted = new ArrayList<String>();
+		commits = 0;
+		rollbacks = 0;
+		batches = 0;
+	}
+
+	@Test
+	public void testSavesAreWrittenInOrder() throws Exception
+	{
+		PersistenceWriter writer = new PersistenceWriter(new Provider(), 16, 1, 0);
+
+		for (int i = 0; i < 10; i++)
+		{
+			writer.Enqueue(Record(i % 2, "save " + i));
+		}
+
+		writer.Flush();
+
+		assertEquals(10, written.size());
+		for (int i = 0; i < 10; i++)
+			assertEquals("save " + i, written.get(i));
+	}
+
+	@Test
+	public void testWaitingSavesShareACommit() throws Exception
+	{
+		PersistenceWriter writer = new PersistenceWriter(new Provider(), 16, 64, 0);
+		CountDownLatch release = Block(writer);
+
+		writer.Enqueue(Command(1, "a1"));
+		writer.Enqueue(Command(2, "b1"));
+		writer.Enqueue(Command(1, "a2"));
+		writer.Enqueue(Record(1, "game 1"));
+		writer.Enqueue(Command(1, "a3"));
+
+		release.countDown();
+		writer.Flush();
+
+		//One commit for the blocking save, then one for everything that queued behind it
+		assertEquals(2, commits);
+		//Commands before the game save are added before it, the rest after it
+		assertEquals(2, batches);
+		assertEquals("[a1, a2, b1, game 1, a3]", written.toString());
+	}
+
+	@Test
+	public void testFullGameBlocks() throws Exception
+	{
+		PersistenceWriter writer = new PersistenceWriter(new Provider(), 2, 1, 0);
+		CountDownLatch release = Block(writer);
+		writer.Enqueue(Record(0, "second"));
+
+		//Game 0 is full, so the third save has to wait for the first to finish
+		final PersistenceWriter full = writer;
+		final CountDownLatch queued = new CountDownLatch(1);
+		Thread thread = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					full.Enqueue(Record(0, "third"));
+					queued.countDown();
+				}
+				catch (InterruptedException e)
+				{
+				}
+			}
+		});
+		thread.start();
+
+		assertFalse(queued.await(200, TimeUnit.MILLISECONDS));
+
+		//Other games still have room
+		writer.Enqueue(Record(2, "other"));
+
+		release.countDown();
+		assertTrue(queued.await(5, TimeUnit.SECONDS));
+
+		writer.Flush();
+		assertEquals("[second, other, third]", written.toString());
+	}
+
+	@Test
+	public void testFailedSaveDoesNotLoseItsGroup() throws Exception
+	{
+		PersistenceWriter writer = new PersistenceWriter(new Provider(), 16, 64, 0);
+		CountDownLatch release = Block(writer);
+
+		Future<Void> before = writer.Enqueue(Command(1, "before"));
+		Future<Void> failed = writer.Enqueue(new PersistenceWriter.Job(1)
+		{
+			@Override
+			public void Write(IPersistenceProvider provider) throws PersistenceException
+			{
+				throw new PersistenceException("disk full");
+			}
+		});
+		Future<Void> after = writer.Enqueue(Record(1, "after"));
+
+		release.countDown();
+
+		try
+		{
+			failed.get();
+			fail("Save should have failed");
+		}
+		catch (ExecutionException e)
+		{
+			assertTrue(e.getCause() instanceof PersistenceException);
+		}
+
+		before.get();
+		after.get();
+		assertTrue(rollbacks > 0);
+		assertEquals("[before, after]", written.toString());
+	}
+
+	@Test
+	public void testFailedSaveFailsLaterCommandsForItsGame() throws Exception
+	{
+		PersistenceWriter writer = new PersistenceWriter(new Provider(), 16, 64, 0);
+		CountDownLatch release = Block(writer);
+
+		writer.Enqueue(Command(1, "a1"));
+		writer.Enqueue(new PersistenceWriter.Job(1)
+		{
+			@Override
+			public void Write(IPersistenceProvider provider) throws PersistenceException
+			{
+				throw new PersistenceException("disk full");
+			}
+		});
+		Future<Void> gap = writer.Enqueue(Command(1, "a2"));
+		writer.Enqueue(Command(2, "b1"));
+		writer.Enqueue(Record(1, "game 1"));
+		Future<Void> after = writer.Enqueue(Command(1, "a3"));
+
+		release.countDown();
+		writer.Flush();
+
+		try
+		{
+			gap.get();
+			fail("A command after a failed save should fail too");
+		}
+		catch (ExecutionException e)
+		{
+			assertTrue(e.getCause() instanceof PersistenceException);
+		}
+
+		//Saving the game whole closes the gap
+		after.get();
+		assertEquals("[a1, b1, game 1, a3]", written.toString());
+	}
+
+	/**
+	 * Queues a save that holds up the writer until the returned latch is released.
+	 */
+	private CountDownLatch Block(PersistenceWriter writer) throws Exception
+	{
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch started = new CountDownLatch(1);
+
+		writer.Enqueue(new PersistenceWriter.Job(0)
+		{
+			@Override
+			public void Write(IPersistenceProvider provider) throws PersistenceException
+			{
+				started.countDown();
+				try
+				{
+					release.await();
+				}
+				catch (InterruptedException e)
+				{
+				}
+			}
+		});
+
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		return release;
+	}
+
+	private PersistenceWriter.Job Record(int gameID, final String save)
+	{
+		return new PersistenceWriter.Job(gameID)
+		{
+			@Override
+			public void Write(IPersistenceProvider provider) throws PersistenceException
+			{
+				uncommitted.add(save);
+			}
+		};
+	}
+
+	private PersistenceWriter.Job Command(int gameID, final String blob)
+	{
+		return new PersistenceWriter.CommandJob(gameID)
+		{
+			@Override
+			public byte[] GetBlob()
+			{
+				return blob.getBytes();
+			}
+		};
+	}
+
+	/**
+	 * Records what the writer does instead of saving anything.
+	 */
+	private class Provider implements IProviderPool, IPersistenceProvider, ICommandDAO
+	{
+		@Override
+		public IPersistenceProvider Acquire() throws PersistenceException
+		{
+			return this;
+		}
+
+		@Override
+		public void Release(IPersistenceProvider provider)
+		{
+		}
+
+		@Override
+		public void Close() throws PersistenceException
+		{
+		}
+
+		@Override
+		public void Clear() throws PersistenceException
+		{
+		}
+
+		@Override
+		public void StartTransaction() throws PersistenceException
+		{
+		}
+
+		@Override
+		public void StartReadTransaction() throws PersistenceException
+		{
+		}
+
+		@Override
+		public void EndTransaction(boolean commit) throws PersistenceException
+		{
+			if (commit)
+			{
+				written.addAll(uncommitted);
+				commits++;
+			}
+			else
+				rollbacks++;
+			uncommitted.clear();
+		}
+
+		@Override
+		public IUserDAO GetUserDAO() throws PersistenceException
+		{
+			return null;
+		}
+
+		@Override
+		public IGameDAO GetGameDAO() throws PersistenceException
+		{
+			return null;
+		}
+
+		@Override
+		public ICommandDAO GetCommandDAO() throws PersistenceException
+		{
+			return this;
+		}
+
+		@Override
+		public void AddCommand(int gameID, byte[] blob) throws PersistenceException
+		{
+			uncommitted.add(new String(blob));
+		}
+
+		@Override
+		public void AddCommands(Map<Integer, List<byte[]>> commands) throws PersistenceException
+		{
+			batches++;
+			for (List<byte[]> blobs : commands.values())
+			{
+				for (byte[] blob : blobs)
+					uncommitted.add(new String(blob));
+			}
+		}
+
+		@Override
+		public void DeleteCommands(int gameID) throws PersistenceException
+		{
+		}
+
+		@Override
+		public List<byte[]> GetCommands() throws PersistenceException
+		{
+			return new ArrayList<byte[]>();
+		}
+
+		@Override
+		public Map<Integer, List<byte[]>> GetGameCommands() throws PersistenceException
+		{
+			return new HashMap<Integer, List<byte[]>>();
+		}
+
+		@Override
+		public int GetCommandCount(int gameID) throws PersistenceException
+		{
+			return 0;
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package testing.server.persistence.codec;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import server.commands.ICommand;
+import server.commands.game.GameCommandsCommand;
+import server.commands.moves.MovesSendChatCommand;
+import server.model.GameArcade;
+import server.model.RealServerGameManager;
+import server.model.ServerGameManager;
+import server.persistence.codec.BinaryCodec;
+import server.persistence.codec.Codecs;
+import server.persistence.codec.LegacyCodec;
+import shared.definitions.CatanColor;
+import shared.networking.cookie.NetworkCookie;
+
+public class BinaryCodecTest
+{
+	private BinaryCodec codec;
+	private RealServerGameManager game;
+	private int gameID;
+	private NetworkCookie cookie;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		codec = new BinaryCodec();
+
+		game = new RealServerGameManager("codec game " + System.nanoTime(), true, true, true);
+		gameID = GameArcade.games().CreateGame(game, true).getId();
+
+		game.AddPlayer("Sam", CatanColor.RED, true, 100);
+		game.AddPlayer("Pam", CatanColor.BLUE, true, 101);
+		game.AddPlayer("Tam", CatanColor.GREEN, true, 102);
+		game.AddPlayer("Cam", CatanColor.WHITE, true, 103);
+
+		cookie = new NetworkCookie("Sam", "sam", 100);
+		cookie.setGameID(gameID);
+	}
+
+	@Test
+	public void testGameRoundTrip() throws Exception
+	{
+		byte[] data = codec.Encode(game);
+		assertTrue(codec.CanDecode(data));
+
+		ServerGameManager copy = Codecs.Decode(data, RealServerGameManager.class);
+		assertEquals(game.ServerGetCachedModel().GetJson(), copy.ServerGetCachedModel().GetJson());
+	}
+
+	@Test
+	public void testSmallerThanLegacy() throws Exception
+	{
+		assertTrue(codec.Encode(game).length < new LegacyCodec().Encode(game).length);
+	}
+
+	@Test
+	public void testCommandReplays() throws Exception
+	{
+		byte[] data = codec.Encode(new MovesSendChatCommand(cookie, 0, "hello"));
+
+		ICommand command = Codecs.Decode(data, ICommand.class);
+		assertTrue(command instanceof MovesSendChatCommand);
+		assertTrue(command.Execute());
+		assertEquals(1, GameArcade.games().GetGame(gameID).ServerGetModel().waterCooler.size());
+	}
+
+	@Test
+	public void testBatchKeepsCommandTypes() throws Exception
+	{
+		List<ICommand> moves = new ArrayList<ICommand>();
+		moves.add(new MovesSendChatCommand(cookie, 0, "one"));
+		moves.add(new MovesSendChatCommand(cookie, 0, "two"));
+
+		byte[] data = codec.Encode(new GameCommandsCommand(cookie, moves));
+
+		GameCommandsCommand batch = (GameCommandsCommand)Codecs.Decode(data, ICommand.class);
+		assertEquals(2, batch.GetCommands().size());
+		assertTrue(batch.GetCommands().get(1) instanceof MovesSendChatCommand);
+		assertTrue(batch.Execute());
+		assertEquals(2, GameArcade.games().GetGame(gameID).ServerGetModel().waterCooler.size());
+	}
+
+	@Test
+	public void testLegacySavesAreRead() throws Exception
+	{
+		byte[] data = new LegacyCodec().Encode(game);
+		assertFalse(codec.CanDecode(data));
+
+		ServerGameManager copy = Codecs.Decode(data, RealServerGameManager.class);
+		assertEquals(game.ServerGetCachedModel().GetJson(), copy.ServerGetCachedModel().GetJson());
+	}
+
+	@Test(expected = IOException.class)
+	public void testNewerSchemaIsRejected() throws Exception
+	{
+		byte[] data = codec.Encode(game);
+		data[2] = (byte)(BinaryCodec.SCHEMA_VERSION + 1);
+		codec.Decode(data, RealServerGameManager.class);
+	}
+
+	@Test(expected = IOException.class)
+	public void testWrongTypeIsRejected() throws Exception
+	{
+		codec.Decode(codec.Encode(game), ICommand.class);
+	}
+}
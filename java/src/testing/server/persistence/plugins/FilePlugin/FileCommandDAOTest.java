@@ -57,15 +57,16 @@ public class FileCommandDAOTest
 		String cmd1 = "I'M A COMMAND BUT I'M SO LONELY";
 		int gameID = 4;
 		
-		commandDAO.AddCommand(gameID, cmd1);
+		commandDAO.AddCommand(gameID, cmd1.getBytes());
 		
-		String commandPath = FilenameUtils.getFullCommandsDir(gameID) + File.separator +
-				FilenameUtils.commandPrefix + 0 + FilenameUtils.fileSuffix;
-		File cmdFile = new File(commandPath);
+		String segmentPath = FilenameUtils.getFullCommandsDir(gameID) + File.separator +
+				FilenameUtils.commandSegmentPrefix + 0 + FilenameUtils.commandSegmentSuffix;
+		File segmentFile = new File(segmentPath);
 		
-		assertTrue(cmdFile.exists());
-		String inBlob = FilePersistenceUtils.getBlob(commandPath);
-		assertTrue(inBlob.equals(cmd1));
+		assertTrue(segmentFile.exists());
+		List<byte[]> commands = commandDAO.GetCommands();
+		assertTrue(commands.size() == 1);
+		assertTrue(new String(commands.get(0)).equals(cmd1));
 	}
 	
 	@Test
@@ -78,9 +79,9 @@ public class FileCommandDAOTest
 		String cmd3 = "THREE IS A CROWD";
 		int gameID = 4;
 		
-		commandDAO.AddCommand(gameID, cmd1);
-		commandDAO.AddCommand(gameID, cmd2);
-		commandDAO.AddCommand(gameID, cmd3);
+		commandDAO.AddCommand(gameID, cmd1.getBytes());
+		commandDAO.AddCommand(gameID, cmd2.getBytes());
+		commandDAO.AddCommand(gameID, cmd3.getBytes());
 		
 		int numCommands = commandDAO.GetCommandCount(gameID);
 		
@@ -99,12 +100,12 @@ public class FileCommandDAOTest
 		int gameID = 4;
 		int gameID2 = 8;
 		
-		commandDAO.AddCommand(gameID, cmd1);
-		commandDAO.AddCommand(gameID, cmd2);
-		commandDAO.AddCommand(gameID, cmd3);
-		commandDAO.AddCommand(gameID2, cmd4);
+		commandDAO.AddCommand(gameID, cmd1.getBytes());
+		commandDAO.AddCommand(gameID, cmd2.getBytes());
+		commandDAO.AddCommand(gameID, cmd3.getBytes());
+		commandDAO.AddCommand(gameID2, cmd4.getBytes());
 		
-		List<String> commands = commandDAO.GetCommands();
+		List<byte[]> commands = commandDAO.GetCommands();
 		assertTrue(commands.size() == 4);
 		
 		boolean foundFirstSet = false;
@@ -112,9 +113,9 @@ public class FileCommandDAOTest
 		
 		for(int i = 0; i < commands.size(); i++)
 		{
-			if(commands.get(i).equals(cmd1) && commands.get(i+1).equals(cmd2) && commands.get(i+2).equals(cmd3))
+			if(new String(commands.get(i)).equals(cmd1) && new String(commands.get(i+1)).equals(cmd2) && new String(commands.get(i+2)).equals(cmd3))
 				foundFirstSet = true;
-			if(commands.get(i).equals(cmd4))
+			if(new String(commands.get(i)).equals(cmd4))
 				foundSecondSet = true;
 		}
 		
@@ -134,10 +135,10 @@ public class FileCommandDAOTest
 		int gameID = 4;
 		int gameID2 = 8;
 		
-		commandDAO.AddCommand(gameID, cmd1);
-		commandDAO.AddCommand(gameID, cmd2);
-		commandDAO.AddCommand(gameID, cmd3);
-		commandDAO.AddCommand(gameID2, cmd4);
+		commandDAO.AddCommand(gameID, cmd1.getBytes());
+		commandDAO.AddCommand(gameID, cmd2.getBytes());
+		commandDAO.AddCommand(gameID, cmd3.getBytes());
+		commandDAO.AddCommand(gameID2, cmd4.getBytes());
 		
 		String deletedCommandsString = FilenameUtils.getFullCommandsDir(gameID);
 		File deletedCommandsDir = new File(deletedCommandsString);
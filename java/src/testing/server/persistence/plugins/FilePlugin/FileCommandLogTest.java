@@ -0,0 +1,117 @@
+package testing.server.persistence.plugins.FilePlugin;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import server.persistence.plugins.FilePlugin.FileCommandLog;
+import server.persistence.plugins.FilePlugin.FilePersistenceUtils;
+import server.persistence.plugins.FilePlugin.FilenameUtils;
+
+public class FileCommandLogTest
+{
+	private static final int gameID = 4;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		File dataFolder = new File(FilenameUtils.dataDir);
+		if(dataFolder.exists())
+		{
+			FilePersistenceUtils.deleteFolder(dataFolder);
+		}
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+		File dataFolder = new File(FilenameUtils.dataDir);
+		if(dataFolder.exists())
+		{
+			FilePersistenceUtils.deleteFolder(dataFolder);
+		}
+	}
+
+	@Test
+	public void testFullSegmentsAreSealed() throws Exception
+	{
+		//With its header each command is just over a quarter of a segment, so three fit in one
+		//and ten need four
+		char[] fill = new char[FileCommandLog.SEGMENT_SIZE / 4];
+		List<byte[]> commands = new ArrayList<byte[]>();
+		for (int i = 0; i < 10; i++)
+		{
+			Arrays.fill(fill, (char)('a' + i));
+			commands.add(new String(fill).getBytes());
+		}
+
+		FileCommandLog.Get(gameID).Append(commands.subList(0, 4));
+		FileCommandLog.Get(gameID).Append(commands.subList(4, 10));
+
+		assertTrue(Segment(3).exists());
+		assertFalse(Segment(4).exists());
+		assertEquals(10, FileCommandLog.Get(gameID).Count());
+		assertEquals(AsStrings(commands), AsStrings(FileCommandLog.Get(gameID).ReadAll()));
+	}
+
+	@Test
+	public void testPartialRecordIsCutOff() throws Exception
+	{
+		FileCommandLog.Get(gameID).Append(AsBytes("one", "two"));
+		long length = Segment(0).length();
+
+		//A crash part way through the next append leaves half a record behind
+		FileOutputStream out = new FileOutputStream(Segment(0), true);
+		out.write(new byte[] { 0, 0, 0, 9, 1, 2 });
+		out.close();
+
+		assertEquals(2, FileCommandLog.Get(gameID).Count());
+		assertEquals(length, Segment(0).length());
+
+		FileCommandLog.Get(gameID).Append(AsBytes("three"));
+		assertEquals(Arrays.asList("one", "two", "three"), AsStrings(FileCommandLog.Get(gameID).ReadAll()));
+	}
+
+	@Test
+	public void testOldCommandFilesAreReadFirst() throws Exception
+	{
+		File dir = new File(FilenameUtils.getFullCommandsDir(gameID));
+		FilePersistenceUtils.makeDirs(dir);
+		FilePersistenceUtils.writeFile(new File(dir, FilenameUtils.commandPrefix + 0 + FilenameUtils.fileSuffix), "old one");
+		FilePersistenceUtils.writeFile(new File(dir, FilenameUtils.commandPrefix + 1 + FilenameUtils.fileSuffix), "old two");
+
+		FileCommandLog.Get(gameID).Append(AsBytes("new"));
+
+		assertEquals(3, FileCommandLog.Get(gameID).Count());
+		assertEquals(Arrays.asList("old one", "old two", "new"), AsStrings(FileCommandLog.Get(gameID).ReadAll()));
+	}
+
+	private static List<byte[]> AsBytes(String... strings)
+	{
+		List<byte[]> blobs = new ArrayList<byte[]>();
+		for (String string : strings)
+			blobs.add(string.getBytes());
+		return blobs;
+	}
+
+	private static List<String> AsStrings(List<byte[]> blobs)
+	{
+		List<String> strings = new ArrayList<String>();
+		for (byte[] blob : blobs)
+			strings.add(new String(blob));
+		return strings;
+	}
+
+	private File Segment(int segment)
+	{
+		return new File(FilenameUtils.getFullCommandsDir(gameID), FilenameUtils.commandSegmentPrefix + segment + FilenameUtils.commandSegmentSuffix);
+	}
+}
@@ -74,7 +74,7 @@ public class FileGameDAOTest
 		IGameDAO gameDAO = new FileGameDAO();
 		String gameStr = "HI I'M A FAKE GAME ACTING LIKE I'M A REAL GAME";
 		int gameID = 476;
-		gameDAO.AddGame(gameID, gameStr);
+		gameDAO.AddGame(gameID, gameStr.getBytes());
 		
 		File gameDir = new File(FilenameUtils.getFullGameDir(gameID));
 		assertTrue(gameDir.exists());
@@ -92,10 +92,10 @@ public class FileGameDAOTest
 		IGameDAO gameDAO = new FileGameDAO();
 		String gameStr = "HI I'M A FAKE GAME ACTING LIKE I'M A REAL GAME";
 		int gameID = 476;
-		gameDAO.AddGame(gameID, gameStr);
+		gameDAO.AddGame(gameID, gameStr.getBytes());
 		
 		String updatedString = "THE FAKE GAME HAS BEEN UPDATED NOW!!! :D";
-		gameDAO.UpdateGame(476, updatedString);
+		gameDAO.UpdateGame(476, updatedString.getBytes());
 		
 		File gameDir = new File(FilenameUtils.getFullGameDir(gameID));
 		assertTrue(gameDir.exists());
@@ -113,24 +113,25 @@ public class FileGameDAOTest
 		IGameDAO gameDAO = new FileGameDAO();
 		String gameStr1 = "HI";
 		int gameID1 = 476;
-		gameDAO.AddGame(gameID1, gameStr1);
+		gameDAO.AddGame(gameID1, gameStr1.getBytes());
 		
 		String gameStr2 = "I'M";
 		int gameID2 = 892;
-		gameDAO.AddGame(gameID2, gameStr2);
+		gameDAO.AddGame(gameID2, gameStr2.getBytes());
 		
 		String gameStr3 = "HAPPY";
 		int gameID3 = 1;
-		gameDAO.AddGame(gameID3, gameStr3);
+		gameDAO.AddGame(gameID3, gameStr3.getBytes());
 		
-		List<String> gameList = gameDAO.GetAllGames();
+		List<byte[]> gameList = gameDAO.GetAllGames();
 		
 		boolean foundGame1 = false;
 		boolean foundGame2 = false;
 		boolean foundGame3 = false;
 		
-		for(String s : gameList)
+		for(byte[] game : gameList)
 		{
+			String s = new String(game);
 			if(s.equals(gameStr1))
 			{
 				foundGame1 = true;
@@ -54,6 +54,13 @@ public class FilePersistenceUtilsTest
 		assertTrue(newFile.exists());
 		System.out.println("Success!");
 		
+		System.out.print("Testing replacing a file...");
+		assertTrue(FilePersistenceUtils.writeFile(newFile, "old"));
+		assertTrue(FilePersistenceUtils.writeFile(newFile, blob));
+		//The temp file is renamed over the old one, so nothing is left behind
+		assertEquals(1, newDir.listFiles().length);
+		System.out.println("Success!");
+		
 		System.out.print("Testing reading blob from file...");
 		String readBlob = FilePersistenceUtils.getBlob(path);
 		assertTrue(readBlob.equals(blob));
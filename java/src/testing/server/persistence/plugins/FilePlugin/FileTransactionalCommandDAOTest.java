@@ -20,6 +20,7 @@ import server.persistence.plugins.FilePlugin.FilenameUtils;
 
 public class FileTransactionalCommandDAOTest
 {
+	private FileTransactionManager transactions = new FileTransactionManager();
 
 	@BeforeClass
 	public static void setUpBeforeClass() throws Exception
@@ -54,39 +55,40 @@ public class FileTransactionalCommandDAOTest
 	@Test
 	public void testAddCommand() throws Exception
 	{
-		ICommandDAO commandDAO = new FileTransactionalCommandDAO(new FileCommandDAO());
+		ICommandDAO commandDAO = new FileTransactionalCommandDAO(new FileCommandDAO(), transactions);
 		
 		String cmd1 = "I'M A COMMAND BUT I'M SO LONELY";
 		int gameID = 4;
 		
-		FileTransactionManager.startTransaction();
-		commandDAO.AddCommand(gameID, cmd1);
-		FileTransactionManager.endTransaction(true);
+		transactions.startTransaction();
+		commandDAO.AddCommand(gameID, cmd1.getBytes());
+		transactions.endTransaction(true);
 		
-		String commandPath = FilenameUtils.getFullCommandsDir(gameID) + File.separator +
-				FilenameUtils.commandPrefix + 0 + FilenameUtils.fileSuffix;
-		File cmdFile = new File(commandPath);
+		String segmentPath = FilenameUtils.getFullCommandsDir(gameID) + File.separator +
+				FilenameUtils.commandSegmentPrefix + 0 + FilenameUtils.commandSegmentSuffix;
+		File segmentFile = new File(segmentPath);
 		
-		assertTrue(cmdFile.exists());
-		String inBlob = FilePersistenceUtils.getBlob(commandPath);
-		assertTrue(inBlob.equals(cmd1));
+		assertTrue(segmentFile.exists());
+		List<byte[]> commands = commandDAO.GetCommands();
+		assertTrue(commands.size() == 1);
+		assertTrue(new String(commands.get(0)).equals(cmd1));
 	}
 	
 	@Test
 	public void testGetCommandCount() throws Exception
 	{
-		ICommandDAO commandDAO = new FileTransactionalCommandDAO(new FileCommandDAO());
+		ICommandDAO commandDAO = new FileTransactionalCommandDAO(new FileCommandDAO(), transactions);
 		
 		String cmd1 = "I'M A COMMAND BUT I'M SO LONELY";
 		String cmd2 = "TWO IS BETTER THAN ONE";
 		String cmd3 = "THREE IS A CROWD";
 		int gameID = 4;
 		
-		FileTransactionManager.startTransaction();
-		commandDAO.AddCommand(gameID, cmd1);
-		commandDAO.AddCommand(gameID, cmd2);
-		commandDAO.AddCommand(gameID, cmd3);
-		FileTransactionManager.endTransaction(true);
+		transactions.startTransaction();
+		commandDAO.AddCommand(gameID, cmd1.getBytes());
+		commandDAO.AddCommand(gameID, cmd2.getBytes());
+		commandDAO.AddCommand(gameID, cmd3.getBytes());
+		transactions.endTransaction(true);
 		
 		int numCommands = commandDAO.GetCommandCount(gameID);
 		
@@ -96,7 +98,7 @@ public class FileTransactionalCommandDAOTest
 	@Test
 	public void testGetCommands() throws Exception
 	{
-		ICommandDAO commandDAO = new FileTransactionalCommandDAO(new FileCommandDAO());
+		ICommandDAO commandDAO = new FileTransactionalCommandDAO(new FileCommandDAO(), transactions);
 		
 		String cmd1 = "I'M A COMMAND BUT I'M SO LONELY";
 		String cmd2 = "TWO IS BETTER THAN ONE";
@@ -105,14 +107,14 @@ public class FileTransactionalCommandDAOTest
 		int gameID = 4;
 		int gameID2 = 8;
 		
-		FileTransactionManager.startTransaction();
-		commandDAO.AddCommand(gameID, cmd1);
-		commandDAO.AddCommand(gameID, cmd2);
-		commandDAO.AddCommand(gameID, cmd3);
-		commandDAO.AddCommand(gameID2, cmd4);
-		FileTransactionManager.endTransaction(true);
+		transactions.startTransaction();
+		commandDAO.AddCommand(gameID, cmd1.getBytes());
+		commandDAO.AddCommand(gameID, cmd2.getBytes());
+		commandDAO.AddCommand(gameID, cmd3.getBytes());
+		commandDAO.AddCommand(gameID2, cmd4.getBytes());
+		transactions.endTransaction(true);
 		
-		List<String> commands = commandDAO.GetCommands();
+		List<byte[]> commands = commandDAO.GetCommands();
 		assertTrue(commands.size() == 4);
 		
 		boolean foundFirstSet = false;
@@ -120,9 +122,9 @@ public class FileTransactionalCommandDAOTest
 		
 		for(int i = 0; i < commands.size(); i++)
 		{
-			if(commands.get(i).equals(cmd1) && commands.get(i+1).equals(cmd2) && commands.get(i+2).equals(cmd3))
+			if(new String(commands.get(i)).equals(cmd1) && new String(commands.get(i+1)).equals(cmd2) && new String(commands.get(i+2)).equals(cmd3))
 				foundFirstSet = true;
-			if(commands.get(i).equals(cmd4))
+			if(new String(commands.get(i)).equals(cmd4))
 				foundSecondSet = true;
 		}
 		
@@ -133,7 +135,7 @@ public class FileTransactionalCommandDAOTest
 	@Test
 	public void testDeleteCommands() throws Exception
 	{
-		ICommandDAO commandDAO = new FileTransactionalCommandDAO(new FileCommandDAO());
+		ICommandDAO commandDAO = new FileTransactionalCommandDAO(new FileCommandDAO(), transactions);
 		
 		String cmd1 = "I'M A COMMAND BUT I'M SO LONELY";
 		String cmd2 = "TWO IS BETTER THAN ONE";
@@ -142,20 +144,20 @@ public class FileTransactionalCommandDAOTest
 		int gameID = 4;
 		int gameID2 = 8;
 		
-		FileTransactionManager.startTransaction();
-		commandDAO.AddCommand(gameID, cmd1);
-		commandDAO.AddCommand(gameID, cmd2);
-		commandDAO.AddCommand(gameID, cmd3);
-		commandDAO.AddCommand(gameID2, cmd4);
-		FileTransactionManager.endTransaction(true);
+		transactions.startTransaction();
+		commandDAO.AddCommand(gameID, cmd1.getBytes());
+		commandDAO.AddCommand(gameID, cmd2.getBytes());
+		commandDAO.AddCommand(gameID, cmd3.getBytes());
+		commandDAO.AddCommand(gameID2, cmd4.getBytes());
+		transactions.endTransaction(true);
 		
 		String deletedCommandsString = FilenameUtils.getFullCommandsDir(gameID);
 		File deletedCommandsDir = new File(deletedCommandsString);
 		assertTrue(deletedCommandsDir.exists());
 		
-		FileTransactionManager.startTransaction();
+		transactions.startTransaction();
 		commandDAO.DeleteCommands(gameID);
-		FileTransactionManager.endTransaction(true);
+		transactions.endTransaction(true);
 		
 		assertTrue(commandDAO.GetCommandCount(gameID) == 0);
 		assertTrue(commandDAO.GetCommandCount(gameID2) == 1);
@@ -163,5 +165,27 @@ public class FileTransactionalCommandDAOTest
 		
 		assertTrue(!deletedCommandsDir.exists());
 	}
+	
+	@Test
+	public void testSeparateTransactionsDontWait() throws Exception
+	{
+		FileTransactionManager other = new FileTransactionManager();
+		ICommandDAO commandDAO = new FileTransactionalCommandDAO(new FileCommandDAO(), transactions);
+		ICommandDAO otherDAO = new FileTransactionalCommandDAO(new FileCommandDAO(), other);
+		
+		//One provider's open transaction used to hold every other provider up
+		assertTrue(transactions.startTransaction());
+		commandDAO.AddCommand(3, "game three".getBytes());
+		
+		assertTrue(other.startTransaction());
+		otherDAO.AddCommand(7, "game seven".getBytes());
+		assertTrue(other.endTransaction(true));
+		
+		assertTrue(commandDAO.GetCommandCount(3) == 0);
+		assertTrue(commandDAO.GetCommandCount(7) == 1);
+		
+		assertTrue(transactions.endTransaction(true));
+		assertTrue(commandDAO.GetCommandCount(3) == 1);
+	}
 
 }
@@ -27,6 +27,8 @@ import server.persistence.plugins.FilePlugin.FilenameUtils;
  */
 public class FileTransactionalGameDAOTest
 {
+	private FileTransactionManager transactions = new FileTransactionManager();
+
 
 	/**
 	 * @throws java.lang.Exception
@@ -73,13 +75,13 @@ public class FileTransactionalGameDAOTest
 	@Test
 	public void testAddGame() throws Exception
 	{
-		IGameDAO gameDAO = new FileTransactionalGameDAO(new FileGameDAO());
+		IGameDAO gameDAO = new FileTransactionalGameDAO(new FileGameDAO(), transactions);
 		String gameStr = "HI I'M A FAKE GAME ACTING LIKE I'M A REAL GAME";
 		int gameID = 476;
 		
-		FileTransactionManager.startTransaction();
-		gameDAO.AddGame(gameID, gameStr);
-		FileTransactionManager.endTransaction(true);
+		transactions.startTransaction();
+		gameDAO.AddGame(gameID, gameStr.getBytes());
+		transactions.endTransaction(true);
 		
 		File gameDir = new File(FilenameUtils.getFullGameDir(gameID));
 		assertTrue(gameDir.exists());
@@ -94,19 +96,19 @@ public class FileTransactionalGameDAOTest
 	@Test
 	public void testUpdateGame() throws Exception
 	{
-		IGameDAO gameDAO = new FileTransactionalGameDAO(new FileGameDAO());
+		IGameDAO gameDAO = new FileTransactionalGameDAO(new FileGameDAO(), transactions);
 		String gameStr = "HI I'M A FAKE GAME ACTING LIKE I'M A REAL GAME";
 		int gameID = 476;
 		
-		FileTransactionManager.startTransaction();
-		gameDAO.AddGame(gameID, gameStr);
-		FileTransactionManager.endTransaction(true);
+		transactions.startTransaction();
+		gameDAO.AddGame(gameID, gameStr.getBytes());
+		transactions.endTransaction(true);
 		
 		String updatedString = "THE FAKE GAME HAS BEEN UPDATED NOW!!! :D";
 		
-		FileTransactionManager.startTransaction();
-		gameDAO.UpdateGame(476, updatedString);
-		FileTransactionManager.endTransaction(true);
+		transactions.startTransaction();
+		gameDAO.UpdateGame(476, updatedString.getBytes());
+		transactions.endTransaction(true);
 		
 		File gameDir = new File(FilenameUtils.getFullGameDir(gameID));
 		assertTrue(gameDir.exists());
@@ -121,36 +123,37 @@ public class FileTransactionalGameDAOTest
 	@Test
 	public void testGetAllGames() throws Exception
 	{
-		IGameDAO gameDAO = new FileTransactionalGameDAO(new FileGameDAO());
+		IGameDAO gameDAO = new FileTransactionalGameDAO(new FileGameDAO(), transactions);
 		String gameStr1 = "HI";
 		int gameID1 = 476;
 		
-		FileTransactionManager.startTransaction();
-		gameDAO.AddGame(gameID1, gameStr1);
-		FileTransactionManager.endTransaction(true);
+		transactions.startTransaction();
+		gameDAO.AddGame(gameID1, gameStr1.getBytes());
+		transactions.endTransaction(true);
 		
 		
 		String gameStr2 = "I'M";
 		int gameID2 = 892;
 		
-		FileTransactionManager.startTransaction();
-		gameDAO.AddGame(gameID2, gameStr2);
-		FileTransactionManager.endTransaction(true);
+		transactions.startTransaction();
+		gameDAO.AddGame(gameID2, gameStr2.getBytes());
+		transactions.endTransaction(true);
 		
 		String gameStr3 = "HAPPY";
 		int gameID3 = 1;
-		FileTransactionManager.startTransaction();
-		gameDAO.AddGame(gameID3, gameStr3);
-		FileTransactionManager.endTransaction(true);
+		transactions.startTransaction();
+		gameDAO.AddGame(gameID3, gameStr3.getBytes());
+		transactions.endTransaction(true);
 		
-		List<String> gameList = gameDAO.GetAllGames();
+		List<byte[]> gameList = gameDAO.GetAllGames();
 		
 		boolean foundGame1 = false;
 		boolean foundGame2 = false;
 		boolean foundGame3 = false;
 		
-		for(String s : gameList)
+		for(byte[] game : gameList)
 		{
+			String s = new String(game);
 			if(s.equals(gameStr1))
 			{
 				foundGame1 = true;
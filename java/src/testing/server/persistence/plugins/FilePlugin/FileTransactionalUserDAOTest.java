@@ -21,6 +21,8 @@ import server.persistence.plugins.FilePlugin.FilenameUtils;
 
 public class FileTransactionalUserDAOTest
 {
+	private FileTransactionManager transactions = new FileTransactionManager();
+
 
 	@BeforeClass
 	public static void setUpBeforeClass() throws Exception
@@ -55,11 +57,11 @@ public class FileTransactionalUserDAOTest
 	@Test
 	public void testAddUser() throws Exception
 	{
-		IUserDAO userDAO = new FileTransactionalUserDAO(new FileUserDAO());
+		IUserDAO userDAO = new FileTransactionalUserDAO(new FileUserDAO(), transactions);
 		
-		FileTransactionManager.startTransaction();
+		transactions.startTransaction();
 		userDAO.AddUser(1, "johnny", "pills123");
-		FileTransactionManager.endTransaction(true);
+		transactions.endTransaction(true);
 		
 		File userFile = new File(FilenameUtils.getFullUserPath(1));
 		assertTrue(userFile.exists());
@@ -70,14 +72,14 @@ public class FileTransactionalUserDAOTest
 	@Test
 	public void testGetUsers() throws Exception
 	{
-		IUserDAO userDAO = new FileTransactionalUserDAO(new FileUserDAO());
+		IUserDAO userDAO = new FileTransactionalUserDAO(new FileUserDAO(), transactions);
 		
-		FileTransactionManager.startTransaction();
+		transactions.startTransaction();
 		userDAO.AddUser(1, "johnny", "pills123");
 		userDAO.AddUser(2, "james", "excellence1");
 		userDAO.AddUser(3, "joni", "john123");
 		userDAO.AddUser(4, "orange", "red567");
-		FileTransactionManager.endTransaction(true);
+		transactions.endTransaction(true);
 		
 		List<ServerPlayer> players = userDAO.GetAllUsers();
 		assertTrue(players.size() == 4);
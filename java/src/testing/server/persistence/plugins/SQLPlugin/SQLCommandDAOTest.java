@@ -10,7 +10,11 @@ import server.persistence.plugins.SQLPlugin.SQLCommandDAO;
 import server.persistence.plugins.SQLPlugin.SQLPlugin;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -65,7 +69,7 @@ public class SQLCommandDAOTest
 		{
 			plugin.StartTransaction();
 			assertEquals(commDao.GetCommandCount(1),0);
-			commDao.AddCommand(1, "blob");
+			commDao.AddCommand(1, "blob".getBytes());
 			plugin.EndTransaction(true);
 
 			assertEquals(commDao.GetCommandCount(1),1);
@@ -78,14 +82,14 @@ public class SQLCommandDAOTest
 			assertEquals(commDao.GetCommandCount(1),0);
 
 			plugin.StartTransaction();
-			commDao.AddCommand(2, "blob");
+			commDao.AddCommand(2, "blob".getBytes());
 			plugin.EndTransaction(true);
 
 			assertEquals(commDao.GetCommandCount(1),0);
 			assertEquals(commDao.GetCommandCount(2),1);
-			List<String> commands = commDao.GetCommands();
+			List<byte[]> commands = commDao.GetCommands();
 			assertEquals(commands.size(),1);
-			assertEquals(commands.get(0), "blob");
+			assertEquals(new String(commands.get(0)), "blob");
 
 			plugin.StartTransaction();
 			commDao.DeleteCommands(1);
@@ -130,10 +134,10 @@ public class SQLCommandDAOTest
 		int gameID = 4;
 
 		plugin.StartTransaction();
-		commandDao.AddCommand(gameID, cmd1);
+		commandDao.AddCommand(gameID, cmd1.getBytes());
 		plugin.EndTransaction(true);
 
-		List<String> commands = commandDao.GetCommands();
+		List<byte[]> commands = commandDao.GetCommands();
 		assertTrue(commands.size() == 1);
 
 
@@ -168,9 +172,9 @@ public class SQLCommandDAOTest
 
 		plugin.StartTransaction();
 
-		commandDao.AddCommand(gameID, cmd1);
-		commandDao.AddCommand(gameID, cmd2);
-		commandDao.AddCommand(gameID, cmd3);
+		commandDao.AddCommand(gameID, cmd1.getBytes());
+		commandDao.AddCommand(gameID, cmd2.getBytes());
+		commandDao.AddCommand(gameID, cmd3.getBytes());
 		plugin.EndTransaction(true);
 
 		int numCommands = commandDao.GetCommandCount(gameID);
@@ -180,6 +184,51 @@ public class SQLCommandDAOTest
 
 	}
 
+	@Test
+	public void testAddCommands() throws Exception
+	{
+		SQLPlugin plugin =  new SQLPlugin();
+		plugin.Clear();
+
+		ICommandDAO commandDao = plugin.GetCommandDAO();
+
+		Map<Integer, List<byte[]>> group = new LinkedHashMap<Integer, List<byte[]>>();
+		group.put(4, Arrays.asList("FIRST".getBytes(), "SECOND".getBytes()));
+		group.put(8, Arrays.<byte[]>asList("ANOTHER GAME".getBytes()));
+
+		plugin.StartTransaction();
+		commandDao.AddCommands(group);
+		plugin.EndTransaction(true);
+
+		assertEquals(2, commandDao.GetCommandCount(4));
+		assertEquals(1, commandDao.GetCommandCount(8));
+		assertEquals(Arrays.asList("FIRST", "SECOND", "ANOTHER GAME"), AsStrings(commandDao.GetCommands()));
+		plugin.Close();
+
+	}
+
+	@Test
+	public void testGetGameCommands() throws Exception
+	{
+		SQLPlugin plugin =  new SQLPlugin();
+		plugin.Clear();
+
+		ICommandDAO commandDao = plugin.GetCommandDAO();
+
+		plugin.StartTransaction();
+		commandDao.AddCommand(8, "EIGHT ONE".getBytes());
+		commandDao.AddCommand(4, "FOUR ONE".getBytes());
+		commandDao.AddCommand(8, "EIGHT TWO".getBytes());
+		plugin.EndTransaction(true);
+
+		Map<Integer, List<byte[]>> games = commandDao.GetGameCommands();
+		assertEquals(2, games.size());
+		assertEquals(Arrays.asList("FOUR ONE"), AsStrings(games.get(4)));
+		assertEquals(Arrays.asList("EIGHT ONE", "EIGHT TWO"), AsStrings(games.get(8)));
+		plugin.Close();
+
+	}
+
 	@Test
 	public void testDeleteCommands() throws Exception
 	{
@@ -197,10 +246,10 @@ public class SQLCommandDAOTest
 
 		plugin.StartTransaction();
 
-		commandDao.AddCommand(gameID, cmd1);
-		commandDao.AddCommand(gameID, cmd2);
-		commandDao.AddCommand(gameID, cmd3);
-		commandDao.AddCommand(gameID2, cmd4);
+		commandDao.AddCommand(gameID, cmd1.getBytes());
+		commandDao.AddCommand(gameID, cmd2.getBytes());
+		commandDao.AddCommand(gameID, cmd3.getBytes());
+		commandDao.AddCommand(gameID2, cmd4.getBytes());
 		plugin.EndTransaction(true);
 
 
@@ -216,4 +265,11 @@ public class SQLCommandDAOTest
 
 	}
 
+	private static List<String> AsStrings(List<byte[]> blobs)
+	{
+		List<String> strings = new ArrayList<String>();
+		for (byte[] blob : blobs)
+			strings.add(new String(blob));
+		return strings;
+	}
 }
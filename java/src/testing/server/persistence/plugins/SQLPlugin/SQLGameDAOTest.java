@@ -71,20 +71,20 @@ public class SQLGameDAOTest
 		{
 			assertEquals(dao.GetAllGames().size(),0);
 			plugin.StartTransaction();
-			dao.AddGame(1, "Bloby");
+			dao.AddGame(1, "Bloby".getBytes());
 			plugin.EndTransaction(true);
-			List<String> games = dao.GetAllGames();
+			List<byte[]> games = dao.GetAllGames();
 			assertEquals(games.size(),1);
 
-			assertEquals(games.get(0),"Bloby");
+			assertEquals(new String(games.get(0)), "Bloby");
 
 			plugin.StartTransaction();
-			dao.UpdateGame(1, "blob");
+			dao.UpdateGame(1, "blob".getBytes());
 			plugin.EndTransaction(true);
 
 			games = dao.GetAllGames();
 			assertEquals(games.size(),1);
-			assertEquals(games.get(0),"blob");
+			assertEquals(new String(games.get(0)), "blob");
 
 
 		}
@@ -116,12 +116,12 @@ public class SQLGameDAOTest
 
 		String gameStr = "HI I'M A FAKE GAME ACTING LIKE I'M A REAL GAME";
 		int gameID = 476;
-		gameDao.AddGame(gameID, gameStr);
+		gameDao.AddGame(gameID, gameStr.getBytes());
 		plugin.EndTransaction(true);
 
-		List<String> games = gameDao.GetAllGames();
+		List<byte[]> games = gameDao.GetAllGames();
 		assertEquals(games.size(),1);
-		assertEquals(games.get(0), gameStr);
+		assertEquals(new String(games.get(0)), gameStr);
 		plugin.Close();
 
 	}
@@ -136,15 +136,15 @@ public class SQLGameDAOTest
 
 		String gameStr = "HI I'M A FAKE GAME ACTING LIKE I'M A REAL GAME";
 		int gameID = 476;
-		gameDao.AddGame(gameID, gameStr);
+		gameDao.AddGame(gameID, gameStr.getBytes());
 		
 		String updatedString = "THE FAKE GAME HAS BEEN UPDATED NOW!!! :D";
-		gameDao.UpdateGame(476, updatedString);
+		gameDao.UpdateGame(476, updatedString.getBytes());
 
-		List<String> games = gameDao.GetAllGames();
+		List<byte[]> games = gameDao.GetAllGames();
 		assertEquals(games.size(),1);
-		assertTrue(!games.get(0).equals(gameStr));
-		assertEquals(games.get(0), updatedString);
+		assertTrue(!new String(games.get(0)).equals(gameStr));
+		assertEquals(new String(games.get(0)), updatedString);
 		plugin.Close();
 
 	}
@@ -158,24 +158,25 @@ public class SQLGameDAOTest
 
 		String gameStr1 = "HI";
 		int gameID1 = 476;
-		gameDao.AddGame(gameID1, gameStr1);
+		gameDao.AddGame(gameID1, gameStr1.getBytes());
 		
 		String gameStr2 = "I'M";
 		int gameID2 = 892;
-		gameDao.AddGame(gameID2, gameStr2);
+		gameDao.AddGame(gameID2, gameStr2.getBytes());
 		
 		String gameStr3 = "HAPPY";
 		int gameID3 = 1;
-		gameDao.AddGame(gameID3, gameStr3);
+		gameDao.AddGame(gameID3, gameStr3.getBytes());
 		
-		List<String> gameList = gameDao.GetAllGames();
+		List<byte[]> gameList = gameDao.GetAllGames();
 		
 		boolean foundGame1 = false;
 		boolean foundGame2 = false;
 		boolean foundGame3 = false;
 		
-		for(String s : gameList)
+		for(byte[] game : gameList)
 		{
+			String s = new String(game);
 			if(s.equals(gameStr1))
 			{
 				foundGame1 = true;
@@ -56,29 +56,30 @@ public class SQLPluginTest
 		ICommandDAO commandDao = plugin.GetCommandDAO();
 
 		plugin.StartTransaction();
-		gameDao.AddGame(1, "game1");
+		gameDao.AddGame(1, "game1".getBytes());
 		userDao.AddUser(1, "user1", "passIThink");
-		commandDao.AddCommand(1, "command1");
+		commandDao.AddCommand(1, "command1".getBytes());
 		plugin.EndTransaction(true);
 
 		//  check that insert worked
-		List<String> games = gameDao.GetAllGames();
+		List<byte[]> games = gameDao.GetAllGames();
 		assertTrue(games.size() > 0);
 		List<ServerPlayer> users = userDao.GetAllUsers();
 		assertTrue(users.size() > 0);
-		List<String> commands = commandDao.GetCommands();
+		List<byte[]> commands = commandDao.GetCommands();
 		assertTrue(commands.size() > 0);
 
 
 		plugin.Clear();
 
 		//  check that games cleared
-		List<String> games_cleared = gameDao.GetAllGames();
+		List<byte[]> games_cleared = gameDao.GetAllGames();
 		assertEquals(games_cleared.size(),0);
 		List<ServerPlayer> users_cleared = userDao.GetAllUsers();
 		assertEquals(users_cleared.size(),0);
-		List<String> commands_cleared = commandDao.GetCommands();
+		List<byte[]> commands_cleared = commandDao.GetCommands();
 		assertEquals(commands_cleared.size(),0);
+		plugin.Close();
 
 	}
 	
@@ -89,6 +90,7 @@ public class SQLPluginTest
 		ICommandDAO commandDAO = testTmpPlugin.GetCommandDAO();
 		IGameDAO gameDAO = testTmpPlugin.GetGameDAO();
 		IUserDAO userDAO = testTmpPlugin.GetUserDAO();
+		testTmpPlugin.Close();
 	}
 
 }
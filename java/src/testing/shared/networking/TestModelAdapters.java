@@ -0,0 +1,143 @@
+package testing.shared.networking;
+
+import static org.junit.Assert.*;
+
+import java.util.Iterator;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import server.model.RealServerGameManager;
+import shared.definitions.CatanColor;
+import shared.definitions.DevCardType;
+import shared.definitions.PieceType;
+import shared.definitions.ResourceType;
+import shared.model.Bank;
+import shared.model.GameModel;
+import shared.model.chat.ChatBox;
+import shared.model.map.Coordinate;
+import shared.model.map.handlers.EdgeHandler;
+import shared.model.map.handlers.VertexHandler;
+import shared.model.map.model.MapGenerator;
+import shared.model.map.model.MapModel;
+import shared.model.map.objects.Edge;
+import shared.model.map.objects.Hex;
+import shared.model.map.objects.Vertex;
+import shared.networking.SerializationUtils;
+
+/**
+ * Checks the model's adapters write and read exactly what reflective Gson does.
+ */
+public class TestModelAdapters
+{
+	private Gson reflective;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		reflective = new GsonBuilder().enableComplexMapKeySerialization().create();
+	}
+
+	@Test
+	public void testGameModelMatchesReflection() throws Exception
+	{
+		RealServerGameManager game = new RealServerGameManager("adapter game", true, true, true);
+		game.AddPlayer("Sam", CatanColor.RED, true, 100);
+		game.AddPlayer("Pam", CatanColor.BLUE, true, 101);
+		game.AddPlayer("Tam", CatanColor.GREEN, true, 102);
+		game.AddPlayer("Cam", CatanColor.WHITE, true, 103);
+		game.ServerSendChat(100, "hi <there> & \"you\" caf\u00e9");
+
+		AssertRoundTrip(game.ServerGetModel(), GameModel.class);
+		assertEquals(reflective.toJsonTree(game.ServerGetModel()), SerializationUtils.serializeTree(game.ServerGetModel()));
+	}
+
+	@Test
+	public void testPlayedMapMatchesReflection() throws Exception
+	{
+		MapModel map = MapGenerator.BeginnerMap();
+
+		Iterator<Edge> edges = map.GetEdges();
+		edges.next().SetRoad(CatanColor.ORANGE);
+		edges.next().SetRoad(CatanColor.PURPLE);
+
+		Iterator<Vertex> vertices = map.GetVertices();
+		vertices.next().SetType(PieceType.SETTLEMENT, CatanColor.ORANGE);
+		vertices.next().SetType(PieceType.CITY, CatanColor.PURPLE);
+
+		AssertRoundTrip(map, MapModel.class);
+	}
+
+	@Test
+	public void testBankAndChatMatchReflection() throws Exception
+	{
+		Bank bank = new Bank();
+		bank.resetToBankDefaults();
+		bank.getResource(ResourceType.ORE, 3);
+		bank.giveNewDevCard(DevCardType.MONUMENT);
+		bank.recruitSolider();
+
+		AssertRoundTrip(bank, Bank.class);
+
+		ChatBox chat = new ChatBox();
+		chat.put("one", 0);
+		chat.put("two\n\t\u2603", 3);
+		chat.put(null, 7);
+
+		AssertRoundTrip(chat, ChatBox.class);
+		AssertRoundTrip(new ChatBox(), ChatBox.class);
+	}
+
+	@Test
+	public void testMissingFieldsReadLikeReflection() throws Exception
+	{
+		String[] json = { "{}", "{\"unknown\":[1,{\"a\":null}],\"x\":null}" };
+
+		for (String value : json)
+		{
+			AssertSameRead(value, Coordinate.class);
+			AssertSameRead(value, Hex.class);
+			AssertSameRead(value, Edge.class);
+			AssertSameRead(value, Vertex.class);
+			AssertSameRead(value, Bank.class);
+			AssertSameRead(value, ChatBox.class);
+			AssertSameRead(value, EdgeHandler.class);
+			AssertSameRead(value, VertexHandler.class);
+			AssertSameRead(value, MapModel.class);
+			AssertSameRead(value, GameModel.class);
+		}
+	}
+
+	@Test
+	public void testReadsMapsWrittenAsPairs() throws Exception
+	{
+		String pairs = "{\"edges\":[[7,{\"start\":{\"x\":1,\"y\":2},\"end\":{\"x\":1,\"y\":3},\"roadExists\":true,\"color\":\"RED\"}]]}";
+
+		assertEquals(reflective.toJson(reflective.fromJson(pairs, EdgeHandler.class)),
+				reflective.toJson(SerializationUtils.deserialize(pairs, EdgeHandler.class)));
+	}
+
+	/**
+	 * Checks an object is written as reflection writes it, and that reading it back, either way,
+	 * writes the same bytes again.
+	 */
+	private <T extends java.io.Serializable> void AssertRoundTrip(T object, Class<T> type)
+	{
+		String expected = reflective.toJson(object);
+		String actual = SerializationUtils.serialize(object);
+		assertEquals(expected, actual);
+
+		assertEquals(expected, SerializationUtils.serialize(SerializationUtils.deserialize(actual, type)));
+		assertEquals(expected, reflective.toJson(SerializationUtils.deserialize(actual, type)));
+		assertEquals(expected, SerializationUtils.serialize(reflective.fromJson(expected, type)));
+	}
+
+	private <T extends java.io.Serializable> void AssertSameRead(String json, Class<T> type)
+	{
+		assertEquals(type.getSimpleName(), reflective.toJson(reflective.fromJson(json, type)),
+				reflective.toJson(SerializationUtils.deserialize(json, type)));
+	}
+}